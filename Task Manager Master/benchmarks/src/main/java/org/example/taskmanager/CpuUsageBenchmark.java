@@ -0,0 +1,56 @@
+package org.example.taskmanager;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// CpuUsageTracker over a whole scan: beginScan(), one update() per live pid and sweep(). Every scan a
+// few processes exit and new pids appear, so inserts and deletions are part of the steady state.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CpuUsageBenchmark {
+
+    private static final int CHURN = 20;
+
+    @Param({"1000", "10000"})
+    int processes;
+
+    private CpuUsageTracker tracker;
+    private long[] pids;
+    private long[] cpuMillis;
+    private long nextPid;
+    private long nanos;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tracker = new CpuUsageTracker();
+        pids = new long[processes];
+        cpuMillis = new long[processes];
+        for (int i = 0; i < processes; i++) pids[i] = ++nextPid;
+        scan();
+    }
+
+    // Returns the summed usage so the updates cannot be optimized away
+    @Benchmark
+    public double scan() {
+        nanos += 1_000_000_000L;
+        // Replace a few processes with new pids
+        for (int k = 0; k < CHURN; k++) {
+            int i = (int) ((nextPid * 7919) % processes);
+            pids[i] = ++nextPid;
+            cpuMillis[i] = 0;
+        }
+        double total = 0;
+        tracker.beginScan();
+        for (int i = 0; i < processes; i++) {
+            cpuMillis[i] += i & 15;
+            total += tracker.update(pids[i], cpuMillis[i], nanos);
+        }
+        tracker.sweep();
+        return total;
+    }
+}
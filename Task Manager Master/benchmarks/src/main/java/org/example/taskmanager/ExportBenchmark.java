@@ -0,0 +1,33 @@
+package org.example.taskmanager;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+// CSV export of a 10k-process snapshot: formatting and quoting only, into a writer that discards
+// the bytes, so disk speed does not enter the result.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExportBenchmark {
+
+    private ProcessSnapshot snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        snapshot = ProcFixture.snapshot(10_000, 42);
+    }
+
+    @Benchmark
+    public long processesCsv() throws IOException {
+        try (Writer out = new BufferedWriter(Writer.nullWriter(), 1 << 16)) {
+            return ProcessExporter.writeProcessesCsv(snapshot, null, out, () -> false, done -> { });
+        }
+    }
+}
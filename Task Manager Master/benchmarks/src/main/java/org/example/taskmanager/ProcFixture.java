@@ -0,0 +1,132 @@
+package org.example.taskmanager;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Random;
+
+// Synthetic process tables for the benchmarks, so results do not depend on what the host is running.
+// The same count and seed always give the same processes, both as a /proc-shaped directory tree
+// (stat, statm, status, io, cmdline and task/<tid>/status per pid, plus the btime line of /proc/stat)
+// and as an in-memory ProcessSnapshot.
+final class ProcFixture {
+
+    private static final long BOOT_TIME_SECONDS = 1_700_000_000L;
+    private static final String[] PROGRAMS = {"java", "postgres", "nginx", "python3", "node", "bash", "sshd",
+            "systemd", "chrome", "kworker/0:1"};
+    private static final String[] USERS = {"root", "postgres", "www-data", "alice", "bob"};
+
+    private ProcFixture() {
+    }
+
+    private record Process(long pid, long ppid, String name, String[] argv, int uid, String user, long userTicks,
+                           long systemTicks, int threads, long startTicks, long residentPages, long readBytes,
+                           long writeBytes, long voluntary, long involuntary) {
+    }
+
+    private static Process[] processes(int count, long seed) {
+        Random random = new Random(seed);
+        Process[] processes = new Process[count];
+        for (int i = 0; i < count; i++) {
+            long pid = i + 1;
+            int program = random.nextInt(PROGRAMS.length);
+            String name = PROGRAMS[program];
+            // Kernel threads have no command line
+            String[] argv = name.startsWith("kworker") ? new String[0]
+                    : new String[]{"/usr/bin/" + name, "--instance=" + random.nextInt(100), "--config",
+                    "/etc/" + name + "/conf-" + random.nextInt(20) + ".yml"};
+            int uid = random.nextInt(USERS.length);
+            int threads = random.nextInt(4) == 0 ? 1 + random.nextInt(32) : 1;
+            processes[i] = new Process(pid, i == 0 ? 0 : 1 + random.nextInt(i), name, argv, uid == 0 ? 0 : 1000 + uid,
+                    USERS[uid], random.nextInt(1_000_000), random.nextInt(200_000), threads,
+                    random.nextInt(10_000_000), random.nextInt(500_000), random.nextLong(1L << 34),
+                    random.nextLong(1L << 32), random.nextInt(1_000_000), random.nextInt(100_000));
+        }
+        return processes;
+    }
+
+    // Writes a fixture tree for count processes under root (created if missing)
+    static Path writeProcTree(Path root, int count, long seed) throws IOException {
+        Files.createDirectories(root);
+        write(root.resolve("stat"), "cpu  1 2 3 4 5 6 7 8 0 0\nbtime " + BOOT_TIME_SECONDS + "\n");
+        for (Process p : processes(count, seed)) {
+            Path dir = Files.createDirectories(root.resolve(Long.toString(p.pid())));
+            // Fields 1-24 as in proc(5), the rest zeros up to field 52
+            StringBuilder stat = new StringBuilder()
+                    .append(p.pid()).append(" (").append(p.name()).append(") S ").append(p.ppid())
+                    .append(" ").append(p.pid()).append(" ").append(p.pid()).append(" 0 -1 4194560 1200 0 3 0 ")
+                    .append(p.userTicks()).append(' ').append(p.systemTicks()).append(" 0 0 20 0 ")
+                    .append(p.threads()).append(" 0 ").append(p.startTicks()).append(' ')
+                    .append(p.residentPages() * ProcfsReader.PAGE_SIZE * 3).append(' ').append(p.residentPages());
+            for (int field = 25; field <= 52; field++) stat.append(" 0");
+            write(dir.resolve("stat"), stat.append('\n').toString());
+            write(dir.resolve("statm"), (p.residentPages() * 3) + " " + p.residentPages() + " 812 204 0 9000 0\n");
+            write(dir.resolve("cmdline"), p.argv().length == 0 ? "" : String.join("\0", p.argv()) + "\0");
+            write(dir.resolve("io"), "rchar: 1\nwchar: 1\nsyscr: 1\nsyscw: 1\nread_bytes: " + p.readBytes()
+                    + "\nwrite_bytes: " + p.writeBytes() + "\ncancelled_write_bytes: 0\n");
+            write(dir.resolve("status"), status(p, p.voluntary(), p.involuntary()));
+            if (p.threads() > 1) {
+                for (int t = 0; t < p.threads(); t++) {
+                    Path task = Files.createDirectories(dir.resolve("task").resolve(Long.toString(p.pid() * 1000 + t)));
+                    write(task.resolve("status"), status(p, p.voluntary() / p.threads(), p.involuntary() / p.threads()));
+                }
+            }
+        }
+        return root;
+    }
+
+    private static String status(Process p, long voluntary, long involuntary) {
+        return "Name:\t" + p.name() + "\nUmask:\t0022\nState:\tS (sleeping)\nTgid:\t" + p.pid() + "\nPid:\t"
+                + p.pid() + "\nPPid:\t" + p.ppid() + "\nUid:\t" + p.uid() + "\t" + p.uid() + "\t" + p.uid() + "\t"
+                + p.uid() + "\nGid:\t" + p.uid() + "\t" + p.uid() + "\t" + p.uid() + "\t" + p.uid()
+                + "\nThreads:\t" + p.threads() + "\nvoluntary_ctxt_switches:\t" + voluntary
+                + "\nnonvoluntary_ctxt_switches:\t" + involuntary + "\n";
+    }
+
+    // The same processes as a snapshot, with CPU % and rates filled in
+    static ProcessSnapshot snapshot(int count, long seed) {
+        Random random = new Random(seed ^ 0x5DEECE66DL);
+        Process[] processes = processes(count, seed);
+        ProcessSnapshot.Builder builder = new ProcessSnapshot.Builder(count);
+        for (Process p : processes) {
+            String command = p.argv().length == 0 ? "[" + p.name() + "]" : p.argv()[0];
+            String arguments = p.argv().length <= 1 ? ""
+                    : String.join(" ", Arrays.copyOfRange(p.argv(), 1, p.argv().length));
+            int row = builder.add(p.pid(), p.ppid(), ProcfsReader.ticksToMillis(p.userTicks()),
+                    ProcfsReader.ticksToMillis(p.systemTicks()), p.residentPages() * ProcfsReader.PAGE_SIZE,
+                    BOOT_TIME_SECONDS * 1000 + ProcfsReader.ticksToMillis(p.startTicks()), p.threads(), p.name(),
+                    command, arguments, p.user());
+            builder.setCounters(row, p.readBytes(), p.writeBytes(), p.voluntary(), p.involuntary());
+            builder.setRates(row, random.nextInt(1 << 20), random.nextInt(1 << 20), random.nextInt(500),
+                    random.nextInt(50));
+            builder.setCpuPercent(row, random.nextInt(4) == 0 ? random.nextDouble() * 100 : 0);
+        }
+        return builder.build(System.nanoTime(), BOOT_TIME_SECONDS * 1000 + 86_400_000L);
+    }
+
+    static void delete(Path root) throws IOException {
+        if (root == null || !Files.exists(root)) return;
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
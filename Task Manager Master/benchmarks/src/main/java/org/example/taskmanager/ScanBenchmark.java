@@ -0,0 +1,76 @@
+package org.example.taskmanager;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// The procfs collection path over a generated fixture tree: a full scan as the snapshot engine runs
+// it (cold = every process is new, steady = the previous snapshot's strings are reused), and the
+// per-pid stat and statm reads it is made of. The fixture sits in the page cache, so the file reads
+// cost less than real procfs, which formats its files on each read; compare runs with each other,
+// not with the live host.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScanBenchmark {
+
+    @Param({"1000", "5000"})
+    int processes;
+
+    private Path root;
+    private ProcessSnapshotEngine engine;
+    private ProcessSnapshot steady;
+    private ProcfsReader reader;
+    private long nextPid;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = ProcFixture.writeProcTree(Files.createTempDirectory("proc-fixture"), processes, 42);
+        engine = new ProcessSnapshotEngine(root);
+        steady = engine.scan(ProcessSnapshot.EMPTY);
+        reader = new ProcfsReader(root);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        engine.shutdown();
+        ProcFixture.delete(root);
+    }
+
+    @Benchmark
+    public ProcessSnapshot fullScanCold() throws IOException {
+        return engine.scan(ProcessSnapshot.EMPTY);
+    }
+
+    @Benchmark
+    public ProcessSnapshot fullScanSteady() throws IOException {
+        return engine.scan(steady);
+    }
+
+    // One process per call, cycling through the table
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void readStat(Blackhole blackhole) {
+        blackhole.consume(reader.readStat(pid()));
+        blackhole.consume(reader.userTicks());
+    }
+
+    // What LinuxMemoryReader.getMemory does, against the fixture instead of /proc
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public long readResidentPages() {
+        return reader.readResidentPages(pid());
+    }
+
+    private long pid() {
+        nextPid = nextPid % processes + 1;
+        return nextPid;
+    }
+}
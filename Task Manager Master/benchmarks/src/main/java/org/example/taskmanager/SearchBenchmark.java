@@ -0,0 +1,51 @@
+package org.example.taskmanager;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Search box filtering over 10k synthetic processes: building the trigram index for a new snapshot
+// (from scratch and incrementally from the previous index) and evaluating queries against it.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"java", "conf-1", "user:postgres cpu>20", "rss>1g", "pid:99"})
+    String query;
+
+    private ProcessSnapshot snapshot;
+    private ProcessSearchIndex index;
+    private ProcessQuery parsed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        snapshot = ProcFixture.snapshot(10_000, 42);
+        index = ProcessSearchIndex.build(snapshot, null);
+        parsed = ProcessQuery.parse(query);
+    }
+
+    @Benchmark
+    public long[] evaluate() {
+        return parsed.evaluate(index);
+    }
+
+    @Benchmark
+    public long[] parseAndEvaluate() {
+        return ProcessQuery.parse(query).evaluate(index);
+    }
+
+    // Independent of the query; run with -p query=java to measure it once
+    @Benchmark
+    public ProcessSearchIndex buildIndex() {
+        return ProcessSearchIndex.build(snapshot, null);
+    }
+
+    @Benchmark
+    public ProcessSearchIndex rebuildIndex() {
+        return ProcessSearchIndex.build(snapshot, index);
+    }
+}
@@ -0,0 +1,151 @@
+package org.example.taskmanager;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// Runs a task repeatedly, scheduling the next run only after the previous one has finished, so slow
+// runs never pile up. The delay starts from the user's base interval and is then adjusted:
+//  - stretched so the task's CPU cost stays under CPU_BUDGET of one core. Cost is the CPU time of the
+//    thread running the task plus whatever the task reports for the workers it fans out to (see the
+//    workerNanos supplier); the rest of the process, UI included, does not count against the task;
+//  - raised to BACKGROUND_MILLIS while the UI showing the results is in the background;
+//  - lowered to SPIKE_MILLIS while system CPU is spiking, unless that would break the budget.
+public class AdaptiveScheduler {
+
+    private static final double CPU_BUDGET = 0.01;
+    private static final long BACKGROUND_MILLIS = 10_000;
+    private static final long SPIKE_MILLIS = 1_000;
+    private static final long MAX_MILLIS = 60_000;
+    private static final double SPIKE_CPU = 80;
+    private static final double SPIKE_JUMP = 25;
+    private static final int WARMUP_RUNS = 2;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    // Without per-thread CPU time the task thread's share falls back to wall time
+    private static final boolean THREAD_CPU = THREADS.isCurrentThreadCpuTimeSupported()
+            && THREADS.isThreadCpuTimeEnabled();
+
+    private final ScheduledExecutorService executor;
+    private final Runnable task;
+    private final LongSupplier workerNanos;
+
+    private volatile long baseMillis = 2_000;
+    private volatile boolean background;
+    private volatile boolean spiking;
+    private volatile double averageCostNanos;
+    private volatile long currentMillis = baseMillis;
+    private double averageSystemCpu = -1;
+    private int runs;
+
+    private ScheduledFuture<?> next;
+    private long epoch;
+    private boolean running;
+
+    public AdaptiveScheduler(ScheduledExecutorService executor, Runnable task) {
+        this(executor, task, () -> 0);
+    }
+
+    // workerNanos is a running total of the time the task's workers have spent on it
+    public AdaptiveScheduler(ScheduledExecutorService executor, Runnable task, LongSupplier workerNanos) {
+        this.executor = executor;
+        this.task = task;
+        this.workerNanos = workerNanos;
+    }
+
+    // (Re)starts with a new base interval; the first run happens right away.
+    public synchronized void start(long baseIntervalMillis) {
+        baseMillis = baseIntervalMillis;
+        if (next != null) next.cancel(false);
+        running = true;
+        long runEpoch = ++epoch;
+        next = executor.schedule(() -> run(runEpoch), 0, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        running = false;
+        epoch++;
+        if (next != null) next.cancel(false);
+    }
+
+    public void setBackground(boolean background) {
+        if (this.background == background) return;
+        this.background = background;
+        reschedule();
+    }
+
+    // Fed with system CPU % on every overview tick. A spike is high absolute load or a sudden jump
+    // above the recent average.
+    public synchronized void noteSystemCpu(double percent) {
+        boolean wasSpiking = spiking;
+        spiking = percent >= SPIKE_CPU || (averageSystemCpu >= 0 && percent - averageSystemCpu >= SPIKE_JUMP);
+        averageSystemCpu = averageSystemCpu < 0 ? percent : averageSystemCpu * 0.8 + percent * 0.2;
+        if (spiking && !wasSpiking) reschedule();
+    }
+
+    public boolean isBackground() {
+        return background;
+    }
+
+    public long getCurrentIntervalMillis() {
+        return currentMillis;
+    }
+
+    private void run(long runEpoch) {
+        long before = threadNanos();
+        long workersBefore = workerNanos.getAsLong();
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            System.err.println("Scheduled task failed: " + e.getMessage());
+        }
+        long after = threadNanos();
+        long workers = workerNanos.getAsLong() - workersBefore;
+        // The first runs pay for class loading, JIT and cold caches; they would skew the average
+        if (++runs > WARMUP_RUNS && before >= 0 && after >= before) {
+            double cost = after - before + Math.max(0, workers);
+            averageCostNanos = averageCostNanos == 0 ? cost : averageCostNanos * 0.7 + cost * 0.3;
+        }
+
+        synchronized (this) {
+            if (!running || runEpoch != epoch) return;
+            next = executor.schedule(() -> run(runEpoch), nextDelayMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Brings the pending run forward to at most delayMillis from now. The early run takes the place of
+    // the pending one, and the run after it follows the usual delay, so this never adds runs.
+    public void runWithin(long delayMillis) {
+        bringForward(delayMillis);
+    }
+
+    // Brings the pending run forward when the conditions now call for a shorter delay. A run that
+    // has already started cannot be cancelled and schedules its successor with the new delay anyway.
+    private synchronized void reschedule() {
+        bringForward(nextDelayMillis());
+    }
+
+    private synchronized void bringForward(long delay) {
+        if (!running || next == null) return;
+        if (next.getDelay(TimeUnit.MILLISECONDS) <= delay || !next.cancel(false)) return;
+        long runEpoch = epoch;
+        next = executor.schedule(() -> run(runEpoch), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private static long threadNanos() {
+        return THREAD_CPU ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    private long nextDelayMillis() {
+        long interval = baseMillis;
+        if (spiking) interval = Math.min(interval, SPIKE_MILLIS);
+        else if (background) interval = Math.max(interval, BACKGROUND_MILLIS);
+        long budgetMillis = (long) (averageCostNanos / CPU_BUDGET / 1_000_000);
+        interval = Math.min(MAX_MILLIS, Math.max(interval, budgetMillis));
+        currentMillis = interval;
+        return interval;
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.taskmanager;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+
+// Headless entry point for servers without a display: runs the same ProcessSnapshotEngine as the UI
+// and serves it through AgentServer. No JavaFX classes are loaded.
+//
+//   java -cp TaskManager.jar org.example.taskmanager.AgentMain [--port=9470] [--bind=127.0.0.1] [--interval=2000]
+public class AgentMain {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = 9470;
+        String bind = "127.0.0.1";
+        long interval = 2000;
+        for (String arg : args) {
+            try {
+                if (arg.startsWith("--port=")) port = Integer.parseInt(arg.substring(7));
+                else if (arg.startsWith("--bind=")) bind = arg.substring(7);
+                else if (arg.startsWith("--interval=")) interval = Long.parseLong(arg.substring(11));
+                else throw new IllegalArgumentException();
+            } catch (IllegalArgumentException e) {
+                System.err.println("Usage: AgentMain [--port=9470] [--bind=127.0.0.1] [--interval=2000]");
+                System.exit(2);
+            }
+        }
+
+        ProcessSnapshotEngine engine = new ProcessSnapshotEngine();
+        AgentServer server = new AgentServer(engine, new InetSocketAddress(bind, port), interval);
+        engine.start(interval);
+        server.start();
+        System.out.println("Agent listening on http://" + bind + ":" + server.getAddress().getPort()
+                + " (/snapshot, /stream)");
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            engine.shutdown();
+            stopped.countDown();
+        }));
+        stopped.await();
+    }
+}
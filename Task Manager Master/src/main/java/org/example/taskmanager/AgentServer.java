@@ -0,0 +1,240 @@
+package org.example.taskmanager;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Serves snapshots from a ProcessSnapshotEngine over HTTP as NDJSON (see SnapshotNdjson):
+//   GET /snapshot?pids=1,2           the latest snapshot, optionally only some pids
+//   GET /stream?pids=1,2&interval=ms  a snapshot, then a delta frame per interval while connected
+//
+// Parameters that do not parse (pids that are not numbers or overflow a long) get a 400.
+//
+// Every stream client runs on its own virtual thread and only ever holds the newest snapshot. The
+// engine listener just swaps that reference, so a slow client skips intermediate snapshots (its next
+// delta covers all of them) and can never hold up sampling.
+public class AgentServer implements ProcessSnapshotEngine.Listener {
+
+    private static final long MIN_INTERVAL_MILLIS = 100;
+
+    // A snapshot plus the system-wide numbers sampled with it
+    private record Frame(ProcessSnapshot snapshot, double systemCpu, long memUsed, long memTotal) { }
+
+    private final ProcessSnapshotEngine engine;
+    private final HttpServer server;
+    private final List<StreamClient> clients = new CopyOnWriteArrayList<>();
+    private final AtomicReference<Frame> latest = new AtomicReference<>();
+    private final long defaultIntervalMillis;
+
+    public AgentServer(ProcessSnapshotEngine engine, InetSocketAddress address, long defaultIntervalMillis)
+            throws IOException {
+        this.engine = engine;
+        this.defaultIntervalMillis = defaultIntervalMillis;
+        this.server = HttpServer.create(address, 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/snapshot", this::handleSnapshot);
+        server.createContext("/stream", this::handleStream);
+        engine.addListener(this);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        for (StreamClient client : clients) client.close();
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    @Override
+    public void onSnapshot(ProcessSnapshot snapshot, ProcessDelta delta) {
+        Frame frame = new Frame(snapshot, SystemMonitor.getCpuLoad() * 100,
+                SystemMonitor.getUsedMemory(), SystemMonitor.getTotalMemory());
+        latest.set(frame);
+        for (StreamClient client : clients) client.offer(frame);
+    }
+
+    private Frame currentFrame() {
+        Frame frame = latest.get();
+        return frame != null ? frame : new Frame(engine.getLatest(), 0, 0, 0);
+    }
+
+    private void handleSnapshot(HttpExchange exchange) throws IOException {
+        long[] pids;
+        try {
+            pids = parsePids(queryParam(exchange, "pids"));
+        } catch (NumberFormatException e) {
+            badRequest(exchange);
+            return;
+        }
+        try (exchange) {
+            StringBuilder out = new StringBuilder();
+            appendSnapshot(out, currentFrame(), pids);
+            byte[] body = out.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    private void handleStream(HttpExchange exchange) throws IOException {
+        long[] pids;
+        long interval = defaultIntervalMillis;
+        try {
+            pids = parsePids(queryParam(exchange, "pids"));
+            String intervalParam = queryParam(exchange, "interval");
+            if (intervalParam != null) interval = Math.max(MIN_INTERVAL_MILLIS, Long.parseLong(intervalParam));
+        } catch (NumberFormatException e) {
+            badRequest(exchange);
+            return;
+        }
+
+        StreamClient client = new StreamClient();
+        clients.add(client);
+        try (exchange) {
+            exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream body = exchange.getResponseBody();
+            StringBuilder out = new StringBuilder();
+
+            Frame sent = currentFrame();
+            appendSnapshot(out, sent, pids);
+            write(body, out);
+            long sentAtNanos = System.nanoTime();
+
+            while (!client.closed) {
+                if (!client.signal.tryAcquire(1, TimeUnit.SECONDS)) continue;
+                long waitNanos = TimeUnit.MILLISECONDS.toNanos(interval) - (System.nanoTime() - sentAtNanos);
+                if (waitNanos > 0) TimeUnit.NANOSECONDS.sleep(waitNanos);
+
+                Frame frame = client.pending.getAndSet(null);
+                if (frame == null || frame.snapshot == sent.snapshot) continue;
+                appendDelta(out, sent.snapshot, frame, pids);
+                write(body, out);
+                sent = frame;
+                sentAtNanos = System.nanoTime();
+            }
+        } catch (IOException e) {
+            // client went away
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            clients.remove(client);
+        }
+    }
+
+    private static void badRequest(HttpExchange exchange) throws IOException {
+        exchange.sendResponseHeaders(400, -1);
+        exchange.close();
+    }
+
+    private static void write(OutputStream body, StringBuilder out) throws IOException {
+        body.write(out.toString().getBytes(StandardCharsets.UTF_8));
+        body.flush();
+        out.setLength(0);
+    }
+
+    private static void appendSnapshot(StringBuilder out, Frame frame, long[] pids) {
+        ProcessSnapshot snapshot = frame.snapshot;
+        int rows = 0;
+        for (int i = 0; i < snapshot.size(); i++) {
+            if (matches(pids, snapshot.pid(i))) rows++;
+        }
+        SnapshotNdjson.appendHeader(out, "snapshot", snapshot.getCapturedAtMillis(), frame.systemCpu,
+                frame.memUsed, frame.memTotal, rows);
+        for (int i = 0; i < snapshot.size(); i++) {
+            if (matches(pids, snapshot.pid(i))) SnapshotNdjson.appendRow(out, null, snapshot, i);
+        }
+    }
+
+    // Delta against the last snapshot this client was sent, however many scans ago that was
+    private static void appendDelta(StringBuilder out, ProcessSnapshot previous, Frame frame, long[] pids) {
+        ProcessSnapshot snapshot = frame.snapshot;
+        ProcessDelta delta = ProcessDelta.between(previous, snapshot);
+        int rows = 0;
+        for (int i : delta.getAdded()) if (matches(pids, snapshot.pid(i))) rows++;
+        for (int i : delta.getChanged()) if (matches(pids, snapshot.pid(i))) rows++;
+        for (long pid : delta.getRemoved()) if (matches(pids, pid)) rows++;
+
+        SnapshotNdjson.appendHeader(out, "delta", snapshot.getCapturedAtMillis(), frame.systemCpu,
+                frame.memUsed, frame.memTotal, rows);
+        // Removals first: a reused pid is reported as removed and added again
+        for (long pid : delta.getRemoved()) {
+            if (matches(pids, pid)) SnapshotNdjson.appendRemove(out, pid);
+        }
+        for (int i : delta.getAdded()) {
+            if (matches(pids, snapshot.pid(i))) SnapshotNdjson.appendRow(out, "add", snapshot, i);
+        }
+        for (int i : delta.getChanged()) {
+            if (matches(pids, snapshot.pid(i))) SnapshotNdjson.appendRow(out, "change", snapshot, i);
+        }
+    }
+
+    private static boolean matches(long[] pids, long pid) {
+        return pids == null || Arrays.binarySearch(pids, pid) >= 0;
+    }
+
+    // Sorted pid filter, or null for all processes. Throws NumberFormatException for anything but
+    // comma-separated pids, including one too large for a long.
+    private static long[] parsePids(String value) {
+        if (value == null || value.isBlank()) return null;
+        String[] parts = value.split(",");
+        long[] pids = new long[parts.length];
+        int count = 0;
+        for (String part : parts) {
+            part = part.trim();
+            if (part.isEmpty()) continue;
+            if (!part.chars().allMatch(Character::isDigit)) throw new NumberFormatException("Not a pid: " + part);
+            pids[count++] = Long.parseLong(part);
+        }
+        if (count == 0) return null;
+        Arrays.sort(pids, 0, count);
+        return Arrays.copyOf(pids, count);
+    }
+
+    private static String queryParam(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) return null;
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            if (key.equals(name)) {
+                return eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static final class StreamClient {
+        final AtomicReference<Frame> pending = new AtomicReference<>();
+        final Semaphore signal = new Semaphore(0);
+        volatile boolean closed;
+
+        // Called on the engine thread: replace, never queue
+        void offer(Frame frame) {
+            pending.set(frame);
+            if (signal.availablePermits() == 0) signal.release();
+        }
+
+        void close() {
+            closed = true;
+            signal.release();
+        }
+    }
+}
@@ -0,0 +1,403 @@
+package org.example.taskmanager;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+// Evaluates AlertRules against every scan. Rules are compiled once into per-metric indexes sorted by
+// threshold, and only the rows of the delta are looked at:
+//
+//   added row     the rules whose threshold the value is past (a prefix or suffix of the index)
+//   changed row   the rules whose threshold lies between the old and the new value, found by binary
+//                 search; a rule outside that range cannot have changed state
+//   removed pid   breach state is dropped and the exit rules run against the old row
+//
+// Favorites come and go between scans without a delta row to show it, so favorite rules also look at
+// the pids that became (or stopped being) favorites since the last scan: a new favorite is checked
+// against its current value at once rather than on its next threshold crossing.
+//
+// A breach becomes an event once it has lasted the rule's duration. Pending breaches of a rule are
+// queued in the order they started, so they also come due in that order and each scan only looks at
+// the ones that are due. The cost per scan is thus O(delta rows * (log rules + state changes)),
+// independent of how many processes are running or holding steady.
+//
+// Events go to the listener and to an append-only log (alerts.log, tab separated). Rules are kept in
+// alerts.rules next to it. System rules are fed from the overview loop through onSystem().
+public class AlertEngine implements ProcessSnapshotEngine.Listener, Closeable {
+
+    public record Event(long timeMillis, String rule, String message, boolean cleared) {
+    }
+
+    // Per rule and scan; beyond this one summary event stands in for the rest
+    private static final int MAX_EVENTS_PER_RULE = 10;
+    private static final String DEFAULT_RULES = """
+            # One rule per line, for example:
+            #   process rss > 4g for 30s
+            #   process name:java cpu > 80 for 1m
+            #   system cpu > 90 for 2m
+            #   system mem > 95 for 1m
+            #   favorite exits
+            """;
+
+    private final Path rulesFile;
+    private final Favorites favorites;
+    private final Consumer<Event> listener;
+    private final BufferedWriter log;
+
+    private String rulesText = DEFAULT_RULES;
+    private List<RuleState> rules = List.of();
+    private MetricIndex[] indexes = new MetricIndex[0];
+    private List<RuleState> exitRules = List.of();
+    private List<RuleState> systemRules = List.of();
+    private List<RuleState> favoriteRules = List.of(); // metric rules on favorites
+    private Set<Long> watchedFavorites = Set.of();
+    private ProcessSnapshot previous = ProcessSnapshot.EMPTY;
+    private final List<Event> pendingEvents = new ArrayList<>();
+
+    private static final class Breach {
+        final long pid; // 0 for system rules
+        final long sinceMillis;
+        boolean fired;
+        boolean cleared;
+
+        Breach(long pid, long sinceMillis) {
+            this.pid = pid;
+            this.sinceMillis = sinceMillis;
+        }
+    }
+
+    private static final class RuleState {
+        final AlertRule rule;
+        final Map<Long, Breach> breaches = new HashMap<>();
+        final ArrayDeque<Breach> pending = new ArrayDeque<>(); // oldest first, so also due first
+        Breach system; // the single breach of a system rule
+        int firedThisScan;
+
+        RuleState(AlertRule rule) {
+            this.rule = rule;
+        }
+    }
+
+    // The rules on one process metric, split by direction and sorted by threshold
+    private static final class MetricIndex {
+        final AlertRule.Metric metric;
+        final RuleState[] upper;
+        final double[] upperThresholds;
+        final RuleState[] lower;
+        final double[] lowerThresholds;
+
+        MetricIndex(AlertRule.Metric metric, List<RuleState> rules) {
+            this.metric = metric;
+            Comparator<RuleState> byThreshold = Comparator.comparingDouble(r -> r.rule.getThreshold());
+            upper = rules.stream().filter(r -> r.rule.isUpper()).sorted(byThreshold).toArray(RuleState[]::new);
+            lower = rules.stream().filter(r -> !r.rule.isUpper()).sorted(byThreshold).toArray(RuleState[]::new);
+            upperThresholds = thresholds(upper);
+            lowerThresholds = thresholds(lower);
+        }
+
+        private static double[] thresholds(RuleState[] rules) {
+            double[] thresholds = new double[rules.length];
+            for (int i = 0; i < rules.length; i++) thresholds[i] = rules[i].rule.getThreshold();
+            return thresholds;
+        }
+    }
+
+    public AlertEngine(Path directory, Favorites favorites, Consumer<Event> listener) throws IOException {
+        Files.createDirectories(directory);
+        this.rulesFile = directory.resolve("alerts.rules");
+        this.favorites = favorites;
+        this.listener = listener;
+        this.log = Files.newBufferedWriter(directory.resolve("alerts.log"), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        if (Files.exists(rulesFile)) {
+            List<String> errors = new ArrayList<>();
+            setRules(Files.readString(rulesFile), errors);
+            for (String error : errors) System.err.println("Alert rule ignored, " + error);
+        }
+    }
+
+    public static Path defaultDirectory() {
+        return Path.of(System.getProperty("user.home"), ".taskmanager");
+    }
+
+    public synchronized String getRulesText() {
+        return rulesText;
+    }
+
+    // Compiles and installs the rules that parse, resetting all breach state; unparsable lines are
+    // reported in errors. Rules are seeded from the latest snapshot so they need not wait for changes.
+    public synchronized void setRules(String text, List<String> errors) {
+        List<RuleState> all = new ArrayList<>();
+        for (AlertRule rule : AlertRule.parseAll(text, errors)) all.add(new RuleState(rule));
+        rulesText = text;
+        rules = all;
+        exitRules = all.stream().filter(r -> r.rule.isExitRule()).toList();
+        systemRules = all.stream().filter(r -> r.rule.getScope() == AlertRule.Scope.SYSTEM).toList();
+        favoriteRules = all.stream()
+                .filter(r -> !r.rule.isExitRule() && r.rule.getScope() == AlertRule.Scope.FAVORITE).toList();
+        watchedFavorites = favoriteRules.isEmpty() ? Set.of() : favorites.pids();
+
+        Map<AlertRule.Metric, List<RuleState>> byMetric = new HashMap<>();
+        for (RuleState state : all) {
+            if (state.rule.isExitRule() || state.rule.getScope() == AlertRule.Scope.SYSTEM) continue;
+            byMetric.computeIfAbsent(state.rule.getMetric(), m -> new ArrayList<>()).add(state);
+        }
+        indexes = byMetric.entrySet().stream()
+                .map(e -> new MetricIndex(e.getKey(), e.getValue()))
+                .toArray(MetricIndex[]::new);
+
+        long now = System.currentTimeMillis();
+        for (int row = 0; row < previous.size(); row++) added(previous, row, now);
+    }
+
+    // Saves the rules text for the next start; the rules must already be installed by setRules
+    public void saveRules() throws IOException {
+        Files.writeString(rulesFile, getRulesText());
+    }
+
+    @Override
+    public void onSnapshot(ProcessSnapshot snapshot, ProcessDelta delta) {
+        List<Event> events;
+        synchronized (this) {
+            long now = snapshot.getCapturedAtMillis();
+            for (RuleState state : rules) state.firedThisScan = 0;
+            // First, so the rows of the delta are judged by who is a favorite now
+            if (!favoriteRules.isEmpty()) refavorite(snapshot, now);
+            for (long pid : delta.getRemoved()) removed(pid, now);
+            for (int row : delta.getAdded()) added(snapshot, row, now);
+            for (int row : delta.getChanged()) {
+                int before = previous.indexOf(snapshot.pid(row));
+                if (before < 0) added(snapshot, row, now);
+                else changed(snapshot, row, before, now);
+            }
+            previous = snapshot;
+            for (RuleState state : rules) fireDue(state, now);
+            events = drainEvents();
+        }
+        publish(events);
+    }
+
+    // System-wide values from the overview loop: CPU and memory in percent, the 1-minute load average
+    public void onSystem(long nowMillis, double cpuPercent, double memoryPercent, double load) {
+        List<Event> events;
+        synchronized (this) {
+            for (RuleState state : systemRules) {
+                state.firedThisScan = 0;
+                double value = switch (state.rule.getMetric()) {
+                    case SYSTEM_CPU -> cpuPercent;
+                    case SYSTEM_MEMORY -> memoryPercent;
+                    default -> load;
+                };
+                if (Double.isNaN(value)) continue;
+                boolean breaching = state.rule.breaches(value);
+                if (breaching && state.system == null) {
+                    state.system = begin(state, 0, nowMillis);
+                } else if (!breaching && state.system != null) {
+                    clear(state, state.system, nowMillis, "System: " + state.rule.metricLabel() + " back to "
+                            + state.rule.getMetric().format(value));
+                    state.system = null;
+                }
+                while (!state.pending.isEmpty() && due(state, state.pending.peek(), nowMillis)) {
+                    Breach breach = state.pending.poll();
+                    if (!breach.cleared) fire(state, breach, nowMillis, "System: " + state.rule.describe(value));
+                }
+            }
+            events = drainEvents();
+        }
+        publish(events);
+    }
+
+    private void added(ProcessSnapshot snapshot, int row, long now) {
+        for (MetricIndex index : indexes) {
+            double value = index.metric.valueOf(snapshot, row);
+            // Upper rules breach for thresholds below the value, lower rules for thresholds above it
+            for (int i = 0; i < index.upper.length && index.upperThresholds[i] <= value; i++) {
+                enter(index.upper[i], snapshot, row, value, now);
+            }
+            for (int i = index.lower.length - 1; i >= 0 && index.lowerThresholds[i] >= value; i--) {
+                enter(index.lower[i], snapshot, row, value, now);
+            }
+        }
+    }
+
+    private void changed(ProcessSnapshot snapshot, int row, int before, long now) {
+        for (MetricIndex index : indexes) {
+            double oldValue = index.metric.valueOf(previous, before);
+            double newValue = index.metric.valueOf(snapshot, row);
+            if (oldValue == newValue) continue;
+            double low = Math.min(oldValue, newValue);
+            double high = Math.max(oldValue, newValue);
+            flip(index.upper, index.upperThresholds, low, high, oldValue, newValue, snapshot, row, now);
+            flip(index.lower, index.lowerThresholds, low, high, oldValue, newValue, snapshot, row, now);
+        }
+    }
+
+    private void flip(RuleState[] rules, double[] thresholds, double low, double high, double oldValue,
+                      double newValue, ProcessSnapshot snapshot, int row, long now) {
+        for (int i = lowerBound(thresholds, low); i < thresholds.length && thresholds[i] <= high; i++) {
+            RuleState state = rules[i];
+            boolean was = state.rule.breaches(oldValue);
+            boolean is = state.rule.breaches(newValue);
+            if (was == is) continue;
+            if (is) {
+                enter(state, snapshot, row, newValue, now);
+            } else {
+                Breach breach = state.breaches.remove(snapshot.pid(row));
+                if (breach != null) {
+                    clear(state, breach, now, label(snapshot, row) + ": " + state.rule.metricLabel() + " back to "
+                            + state.rule.getMetric().format(newValue));
+                }
+            }
+        }
+    }
+
+    private void enter(RuleState state, ProcessSnapshot snapshot, int row, double value, long now) {
+        if (!state.rule.breaches(value) || !watches(state, snapshot, row)) return;
+        long pid = snapshot.pid(row);
+        if (state.breaches.containsKey(pid)) return;
+        state.breaches.put(pid, begin(state, pid, now));
+    }
+
+    private void removed(long pid, long now) {
+        for (RuleState state : rules) {
+            if (state.breaches.isEmpty()) continue;
+            Breach breach = state.breaches.remove(pid);
+            if (breach != null) breach.cleared = true; // gone, not recovered: no event
+        }
+        if (exitRules.isEmpty()) return;
+        int row = previous.indexOf(pid);
+        if (row < 0) return;
+        for (RuleState state : exitRules) {
+            // The favorites listener runs first, so the pid is no longer a favorite but just exited as one
+            if (state.rule.getScope() == AlertRule.Scope.FAVORITE && !favorites.hasExited(pid)) continue;
+            if (!state.rule.watches(previous, row)) continue;
+            Breach breach = new Breach(pid, now);
+            fire(state, breach, now, label(previous, row) + " exited after "
+                    + ProcessRow.formatDuration(Math.max(0, now - previous.startMillis(row)) / 1000));
+        }
+    }
+
+    // New favorites enter the rules they already breach; former ones leave theirs without an event
+    private void refavorite(ProcessSnapshot snapshot, long now) {
+        Set<Long> current = favorites.pids();
+        if (current.equals(watchedFavorites)) return;
+        for (long pid : current) {
+            if (watchedFavorites.contains(pid)) continue;
+            int row = snapshot.indexOf(pid);
+            if (row < 0) continue;
+            for (RuleState state : favoriteRules) {
+                enter(state, snapshot, row, state.rule.getMetric().valueOf(snapshot, row), now);
+            }
+        }
+        for (long pid : watchedFavorites) {
+            if (current.contains(pid)) continue;
+            for (RuleState state : favoriteRules) {
+                Breach breach = state.breaches.remove(pid);
+                if (breach != null) breach.cleared = true;
+            }
+        }
+        watchedFavorites = current;
+    }
+
+    private boolean watches(RuleState state, ProcessSnapshot snapshot, int row) {
+        if (state.rule.getScope() == AlertRule.Scope.FAVORITE && !favorites.contains(snapshot.pid(row))) return false;
+        return state.rule.watches(snapshot, row);
+    }
+
+    // Every breach is queued, even without a duration: it then comes due at the end of the same scan
+    private static Breach begin(RuleState state, long pid, long now) {
+        Breach breach = new Breach(pid, now);
+        state.pending.add(breach);
+        return breach;
+    }
+
+    // Pending process breaches whose duration has passed; cleared ones are just dropped
+    private void fireDue(RuleState state, long now) {
+        if (state.rule.getScope() == AlertRule.Scope.SYSTEM) return;
+        while (!state.pending.isEmpty() && due(state, state.pending.peek(), now)) {
+            Breach breach = state.pending.poll();
+            if (breach.cleared) continue;
+            int row = previous.indexOf(breach.pid);
+            if (row < 0) continue;
+            fire(state, breach, now, label(previous, row) + ": "
+                    + state.rule.describe(state.rule.getMetric().valueOf(previous, row)));
+        }
+        if (state.firedThisScan > MAX_EVENTS_PER_RULE) {
+            pendingEvents.add(new Event(now, state.rule.getText(),
+                    "... and " + (state.firedThisScan - MAX_EVENTS_PER_RULE) + " more processes", false));
+        }
+    }
+
+    private static boolean due(RuleState state, Breach breach, long now) {
+        return breach.cleared || now - breach.sinceMillis >= state.rule.getDurationMillis();
+    }
+
+    private void fire(RuleState state, Breach breach, long now, String message) {
+        breach.fired = true;
+        if (++state.firedThisScan > MAX_EVENTS_PER_RULE) return;
+        pendingEvents.add(new Event(now, state.rule.getText(), message, false));
+    }
+
+    private void clear(RuleState state, Breach breach, long now, String message) {
+        breach.cleared = true;
+        if (breach.fired) pendingEvents.add(new Event(now, state.rule.getText(), message, true));
+    }
+
+    private List<Event> drainEvents() {
+        if (pendingEvents.isEmpty()) return List.of();
+        List<Event> events = new ArrayList<>(pendingEvents);
+        pendingEvents.clear();
+        return events;
+    }
+
+    // Outside the engine lock: the log write and the listener may block
+    private void publish(List<Event> events) {
+        if (events.isEmpty()) return;
+        synchronized (log) {
+            try {
+                for (Event event : events) {
+                    log.write(Instant.ofEpochMilli(event.timeMillis()) + "\t" + (event.cleared() ? "cleared" : "fired")
+                            + "\t" + event.rule() + "\t" + event.message());
+                    log.newLine();
+                }
+                log.flush();
+            } catch (IOException e) {
+                System.err.println("Failed to write alert log: " + e.getMessage());
+            }
+        }
+        for (Event event : events) listener.accept(event);
+    }
+
+    private static String label(ProcessSnapshot snapshot, int row) {
+        return snapshot.name(row) + " (PID " + snapshot.pid(row) + ")";
+    }
+
+    // First index whose threshold is >= value
+    private static int lowerBound(double[] thresholds, double value) {
+        int index = Arrays.binarySearch(thresholds, value);
+        if (index < 0) return -index - 1;
+        while (index > 0 && thresholds[index - 1] == value) index--;
+        return index;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (log) {
+            log.close();
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package org.example.taskmanager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// One alert rule, parsed once from a line of text:
+//
+//   process rss > 4g for 30s              any process above 4 GB resident for 30 seconds
+//   process name:java cpu > 80 for 1m     filters (name:, user:) narrow the processes a rule watches
+//   system cpu > 90 for 2m                system metrics: cpu and mem (percent), load (1-minute average)
+//   favorite exits                        a process marked as favorite went away
+//   process name:postgres exits
+//
+// Process metrics are cpu (%), rss, threads, read and write (bytes/s); sizes accept k/m/g suffixes.
+// Operators are >, >=, <, <=; "for <n>s|m|h" is optional and defaults to firing on the first scan.
+// Blank lines and lines starting with # are not rules.
+public final class AlertRule {
+
+    public enum Scope { PROCESS, FAVORITE, SYSTEM }
+
+    public enum Metric {
+        CPU, RSS, THREADS, READ, WRITE, // per process
+        SYSTEM_CPU, SYSTEM_MEMORY, SYSTEM_LOAD;
+
+        double valueOf(ProcessSnapshot snapshot, int row) {
+            return switch (this) {
+                case CPU -> snapshot.cpuPercent(row);
+                case RSS -> snapshot.rssBytes(row);
+                case THREADS -> snapshot.threads(row);
+                case READ -> snapshot.readBytesPerSec(row);
+                case WRITE -> snapshot.writeBytesPerSec(row);
+                default -> throw new IllegalStateException(this + " is not a process metric");
+            };
+        }
+
+        String format(double value) {
+            return switch (this) {
+                case RSS -> ProcessRow.formatBytes((long) value);
+                case READ, WRITE -> ProcessRow.formatBytes((long) value) + "/s";
+                case CPU, SYSTEM_CPU, SYSTEM_MEMORY -> String.format("%.1f%%", value);
+                case THREADS -> String.valueOf((long) value);
+                case SYSTEM_LOAD -> String.format("%.2f", value);
+            };
+        }
+    }
+
+    private final String text;
+    private final Scope scope;
+    private final String nameFilter;
+    private final String userFilter;
+    private final Metric metric; // null for an exit rule
+    private final String op;
+    private final double threshold;
+    private final long durationMillis;
+
+    private AlertRule(String text, Scope scope, String nameFilter, String userFilter, Metric metric, String op,
+                      double threshold, long durationMillis) {
+        this.text = text;
+        this.scope = scope;
+        this.nameFilter = nameFilter;
+        this.userFilter = userFilter;
+        this.metric = metric;
+        this.op = op;
+        this.threshold = threshold;
+        this.durationMillis = durationMillis;
+    }
+
+    // Parses every rule in text; lines that fail are reported in errors as "line N: message"
+    public static List<AlertRule> parseAll(String text, List<String> errors) {
+        List<AlertRule> rules = new ArrayList<>();
+        String[] lines = text.split("\n");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            try {
+                rules.add(parse(line));
+            } catch (IllegalArgumentException e) {
+                errors.add("line " + (i + 1) + ": " + e.getMessage());
+            }
+        }
+        return rules;
+    }
+
+    public static AlertRule parse(String line) {
+        String[] tokens = line.trim().toLowerCase(Locale.ROOT).split("\\s+");
+        Scope scope = switch (tokens[0]) {
+            case "process", "any" -> Scope.PROCESS;
+            case "favorite", "favorites" -> Scope.FAVORITE;
+            case "system" -> Scope.SYSTEM;
+            default -> throw new IllegalArgumentException("expected process, favorite or system, got '" + tokens[0] + "'");
+        };
+
+        int pos = 1;
+        String name = null;
+        String user = null;
+        while (pos < tokens.length && tokens[pos].indexOf(':') > 0) {
+            String token = tokens[pos++];
+            String value = token.substring(token.indexOf(':') + 1);
+            if (scope == Scope.SYSTEM) throw new IllegalArgumentException("system rules take no filters");
+            switch (token.substring(0, token.indexOf(':'))) {
+                case "name", "cmd", "command" -> name = value;
+                case "user" -> user = value;
+                default -> throw new IllegalArgumentException("unknown filter '" + token + "'");
+            }
+        }
+
+        if (pos < tokens.length && tokens[pos].equals("exits")) {
+            if (scope == Scope.SYSTEM) throw new IllegalArgumentException("only processes can exit");
+            if (pos + 1 != tokens.length) throw new IllegalArgumentException("nothing may follow 'exits'");
+            return new AlertRule(line.trim(), scope, name, user, null, null, 0, 0);
+        }
+
+        // The comparison may be written with or without spaces: "rss>4g" or "rss > 4g"
+        StringBuilder comparison = new StringBuilder();
+        while (pos < tokens.length && !tokens[pos].equals("for")) comparison.append(tokens[pos++]);
+        long duration = 0;
+        if (pos < tokens.length) {
+            if (pos + 2 != tokens.length) throw new IllegalArgumentException("expected 'for <duration>' at the end");
+            duration = parseDuration(tokens[pos + 1]);
+        }
+
+        String expr = comparison.toString();
+        int opStart = 0;
+        while (opStart < expr.length() && "<>=".indexOf(expr.charAt(opStart)) < 0) opStart++;
+        if (opStart == 0 || opStart == expr.length()) {
+            throw new IllegalArgumentException("expected a comparison such as 'cpu > 90' or 'exits'");
+        }
+        int opEnd = opStart + 1;
+        if (opEnd < expr.length() && expr.charAt(opEnd) == '=') opEnd++;
+        String op = expr.substring(opStart, opEnd);
+        if (op.equals("=") || op.equals("==")) throw new IllegalArgumentException("use >, >=, < or <=");
+
+        String metricName = expr.substring(0, opStart);
+        Metric metric = scope == Scope.SYSTEM
+                ? switch (metricName) {
+                    case "cpu" -> Metric.SYSTEM_CPU;
+                    case "mem", "memory" -> Metric.SYSTEM_MEMORY;
+                    case "load" -> Metric.SYSTEM_LOAD;
+                    default -> throw new IllegalArgumentException("unknown system metric '" + metricName + "'");
+                }
+                : switch (metricName) {
+                    case "cpu" -> Metric.CPU;
+                    case "rss", "mem" -> Metric.RSS;
+                    case "threads" -> Metric.THREADS;
+                    case "read" -> Metric.READ;
+                    case "write" -> Metric.WRITE;
+                    default -> throw new IllegalArgumentException("unknown process metric '" + metricName + "'");
+                };
+        return new AlertRule(line.trim(), scope, name, user, metric, op, parseValue(expr.substring(opEnd)), duration);
+    }
+
+    private static double parseValue(String number) {
+        if (number.endsWith("%")) number = number.substring(0, number.length() - 1);
+        double multiplier = 1;
+        if (!number.isEmpty()) {
+            multiplier = switch (number.charAt(number.length() - 1)) {
+                case 'k' -> 1L << 10;
+                case 'm' -> 1L << 20;
+                case 'g' -> 1L << 30;
+                default -> 1;
+            };
+            if (multiplier > 1) number = number.substring(0, number.length() - 1);
+        }
+        try {
+            return Double.parseDouble(number) * multiplier;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("'" + number + "' is not a number");
+        }
+    }
+
+    private static long parseDuration(String token) {
+        if (token.length() < 2) throw new IllegalArgumentException("bad duration '" + token + "'");
+        long unit = switch (token.charAt(token.length() - 1)) {
+            case 's' -> 1_000;
+            case 'm' -> 60_000;
+            case 'h' -> 3_600_000;
+            default -> throw new IllegalArgumentException("duration needs s, m or h: '" + token + "'");
+        };
+        try {
+            return (long) (Double.parseDouble(token.substring(0, token.length() - 1)) * unit);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bad duration '" + token + "'");
+        }
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    public Metric getMetric() {
+        return metric;
+    }
+
+    public boolean isExitRule() {
+        return metric == null;
+    }
+
+    // True for >, >=: breaching values lie above the threshold
+    boolean isUpper() {
+        return op.charAt(0) == '>';
+    }
+
+    public double getThreshold() {
+        return threshold;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    boolean breaches(double value) {
+        return switch (op) {
+            case ">" -> value > threshold;
+            case ">=" -> value >= threshold;
+            case "<" -> value < threshold;
+            default -> value <= threshold;
+        };
+    }
+
+    // Name and user filters, checked against one row
+    boolean watches(ProcessSnapshot snapshot, int row) {
+        if (nameFilter != null && !snapshot.name(row).toLowerCase(Locale.ROOT).contains(nameFilter)
+                && !snapshot.commandLine(row).toLowerCase(Locale.ROOT).contains(nameFilter)) {
+            return false;
+        }
+        return userFilter == null || snapshot.user(row).toLowerCase(Locale.ROOT).contains(userFilter);
+    }
+
+    String metricLabel() {
+        return metric.name().toLowerCase(Locale.ROOT).replace("system_", "");
+    }
+
+    String describe(double value) {
+        String text = metricLabel() + " " + metric.format(value)
+                + " " + op + " " + metric.format(threshold);
+        return durationMillis > 0 ? text + " for " + ProcessRow.formatDuration(durationMillis / 1000) : text;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
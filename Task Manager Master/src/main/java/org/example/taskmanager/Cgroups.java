@@ -0,0 +1,159 @@
+package org.example.taskmanager;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// cgroup v2 (unified hierarchy) helpers. A process's cgroup is the "0::<path>" line of
+// /proc/<pid>/cgroup and its files live under /sys/fs/cgroup/<path>. On cgroup v1 or outside Linux
+// AVAILABLE is false and nothing here is used.
+//
+// ownLimits() finds the tightest memory.max and cpu.max on the way from this process's cgroup up to
+// and including the root, which is what a container or a systemd unit with limits actually gets to use.
+public final class Cgroups {
+
+    public static final Path ROOT = Path.of("/sys/fs/cgroup");
+    public static final boolean AVAILABLE = OperatingSystem.CURRENT == OperatingSystem.LINUX
+            && Files.exists(ROOT.resolve("cgroup.controllers"));
+
+    // Unlimited memory.max or cpu.max
+    public static final long UNLIMITED = Long.MAX_VALUE;
+
+    // The cgroup (directory) that sets each limit; null where no ancestor sets one
+    public record Limits(Path memoryCgroup, long memoryMaxBytes, Path cpuCgroup, double cpuCores) {
+        static final Limits NONE = new Limits(null, UNLIMITED, null, Double.POSITIVE_INFINITY);
+    }
+
+    // Scope prefixes of container runtimes under systemd, and the name shown for each
+    private static final String[][] RUNTIMES = {
+            {"cri-containerd-", "containerd"}, {"crio-", "cri-o"}, {"docker-", "docker"}, {"libpod-", "podman"}};
+
+    private static final long LIMITS_CACHE_NANOS = 10_000_000_000L;
+    private static Limits ownLimits;
+    private static long ownLimitsReadAt;
+
+    private Cgroups() {
+    }
+
+    // The cgroup v2 path of a process, e.g. "/system.slice/nginx.service", or null if it is gone
+    public static String readPath(Path procRoot, long pid) {
+        try (BufferedReader reader = Files.newBufferedReader(procRoot.resolve(pid + "/cgroup"))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("0::")) return line.substring(3);
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        return null;
+    }
+
+    // The directory of a cgroup path; ".." components (cgroups outside our namespace) stay at the root
+    public static Path directory(Path cgroupRoot, String path) {
+        Path dir = cgroupRoot.resolve(path.startsWith("/") ? path.substring(1) : path).normalize();
+        return dir.startsWith(cgroupRoot) ? dir : cgroupRoot;
+    }
+
+    // A single number such as memory.current; "max" is UNLIMITED and -1 means unreadable
+    public static long readLong(Path file) {
+        try {
+            String value = Files.readString(file).trim();
+            return value.equals("max") ? UNLIMITED : Long.parseLong(value);
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // usage_usec and throttled_usec from cpu.stat, in that order; {-1, -1} if unreadable. throttled_usec
+    // is only there when the cpu controller is enabled for the cgroup, otherwise 0.
+    public static long[] readCpuStat(Path dir) {
+        long[] values = {-1, 0};
+        try (BufferedReader reader = Files.newBufferedReader(dir.resolve("cpu.stat"))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("usage_usec ")) values[0] = Long.parseLong(line.substring(11).trim());
+                else if (line.startsWith("throttled_usec ")) values[1] = Long.parseLong(line.substring(15).trim());
+            }
+        } catch (IOException | NumberFormatException e) {
+            return new long[]{-1, -1};
+        }
+        return values;
+    }
+
+    // cpu.max is "<quota> <period>" in microseconds, quota "max" when unlimited
+    public static double readCpuCores(Path dir) {
+        try {
+            String[] fields = Files.readString(dir.resolve("cpu.max")).trim().split("\\s+");
+            if (fields.length < 2 || fields[0].equals("max")) return Double.POSITIVE_INFINITY;
+            return Long.parseLong(fields[0]) / (double) Long.parseLong(fields[1]);
+        } catch (IOException | NumberFormatException e) {
+            return Double.POSITIVE_INFINITY;
+        }
+    }
+
+    public static synchronized Limits ownLimits() {
+        long now = System.nanoTime();
+        if (ownLimits != null && now - ownLimitsReadAt < LIMITS_CACHE_NANOS) return ownLimits;
+        ownLimitsReadAt = now;
+        ownLimits = AVAILABLE ? limits(Path.of("/proc"), ROOT, ProcessHandle.current().pid()) : Limits.NONE;
+        return ownLimits;
+    }
+
+    // The tightest limits from the cgroup of pid up to and including cgroupRoot. Inside a container with
+    // its own cgroup namespace the process sits at "/", so the root of the mount is the container's
+    // cgroup and may well carry the limits. A missing file (the host's real root has none) is no limit.
+    static Limits limits(Path procRoot, Path cgroupRoot, long pid) {
+        String path = readPath(procRoot, pid);
+        if (path == null) return Limits.NONE;
+        Path memoryCgroup = null;
+        long memoryMax = UNLIMITED;
+        Path cpuCgroup = null;
+        double cpuCores = Double.POSITIVE_INFINITY;
+        for (Path dir = directory(cgroupRoot, path); dir != null && dir.startsWith(cgroupRoot); dir = dir.getParent()) {
+            long max = readLong(dir.resolve("memory.max"));
+            if (max >= 0 && max < memoryMax) {
+                memoryMax = max;
+                memoryCgroup = dir;
+            }
+            double cores = readCpuCores(dir);
+            if (cores < cpuCores) {
+                cpuCores = cores;
+                cpuCgroup = dir;
+            }
+        }
+        return new Limits(memoryCgroup, memoryMax, cpuCgroup, cpuCores);
+    }
+
+    // A short name for a cgroup: the container runtime and id for containers, the unit otherwise.
+    //   /kubepods.slice/.../kubepods-burstable-pod<uid>.slice/cri-containerd-<id>.scope -> containerd <id>
+    //   /kubepods/burstable/pod<uid>/<id>                                          -> container <id>
+    //   /system.slice/docker-<id>.scope, /docker/<id>                               -> docker <id>
+    //   /system.slice/nginx.service                                                 -> nginx.service
+    public static String describe(String path) {
+        if (path == null || path.isEmpty() || path.equals("/")) return "/";
+        String leaf = path.substring(path.lastIndexOf('/') + 1);
+        if (leaf.endsWith(".scope")) {
+            String unit = leaf.substring(0, leaf.length() - 6);
+            for (String[] runtime : RUNTIMES) {
+                if (unit.startsWith(runtime[0])) return runtime[1] + " " + shortId(unit.substring(runtime[0].length()));
+            }
+        }
+        if (isContainerId(leaf)) {
+            return (path.contains("/docker/") ? "docker " : "container ") + shortId(leaf);
+        }
+        return leaf;
+    }
+
+    private static boolean isContainerId(String leaf) {
+        if (leaf.length() != 64) return false;
+        for (int i = 0; i < leaf.length(); i++) {
+            if (Character.digit(leaf.charAt(i), 16) < 0) return false;
+        }
+        return true;
+    }
+
+    private static String shortId(String id) {
+        return id.length() > 12 ? id.substring(0, 12) : id;
+    }
+}
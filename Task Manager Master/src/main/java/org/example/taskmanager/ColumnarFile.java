@@ -0,0 +1,285 @@
+package org.example.taskmanager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Compact columnar export format. Rows are buffered into blocks of up to BLOCK_ROWS and each block
+// is written column by column, so similar values sit next to each other:
+//
+//   header: magic "TMCF", version, column count, then per column its name (UTF) and type byte
+//   block:  row count (int, 0 ends the file), then per column its byte length (int) and bytes
+//
+// LONG columns store the zigzag varint of the difference to the previous row (timestamps, pids and
+// sizes in sorted order shrink to one or two bytes), DECIMAL columns the same for the value in
+// hundredths, and STRING columns an index into the block's dictionary, with first occurrences
+// written inline as index 0 followed by the UTF-8 bytes. Multi-byte values are big-endian.
+public final class ColumnarFile {
+
+    public enum Type { LONG, DECIMAL, STRING }
+
+    private static final int MAGIC = 0x544D4346; // "TMCF"
+    private static final int VERSION = 1;
+    static final int BLOCK_ROWS = 1 << 16;
+
+    private ColumnarFile() {
+    }
+
+    public static final class Writer implements Closeable {
+        private final DataOutputStream out;
+        private final Type[] types;
+        private final long[][] longs;
+        private final String[][] strings;
+        private final ByteSink sink = new ByteSink();
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        private int rows;
+        private int column;
+
+        public Writer(Path path, String[] names, Type[] types) throws IOException {
+            if (names.length != types.length) throw new IllegalArgumentException("names and types differ in length");
+            this.types = types.clone();
+            this.longs = new long[types.length][];
+            this.strings = new String[types.length][];
+            for (int c = 0; c < types.length; c++) {
+                if (types[c] == Type.STRING) strings[c] = new String[BLOCK_ROWS];
+                else longs[c] = new long[BLOCK_ROWS];
+            }
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(names.length);
+            for (int c = 0; c < names.length; c++) {
+                out.writeUTF(names[c]);
+                out.writeByte(types[c].ordinal());
+            }
+        }
+
+        // Values are given column by column, in declaration order, then endRow()
+        public Writer longValue(long value) {
+            longs[next(Type.LONG)][rows] = value;
+            return this;
+        }
+
+        public Writer decimalValue(double value) {
+            longs[next(Type.DECIMAL)][rows] = Math.round(value * 100);
+            return this;
+        }
+
+        public Writer stringValue(String value) {
+            strings[next(Type.STRING)][rows] = value == null ? "" : value;
+            return this;
+        }
+
+        private int next(Type type) {
+            if (column >= types.length || types[column] != type) {
+                throw new IllegalStateException("column " + column + " is not " + type);
+            }
+            return column++;
+        }
+
+        public void endRow() throws IOException {
+            if (column != types.length) throw new IllegalStateException("row has " + column + " of " + types.length + " columns");
+            column = 0;
+            if (++rows == BLOCK_ROWS) flushBlock();
+        }
+
+        private void flushBlock() throws IOException {
+            if (rows == 0) return;
+            out.writeInt(rows);
+            for (int c = 0; c < types.length; c++) {
+                sink.reset();
+                if (types[c] == Type.STRING) {
+                    dictionary.clear();
+                    String[] values = strings[c];
+                    for (int r = 0; r < rows; r++) {
+                        Integer index = dictionary.get(values[r]);
+                        if (index != null) {
+                            sink.varint(index);
+                            continue;
+                        }
+                        dictionary.put(values[r], dictionary.size() + 1);
+                        byte[] bytes = values[r].getBytes(StandardCharsets.UTF_8);
+                        sink.varint(0);
+                        sink.varint(bytes.length);
+                        sink.bytes(bytes);
+                    }
+                } else {
+                    long[] values = longs[c];
+                    long previous = 0;
+                    for (int r = 0; r < rows; r++) {
+                        long delta = values[r] - previous;
+                        sink.varint((delta << 1) ^ (delta >> 63));
+                        previous = values[r];
+                    }
+                }
+                out.writeInt(sink.size);
+                out.write(sink.data, 0, sink.size);
+            }
+            rows = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flushBlock();
+                out.writeInt(0);
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    // Reads a file block by block: nextBlock() decodes the following block and returns its row count
+    // (0 at the end); values are then available by column and row.
+    public static final class Reader implements Closeable {
+        private final DataInputStream in;
+        private final String[] names;
+        private final Type[] types;
+        private final long[][] longs;
+        private final String[][] strings;
+        private byte[] block = new byte[0];
+
+        public Reader(Path path) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                in.close();
+                throw new IOException("not a columnar export: " + path);
+            }
+            int columns = in.readInt();
+            names = new String[columns];
+            types = new Type[columns];
+            longs = new long[columns][];
+            strings = new String[columns][];
+            for (int c = 0; c < columns; c++) {
+                names[c] = in.readUTF();
+                types[c] = Type.values()[in.readByte()];
+                if (types[c] == Type.STRING) strings[c] = new String[BLOCK_ROWS];
+                else longs[c] = new long[BLOCK_ROWS];
+            }
+        }
+
+        public List<String> getNames() {
+            return List.of(names);
+        }
+
+        public List<Type> getTypes() {
+            return List.of(types);
+        }
+
+        public int nextBlock() throws IOException {
+            int rows;
+            try {
+                rows = in.readInt();
+            } catch (EOFException e) {
+                return 0;
+            }
+            if (rows == 0) return 0;
+            if (rows < 0 || rows > BLOCK_ROWS) throw new IOException("corrupt block header");
+            for (int c = 0; c < types.length; c++) {
+                int length = in.readInt();
+                if (block.length < length) block = new byte[length];
+                in.readFully(block, 0, length);
+                ByteSource source = new ByteSource(block);
+                if (types[c] == Type.STRING) {
+                    List<String> dictionary = new ArrayList<>();
+                    for (int r = 0; r < rows; r++) {
+                        int index = (int) source.varint();
+                        if (index == 0) {
+                            int size = (int) source.varint();
+                            dictionary.add(new String(block, source.pos, size, StandardCharsets.UTF_8));
+                            source.pos += size;
+                            index = dictionary.size();
+                        }
+                        strings[c][r] = dictionary.get(index - 1);
+                    }
+                } else {
+                    long previous = 0;
+                    for (int r = 0; r < rows; r++) {
+                        long zigzag = source.varint();
+                        previous += (zigzag >>> 1) ^ -(zigzag & 1);
+                        longs[c][r] = previous;
+                    }
+                }
+            }
+            return rows;
+        }
+
+        public long longValue(int column, int row) {
+            return longs[column][row];
+        }
+
+        public double decimalValue(int column, int row) {
+            return longs[column][row] / 100.0;
+        }
+
+        public String stringValue(int column, int row) {
+            return strings[column][row];
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static final class ByteSink {
+        byte[] data = new byte[1 << 16];
+        int size;
+
+        void reset() {
+            size = 0;
+        }
+
+        void varint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                data[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[size++] = (byte) value;
+        }
+
+        void bytes(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, data, size, bytes.length);
+            size += bytes.length;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > data.length) data = Arrays.copyOf(data, Math.max(data.length * 2, size + extra));
+        }
+    }
+
+    private static final class ByteSource {
+        final byte[] data;
+        int pos;
+
+        ByteSource(byte[] data) {
+            this.data = data;
+        }
+
+        long varint() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[pos++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package org.example.taskmanager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Local processes grouped by their cgroup v2, i.e. by container, systemd service or session. Runs as a
+// snapshot listener on the scan thread and only while active, so the flat list costs nothing extra.
+//
+// /proc/<pid>/cgroup is read once per new pid; groups are keyed by the inode of the cgroup directory,
+// so a unit that is stopped and started again under the same path starts from fresh counters. Usage
+// comes from the cgroup itself, one cpu.stat and one memory.current per group and scan, instead of
+// being summed over the processes; the limits (cpu.max, memory.max) are re-read every
+// LIMITS_EVERY_SCANS scans. Each scan hands the consumer the stats of every group that has processes.
+public class ContainerGroups implements ProcessSnapshotEngine.Listener {
+
+    private static final int LIMITS_EVERY_SCANS = 10;
+
+    // cpuPercent is a share of all cores, like the process table; throttledPercent is the share of the
+    // elapsed time the group was held back by its cpu.max quota. Limits are Cgroups.UNLIMITED (memory)
+    // or infinite (CPU) when not set.
+    public record Stats(long id, String name, String path, int processes, double cpuPercent, double cpuLimitCores,
+                        double throttledPercent, long memoryBytes, long memoryMaxBytes) {
+    }
+
+    private static final class Group {
+        final long id;
+        final String path;
+        final String name;
+        final Path dir;
+        final Object inode;
+        int processes;
+        long usageMicros = -1;
+        long throttledMicros;
+        long readAtNanos;
+        double cpuPercent;
+        double throttledPercent;
+        long memoryBytes;
+        long memoryMaxBytes = Cgroups.UNLIMITED;
+        double cpuLimitCores = Double.POSITIVE_INFINITY;
+
+        Group(long id, String path, Path dir, Object inode) {
+            this.id = id;
+            this.path = path;
+            this.name = Cgroups.describe(path);
+            this.dir = dir;
+            this.inode = inode;
+        }
+    }
+
+    private final Path procRoot;
+    private final Path cgroupRoot;
+    private final Consumer<List<Stats>> onStats;
+    private final int cores = Runtime.getRuntime().availableProcessors();
+    private volatile boolean active;
+
+    // Only touched on the scan thread
+    private final Map<Long, Group> groupsByPid = new HashMap<>();
+    private final Map<Object, Group> groupsByInode = new HashMap<>();
+    private boolean resolved;
+    private long nextId = 1;
+    private int scans;
+
+    public ContainerGroups(Consumer<List<Stats>> onStats) {
+        this(Path.of("/proc"), Cgroups.ROOT, onStats);
+    }
+
+    public ContainerGroups(Path procRoot, Path cgroupRoot, Consumer<List<Stats>> onStats) {
+        this.procRoot = procRoot;
+        this.cgroupRoot = cgroupRoot;
+        this.onStats = onStats;
+    }
+
+    public static boolean isSupported() {
+        return Cgroups.AVAILABLE;
+    }
+
+    // Takes effect with the next scan; turning it off drops all state
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+
+    @Override
+    public void onSnapshot(ProcessSnapshot snapshot, ProcessDelta delta) {
+        if (!active) {
+            if (resolved) {
+                groupsByPid.clear();
+                groupsByInode.clear();
+                resolved = false;
+            }
+            return;
+        }
+        if (!resolved) {
+            // Everything in the snapshot is new to us
+            for (int row = 0; row < snapshot.size(); row++) assign(snapshot.pid(row));
+            resolved = true;
+            scans = 0;
+        } else {
+            for (long pid : delta.getRemoved()) {
+                Group group = groupsByPid.remove(pid);
+                if (group != null) group.processes--;
+            }
+            for (int row : delta.getAdded()) assign(snapshot.pid(row));
+        }
+
+        boolean readLimits = scans++ % LIMITS_EVERY_SCANS == 0;
+        List<Stats> stats = new ArrayList<>(groupsByInode.size());
+        for (Iterator<Group> it = groupsByInode.values().iterator(); it.hasNext(); ) {
+            Group group = it.next();
+            if (group.processes <= 0) {
+                it.remove();
+                continue;
+            }
+            read(group, readLimits || group.usageMicros < 0);
+            stats.add(new Stats(group.id, group.name, group.path, group.processes, group.cpuPercent,
+                    group.cpuLimitCores, group.throttledPercent, group.memoryBytes, group.memoryMaxBytes));
+        }
+        onStats.accept(stats);
+    }
+
+    private void assign(long pid) {
+        Group previous = groupsByPid.remove(pid);
+        if (previous != null) previous.processes--;
+        String path = Cgroups.readPath(procRoot, pid);
+        if (path == null) return; // exited, or not on cgroup v2
+        Path dir = Cgroups.directory(cgroupRoot, path);
+        Object inode;
+        try {
+            inode = Files.readAttributes(dir, BasicFileAttributes.class).fileKey();
+        } catch (IOException e) {
+            return; // the cgroup was removed since
+        }
+        if (inode == null) inode = dir; // no file keys on this file system
+        Group group = groupsByInode.get(inode);
+        if (group == null) {
+            group = new Group(nextId++, path, dir, inode);
+            groupsByInode.put(inode, group);
+        }
+        group.processes++;
+        groupsByPid.put(pid, group);
+    }
+
+    private void read(Group group, boolean readLimits) {
+        long now = System.nanoTime();
+        long[] cpu = Cgroups.readCpuStat(group.dir);
+        // The first read of a group only sets the baseline
+        if (cpu[0] >= 0 && group.usageMicros >= 0 && now > group.readAtNanos) {
+            double elapsedMicros = (now - group.readAtNanos) / 1e3;
+            group.cpuPercent = Math.max(0, cpu[0] - group.usageMicros) / elapsedMicros * 100 / cores;
+            group.throttledPercent = Math.min(100, Math.max(0, cpu[1] - group.throttledMicros) / elapsedMicros * 100);
+        }
+        group.usageMicros = cpu[0];
+        group.throttledMicros = cpu[1];
+        group.readAtNanos = now;
+        long memory = Cgroups.readLong(group.dir.resolve("memory.current"));
+        if (memory >= 0) group.memoryBytes = memory;
+        if (readLimits) {
+            long max = Cgroups.readLong(group.dir.resolve("memory.max"));
+            group.memoryMaxBytes = max >= 0 ? max : Cgroups.UNLIMITED;
+            group.cpuLimitCores = Cgroups.readCpuCores(group.dir);
+        }
+    }
+}
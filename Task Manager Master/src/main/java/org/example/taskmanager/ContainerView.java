@@ -0,0 +1,136 @@
+package org.example.taskmanager;
+
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.LongProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleLongProperty;
+import javafx.beans.value.ObservableValue;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.control.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+// "Group by Container" mode of the Processes tab: one row per cgroup (container, service, session)
+// with the usage and limits ContainerGroups read from the cgroup itself. apply() runs on the FX
+// thread, updates rows in place and re-applies the sort.
+public class ContainerView extends TableView<ContainerView.Row> {
+
+    public static final class Row {
+        private final long id;
+        private final String name;
+        private final String path;
+        private final IntegerProperty processes = new SimpleIntegerProperty();
+        private final DoubleProperty cpuPercent = new SimpleDoubleProperty();
+        private final DoubleProperty cpuLimitCores = new SimpleDoubleProperty();
+        private final DoubleProperty throttledPercent = new SimpleDoubleProperty();
+        private final LongProperty memoryBytes = new SimpleLongProperty();
+        private final LongProperty memoryMaxBytes = new SimpleLongProperty();
+
+        Row(ContainerGroups.Stats stats) {
+            id = stats.id();
+            name = stats.name();
+            path = stats.path();
+            update(stats);
+        }
+
+        void update(ContainerGroups.Stats stats) {
+            processes.set(stats.processes());
+            cpuPercent.set(stats.cpuPercent());
+            cpuLimitCores.set(stats.cpuLimitCores());
+            throttledPercent.set(stats.throttledPercent());
+            memoryBytes.set(stats.memoryBytes());
+            memoryMaxBytes.set(stats.memoryMaxBytes());
+        }
+    }
+
+    private final ObservableList<Row> rows = FXCollections.observableArrayList();
+    private final Map<Long, Row> rowsById = new HashMap<>();
+
+    public ContainerView() {
+        setItems(rows);
+        setColumnResizePolicy(CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+        setPlaceholder(new Label(ContainerGroups.isSupported() ? "Waiting for the next scan..."
+                : "Grouping needs Linux with cgroup v2"));
+
+        TableColumn<Row, String> nameCol = new TableColumn<>("Group");
+        nameCol.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().name));
+        nameCol.setPrefWidth(200);
+
+        TableColumn<Row, Number> processesCol = numberColumn("Processes", 80, r -> r.processes, Number::toString);
+        TableColumn<Row, Number> cpuCol = numberColumn("CPU %", 70, r -> r.cpuPercent,
+                value -> String.format("%.1f", value.doubleValue()));
+        TableColumn<Row, Number> cpuLimitCol = numberColumn("CPU Limit", 80, r -> r.cpuLimitCores,
+                value -> Double.isInfinite(value.doubleValue()) ? "—"
+                        : String.format("%.2f cores", value.doubleValue()));
+        TableColumn<Row, Number> throttledCol = numberColumn("Throttled", 80, r -> r.throttledPercent,
+                value -> String.format("%.1f%%", value.doubleValue()));
+        TableColumn<Row, Number> memoryCol = numberColumn("Memory", 90, r -> r.memoryBytes,
+                value -> ProcessRow.formatBytes(value.longValue()));
+        TableColumn<Row, Number> memoryMaxCol = numberColumn("Memory Limit", 100, r -> r.memoryMaxBytes,
+                value -> value.longValue() == Cgroups.UNLIMITED ? "—"
+                        : ProcessRow.formatBytes(value.longValue()));
+
+        TableColumn<Row, String> pathCol = new TableColumn<>("Cgroup");
+        pathCol.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().path));
+        pathCol.setPrefWidth(300);
+
+        getColumns().addAll(List.of(nameCol, processesCol, cpuCol, cpuLimitCol, throttledCol, memoryCol, memoryMaxCol,
+                pathCol));
+        cpuCol.setSortType(TableColumn.SortType.DESCENDING);
+        getSortOrder().add(cpuCol);
+    }
+
+    public void apply(List<ContainerGroups.Stats> stats) {
+        Set<Long> seen = new HashSet<>(stats.size() * 2);
+        List<Row> added = new ArrayList<>();
+        for (ContainerGroups.Stats s : stats) {
+            seen.add(s.id());
+            Row row = rowsById.get(s.id());
+            if (row == null) {
+                row = new Row(s);
+                rowsById.put(s.id(), row);
+                added.add(row);
+            } else {
+                row.update(s);
+            }
+        }
+        if (rowsById.size() > seen.size()) {
+            rowsById.keySet().retainAll(seen);
+            rows.removeIf(row -> !seen.contains(row.id));
+        }
+        rows.addAll(added);
+        if (!getSortOrder().isEmpty()) sort();
+    }
+
+    public void clear() {
+        rows.clear();
+        rowsById.clear();
+    }
+
+    private static TableColumn<Row, Number> numberColumn(String title, double width,
+                                                         Function<Row, ObservableValue<Number>> property,
+                                                         Function<Number, String> format) {
+        TableColumn<Row, Number> column = new TableColumn<>(title);
+        column.setCellValueFactory(c -> property.apply(c.getValue()));
+        column.setCellFactory(col -> new TableCell<>() {
+            @Override
+            protected void updateItem(Number value, boolean empty) {
+                super.updateItem(value, empty);
+                setText(empty || value == null ? null : format.apply(value));
+            }
+        });
+        column.setPrefWidth(width);
+        column.setSortType(TableColumn.SortType.DESCENDING);
+        return column;
+    }
+}
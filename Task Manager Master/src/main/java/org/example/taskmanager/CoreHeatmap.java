@@ -0,0 +1,117 @@
+package org.example.taskmanager;
+
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+// Per-core CPU heatmap: one row per core, one column per sample, newest on the right, coloured from
+// idle (dark) through green and yellow to saturated (red). Samples live in a ring buffer of floats and
+// everything is painted on one Canvas, so a new sample costs a redraw and no scene graph changes.
+// All methods must be called on the FX thread.
+public class CoreHeatmap extends Region {
+
+    private static final int HISTORY = 120;
+    private static final double LEFT = 48;
+    private static final double RIGHT = 10;
+    private static final double TOP = 20;
+    private static final double BOTTOM = 4;
+    private static final Color[] PALETTE = new Color[101];
+
+    static {
+        for (int i = 0; i <= 100; i++) {
+            double v = i / 100.0;
+            // 0.0 dark slate, 0.5 green/yellow, 1.0 red
+            PALETTE[i] = v < 0.5
+                    ? Color.hsb(140 - v * 2 * 80, 0.75, 0.25 + v * 1.3)
+                    : Color.hsb(60 - (v - 0.5) * 2 * 60, 0.85, 0.9);
+        }
+    }
+
+    private final Canvas canvas = new Canvas();
+    private final String title;
+    private float[] values = new float[0]; // [sample slot * cores + core]
+    private int cores;
+    private int next;
+    private int count;
+
+    public CoreHeatmap(String title) {
+        this.title = title;
+        getChildren().add(canvas);
+        getStyleClass().add("core-heatmap");
+        setMinSize(200, 60);
+        setPrefSize(600, 90);
+    }
+
+    // busy: 0..1 per core. A change in core count (CPU hotplug) starts a fresh history.
+    public void push(double[] busy) {
+        if (busy.length != cores) {
+            cores = busy.length;
+            values = new float[HISTORY * cores];
+            next = 0;
+            count = 0;
+            setPrefHeight(Math.min(Math.max(TOP + BOTTOM + cores * 8, 60), 220));
+        }
+        for (int core = 0; core < cores; core++) values[next * cores + core] = (float) busy[core];
+        next = (next + 1) % HISTORY;
+        count = Math.min(count + 1, HISTORY);
+        draw();
+    }
+
+    @Override
+    protected void layoutChildren() {
+        double width = getWidth();
+        double height = getHeight();
+        if (canvas.getWidth() != width || canvas.getHeight() != height) {
+            canvas.setWidth(width);
+            canvas.setHeight(height);
+            draw();
+        }
+    }
+
+    private void draw() {
+        long started = SelfMetrics.start();
+        paint();
+        SelfMetrics.record(SelfMetrics.Stage.RENDER, started);
+    }
+
+    private void paint() {
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        gc.clearRect(0, 0, width, height);
+        double plotWidth = width - LEFT - RIGHT;
+        double plotHeight = height - TOP - BOTTOM;
+
+        gc.setFont(Font.font(11));
+        gc.setFill(Color.gray(0.55));
+        gc.setTextAlign(TextAlignment.LEFT);
+        gc.setTextBaseline(VPos.TOP);
+        gc.fillText(title, LEFT, 3);
+        if (cores == 0 || plotWidth < 10 || plotHeight < 4) return;
+
+        double cellWidth = plotWidth / HISTORY;
+        double rowHeight = plotHeight / cores;
+        // Label every core when the rows are tall enough, otherwise every few
+        int labelEvery = Math.max(1, (int) Math.ceil(12 / rowHeight));
+        gc.setTextAlign(TextAlignment.RIGHT);
+        gc.setTextBaseline(VPos.CENTER);
+        for (int core = 0; core < cores; core++) {
+            double y = TOP + core * rowHeight;
+            if (core % labelEvery == 0) {
+                gc.setFill(Color.gray(0.55));
+                gc.fillText("cpu" + core, LEFT - 6, y + rowHeight / 2);
+            }
+            for (int age = 0; age < count; age++) {
+                int slot = Math.floorMod(next - 1 - age, HISTORY);
+                double value = values[slot * cores + core];
+                gc.setFill(PALETTE[(int) Math.round(Math.min(Math.max(value, 0), 1) * 100)]);
+                // Cells overlap by a pixel fraction so no seams show between them
+                gc.fillRect(LEFT + plotWidth - (age + 1) * cellWidth, y, cellWidth + 0.5, Math.max(rowHeight - 1, 1));
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package org.example.taskmanager;
+
+import oshi.SystemInfo;
+import oshi.hardware.CentralProcessor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// Per-core CPU usage, load average and pressure stall information for the Overview tab. sample()
+// turns the cumulative tick counters into shares of the time since the previous call.
+//
+// On Linux everything comes from procfs: the cpu lines of /proc/stat, /proc/loadavg and
+// /proc/pressure/{cpu,memory,io} (PSI, kernel 4.20+; NaN where missing). Elsewhere OSHI supplies the
+// ticks and the load average, in the same user/nice/system/idle/iowait/irq/softirq/steal order.
+public class CpuCoreSampler {
+
+    // Shares of elapsed time, 0..1. busy excludes idle and iowait; iowait is idle time with I/O pending
+    // and steal is time the hypervisor gave to another guest. The arrays are per core.
+    public record Sample(double[] coreBusy, double[] coreIowait, double[] coreSteal,
+                         double busy, double user, double system, double iowait, double steal,
+                         double[] loadAverage, Pressure cpuPressure, Pressure memoryPressure, Pressure ioPressure) {
+    }
+
+    // PSI averages in percent of wall time: "some" = at least one task stalled, "full" = all non-idle
+    // tasks stalled (not reported for cpu on older kernels)
+    public record Pressure(double some10, double some60, double full10, double full60) {
+        static final Pressure UNAVAILABLE = new Pressure(Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+    }
+
+    private static final int USER = 0;
+    private static final int NICE = 1;
+    private static final int SYSTEM = 2;
+    private static final int IDLE = 3;
+    private static final int IOWAIT = 4;
+    private static final int STEAL = 7;
+    private static final int TICK_FIELDS = 8;
+
+    private static final Path PROC = Path.of("/proc");
+
+    private final boolean procfs = OperatingSystem.CURRENT == OperatingSystem.LINUX
+            && Files.isReadable(PROC.resolve("stat"));
+    // Row 0 is the all-cores line, row k + 1 is core k
+    private long[][] previous = new long[0][];
+    private long[][] current = new long[0][];
+
+    public synchronized Sample sample() {
+        int rows = procfs ? readProcStat() : readOshiTicks();
+        long[][] before = previous;
+        int cores = Math.max(rows - 1, 0);
+        double[] coreBusy = new double[cores];
+        double[] coreIowait = new double[cores];
+        double[] coreSteal = new double[cores];
+        double[] total = new double[TICK_FIELDS];
+        for (int row = 0; row < rows; row++) {
+            long[] now = current[row];
+            long[] then = row < before.length && before[row] != null ? before[row] : null;
+            double[] shares = shares(now, then);
+            if (row == 0) {
+                total = shares;
+            } else {
+                coreIowait[row - 1] = shares[IOWAIT];
+                coreSteal[row - 1] = shares[STEAL];
+                coreBusy[row - 1] = busy(shares);
+            }
+        }
+        // Keep this sample's counters as the baseline and reuse the old arrays next time
+        long[][] swap = previous;
+        previous = current;
+        current = swap;
+
+        return new Sample(coreBusy, coreIowait, coreSteal, busy(total), total[USER] + total[NICE], total[SYSTEM],
+                total[IOWAIT], total[STEAL], procfs ? readLoadAverage() : oshiLoadAverage(),
+                readPressure("cpu"), readPressure("memory"), readPressure("io"));
+    }
+
+    private static double[] shares(long[] now, long[] then) {
+        double[] shares = new double[TICK_FIELDS];
+        if (then == null) return shares;
+        long elapsed = 0;
+        for (int f = 0; f < TICK_FIELDS; f++) elapsed += Math.max(0, now[f] - then[f]);
+        if (elapsed == 0) return shares;
+        for (int f = 0; f < TICK_FIELDS; f++) shares[f] = Math.max(0, now[f] - then[f]) / (double) elapsed;
+        return shares;
+    }
+
+    private static double busy(double[] shares) {
+        double elapsed = 0;
+        for (double share : shares) elapsed += share;
+        return elapsed == 0 ? 0 : Math.max(0, elapsed - shares[IDLE] - shares[IOWAIT]);
+    }
+
+    private long[] row(int index) {
+        if (index >= current.length) {
+            current = Arrays.copyOf(current, index + 1);
+            previous = Arrays.copyOf(previous, index + 1);
+        }
+        if (current[index] == null) current[index] = new long[TICK_FIELDS];
+        return current[index];
+    }
+
+    // The cpu lines come first in /proc/stat; reading stops at the first other line
+    private int readProcStat() {
+        int rows = 0;
+        try (BufferedReader reader = Files.newBufferedReader(PROC.resolve("stat"))) {
+            String line;
+            while ((line = reader.readLine()) != null && line.startsWith("cpu")) {
+                // "cpu  user nice system idle iowait irq softirq steal guest guest_nice", guest already in user
+                String[] fields = line.split("\\s+");
+                long[] ticks = row(rows++);
+                for (int f = 0; f < TICK_FIELDS; f++) {
+                    ticks[f] = f + 1 < fields.length ? Long.parseLong(fields[f + 1]) : 0;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Failed to read /proc/stat: " + e.getMessage());
+            return 0;
+        }
+        return rows;
+    }
+
+    private static double[] readLoadAverage() {
+        try {
+            String[] fields = Files.readString(PROC.resolve("loadavg")).trim().split("\\s+");
+            return new double[]{Double.parseDouble(fields[0]), Double.parseDouble(fields[1]), Double.parseDouble(fields[2])};
+        } catch (IOException | RuntimeException e) {
+            return new double[]{Double.NaN, Double.NaN, Double.NaN};
+        }
+    }
+
+    //   some avg10=0.12 avg60=0.05 avg300=0.01 total=123456
+    //   full avg10=0.00 avg60=0.00 avg300=0.00 total=0
+    private Pressure readPressure(String resource) {
+        if (!procfs) return Pressure.UNAVAILABLE;
+        double[] values = {Double.NaN, Double.NaN, Double.NaN, Double.NaN};
+        try (BufferedReader reader = Files.newBufferedReader(PROC.resolve("pressure").resolve(resource))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int offset = line.startsWith("some ") ? 0 : line.startsWith("full ") ? 2 : -1;
+                if (offset < 0) continue;
+                for (String field : line.substring(5).split(" ")) {
+                    if (field.startsWith("avg10=")) values[offset] = Double.parseDouble(field.substring(6));
+                    else if (field.startsWith("avg60=")) values[offset + 1] = Double.parseDouble(field.substring(6));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            return Pressure.UNAVAILABLE;
+        }
+        return new Pressure(values[0], values[1], values[2], values[3]);
+    }
+
+    private int readOshiTicks() {
+        try {
+            long[][] perCore = Oshi.PROCESSOR.getProcessorCpuLoadTicks();
+            long[] all = Oshi.PROCESSOR.getSystemCpuLoadTicks();
+            System.arraycopy(all, 0, row(0), 0, Math.min(all.length, TICK_FIELDS));
+            for (int core = 0; core < perCore.length; core++) {
+                System.arraycopy(perCore[core], 0, row(core + 1), 0, Math.min(perCore[core].length, TICK_FIELDS));
+            }
+            return perCore.length + 1;
+        } catch (RuntimeException | LinkageError e) {
+            System.err.println("Failed to read CPU ticks: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private static double[] oshiLoadAverage() {
+        try {
+            double[] load = Oshi.PROCESSOR.getSystemLoadAverage(3);
+            // Negative where the platform has no load average (Windows)
+            for (int i = 0; i < load.length; i++) if (load[i] < 0) load[i] = Double.NaN;
+            return load;
+        } catch (RuntimeException | LinkageError e) {
+            return new double[]{Double.NaN, Double.NaN, Double.NaN};
+        }
+    }
+
+    // Loaded on first use only, so Linux never initializes OSHI
+    private static final class Oshi {
+        static final CentralProcessor PROCESSOR = new SystemInfo().getHardware().getProcessor();
+    }
+}
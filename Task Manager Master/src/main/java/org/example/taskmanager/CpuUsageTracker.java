@@ -1,34 +1,157 @@
 package org.example.taskmanager;
 
 import java.time.Duration;
-import java.time.Instant;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
+// Remembers the last CPU time seen for each pid so the next sample can be turned into a percentage.
+// Entries live in an open-addressing table of parallel primitive arrays (pid, cpu millis, nanoTime,
+// generation), so there is no boxing. Every scan calls beginScan(), update() for each live pid and
+// then sweep(), which drops pids that were not seen in that scan. All methods are synchronized.
 public class CpuUsageTracker {
 
-    private final Map<Long, Long> lastCpuTime = new HashMap<>();
-    private final Map<Long, Instant> lastTimestamp = new HashMap<>();
+    private static final long FREE = -1;
+    private static final int MIN_CAPACITY = 64;
+
     private final int cores = Runtime.getRuntime().availableProcessors();
 
+    private long[] pids;
+    private long[] cpuMillis;
+    private long[] sampledAtNanos;
+    private int[] generations;
+    private int size;
+    private int generation;
+
+    public CpuUsageTracker() {
+        allocate(MIN_CAPACITY);
+    }
+
     public double getCpuUsage(ProcessHandle process) {
-        long pid = process.pid();
+        long currentCpuTime = process.info().totalCpuDuration().orElse(Duration.ZERO).toMillis();
+        return update(process.pid(), currentCpuTime, System.nanoTime());
+    }
+
+    // Records a new cumulative CPU time for pid and returns the usage since the previous sample,
+    // as a share of all cores. The first sample of a pid reports 0.
+    public synchronized double update(long pid, long currentCpuMillis, long nowNanos) {
+        int slot = find(pid);
+        if (slot < 0) {
+            insert(pid, currentCpuMillis, nowNanos);
+            return 0.0;
+        }
+
+        long cpuDelta = currentCpuMillis - cpuMillis[slot];
+        long timeDeltaNanos = nowNanos - sampledAtNanos[slot];
+        cpuMillis[slot] = currentCpuMillis;
+        sampledAtNanos[slot] = nowNanos;
+        generations[slot] = generation;
+
+        // A smaller CPU time means the pid was reused by a new process
+        if (timeDeltaNanos <= 0 || cpuDelta < 0) return 0.0;
+        return (cpuDelta * 1e6 / timeDeltaNanos) * 100 / cores;
+    }
+
+    // Marks pid as still alive in this scan without taking a new sample, so sweep() keeps it and the
+    // next update() measures from the last real sample.
+    public synchronized void keep(long pid) {
+        int slot = find(pid);
+        if (slot >= 0) generations[slot] = generation;
+    }
 
-        Duration totalCpu = process.info().totalCpuDuration().orElse(Duration.ZERO);
-        long currentCpuTime = totalCpu.toMillis();
-        Instant now = Instant.now();
+    public synchronized void beginScan() {
+        generation++;
+    }
+
+    // Removes every pid that was not updated since the last beginScan(). Returns the number removed.
+    public synchronized int sweep() {
+        int removed = 0;
+        int slot = 0;
+        while (slot < pids.length) {
+            if (pids[slot] != FREE && generations[slot] != generation) {
+                // Backward-shift deletion may pull a later entry into this slot, so look at it again
+                delete(slot);
+                removed++;
+            } else {
+                slot++;
+            }
+        }
+        if (pids.length > MIN_CAPACITY && size * 8 < pids.length) rehash(pids.length / 2);
+        return removed;
+    }
 
-        long previousCpu = lastCpuTime.getOrDefault(pid, 0L);
-        Instant previousTimestamp = lastTimestamp.getOrDefault(pid, now);
+    public synchronized int size() {
+        return size;
+    }
 
-        long cpuDelta = currentCpuTime - previousCpu;
-        long timeDelta = Duration.between(previousTimestamp, now).toMillis();
+    private int find(long pid) {
+        int mask = pids.length - 1;
+        for (int slot = home(pid, mask); ; slot = (slot + 1) & mask) {
+            if (pids[slot] == pid) return slot;
+            if (pids[slot] == FREE) return -1;
+        }
+    }
 
-        lastCpuTime.put(pid, currentCpuTime);
-        lastTimestamp.put(pid, now);
+    private void insert(long pid, long cpu, long nanos) {
+        if ((size + 1) * 4 > pids.length * 3) rehash(pids.length * 2);
+        int mask = pids.length - 1;
+        int slot = home(pid, mask);
+        while (pids[slot] != FREE) slot = (slot + 1) & mask;
+        pids[slot] = pid;
+        cpuMillis[slot] = cpu;
+        sampledAtNanos[slot] = nanos;
+        generations[slot] = generation;
+        size++;
+    }
 
-        if (timeDelta == 0) return 0.0;
+    // Linear-probing delete without tombstones: shift following entries back over the hole
+    // unless that would move them in front of their home slot.
+    private void delete(int slot) {
+        int mask = pids.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (pids[next] != FREE) {
+            int home = home(pids[next], mask);
+            boolean canMove = hole <= next ? (home <= hole || home > next) : (home <= hole && home > next);
+            if (canMove) {
+                pids[hole] = pids[next];
+                cpuMillis[hole] = cpuMillis[next];
+                sampledAtNanos[hole] = sampledAtNanos[next];
+                generations[hole] = generations[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        pids[hole] = FREE;
+        size--;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldPids = pids;
+        long[] oldCpu = cpuMillis;
+        long[] oldNanos = sampledAtNanos;
+        int[] oldGenerations = generations;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldPids.length; i++) {
+            if (oldPids[i] == FREE) continue;
+            int slot = home(oldPids[i], mask);
+            while (pids[slot] != FREE) slot = (slot + 1) & mask;
+            pids[slot] = oldPids[i];
+            cpuMillis[slot] = oldCpu[i];
+            sampledAtNanos[slot] = oldNanos[i];
+            generations[slot] = oldGenerations[i];
+        }
+    }
+
+    private void allocate(int capacity) {
+        pids = new long[capacity];
+        Arrays.fill(pids, FREE);
+        cpuMillis = new long[capacity];
+        sampledAtNanos = new long[capacity];
+        generations = new int[capacity];
+    }
 
-        return (cpuDelta / (double) timeDelta) * 100 / cores;
+    private static int home(long pid, int mask) {
+        long h = pid * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
     }
 }
@@ -0,0 +1,65 @@
+package org.example.taskmanager;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Font;
+import javafx.util.Duration;
+
+// Hidden panel with the monitor's own overhead (SelfMetrics): CPU, allocation rate, heap, GC, and the
+// latency histogram of every pipeline stage. It refreshes once a second while shown and costs nothing
+// while hidden. Main toggles it with Ctrl+Shift+D.
+public class DebugPanel extends VBox {
+
+    private final Label overheadLabel = new Label();
+    private final Label stagesLabel = new Label();
+    private final Timeline refresher = new Timeline(new KeyFrame(Duration.seconds(1), e -> refresh()));
+
+    public DebugPanel() {
+        super(6);
+        setPadding(new Insets(8, 10, 8, 10));
+        getStyleClass().add("debug-panel");
+        Font mono = Font.font("Monospaced", 11);
+        overheadLabel.setFont(mono);
+        stagesLabel.setFont(mono);
+
+        Button resetBtn = new Button("Reset Histograms");
+        resetBtn.setOnAction(e -> {
+            SelfMetrics.reset();
+            refresh();
+        });
+        HBox header = new HBox(10, new Label("Monitor overhead (Ctrl+Shift+D to hide)"), resetBtn);
+        header.setAlignment(Pos.CENTER_LEFT);
+        getChildren().addAll(header, overheadLabel, stagesLabel);
+
+        refresher.setCycleCount(Timeline.INDEFINITE);
+        visibleProperty().addListener((obs, oldVal, shown) -> {
+            if (shown) {
+                refresh();
+                refresher.play();
+            } else {
+                refresher.stop();
+            }
+        });
+        setVisible(false);
+        managedProperty().bind(visibleProperty());
+    }
+
+    public void toggle() {
+        setVisible(!isVisible());
+    }
+
+    private void refresh() {
+        SelfMetrics.Overhead overhead = SelfMetrics.overhead();
+        overheadLabel.setText(String.format("CPU %.2f%%   Allocation %s/s   Heap %s   Threads %d   GC %d collections, %d ms",
+                overhead.cpuPercent(), ProcessRow.formatBytes((long) overhead.allocationBytesPerSec()),
+                ProcessRow.formatBytes(overhead.heapUsedBytes()), overhead.threads(), overhead.gcCount(),
+                overhead.gcMillis()));
+        stagesLabel.setText(String.join("\n", SelfMetrics.stageLines()));
+    }
+}
@@ -0,0 +1,264 @@
+package org.example.taskmanager;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+// Favorite processes, kept across restarts in favorites.tsv. A favorite is remembered by command,
+// arguments and start time rather than by pid, which the OS reuses:
+//
+//   - a process with the same command, arguments and start time is the same instance (after a
+//     restart of this app);
+//   - when that instance is gone, the next process with the same command and arguments takes its
+//     place, so a restarted service stays a favorite. Its start time is then saved instead.
+//
+// Arguments in the file may contain * wildcards, e.g. "-jar /opt/app/*.jar". Only the rows of each
+// delta are matched, and only against favorites without a live process.
+//
+// Every live favorite is pinned: SamplingHub reads just its /proc/<pid>/stat every PIN_PERIOD_MILLIS,
+// independent of the scan interval, and each sample goes to the sink. The first sample that finds the
+// process gone (or a lifecycle EXIT event, if that comes first) stops the pin and calls onExit, so the
+// caller can ask for a scan instead of waiting for the next one to notice.
+public class Favorites implements ProcessSnapshotEngine.Listener {
+
+    public static final long PIN_PERIOD_MILLIS = 100;
+
+    // One favorite, whether or not a live process matches it; callers hold it to remove the favorite
+    public static final class Entry {
+        final String command;
+        final String arguments;
+        final Pattern argumentsPattern; // null unless the arguments contain a wildcard
+        long startMillis;
+        long pid; // 0 while no live process matches
+
+        Entry(String command, String arguments, long startMillis) {
+            this.command = command;
+            this.arguments = arguments;
+            this.startMillis = startMillis;
+            if (arguments.indexOf('*') < 0) {
+                argumentsPattern = null;
+            } else {
+                String[] parts = arguments.split("\\*", -1);
+                StringBuilder regex = new StringBuilder(Pattern.quote(parts[0]));
+                for (int i = 1; i < parts.length; i++) regex.append(".*").append(Pattern.quote(parts[i]));
+                argumentsPattern = Pattern.compile(regex.toString(), Pattern.DOTALL);
+            }
+        }
+
+        boolean matches(ProcessSnapshot snapshot, int row) {
+            if (!command.equals(snapshot.command(row))) return false;
+            return argumentsPattern == null ? arguments.equals(snapshot.arguments(row))
+                    : argumentsPattern.matcher(snapshot.arguments(row)).matches();
+        }
+    }
+
+    private final Path file;
+    private final SamplingHub samplingHub;
+    private final Consumer<SamplingHub.Sample> sink;
+    private final Runnable onExit;
+    private final List<Entry> entries = new ArrayList<>();
+    // Read from any thread without the lock
+    private final Set<Long> pids = ConcurrentHashMap.newKeySet();
+    private volatile Set<Long> exited = Set.of();
+    private final Map<Long, SamplingHub.Subscription> pinned = new HashMap<>();
+    private ProcessSnapshot latest = ProcessSnapshot.EMPTY;
+
+    public Favorites(Path file, SamplingHub samplingHub, Consumer<SamplingHub.Sample> sink, Runnable onExit) {
+        this.file = file;
+        this.samplingHub = samplingHub;
+        this.sink = sink;
+        this.onExit = onExit;
+        if (Files.exists(file)) load();
+    }
+
+    public static Path defaultFile() {
+        return Path.of(System.getProperty("user.home"), ".taskmanager", "favorites.tsv");
+    }
+
+    public boolean contains(long pid) {
+        return pids.contains(pid);
+    }
+
+    // The pids bound to favorites right now
+    public Set<Long> pids() {
+        return Set.copyOf(pids);
+    }
+
+    // Pids of favorites that went away in the latest scan
+    public boolean hasExited(long pid) {
+        return exited.contains(pid);
+    }
+
+    // The favorite the process is bound to, or null
+    public synchronized Entry entryOf(long pid) {
+        if (!pids.contains(pid)) return null;
+        for (Entry entry : entries) {
+            if (entry.pid == pid) return entry;
+        }
+        return null;
+    }
+
+    // Makes the process a favorite; null if no scan has seen it yet
+    public synchronized Entry add(long pid) {
+        Entry existing = entryOf(pid);
+        if (existing != null) return existing;
+        int row = latest.indexOf(pid);
+        if (row < 0) return null;
+        Entry entry = new Entry(latest.command(row), latest.arguments(row), latest.startMillis(row));
+        entries.add(entry);
+        bind(entry, pid);
+        save();
+        return entry;
+    }
+
+    // By entry rather than pid: the favorite stays removable after its process exits
+    public synchronized void remove(Entry entry) {
+        if (!entries.remove(entry)) return;
+        if (entry.pid != 0) {
+            pids.remove(entry.pid);
+            unpin(entry.pid);
+            entry.pid = 0;
+        }
+        save();
+    }
+
+    // Lifecycle EXIT events (Linux) can beat the pinned sample to an exit
+    public void onLifecycle(ProcessLifecycle.Event event) {
+        if (event.type() == ProcessLifecycle.Type.EXIT) exited(event.pid());
+    }
+
+    @Override
+    public synchronized void onSnapshot(ProcessSnapshot snapshot, ProcessDelta delta) {
+        Set<Long> gone = Set.of();
+        for (long pid : delta.getRemoved()) {
+            if (!pids.remove(pid)) continue;
+            if (gone.isEmpty()) gone = new HashSet<>();
+            gone.add(pid);
+            unpin(pid);
+            for (Entry entry : entries) {
+                if (entry.pid == pid) entry.pid = 0;
+            }
+        }
+        exited = gone;
+
+        if (delta.getAdded().length > 0 && hasUnbound()) {
+            boolean moved = false;
+            // The instance itself first, then any process that can take its place
+            for (int row : delta.getAdded()) {
+                for (Entry entry : entries) {
+                    if (entry.pid == 0 && entry.startMillis == snapshot.startMillis(row) && entry.matches(snapshot, row)) {
+                        bind(entry, snapshot.pid(row));
+                        break;
+                    }
+                }
+            }
+            for (int row : delta.getAdded()) {
+                if (pids.contains(snapshot.pid(row))) continue;
+                for (Entry entry : entries) {
+                    if (entry.pid == 0 && entry.matches(snapshot, row)) {
+                        entry.startMillis = snapshot.startMillis(row);
+                        bind(entry, snapshot.pid(row));
+                        moved = true;
+                        break;
+                    }
+                }
+            }
+            if (moved) save();
+        }
+        latest = snapshot;
+    }
+
+    private boolean hasUnbound() {
+        for (Entry entry : entries) {
+            if (entry.pid == 0) return true;
+        }
+        return false;
+    }
+
+    private void bind(Entry entry, long pid) {
+        entry.pid = pid;
+        pids.add(pid);
+        pinned.put(pid, samplingHub.subscribe(pid, PIN_PERIOD_MILLIS, sample -> {
+            sink.accept(sample);
+            if (!sample.alive()) exited(pid);
+        }));
+    }
+
+    // On the sampling or lifecycle thread; the next scan still reports the exit through its delta
+    private void exited(long pid) {
+        synchronized (this) {
+            // Not pinned: removed, not a favorite, or the exit was already handled
+            if (!pinned.containsKey(pid)) return;
+            unpin(pid);
+        }
+        onExit.run();
+    }
+
+    private void unpin(long pid) {
+        SamplingHub.Subscription subscription = pinned.remove(pid);
+        if (subscription != null) subscription.cancel();
+    }
+
+    // startMillis, command and arguments, tab separated; tabs, newlines and backslashes are escaped
+    private void load() {
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) continue;
+                String[] fields = line.split("\t", -1);
+                if (fields.length != 3) {
+                    System.err.println("Ignoring favorite: " + line);
+                    continue;
+                }
+                entries.add(new Entry(unescape(fields[1]), unescape(fields[2]), Long.parseLong(fields[0])));
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Failed to load favorites: " + e.getMessage());
+        }
+    }
+
+    private void save() {
+        StringBuilder text = new StringBuilder();
+        for (Entry entry : entries) {
+            text.append(entry.startMillis).append('\t').append(escape(entry.command)).append('\t')
+                    .append(escape(entry.arguments)).append('\n');
+        }
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(temp, text);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Failed to save favorites: " + e.getMessage());
+        }
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n");
+    }
+
+    private static String unescape(String value) {
+        StringBuilder out = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '\\' || i + 1 == value.length()) {
+                out.append(c);
+                continue;
+            }
+            char next = value.charAt(++i);
+            out.append(next == 't' ? '\t' : next == 'n' ? '\n' : next);
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,187 @@
+package org.example.taskmanager;
+
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.*;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Overview section for remote collectors: attach/detach AgentMain instances by host:port, a line per
+// host (this machine first) and the top CPU consumers across all of them. refresh() is fed the local
+// CPU % by the overview tick and may be called from any thread; it reads the hosts' immutable snapshots and only hands the text to the FX thread.
+//
+// Frames are passed on to the listener only while their collector is attached, under the same lock
+// that detach() holds while removing it and running onDetach, so nothing of a host is delivered after
+// its onDetach.
+public class FleetOverview extends VBox {
+
+    private static final int TOP_N = 10;
+
+    private final ProcessSnapshotEngine localEngine;
+    private final long intervalMillis;
+    private final RemoteCollector.Listener listener;
+    private final Consumer<String> onDetach;
+    private final List<RemoteCollector> collectors = new CopyOnWriteArrayList<>();
+    private final ListView<String> hostList = new ListView<>();
+    private final ListView<String> topList = new ListView<>();
+    private final Object deliveryLock = new Object();
+    private volatile double localCpu;
+
+    // onDetach runs on the FX thread after a host's collector has been stopped
+    public FleetOverview(ProcessSnapshotEngine localEngine, long intervalMillis,
+                         RemoteCollector.Listener listener, Consumer<String> onDetach) {
+        super(8);
+        this.localEngine = localEngine;
+        this.intervalMillis = intervalMillis;
+        this.listener = listener;
+        this.onDetach = onDetach;
+        setPadding(new Insets(10));
+
+        TextField hostField = new TextField();
+        hostField.setPromptText("host:port of a headless agent");
+        Button attachBtn = new Button("Attach");
+        attachBtn.setOnAction(e -> {
+            String host = hostField.getText().trim();
+            if (!host.isEmpty() && attach(host)) hostField.clear();
+        });
+        hostField.setOnAction(attachBtn.getOnAction());
+        Button detachBtn = new Button("Detach Selected");
+        detachBtn.setOnAction(e -> {
+            int index = hostList.getSelectionModel().getSelectedIndex();
+            // Row 0 is this machine
+            if (index > 0 && index - 1 < collectors.size()) detach(collectors.get(index - 1).getHost());
+        });
+        HBox controls = new HBox(10, new Label("Remote hosts:"), hostField, attachBtn, detachBtn);
+        controls.setAlignment(Pos.CENTER_LEFT);
+
+        hostList.setPrefHeight(120);
+        topList.setPrefHeight(200);
+        HBox lists = new HBox(10, titled("Hosts", hostList), titled("Top CPU across hosts", topList));
+        getChildren().addAll(controls, lists);
+    }
+
+    private static VBox titled(String title, ListView<String> list) {
+        VBox box = new VBox(4, new Label(title), list);
+        HBox.setHgrow(box, Priority.ALWAYS);
+        return box;
+    }
+
+    // FX thread. Returns false if the host is already attached.
+    public boolean attach(String host) {
+        for (RemoteCollector collector : collectors) {
+            if (collector.getHost().equals(host)) return false;
+        }
+        RemoteCollector collector = new RemoteCollector(host, intervalMillis, this::deliver);
+        collectors.add(collector);
+        collector.start();
+        refresh(localCpu);
+        return true;
+    }
+
+    // FX thread
+    public void detach(String host) {
+        for (RemoteCollector collector : collectors) {
+            if (!collector.getHost().equals(host)) continue;
+            collector.stop();
+            synchronized (deliveryLock) {
+                collectors.remove(collector);
+                onDetach.accept(host);
+            }
+        }
+        refresh(localCpu);
+    }
+
+    // Collector threads
+    private void deliver(RemoteCollector collector, ProcessSnapshot snapshot, ProcessDelta delta) {
+        synchronized (deliveryLock) {
+            if (collectors.contains(collector)) listener.onHostSnapshot(collector, snapshot, delta);
+        }
+    }
+
+    public boolean isAttached(String host) {
+        for (RemoteCollector collector : collectors) {
+            if (collector.getHost().equals(host)) return true;
+        }
+        return false;
+    }
+
+    public boolean hasRemotes() {
+        return !collectors.isEmpty();
+    }
+
+    public void shutdown() {
+        for (RemoteCollector collector : collectors) collector.stop();
+    }
+
+    public void refresh(double localCpu) {
+        this.localCpu = localCpu;
+        List<String> hosts = new ArrayList<>(collectors.size() + 1);
+        ProcessSnapshot local = localEngine.getLatest();
+        hosts.add(String.format("local — %d processes — CPU %.1f%% — Mem %s / %s", local.size(),
+                localCpu,
+                ProcessRow.formatBytes(SystemMonitor.getUsedMemory()),
+                ProcessRow.formatBytes(SystemMonitor.getTotalMemory())));
+
+        // Top N by CPU%: a small array kept sorted descending, most rows rejected by one comparison
+        double[] topCpu = new double[TOP_N];
+        ProcessSnapshot[] topSnapshot = new ProcessSnapshot[TOP_N];
+        int[] topIndex = new int[TOP_N];
+        String[] topHost = new String[TOP_N];
+        int topCount = 0;
+
+        List<String> hostNames = new ArrayList<>();
+        List<ProcessSnapshot> snapshots = new ArrayList<>();
+        hostNames.add("local");
+        snapshots.add(local);
+        for (RemoteCollector collector : collectors) {
+            ProcessSnapshot snapshot = collector.getLatest();
+            hostNames.add(collector.getHost());
+            snapshots.add(snapshot);
+            hosts.add(collector.isConnected()
+                    ? String.format("%s — %d processes — CPU %.1f%% — Mem %s / %s", collector.getHost(),
+                    snapshot.size(), collector.getSystemCpu(),
+                    ProcessRow.formatBytes(collector.getMemUsed()),
+                    ProcessRow.formatBytes(collector.getMemTotal()))
+                    : collector.getHost() + " — disconnected"
+                    + (collector.getLastError().isEmpty() ? "" : " (" + collector.getLastError() + ")"));
+        }
+
+        for (int h = 0; h < snapshots.size(); h++) {
+            ProcessSnapshot snapshot = snapshots.get(h);
+            for (int i = 0; i < snapshot.size(); i++) {
+                double cpu = snapshot.cpuPercent(i);
+                if (topCount == TOP_N && cpu <= topCpu[TOP_N - 1]) continue;
+                int pos = Math.min(topCount, TOP_N - 1);
+                while (pos > 0 && topCpu[pos - 1] < cpu) {
+                    topCpu[pos] = topCpu[pos - 1];
+                    topSnapshot[pos] = topSnapshot[pos - 1];
+                    topIndex[pos] = topIndex[pos - 1];
+                    topHost[pos] = topHost[pos - 1];
+                    pos--;
+                }
+                topCpu[pos] = cpu;
+                topSnapshot[pos] = snapshot;
+                topIndex[pos] = i;
+                topHost[pos] = hostNames.get(h);
+                if (topCount < TOP_N) topCount++;
+            }
+        }
+        List<String> top = new ArrayList<>(topCount);
+        for (int k = 0; k < topCount; k++) {
+            top.add(String.format("%5.1f%%  %s  %d  %s", topCpu[k], topHost[k],
+                    topSnapshot[k].pid(topIndex[k]), topSnapshot[k].name(topIndex[k])));
+        }
+
+        Platform.runLater(() -> {
+            hostList.getItems().setAll(hosts);
+            topList.getItems().setAll(top);
+        });
+    }
+}
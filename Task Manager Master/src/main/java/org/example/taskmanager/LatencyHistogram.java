@@ -0,0 +1,84 @@
+package org.example.taskmanager;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+
+// Lock-free latency histogram in the style of HdrHistogram: values (nanoseconds) fall into buckets
+// that are linear within each power of two, 32 per power, so any recorded value is reported within
+// about 3% across the whole range from 1 ns to hours. Recording is an index computation and one
+// atomic increment; reading copies the counts. Any thread may record while another reads.
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final DoubleAdder sum = new DoubleAdder(); // a long would overflow for values near the maximum
+    private final AtomicLong max = new AtomicLong();
+
+    // Percentiles are bucket lower bounds, in nanoseconds
+    public record Summary(long count, double meanNanos, long p50Nanos, long p90Nanos, long p99Nanos,
+                          long p999Nanos, long maxNanos) {
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(index(nanos));
+        total.incrementAndGet();
+        sum.add(nanos);
+        long seen = max.get();
+        while (nanos > seen && !max.compareAndSet(seen, nanos)) seen = max.get();
+    }
+
+    public long count() {
+        return total.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        total.set(0);
+        sum.reset();
+        max.set(0);
+    }
+
+    public Summary summary() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        if (count == 0) return new Summary(0, 0, 0, 0, 0, 0, 0);
+        return new Summary(count, sum.sum() / count, percentile(copy, count, 0.50),
+                percentile(copy, count, 0.90), percentile(copy, count, 0.99), percentile(copy, count, 0.999),
+                max.get());
+    }
+
+    private static long percentile(long[] counts, long count, double fraction) {
+        long rank = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) return lowerBound(i);
+        }
+        return lowerBound(counts.length - 1);
+    }
+
+    // Values below 32 get a bucket each; above, the top bit picks the power of two and the next five
+    // bits the bucket within it
+    static int index(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long lowerBound(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int exponent = index / SUB_BUCKETS + SUB_BITS - 1;
+        return (long) (SUB_BUCKETS + index % SUB_BUCKETS) << (exponent - SUB_BITS);
+    }
+}
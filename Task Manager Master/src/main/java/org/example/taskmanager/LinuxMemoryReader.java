@@ -1,24 +1,32 @@
 package org.example.taskmanager;
 
-import java.io.*;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
 
 public class LinuxMemoryReader {
 
     public static long getMemory(long pid) {
-        File statusFile = new File("/proc/" + pid + "/status");
+        // Resident pages from /proc/<pid>/statm, parsed without building any Strings
+        long residentPages = ProcfsReader.forCurrentThread().readResidentPages(pid);
+        return residentPages < 0 ? 0 : residentPages * ProcfsReader.PAGE_SIZE;
+    }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(statusFile))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.startsWith("VmRSS:")) {
-                    String[] parts = line.split("\\s+");
-                    return Long.parseLong(parts[1]) * 1024; // from kB to bytes
-                }
+    public static Map<Long, Long> getAllMemory() {
+        Map<Long, Long> usage = new HashMap<>();
+        ProcfsReader procfs = ProcfsReader.forCurrentThread();
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(procfs.getProcRoot(), "[0-9]*")) {
+            for (Path entry : dir) {
+                long pid = Long.parseLong(entry.getFileName().toString());
+                long residentPages = procfs.readResidentPages(pid);
+                if (residentPages >= 0) usage.put(pid, residentPages * ProcfsReader.PAGE_SIZE);
             }
-        } catch (IOException e) {
-            return 0;
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Failed to list process memory: " + e.getMessage());
         }
-
-        return 0;
+        return usage;
     }
 }
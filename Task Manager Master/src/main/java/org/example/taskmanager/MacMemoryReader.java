@@ -1,6 +1,8 @@
 package org.example.taskmanager;
 
 import java.io.*;
+import java.util.HashMap;
+import java.util.Map;
 
 public class MacMemoryReader {
 
@@ -18,4 +20,27 @@ public class MacMemoryReader {
 
         return 0;
     }
+
+    public static Map<Long, Long> getAllMemory() {
+        Map<Long, Long> usage = new HashMap<>();
+        try {
+            // One ps for every process instead of one per pid
+            Process proc = new ProcessBuilder("ps", "-axo", "pid=,rss=").start();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(proc.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = line.trim().split("\\s+");
+                    if (parts.length < 2) continue;
+                    try {
+                        usage.put(Long.parseLong(parts[0]), Long.parseLong(parts[1]) * 1024); // from KB to bytes
+                    } catch (NumberFormatException ignored) {
+                        // header or truncated line
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to list process memory: " + e.getMessage());
+        }
+        return usage;
+    }
 }
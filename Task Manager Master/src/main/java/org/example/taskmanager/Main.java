@@ -1,42 +1,58 @@
 package org.example.taskmanager;
 
+import javafx.animation.PauseTransition;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
+import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
-import javafx.scene.chart.LineChart;
-import javafx.scene.chart.NumberAxis;
 import javafx.scene.chart.PieChart;
-import javafx.scene.chart.XYChart;
 import javafx.scene.control.*;
+import javafx.scene.input.KeyCombination;
 import javafx.scene.layout.*;
+import javafx.scene.paint.Color;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class Main extends Application {
 
-    private Set<Long> favoritePids = new HashSet<>();
-    private final ExecutorService executor = Executors.newFixedThreadPool(3);
+    private Favorites favorites;
     private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final ProcessSnapshotEngine snapshotEngine = new ProcessSnapshotEngine();
+    private final SamplingHub samplingHub = new SamplingHub();
+    private final ProcessLifecycle processLifecycle = new ProcessLifecycle();
+    private ProcessSearch processSearch;
+    private FleetOverview fleetOverview;
+    private final MetricsHistory cpuHistory = new MetricsHistory("cpu");
+    private final MetricsHistory memoryHistory = new MetricsHistory("memory");
+    private final SystemIoSampler ioSampler = new SystemIoSampler();
+    private final CpuCoreSampler coreSampler = new CpuCoreSampler();
+    private MetricsStore metricsStore;
+    private AlertEngine alertEngine;
     private Instant bootTime = Instant.now();
 
     @Override
     public void start(Stage primaryStage) {
-        CpuUsageTracker cpuUsageTracker = new CpuUsageTracker();
+        SelfMetrics.install();
         TrayIconManager trayManager = new TrayIconManager();
         trayManager.setupTray();
 
@@ -44,7 +60,7 @@ public class Main extends Application {
         Label cpuLabel = new Label("CPU Load: 0%");
         Label memoryLabel = new Label("Memory: 0 MB / 0 MB");
         Label diskLabel = new Label("Disk: 0 GB / 0 GB");
-        Label netLabel = new Label("Network: -- KB/s");
+        Label netLabel = new Label("↓ -- KB/s\n↑ -- KB/s");
         Label procLabel = new Label("Processes: -");
         Label uptimeLabel = new Label("Uptime: 0s");
 
@@ -60,19 +76,16 @@ public class Main extends Application {
         cardContainer.setPadding(new Insets(10));
 
         // --- CPU Chart ---
-        final int WINDOW_SIZE = 30;
-        XYChart.Series<Number, Number> cpuSeries = new XYChart.Series<>();
-        NumberAxis xAxis = new NumberAxis(0, WINDOW_SIZE, 1);
-        xAxis.setLabel("Time (s)");
-        NumberAxis yAxis = new NumberAxis(0, 100, 10);
-        yAxis.setLabel("CPU %");
-        LineChart<Number, Number> cpuChart = new LineChart<>(xAxis, yAxis);
-        cpuChart.setAnimated(false);
-        cpuChart.setLegendVisible(false);
-        cpuChart.setTitle("CPU Usage Over Time");
-        cpuChart.setCreateSymbols(true);
+        // Shows the last five minutes by default; scroll and drag to look back through the whole history
+        TimeSeriesChart cpuChart = new TimeSeriesChart("CPU & Memory Usage Over Time", "%", 0, 100);
+        int cpuSeries = cpuChart.addSeries("CPU", Color.web("#3b82f6"));
+        int memSeries = cpuChart.addSeries("Memory", Color.web("#f59e0b"));
         cpuChart.setPrefHeight(250);
-        cpuChart.getData().add(cpuSeries);
+
+        // --- Per-core CPU, load and pressure ---
+        CoreHeatmap coreHeatmap = new CoreHeatmap("CPU per core");
+        Label cpuDetailLabel = new Label();
+        Label pressureLabel = new Label();
 
         // --- Memory Pie Chart ---
         PieChart memoryPie = new PieChart();
@@ -88,65 +101,263 @@ public class Main extends Application {
         // --- Graph Control Buttons ---
         CheckBox darkModeToggle = new CheckBox("Dark Mode");
         CheckBox smoothToggle = new CheckBox("Smooth Graph");
-        Button clearBtn = new Button("🧼 Clear History");
+        smoothToggle.selectedProperty().addListener((obs, oldVal, smooth) -> cpuChart.setDecimation(
+                smooth ? TimeSeriesChart.Decimation.LTTB : TimeSeriesChart.Decimation.MIN_MAX));
+        Button clearBtn = new Button("🧼 Clear Graph");
         HBox controls = new HBox(10, new Label("Update every:"), intervalDropdown, smoothToggle, clearBtn, darkModeToggle);
         controls.setPadding(new Insets(10));
         controls.setAlignment(Pos.CENTER_LEFT);
 
-        VBox topSection = new VBox(10, cardContainer, controls, cpuChart, memoryPie);
+        VBox topSection = new VBox(10, cardContainer, controls, cpuChart, coreHeatmap, cpuDetailLabel,
+                pressureLabel, memoryPie);
         topSection.setPadding(new Insets(10));
         topSection.setAlignment(Pos.TOP_CENTER);
 
         // --- Processes Tab ---
         TextField searchField = new TextField();
-        searchField.setPromptText("Search by PID or Command");
-        ObservableList<ProcessHandle> processes = FXCollections.observableArrayList(ProcessFetcher.getProcesses());
-        FilteredList<ProcessHandle> filteredList = new FilteredList<>(processes, p -> true);
-        ListView<ProcessHandle> listView = new ListView<>(filteredList);
-        listView.setCellFactory(list -> new ProcessCell(cpuUsageTracker, favoritePids));
-
-        searchField.textProperty().addListener((obs, oldVal, newVal) -> {
-            filteredList.setPredicate(proc -> {
-                if (newVal == null || newVal.isEmpty()) return true;
-                String lower = newVal.toLowerCase();
-                String command = proc.info().command().orElse("").toLowerCase();
-                return command.contains(lower) || String.valueOf(proc.pid()).contains(lower);
+        searchField.setPromptText("Search by PID or Command, e.g. java user:postgres cpu>20");
+        ProcessTableModel processModel = new ProcessTableModel();
+        FilteredList<ProcessRow> filteredList = new FilteredList<>(processModel.getRows(), p -> true);
+        Consumer<ProcessRow> openDetails = row -> {
+            if (row.isLocal()) {
+                ProcessHandle.of(row.getPid()).ifPresent(process -> new ProcessDetailWindow(process, favorites, samplingHub));
+            }
+        };
+        ProcessTableView processTable = new ProcessTableView(processModel, filteredList, openDetails);
+        VBox.setVgrow(processTable, Priority.ALWAYS);
+
+        // Tree mode shows the local processes under their parents, with subtree totals
+        ProcessTreeModel processTree = new ProcessTreeModel();
+        ProcessTreeView processTreeView = new ProcessTreeView(processTree, openDetails);
+        VBox.setVgrow(processTreeView, Priority.ALWAYS);
+        CheckBox treeToggle = new CheckBox("Tree View");
+
+        // Group mode shows one row per cgroup (container or service); its listener only reads while shown
+        ContainerView containerView = new ContainerView();
+        VBox.setVgrow(containerView, Priority.ALWAYS);
+        CheckBox groupToggle = new CheckBox("Group by Container");
+        groupToggle.setDisable(!ContainerGroups.isSupported());
+        ContainerGroups containerGroups = new ContainerGroups(stats -> Platform.runLater(() -> {
+            if (groupToggle.isSelected()) containerView.apply(stats);
+        }));
+        snapshotEngine.addListener(containerGroups);
+
+        // Each scan, and each batch of processes starting and exiting between scans, arrives as a delta;
+        // apply it in one batch on the FX thread
+        snapshotEngine.addLifecycleListener((snapshot, delta) -> {
+            if (delta.isEmpty()) return;
+            Platform.runLater(() -> {
+                long started = SelfMetrics.start();
+                processModel.apply(snapshot, delta);
+                processTree.apply(processModel, snapshot, delta);
+                if (treeToggle.isSelected()) processTreeView.refreshSort();
+                SelfMetrics.record(SelfMetrics.Stage.FX_APPLY, started);
             });
         });
 
+        // Queries run on the search thread; the table only applies the matching pid sets
+        processSearch = new ProcessSearch(results -> Platform.runLater(() -> filteredList.setPredicate(
+                results == null ? null : row -> {
+                    long[] pids = results.get(row.getHost());
+                    return pids != null && Arrays.binarySearch(pids, row.getPid()) >= 0;
+                })));
+        snapshotEngine.addListener(processSearch);
+
+        // Remote hosts feed the same table and search, keyed by host; all hosts' updates reach the table
+        // in one FX pulse. FleetOverview only delivers frames of attached hosts, and detaching drops the
+        // host everywhere under the same guard.
+        RemoteDeltas remoteDeltas = new RemoteDeltas((host, snapshot, delta) -> {
+            processTable.setHostColumnVisible(true);
+            processModel.apply(host, snapshot, delta);
+        });
+        RemoteCollector.Listener remoteListener = (collector, snapshot, delta) -> {
+            processSearch.onHostSnapshot(collector, snapshot, delta);
+            remoteDeltas.onHostSnapshot(collector, snapshot, delta);
+        };
+        fleetOverview = new FleetOverview(snapshotEngine, TimeUnit.SECONDS.toMillis(intervalDropdown.getValue()),
+                remoteListener, host -> {
+                    processSearch.removeHost(host);
+                    remoteDeltas.removeHost(host);
+                    processModel.removeHost(host);
+                    processTable.setHostColumnVisible(fleetOverview.hasRemotes());
+                });
+        topSection.getChildren().add(fleetOverview);
+        String remotes = getParameters().getNamed().get("remote");
+        if (remotes != null) {
+            for (String host : remotes.split(",")) {
+                if (!host.isBlank()) fleetOverview.attach(host.trim());
+            }
+        }
+        processTable.setHostColumnVisible(fleetOverview.hasRemotes());
+
+        // Per-process and system metrics also go to disk so they survive a restart
+        try {
+            metricsStore = new MetricsStore(MetricsStore.defaultDirectory());
+            snapshotEngine.addListener(metricsStore);
+        } catch (IOException e) {
+            System.err.println("Metrics history will not be saved: " + e.getMessage());
+        }
+
+        // Favorites survive restarts and pid reuse; while alive they are sampled every 100 ms into the
+        // store, alongside the regular scans. Registered before the alert engine, which reads it.
+        favorites = new Favorites(Favorites.defaultFile(), samplingHub, sample -> {
+            if (sample.alive() && metricsStore != null) {
+                metricsStore.append(sample.timeMillis(), sample.pid(), sample.cpuPercent(), sample.rssBytes());
+            }
+        }, snapshotEngine::nudge);
+        snapshotEngine.addListener(favorites);
+
+        // Starts and exits between scans (Linux; --lifecycle=off disables): counted on the Processes
+        // card, including processes too short-lived for any scan, and applied to the table and tree
+        // without waiting for the next scan
+        if (!"off".equals(getParameters().getNamed().get("lifecycle"))) {
+            processLifecycle.addListener(snapshotEngine::onLifecycle);
+            processLifecycle.addListener(favorites::onLifecycle);
+            processLifecycle.start();
+        }
+        Tooltip shortLivedTip = new Tooltip();
+        procLabel.setTooltip(shortLivedTip);
+
+        // --- Alerts Tab ---
+        // Rules are edited as text and applied as a whole; events are listed newest first
+        ObservableList<String> alertEvents = FXCollections.observableArrayList();
+        ListView<String> alertList = new ListView<>(alertEvents);
+        VBox.setVgrow(alertList, Priority.ALWAYS);
+        TextArea rulesArea = new TextArea();
+        rulesArea.setPrefRowCount(8);
+        Label rulesStatus = new Label();
+        Button applyRulesBtn = new Button("Apply Rules");
+        try {
+            alertEngine = new AlertEngine(AlertEngine.defaultDirectory(), favorites, event -> {
+                if (!event.cleared()) trayManager.notify("Alert: " + event.rule(), event.message());
+                String line = String.format("%tT  %s  %s   [%s]", event.timeMillis(),
+                        event.cleared() ? "cleared" : "FIRED  ", event.message(), event.rule());
+                Platform.runLater(() -> {
+                    alertEvents.add(0, line);
+                    if (alertEvents.size() > 1000) alertEvents.remove(1000, alertEvents.size());
+                });
+            });
+            snapshotEngine.addListener(alertEngine);
+            rulesArea.setText(alertEngine.getRulesText());
+        } catch (IOException e) {
+            System.err.println("Alerts are disabled: " + e.getMessage());
+            rulesArea.setDisable(true);
+            applyRulesBtn.setDisable(true);
+        }
+        applyRulesBtn.setOnAction(e -> {
+            List<String> errors = new ArrayList<>();
+            alertEngine.setRules(rulesArea.getText(), errors);
+            try {
+                alertEngine.saveRules();
+            } catch (IOException ex) {
+                errors.add("rules not saved: " + ex.getMessage());
+            }
+            rulesStatus.setText(errors.isEmpty() ? "Rules applied" : String.join("\n", errors));
+        });
+        HBox rulesBar = new HBox(10, applyRulesBtn, rulesStatus);
+        rulesBar.setAlignment(Pos.CENTER_LEFT);
+        VBox alertsLayout = new VBox(10, new Label("Rules"), rulesArea, rulesBar, new Label("Events"), alertList);
+        alertsLayout.setPadding(new Insets(10));
+
+        searchField.textProperty().addListener((obs, oldVal, newVal) -> processSearch.setQuery(newVal));
+
         Button refreshBtn = new Button("Refresh");
-        refreshBtn.setOnAction(e -> updateProcessListAsync(filteredList));
+        refreshBtn.setOnAction(e -> snapshotEngine.refreshNow());
 
+        Supplier<ProcessRow> selectedRow = () -> groupToggle.isSelected() ? null
+                : treeToggle.isSelected() ? processTreeView.getSelectedRow()
+                : processTable.getSelectionModel().getSelectedItem();
         Button killBtn = new Button("Terminate Process");
         killBtn.setOnAction(e -> {
-            ProcessHandle selected = listView.getSelectionModel().getSelectedItem();
-            if (selected != null) {
-                boolean success = selected.destroy();
-                String msg = success ? "Process terminated successfully." : "Failed to terminate. Forcing termination...";
-                Alert alert = new Alert(Alert.AlertType.INFORMATION, msg, ButtonType.OK);
-                alert.showAndWait();
-                if (!success) selected.destroyForcibly();
-                updateProcessListAsync(filteredList);
+            ProcessRow row = selectedRow.get();
+            if (row != null && !row.isLocal()) {
+                new Alert(Alert.AlertType.INFORMATION, "Processes on " + row.getHost()
+                        + " can only be terminated on that host.", ButtonType.OK).showAndWait();
+                return;
             }
+            if (row != null) terminate(List.of(row));
         });
 
-        Button exportBtn = new Button("Export CSV");
-        exportBtn.setOnAction(e -> exportToCSV(filteredList));
+        // Ends the selected process and all its descendants, children first
+        Button killTreeBtn = new Button("Terminate Tree");
+        killTreeBtn.visibleProperty().bind(treeToggle.selectedProperty());
+        killTreeBtn.managedProperty().bind(treeToggle.selectedProperty());
+        killTreeBtn.setOnAction(e -> {
+            ProcessRow row = processTreeView.getSelectedRow();
+            if (row == null) return;
+            List<ProcessRow> subtree = processTree.subtree(row.getPid());
+            Alert confirm = new Alert(Alert.AlertType.CONFIRMATION, String.format(
+                    "Terminate %s (PID %d) and its %d descendant processes?", row.getName(), row.getPid(),
+                    subtree.size() - 1), ButtonType.OK, ButtonType.CANCEL);
+            if (confirm.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK) terminate(subtree);
+        });
+
+        // Exports run on their own thread; the progress bar and Cancel button show while one is running
+        ProgressBar exportProgress = new ProgressBar(0);
+        Label exportStatus = new Label();
+        Button cancelExportBtn = new Button("Cancel");
+        HBox exportBar = new HBox(6, exportProgress, exportStatus, cancelExportBtn);
+        exportBar.setAlignment(Pos.CENTER_LEFT);
+        exportBar.setVisible(false);
+        exportBar.setManaged(false);
+        cancelExportBtn.setDisable(true);
+        MenuButton exportBtn = new MenuButton("Export");
+        // One export at a time: Cancel is enabled exactly while one runs
+        exportBtn.disableProperty().bind(cancelExportBtn.disableProperty().not());
+        for (ProcessExporter.Format format : ProcessExporter.Format.values()) {
+            String kind = format == ProcessExporter.Format.CSV ? "CSV" : "columnar binary";
+            MenuItem listItem = new MenuItem("Process list as " + kind + "…");
+            listItem.setOnAction(e -> exportProcesses(filteredList, format, exportBar, exportProgress,
+                    exportStatus, cancelExportBtn));
+            MenuItem historyItem = new MenuItem("Recorded history as " + kind + "…");
+            historyItem.setOnAction(e -> exportHistory(format, exportBar, exportProgress, exportStatus,
+                    cancelExportBtn));
+            exportBtn.getItems().addAll(listItem, historyItem);
+        }
 
-        HBox bottomBar = new HBox(10, refreshBtn, killBtn, exportBtn);
+        HBox bottomBar = new HBox(10, refreshBtn, treeToggle, groupToggle, killBtn, killTreeBtn, exportBtn, exportBar);
         bottomBar.setPadding(new Insets(10));
         bottomBar.setAlignment(Pos.CENTER);
 
-        VBox processTabLayout = new VBox(10, searchField, listView, bottomBar);
+        VBox processTabLayout = new VBox(10, searchField, processTable, bottomBar);
+        // The search filters the flat list only; the tree always shows every local process
+        Runnable showProcessView = () -> {
+            boolean tree = treeToggle.isSelected();
+            boolean groups = groupToggle.isSelected();
+            processTabLayout.getChildren().set(1, groups ? containerView : tree ? processTreeView : processTable);
+            searchField.setDisable(tree || groups);
+            if (tree) processTreeView.refreshSort();
+        };
+        treeToggle.selectedProperty().addListener((obs, oldVal, tree) -> {
+            if (tree) groupToggle.setSelected(false);
+            showProcessView.run();
+        });
+        groupToggle.selectedProperty().addListener((obs, oldVal, groups) -> {
+            if (groups) treeToggle.setSelected(false);
+            containerGroups.setActive(groups);
+            if (groups) snapshotEngine.refreshNow();
+            else containerView.clear();
+            showProcessView.run();
+        });
         TabPane tabPane = new TabPane();
+        Tab processesTab = new Tab("Processes", processTabLayout);
         tabPane.getTabs().addAll(
                 new Tab("Overview", topSection),
-                new Tab("Processes", processTabLayout)
+                processesTab,
+                new Tab("Alerts", alertsLayout)
         );
         tabPane.getTabs().forEach(t -> t.setClosable(false));
 
         BorderPane root = new BorderPane(tabPane);
         Scene scene = new Scene(root, 1000, 700);
+
+        // Hidden overhead panel; the pulse listeners time the CSS and layout part of each FX pulse
+        DebugPanel debugPanel = new DebugPanel();
+        root.setBottom(debugPanel);
+        scene.getAccelerators().put(KeyCombination.keyCombination("Shortcut+Shift+D"), debugPanel::toggle);
+        long[] pulseStarted = new long[1];
+        scene.addPreLayoutPulseListener(() -> pulseStarted[0] = SelfMetrics.start());
+        scene.addPostLayoutPulseListener(() -> SelfMetrics.record(SelfMetrics.Stage.FX_PULSE, pulseStarted[0]));
         primaryStage.setTitle("Real-Time Task Manager");
         primaryStage.setScene(scene);
         primaryStage.show();
@@ -156,57 +367,130 @@ public class Main extends Application {
             else scene.getStylesheets().clear();
         });
 
-        AtomicReference<ScheduledFuture<?>> scheduledTask = new AtomicReference<>();
+        AtomicLong chartClearedAt = new AtomicLong();
+        AtomicReference<AdaptiveScheduler> overviewScheduler = new AtomicReference<>();
 
         Runnable updateTask = () -> {
+            long started = SelfMetrics.start();
             double cpu = SystemMonitor.getCpuLoad() * 100;
             long usedMem = SystemMonitor.getUsedMemory() / (1024 * 1024);
             long totalMem = SystemMonitor.getTotalMemory() / (1024 * 1024);
             double memRatio = (double) usedMem / totalMem;
 
             trayManager.updateTray(cpu, memRatio);
+            overviewScheduler.get().noteSystemCpu(cpu);
+            fleetOverview.refresh(cpu);
+            snapshotEngine.getRefreshScheduler().noteSystemCpu(cpu);
+
+            long now = System.currentTimeMillis();
+            cpuHistory.record(now, cpu);
+            memoryHistory.record(now, memRatio * 100);
+            if (metricsStore != null) {
+                metricsStore.append(now, MetricsStore.SYSTEM_PID, cpu, SystemMonitor.getUsedMemory());
+            }
+            MetricsHistory.Series cpuPoints = cpuHistory.readAll(chartClearedAt.get());
+            MetricsHistory.Series memPoints = memoryHistory.readAll(chartClearedAt.get());
 
             File rootDrive = new File("/");
             long totalSpace = rootDrive.getTotalSpace();
             long usableSpace = rootDrive.getUsableSpace();
-            String diskUsage = String.format("Disk: %.2f GB / %.2f GB",
+            ProcessLifecycle.Counts lifecycle = processLifecycle.counts();
+            String processes = "Processes: " + snapshotEngine.getLatest().size()
+                    + (lifecycle.source().equals("off") ? "" : String.format("%nStarted %d, exited %d%n%d lived under 1 s",
+                    lifecycle.started(), lifecycle.exited(), lifecycle.shortLived()));
+            StringBuilder shortLived = new StringBuilder("Recent short-lived processes (" + lifecycle.source() + ")");
+            for (ProcessLifecycle.Event event : processLifecycle.recentShortLived()) {
+                shortLived.append(String.format("%n%s (pid %d): %d ms, exit %s",
+                        event.name() == null ? "?" : event.name(), event.pid(), event.lifetimeMillis(),
+                        event.exitCode() < 0 ? "?" : String.valueOf(event.exitCode())));
+            }
+            SystemIoSampler.Rates io = ioSampler.sample();
+            CpuCoreSampler.Sample cores = coreSampler.sample();
+            if (alertEngine != null) alertEngine.onSystem(now, cpu, memRatio * 100, cores.loadAverage()[0]);
+            String cpuDetail = String.format("User %.1f%%  System %.1f%%  I/O wait %.1f%%  Steal %.1f%%  —  Load %s %s %s",
+                    cores.user() * 100, cores.system() * 100, cores.iowait() * 100, cores.steal() * 100,
+                    formatLoad(cores.loadAverage()[0]), formatLoad(cores.loadAverage()[1]),
+                    formatLoad(cores.loadAverage()[2]));
+            String pressure = "Pressure (10s / 60s)  —  " + formatPressure("CPU", cores.cpuPressure())
+                    + "   " + formatPressure("Memory", cores.memoryPressure())
+                    + "   " + formatPressure("I/O", cores.ioPressure());
+            String diskUsage = String.format("Disk: %.2f GB / %.2f GB%nRead %s/s%nWrite %s/s",
                     (totalSpace - usableSpace) / 1e9,
-                    totalSpace / 1e9);
+                    totalSpace / 1e9,
+                    ProcessRow.formatBytes((long) io.diskReadBytesPerSec()),
+                    ProcessRow.formatBytes((long) io.diskWriteBytesPerSec()));
+            String netUsage = String.format("↓ %s/s%n↑ %s/s",
+                    ProcessRow.formatBytes((long) io.netReceiveBytesPerSec()),
+                    ProcessRow.formatBytes((long) io.netSendBytesPerSec()));
 
             Platform.runLater(() -> {
                 cpuLabel.setText(String.format("CPU Load: %.2f%%", cpu));
                 memoryLabel.setText(String.format("Memory: %d MB / %d MB", usedMem, totalMem));
                 diskLabel.setText(diskUsage);
                 uptimeLabel.setText("Uptime: " + Duration.between(bootTime, Instant.now()).getSeconds() + "s");
-                procLabel.setText("Processes: " + ProcessHandle.allProcesses().count());
+                procLabel.setText(processes);
+                shortLivedTip.setText(shortLived.toString());
 
                 memoryPie.setData(FXCollections.observableArrayList(
                         new PieChart.Data("Used", usedMem),
                         new PieChart.Data("Free", totalMem - usedMem)
                 ));
 
-                long time = System.currentTimeMillis() / 1000 % WINDOW_SIZE;
-                XYChart.Data<Number, Number> point = new XYChart.Data<>(time, cpu);
-
-                if (cpuSeries.getData().size() > WINDOW_SIZE) {
-                    cpuSeries.getData().remove();
-                }
-                cpuSeries.getData().add(point);
-
-                long simulatedNetSpeed = (long) (Math.random() * 1000);
-                netLabel.setText("Network: " + simulatedNetSpeed + " KB/s");
-
-                listView.refresh();
+                cpuChart.setData(cpuSeries, cpuPoints.times, cpuPoints.avg, cpuPoints.size);
+                cpuChart.setData(memSeries, memPoints.times, memPoints.avg, memPoints.size);
+                netLabel.setText(netUsage);
+                coreHeatmap.push(cores.coreBusy());
+                cpuDetailLabel.setText(cpuDetail);
+                pressureLabel.setText(pressure);
             });
+            SelfMetrics.record(SelfMetrics.Stage.OVERVIEW, started);
         };
 
-        scheduledTask.set(scheduler.scheduleAtFixedRate(updateTask, 0, intervalDropdown.getValue(), TimeUnit.SECONDS));
+        // Both loops adapt their interval to their own cost and to what is on screen: the overview
+        // (which also feeds the tray icon) slows down while the window is minimized, process scans
+        // also while the Processes tab is not showing.
+        overviewScheduler.set(new AdaptiveScheduler(scheduler, updateTask));
+        Runnable updateVisibility = () -> {
+            boolean hidden = primaryStage.isIconified() || !primaryStage.isShowing();
+            overviewScheduler.get().setBackground(hidden);
+            snapshotEngine.getRefreshScheduler().setBackground(hidden || !processesTab.isSelected());
+        };
+        primaryStage.iconifiedProperty().addListener((obs, oldVal, newVal) -> updateVisibility.run());
+        primaryStage.showingProperty().addListener((obs, oldVal, newVal) -> updateVisibility.run());
+        processesTab.selectedProperty().addListener((obs, oldVal, newVal) -> updateVisibility.run());
+        updateVisibility.run();
+        trayManager.setOnRestore(() -> Platform.runLater(() -> {
+            primaryStage.setIconified(false);
+            primaryStage.show();
+            primaryStage.toFront();
+        }));
+
+        overviewScheduler.get().start(TimeUnit.SECONDS.toMillis(intervalDropdown.getValue()));
+        snapshotEngine.start(TimeUnit.SECONDS.toMillis(intervalDropdown.getValue()));
         intervalDropdown.setOnAction(e -> {
-            if (scheduledTask.get() != null) scheduledTask.get().cancel(false);
-            scheduledTask.set(scheduler.scheduleAtFixedRate(updateTask, 0, intervalDropdown.getValue(), TimeUnit.SECONDS));
+            overviewScheduler.get().start(TimeUnit.SECONDS.toMillis(intervalDropdown.getValue()));
+            snapshotEngine.start(TimeUnit.SECONDS.toMillis(intervalDropdown.getValue()));
+        });
+
+        // Only the chart is cleared; the recorded history is kept for later review
+        clearBtn.setOnAction(e -> {
+            chartClearedAt.set(System.currentTimeMillis());
+            cpuChart.clear();
         });
+    }
+
+    private static String formatLoad(double load) {
+        return Double.isNaN(load) ? "–" : String.format("%.2f", load);
+    }
 
-        clearBtn.setOnAction(e -> cpuSeries.getData().clear());
+    // PSI "some" and "full" averages; n/a where the kernel has no /proc/pressure
+    private static String formatPressure(String name, CpuCoreSampler.Pressure pressure) {
+        if (Double.isNaN(pressure.some10())) return name + " n/a";
+        String text = String.format("%s some %.1f%% / %.1f%%", name, pressure.some10(), pressure.some60());
+        if (!Double.isNaN(pressure.full10())) {
+            text += String.format(", full %.1f%% / %.1f%%", pressure.full10(), pressure.full60());
+        }
+        return text;
     }
 
     private VBox createStatCard(String title, Label content) {
@@ -218,42 +502,115 @@ public class Main extends Application {
         return box;
     }
 
-    private void updateProcessListAsync(FilteredList<ProcessHandle> filteredList) {
-        executor.submit(() -> {
-            ObservableList<ProcessHandle> refreshedList = FXCollections.observableArrayList(ProcessFetcher.getProcesses());
-            Platform.runLater(() -> filteredList.setAll(refreshedList));
-        });
+    // Asks each process to exit, then forces the ones that refused
+    private void terminate(List<ProcessRow> rows) {
+        List<ProcessHandle> targets = new ArrayList<>(rows.size());
+        for (ProcessRow row : rows) ProcessHandle.of(row.getPid()).ifPresent(targets::add);
+        if (targets.isEmpty()) return;
+        List<ProcessHandle> failed = new ArrayList<>();
+        for (ProcessHandle target : targets) {
+            if (!target.destroy()) failed.add(target);
+        }
+        String msg;
+        if (targets.size() == 1) {
+            msg = failed.isEmpty() ? "Process terminated successfully." : "Failed to terminate. Forcing termination...";
+        } else {
+            msg = failed.isEmpty()
+                    ? targets.size() + " processes terminated successfully."
+                    : "Failed to terminate " + failed.size() + " of " + targets.size() + " processes. Forcing termination...";
+        }
+        Alert alert = new Alert(Alert.AlertType.INFORMATION, msg, ButtonType.OK);
+        alert.showAndWait();
+        for (ProcessHandle target : failed) target.destroyForcibly();
+        snapshotEngine.refreshNow();
     }
 
-    private void exportToCSV(ObservableList<ProcessHandle> processes) {
+    // Exports the local rows currently shown (the search filter applies) from the latest snapshot
+    private void exportProcesses(ObservableList<ProcessRow> rows, ProcessExporter.Format format, HBox exportBar,
+                                 ProgressBar progress, Label status, Button cancelBtn) {
+        File file = chooseExportFile("Save Process List", "processes", format);
+        if (file == null) return;
+        long[] pids = rows.stream().filter(ProcessRow::isLocal).mapToLong(ProcessRow::getPid).sorted().toArray();
+        runExport(ProcessExporter.processes(snapshotEngine.getLatest(), pids, file.toPath(), format),
+                exportBar, progress, status, cancelBtn);
+    }
+
+    private void exportHistory(ProcessExporter.Format format, HBox exportBar, ProgressBar progress, Label status,
+                               Button cancelBtn) {
+        if (metricsStore == null) {
+            new Alert(Alert.AlertType.ERROR, "No metrics history is being recorded.").showAndWait();
+            return;
+        }
+        Map<String, Long> ranges = new LinkedHashMap<>();
+        ranges.put("Last hour", TimeUnit.HOURS.toMillis(1));
+        ranges.put("Last 6 hours", TimeUnit.HOURS.toMillis(6));
+        ranges.put("Last 24 hours", TimeUnit.DAYS.toMillis(1));
+        ranges.put("Last 7 days", TimeUnit.DAYS.toMillis(7));
+        ChoiceDialog<String> rangeDialog = new ChoiceDialog<>("Last hour", ranges.keySet());
+        rangeDialog.setTitle("Export History");
+        rangeDialog.setHeaderText("Time range to export");
+        String range = rangeDialog.showAndWait().orElse(null);
+        if (range == null) return;
+        File file = chooseExportFile("Save Metrics History", "history", format);
+        if (file == null) return;
+        long to = System.currentTimeMillis();
+        runExport(ProcessExporter.history(metricsStore, to - ranges.get(range), to, file.toPath(), format),
+                exportBar, progress, status, cancelBtn);
+    }
+
+    private static File chooseExportFile(String title, String name, ProcessExporter.Format format) {
         FileChooser fileChooser = new FileChooser();
-        fileChooser.setTitle("Save Process List");
-        fileChooser.setInitialFileName("processes.csv");
-        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV Files", "*.csv"));
-        File file = fileChooser.showSaveDialog(null);
-
-        if (file != null) {
-            try (PrintWriter writer = new PrintWriter(file)) {
-                writer.println("PID,Command,Uptime (s),CPU Time (s)");
-                for (ProcessHandle process : processes) {
-                    long pid = process.pid();
-                    String cmd = process.info().command().orElse("Unknown");
-                    long uptime = process.info().startInstant()
-                            .map(start -> Duration.between(start, Instant.now()).getSeconds())
-                            .orElse(0L);
-                    long cpuTime = process.info().totalCpuDuration().map(Duration::getSeconds).orElse(0L);
-                    writer.printf("%d,%s,%d,%d%n", pid, cmd, uptime, cpuTime);
+        fileChooser.setTitle(title);
+        fileChooser.setInitialFileName(name + format.getPattern().substring(1));
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter(format.getDescription(), format.getPattern()));
+        return fileChooser.showSaveDialog(null);
+    }
+
+    private static void runExport(Task<Long> task, HBox exportBar, ProgressBar progress, Label status,
+                                  Button cancelBtn) {
+        progress.progressProperty().bind(task.progressProperty());
+        status.textProperty().bind(task.messageProperty());
+        cancelBtn.setOnAction(e -> task.cancel());
+        cancelBtn.setDisable(false);
+        exportBar.setVisible(true);
+        exportBar.setManaged(true);
+        Runnable finished = () -> {
+            progress.progressProperty().unbind();
+            status.textProperty().unbind();
+            cancelBtn.setDisable(true);
+            // Leave the final message up for a few seconds
+            PauseTransition hide = new PauseTransition(javafx.util.Duration.seconds(5));
+            hide.setOnFinished(e -> {
+                if (cancelBtn.isDisabled()) {
+                    exportBar.setVisible(false);
+                    exportBar.setManaged(false);
                 }
-            } catch (IOException e) {
-                new Alert(Alert.AlertType.ERROR, "Error saving CSV: " + e.getMessage()).showAndWait();
-            }
-        }
+            });
+            hide.play();
+        };
+        task.setOnSucceeded(e -> finished.run());
+        task.setOnCancelled(e -> {
+            finished.run();
+            status.setText("Export cancelled");
+        });
+        task.setOnFailed(e -> {
+            finished.run();
+            status.setText("Export failed");
+            new Alert(Alert.AlertType.ERROR, "Error exporting: " + task.getException().getMessage()).showAndWait();
+        });
+        Thread.ofVirtual().name("export").start(task);
     }
 
     @Override
     public void stop() throws Exception {
-        executor.shutdownNow();
         scheduler.shutdownNow();
+        snapshotEngine.shutdown();
+        processLifecycle.close();
+        samplingHub.shutdown();
+        if (fleetOverview != null) fleetOverview.shutdown();
+        if (processSearch != null) processSearch.shutdown();
+        if (metricsStore != null) metricsStore.close();
+        if (alertEngine != null) alertEngine.close();
         super.stop();
     }
 
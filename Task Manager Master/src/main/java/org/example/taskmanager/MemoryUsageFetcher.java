@@ -1,22 +1,61 @@
 package org.example.taskmanager;
 
+import java.util.Collections;
+import java.util.Map;
 import java.util.Optional;
 
 public class MemoryUsageFetcher {
 
+    private static volatile long cacheMillis = 1000;
+    private static Map<Long, Long> cachedUsage = Collections.emptyMap();
+    private static long cachedAtNanos;
+
     public static Optional<Long> getMemoryUsage(long pid) {
-        String os = System.getProperty("os.name").toLowerCase();
+        // Answer from the last batch while it is still fresh instead of querying one pid
+        Long cached = freshCache().get(pid);
+        if (cached != null) return Optional.of(cached);
+
         try {
-            if (os.contains("win")) {
-                return Optional.of(WindowsMemoryReader.getMemory(pid));
-            } else if (os.contains("linux")) {
-                return Optional.of(LinuxMemoryReader.getMemory(pid));
-            } else if (os.contains("mac")) {
-                return Optional.of(MacMemoryReader.getMemory(pid));
+            switch (OperatingSystem.CURRENT) {
+                case WINDOWS: return Optional.of(WindowsMemoryReader.getMemory(pid));
+                case LINUX: return Optional.of(LinuxMemoryReader.getMemory(pid));
+                case MAC: return Optional.of(MacMemoryReader.getMemory(pid));
+                default: break;
             }
         } catch (Exception e) {
             System.err.println("Failed to fetch memory for PID " + pid + ": " + e.getMessage());
         }
         return Optional.empty();
     }
+
+    // RSS in bytes for every process, collected in one sweep. Repeated calls within one tick
+    // (see setCacheMillis) share the same result.
+    public static synchronized Map<Long, Long> getAllMemoryUsage() {
+        if (System.nanoTime() - cachedAtNanos < cacheMillis * 1_000_000 && !cachedUsage.isEmpty()) {
+            return cachedUsage;
+        }
+        try {
+            Map<Long, Long> usage;
+            switch (OperatingSystem.CURRENT) {
+                case WINDOWS: usage = WindowsMemoryReader.getAllMemory(); break;
+                case LINUX: usage = LinuxMemoryReader.getAllMemory(); break;
+                case MAC: usage = MacMemoryReader.getAllMemory(); break;
+                default: usage = Collections.emptyMap(); break;
+            }
+            cachedUsage = Collections.unmodifiableMap(usage);
+            cachedAtNanos = System.nanoTime();
+        } catch (Exception e) {
+            System.err.println("Failed to fetch memory for all processes: " + e.getMessage());
+        }
+        return cachedUsage;
+    }
+
+    public static void setCacheMillis(long millis) {
+        cacheMillis = millis;
+    }
+
+    private static synchronized Map<Long, Long> freshCache() {
+        boolean fresh = System.nanoTime() - cachedAtNanos < cacheMillis * 1_000_000;
+        return fresh ? cachedUsage : Collections.emptyMap();
+    }
 }
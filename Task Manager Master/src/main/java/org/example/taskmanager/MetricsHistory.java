@@ -0,0 +1,199 @@
+package org.example.taskmanager;
+
+import java.util.Arrays;
+
+// Long-running history of one metric (e.g. system CPU %) kept in three rollup tiers:
+// 1s buckets for 10 minutes, 10s buckets for 6 hours and 1m buckets for 7 days. Each bucket stores
+// min, max and average. Every tier is a ring of primitive arrays with one writer (the sampler)
+// and any number of lock-free readers; see Tier for how readers detect slots overwritten mid-read.
+public class MetricsHistory {
+
+    public static final int SECOND_TIER = 0;
+    public static final int TEN_SECOND_TIER = 1;
+    public static final int MINUTE_TIER = 2;
+
+    private final String name;
+    private final Tier[] tiers = {
+            new Tier(1_000, 600),
+            new Tier(10_000, 6 * 360),
+            new Tier(60_000, 7 * 24 * 60)
+    };
+
+    public MetricsHistory(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // Single writer only. Samples must arrive in time order.
+    public void record(long timeMillis, double value) {
+        for (Tier tier : tiers) tier.add(timeMillis, value);
+    }
+
+    // Buckets starting at or after fromMillis, from the finest tier that still covers fromMillis.
+    public Series read(long fromMillis) {
+        long now = System.currentTimeMillis();
+        for (Tier tier : tiers) {
+            if (now - fromMillis <= tier.retentionMillis()) return tier.read(fromMillis);
+        }
+        return tiers[MINUTE_TIER].read(fromMillis);
+    }
+
+    public Series read(int tier, long fromMillis) {
+        return tiers[tier].read(fromMillis);
+    }
+
+    // Everything since fromMillis at the best resolution available for each stretch: minute buckets
+    // up to where the 10s tier starts, then 10s buckets up to where the 1s tier starts, then 1s buckets.
+    // bucketMillis of the result is that of the finest tier.
+    public Series readAll(long fromMillis) {
+        Series[] parts = new Series[tiers.length];
+        int total = 0;
+        long until = Long.MAX_VALUE;
+        for (int tier = 0; tier < tiers.length; tier++) {
+            Series part = tiers[tier].read(fromMillis);
+            int keep = 0;
+            while (keep < part.size && part.times[keep] < until) keep++;
+            total += keep;
+            if (keep > 0) until = Math.min(until, part.times[0]);
+            parts[tier] = new Series(part.bucketMillis, keep, part.times, part.min, part.max, part.avg);
+        }
+        long[] times = new long[total];
+        double[] min = new double[total];
+        double[] max = new double[total];
+        double[] avg = new double[total];
+        int offset = 0;
+        for (int tier = tiers.length - 1; tier >= 0; tier--) {
+            Series part = parts[tier];
+            System.arraycopy(part.times, 0, times, offset, part.size);
+            System.arraycopy(part.min, 0, min, offset, part.size);
+            System.arraycopy(part.max, 0, max, offset, part.size);
+            System.arraycopy(part.avg, 0, avg, offset, part.size);
+            offset += part.size;
+        }
+        return new Series(tiers[SECOND_TIER].bucketMillis, total, times, min, max, avg);
+    }
+
+    public long bucketMillis(int tier) {
+        return tiers[tier].bucketMillis;
+    }
+
+    // A consistent copy of part of a tier, oldest first.
+    public static final class Series {
+        public final long bucketMillis;
+        public final int size;
+        public final long[] times;
+        public final double[] min;
+        public final double[] max;
+        public final double[] avg;
+
+        Series(long bucketMillis, int size, long[] times, double[] min, double[] max, double[] avg) {
+            this.bucketMillis = bucketMillis;
+            this.size = size;
+            this.times = times;
+            this.min = min;
+            this.max = max;
+            this.avg = avg;
+        }
+    }
+
+    // Ring buffer of finished buckets plus the bucket currently being filled (writer-private).
+    // The writer fills a slot and then bumps the volatile published counter, which makes the slot
+    // visible. A reader copies slots and re-reads the counter afterwards; any slot the writer may
+    // have reused in the meantime is dropped from the copy.
+    private static final class Tier {
+        private final long bucketMillis;
+        private final int capacity;
+        private final long[] times;
+        private final double[] min;
+        private final double[] max;
+        private final double[] avg;
+        private volatile long published;
+
+        private long currentBucket = Long.MIN_VALUE;
+        private double currentMin;
+        private double currentMax;
+        private double currentSum;
+        private int currentCount;
+
+        Tier(long bucketMillis, int capacity) {
+            this.bucketMillis = bucketMillis;
+            this.capacity = capacity;
+            this.times = new long[capacity];
+            this.min = new double[capacity];
+            this.max = new double[capacity];
+            this.avg = new double[capacity];
+        }
+
+        long retentionMillis() {
+            return bucketMillis * capacity;
+        }
+
+        void add(long timeMillis, double value) {
+            long bucket = timeMillis - Math.floorMod(timeMillis, bucketMillis);
+            if (bucket != currentBucket) {
+                if (currentCount > 0) publish();
+                currentBucket = bucket;
+                currentMin = value;
+                currentMax = value;
+                currentSum = 0;
+                currentCount = 0;
+            }
+            currentMin = Math.min(currentMin, value);
+            currentMax = Math.max(currentMax, value);
+            currentSum += value;
+            currentCount++;
+        }
+
+        private void publish() {
+            long sequence = published;
+            int slot = (int) (sequence % capacity);
+            times[slot] = currentBucket;
+            min[slot] = currentMin;
+            max[slot] = currentMax;
+            avg[slot] = currentSum / currentCount;
+            published = sequence + 1;
+        }
+
+        Series read(long fromMillis) {
+            long end = published;
+            long start = Math.max(0, end - capacity);
+
+            // Skip buckets before fromMillis; times are ascending so a binary search over sequences works
+            long lo = start;
+            long hi = end;
+            while (lo < hi) {
+                long mid = (lo + hi) >>> 1;
+                if (times[(int) (mid % capacity)] < fromMillis) lo = mid + 1;
+                else hi = mid;
+            }
+            start = lo;
+
+            int count = (int) (end - start);
+            long[] outTimes = new long[count];
+            double[] outMin = new double[count];
+            double[] outMax = new double[count];
+            double[] outAvg = new double[count];
+            for (int i = 0; i < count; i++) {
+                int slot = (int) ((start + i) % capacity);
+                outTimes[i] = times[slot];
+                outMin[i] = min[slot];
+                outMax[i] = max[slot];
+                outAvg[i] = avg[slot];
+            }
+
+            // The writer may be rewriting the slot of sequence published - capacity right now,
+            // and everything older has already been reused
+            long overwritten = published - capacity + 1;
+            int skip = (int) Math.max(0, Math.min(count, overwritten - start));
+            if (skip == 0) return new Series(bucketMillis, count, outTimes, outMin, outMax, outAvg);
+            return new Series(bucketMillis, count - skip,
+                    Arrays.copyOfRange(outTimes, skip, count),
+                    Arrays.copyOfRange(outMin, skip, count),
+                    Arrays.copyOfRange(outMax, skip, count),
+                    Arrays.copyOfRange(outAvg, skip, count));
+        }
+    }
+}
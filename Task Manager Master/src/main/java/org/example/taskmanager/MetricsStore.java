@@ -0,0 +1,489 @@
+package org.example.taskmanager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Persistent per-process metrics. Records are fixed-width (timestamp, pid, rss, cpu) and appended to
+// a memory-mapped segment file. A segment is sealed after an hour or when full. Sealed segments are
+// compacted in the background: records are re-sorted by (pid, time), so reading one pid is a binary
+// search plus a contiguous scan, and segments older than a day are downsampled to one record per
+// pid per minute. Segments older than the retention period are deleted.
+//
+// Records within a segment are in time order, which the time queries and compaction rely on. Callers
+// pass times they took earlier, from several threads, and the wall clock can step back, so append
+// clamps each time to the latest one recorded.
+//
+// Segment layout: a 64-byte header (magic, version, flags, record count, min/max timestamp) followed
+// by 32-byte records. The header min/max timestamps act as the time index for picking segments.
+//
+// A file is never resized or replaced while mapped (Windows refuses both). A segment is mapped at full
+// capacity and sealed as is; the header count says how many records are valid and the tail is ignored.
+// Compaction writes its output under a new name (metrics-<start>.sorted.seg, .downsampled.seg), swaps
+// it in for readers and only then deletes the old file, retrying later while a mapping keeps it alive.
+// On startup the most compacted file of each segment wins and the others are deleted.
+public class MetricsStore implements ProcessSnapshotEngine.Listener, Closeable {
+
+    public static final long SYSTEM_PID = -1;
+
+    public interface RecordVisitor {
+        void visit(long timeMillis, long pid, double cpuPercent, long rssBytes);
+    }
+
+    private static final int MAGIC = 0x544D4D53; // "TMMS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int RECORD_BYTES = 32;
+    private static final int SEGMENT_RECORDS = 1 << 20;
+    private static final long SEGMENT_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final long DOWNSAMPLE_AFTER_MILLIS = TimeUnit.DAYS.toMillis(1);
+    private static final long RETENTION_MILLIS = TimeUnit.DAYS.toMillis(7);
+
+    private static final int SORTED = 1;
+    private static final int DOWNSAMPLED = 2;
+    private static final String SORTED_SUFFIX = ".sorted.seg";
+    private static final String DOWNSAMPLED_SUFFIX = ".downsampled.seg";
+
+    private final Path directory;
+    private final List<Segment> sealed = new ArrayList<>();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "metrics-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Segment active;
+    private long lastTimeMillis = Long.MIN_VALUE;
+    // Files of compacted-away or expired segments that could not be deleted yet; compactor thread only
+    private final List<Path> pendingDeletes = new ArrayList<>();
+
+    public MetricsStore(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        Map<String, Path> latest = new HashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.{seg,tmp}")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    pendingDeletes.add(file); // compaction cut short
+                    continue;
+                }
+                String base = name.substring(0, name.indexOf('.'));
+                Path other = latest.get(base);
+                if (other == null || stage(file) > stage(other)) {
+                    latest.put(base, file);
+                    if (other != null) pendingDeletes.add(other);
+                } else {
+                    pendingDeletes.add(file);
+                }
+            }
+        }
+        // Nothing is mapped yet, so the superseded files go right away
+        deletePending();
+        for (Path file : latest.values()) {
+            try {
+                sealed.add(Segment.open(file));
+            } catch (IOException e) {
+                System.err.println("Skipping unreadable metrics segment " + file + ": " + e.getMessage());
+            }
+        }
+        sealed.sort((a, b) -> Long.compare(a.minTime, b.minTime));
+        compactor.execute(this::maintain);
+    }
+
+    private static int stage(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(DOWNSAMPLED_SUFFIX) ? 2 : name.endsWith(SORTED_SUFFIX) ? 1 : 0;
+    }
+
+    public static Path defaultDirectory() {
+        return Path.of(System.getProperty("user.home"), ".taskmanager", "metrics");
+    }
+
+    // Records every process that is new or changed in this scan; idle processes cost nothing.
+    @Override
+    public void onSnapshot(ProcessSnapshot snapshot, ProcessDelta delta) {
+        long now = snapshot.getCapturedAtMillis();
+        for (int index : delta.getAdded()) {
+            append(now, snapshot.pid(index), snapshot.cpuPercent(index), snapshot.rssBytes(index));
+        }
+        for (int index : delta.getChanged()) {
+            append(now, snapshot.pid(index), snapshot.cpuPercent(index), snapshot.rssBytes(index));
+        }
+    }
+
+    public synchronized void append(long timeMillis, long pid, double cpuPercent, long rssBytes) {
+        timeMillis = Math.max(timeMillis, lastTimeMillis);
+        lastTimeMillis = timeMillis;
+        try {
+            if (active == null || active.count == SEGMENT_RECORDS || timeMillis - active.minTime >= SEGMENT_MILLIS) {
+                roll(timeMillis);
+            }
+            active.append(timeMillis, pid, cpuPercent, rssBytes);
+        } catch (IOException e) {
+            System.err.println("Failed to record metrics: " + e.getMessage());
+        }
+    }
+
+    // Visits the records of one pid (or SYSTEM_PID) between fromMillis and toMillis, oldest first.
+    public int query(long pid, long fromMillis, long toMillis, RecordVisitor visitor) {
+        int visited = 0;
+        for (Segment segment : overlapping(fromMillis, toMillis)) {
+            visited += segment.isSorted()
+                    ? segment.scanPid(pid, fromMillis, toMillis, visitor)
+                    : segment.scanTime(pid, true, fromMillis, toMillis, visitor);
+        }
+        return visited;
+    }
+
+    // Visits every record between fromMillis and toMillis. Within a compacted segment records come
+    // grouped by pid rather than in time order.
+    public int queryAll(long fromMillis, long toMillis, RecordVisitor visitor) {
+        int visited = 0;
+        for (Segment segment : overlapping(fromMillis, toMillis)) {
+            visited += segment.isSorted()
+                    ? segment.scanAll(fromMillis, toMillis, visitor)
+                    : segment.scanTime(0, false, fromMillis, toMillis, visitor);
+        }
+        return visited;
+    }
+
+    // Upper bound on the records queryAll would visit for the range, from the segment headers only
+    public long countRecords(long fromMillis, long toMillis) {
+        long total = 0;
+        for (Segment segment : overlapping(fromMillis, toMillis)) total += segment.count;
+        return total;
+    }
+
+    @Override
+    public void close() {
+        // Let queued passes finish rather than close segments under a compaction; not while holding
+        // the lock, which a pass takes to swap its output in
+        compactor.shutdown();
+        try {
+            if (!compactor.awaitTermination(30, TimeUnit.SECONDS)) {
+                System.err.println("Metrics compaction still running at close");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (active != null) {
+                active.seal();
+                active.close();
+            }
+            for (Segment segment : sealed) segment.close();
+        }
+    }
+
+    private synchronized List<Segment> overlapping(long fromMillis, long toMillis) {
+        List<Segment> result = new ArrayList<>();
+        for (Segment segment : sealed) {
+            if (segment.count > 0 && segment.maxTime >= fromMillis && segment.minTime <= toMillis) result.add(segment);
+        }
+        if (active != null && active.count > 0 && active.maxTime >= fromMillis && active.minTime <= toMillis) {
+            result.add(active);
+        }
+        return result;
+    }
+
+    private void roll(long timeMillis) throws IOException {
+        if (active != null) {
+            active.seal();
+            sealed.add(active);
+            compactor.execute(this::maintain);
+        }
+        // A segment that filled up within one millisecond must not reuse (and truncate) the previous name
+        long stamp = timeMillis;
+        while (Files.exists(directory.resolve("metrics-" + stamp + ".seg"))
+                || Files.exists(directory.resolve("metrics-" + stamp + SORTED_SUFFIX))
+                || Files.exists(directory.resolve("metrics-" + stamp + DOWNSAMPLED_SUFFIX))) {
+            stamp++;
+        }
+        active = Segment.create(directory.resolve("metrics-" + stamp + ".seg"), timeMillis);
+    }
+
+    // Runs on the compactor thread: sort freshly sealed segments, downsample old ones, drop expired ones.
+    private void maintain() {
+        deletePending();
+        long now = System.currentTimeMillis();
+        List<Segment> candidates;
+        synchronized (this) {
+            candidates = new ArrayList<>(sealed);
+        }
+        for (Segment segment : candidates) {
+            try {
+                Segment replacement = null;
+                if (now - segment.maxTime > RETENTION_MILLIS) {
+                    remove(segment, null);
+                    continue;
+                }
+                if (!segment.isSorted()) {
+                    replacement = segment.compact(false);
+                } else if ((segment.flags & DOWNSAMPLED) == 0 && now - segment.maxTime > DOWNSAMPLE_AFTER_MILLIS) {
+                    replacement = segment.compact(true);
+                }
+                if (replacement != null) remove(segment, replacement);
+            } catch (IOException e) {
+                System.err.println("Failed to compact " + segment.path + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void remove(Segment segment, Segment replacement) throws IOException {
+        synchronized (this) {
+            int index = sealed.indexOf(segment);
+            if (index < 0) return;
+            if (replacement == null) sealed.remove(index);
+            else sealed.set(index, replacement);
+        }
+        segment.close();
+        pendingDeletes.add(segment.path);
+        deletePending();
+    }
+
+    // A query still walking a removed segment keeps its mapping, and with it (on Windows) the file
+    private void deletePending() {
+        pendingDeletes.removeIf(file -> {
+            try {
+                Files.deleteIfExists(file);
+                return true;
+            } catch (IOException e) {
+                return false;
+            }
+        });
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private final FileChannel channel;
+        private MappedByteBuffer buffer;
+        private final int flags;
+        private volatile int count;
+        private volatile long minTime;
+        private volatile long maxTime;
+
+        private Segment(Path path, FileChannel channel, MappedByteBuffer buffer, int flags, int count,
+                        long minTime, long maxTime) {
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.flags = flags;
+            this.count = count;
+            this.minTime = minTime;
+            this.maxTime = maxTime;
+        }
+
+        static Segment create(Path path, long startMillis) throws IOException {
+            return create(path, SEGMENT_RECORDS, 0, startMillis);
+        }
+
+        private static Segment create(Path path, int capacity, int flags, long startMillis) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_BYTES + (long) capacity * RECORD_BYTES);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, flags);
+            Segment segment = new Segment(path, channel, buffer, flags, 0, startMillis, startMillis);
+            segment.writeHeader();
+            return segment;
+        }
+
+        static Segment open(Path path) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (channel.size() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                channel.close();
+                throw new IOException("not a metrics segment");
+            }
+            int count = (int) Math.min(buffer.getLong(16), (channel.size() - HEADER_BYTES) / RECORD_BYTES);
+            return new Segment(path, channel, buffer, buffer.getInt(8), count, buffer.getLong(24), buffer.getLong(32));
+        }
+
+        boolean isSorted() {
+            return (flags & SORTED) != 0;
+        }
+
+        // Writer thread only; the volatile count publishes the record to readers.
+        void append(long timeMillis, long pid, double cpuPercent, long rssBytes) {
+            int offset = HEADER_BYTES + count * RECORD_BYTES;
+            buffer.putLong(offset, timeMillis);
+            buffer.putLong(offset + 8, pid);
+            buffer.putLong(offset + 16, rssBytes);
+            buffer.putDouble(offset + 24, cpuPercent);
+            if (count == 0) minTime = timeMillis;
+            maxTime = Math.max(maxTime, timeMillis);
+            count++;
+            writeHeader();
+        }
+
+        private void writeHeader() {
+            buffer.putLong(16, count);
+            buffer.putLong(24, minTime);
+            buffer.putLong(32, maxTime);
+        }
+
+        // Flushes a segment that takes no more records. The file keeps its full capacity; readers go
+        // by the header count.
+        void seal() {
+            buffer.force();
+        }
+
+        long time(int i) {
+            return buffer.getLong(HEADER_BYTES + i * RECORD_BYTES);
+        }
+
+        long pid(int i) {
+            return buffer.getLong(HEADER_BYTES + i * RECORD_BYTES + 8);
+        }
+
+        long rss(int i) {
+            return buffer.getLong(HEADER_BYTES + i * RECORD_BYTES + 16);
+        }
+
+        double cpu(int i) {
+            return buffer.getDouble(HEADER_BYTES + i * RECORD_BYTES + 24);
+        }
+
+        // Time-ordered segment: binary search the start, then scan until past toMillis.
+        int scanTime(long pid, boolean filterPid, long fromMillis, long toMillis, RecordVisitor visitor) {
+            int n = count;
+            int lo = 0;
+            int hi = n;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (time(mid) < fromMillis) lo = mid + 1;
+                else hi = mid;
+            }
+            int visited = 0;
+            for (int i = lo; i < n; i++) {
+                long t = time(i);
+                if (t > toMillis) break;
+                if (filterPid && pid(i) != pid) continue;
+                visitor.visit(t, pid(i), cpu(i), rss(i));
+                visited++;
+            }
+            return visited;
+        }
+
+        // (pid, time)-ordered segment: the pid's records in range are one contiguous run.
+        int scanPid(long pid, long fromMillis, long toMillis, RecordVisitor visitor) {
+            int lo = 0;
+            int hi = count;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                long p = pid(mid);
+                if (p < pid || (p == pid && time(mid) < fromMillis)) lo = mid + 1;
+                else hi = mid;
+            }
+            int visited = 0;
+            for (int i = lo; i < count && pid(i) == pid; i++) {
+                long t = time(i);
+                if (t > toMillis) break;
+                visitor.visit(t, pid, cpu(i), rss(i));
+                visited++;
+            }
+            return visited;
+        }
+
+        int scanAll(long fromMillis, long toMillis, RecordVisitor visitor) {
+            int visited = 0;
+            for (int i = 0; i < count; i++) {
+                long t = time(i);
+                if (t < fromMillis || t > toMillis) continue;
+                visitor.visit(t, pid(i), cpu(i), rss(i));
+                visited++;
+            }
+            return visited;
+        }
+
+        // Writes a (pid, time)-sorted copy next to this segment, optionally averaged per pid per minute,
+        // and maps it. The copy is written through a plain channel under a temporary name and renamed
+        // once complete, so a file with a compacted name is always whole.
+        Segment compact(boolean downsample) throws IOException {
+            int n = count;
+            int[] order = sortedOrder(n);
+
+            ByteBuffer data = ByteBuffer.allocate(HEADER_BYTES + n * RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            int out = 0;
+            int i = 0;
+            while (i < n) {
+                int first = order[i];
+                long pid = pid(first);
+                long minute = time(first) - Math.floorMod(time(first), 60_000L);
+                double cpuSum = 0;
+                long rssSum = 0;
+                int bucket = 0;
+                do {
+                    cpuSum += cpu(order[i]);
+                    rssSum += rss(order[i]);
+                    bucket++;
+                    i++;
+                } while (downsample && i < n && pid(order[i]) == pid && time(order[i]) - minute < 60_000L);
+                int offset = HEADER_BYTES + out * RECORD_BYTES;
+                data.putLong(offset, downsample ? minute : time(first));
+                data.putLong(offset + 8, pid);
+                data.putLong(offset + 16, rssSum / bucket);
+                data.putDouble(offset + 24, cpuSum / bucket);
+                out++;
+            }
+            int copyFlags = SORTED | (downsample ? DOWNSAMPLED : 0) | (flags & DOWNSAMPLED);
+            data.putInt(0, MAGIC);
+            data.putInt(4, VERSION);
+            data.putInt(8, copyFlags);
+            data.putLong(16, out);
+            data.putLong(24, minTime);
+            data.putLong(32, maxTime);
+            data.limit(HEADER_BYTES + out * RECORD_BYTES);
+
+            String name = path.getFileName().toString();
+            Path target = path.resolveSibling(name.substring(0, name.indexOf('.'))
+                    + ((copyFlags & DOWNSAMPLED) != 0 ? DOWNSAMPLED_SUFFIX : SORTED_SUFFIX));
+            Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (data.hasRemaining()) channel.write(data);
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            return open(target);
+        }
+
+        // Record order by pid, keeping time order within a pid. Records are already in time order (see
+        // append) or sorted by pid then time, so a stable sort on pid is enough: pack pid and position
+        // into one long and sort the primitives.
+        private int[] sortedOrder(int n) {
+            long[] keys = new long[n];
+            for (int i = 0; i < n; i++) keys[i] = ((pid(i) + 1) << 21) | i;
+            Arrays.sort(keys);
+            int[] order = new int[n];
+            for (int i = 0; i < n; i++) order[i] = (int) (keys[i] & ((1 << 21) - 1));
+            return order;
+        }
+
+        // The mapping itself stays valid after the channel is closed and is released once the segment
+        // is unreachable, so a query or export still walking a compacted-away segment can finish.
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close " + path + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.taskmanager;
+
+public enum OperatingSystem {
+    WINDOWS, LINUX, MAC, OTHER;
+
+    // Resolved once; os.name does not change while the JVM runs.
+    public static final OperatingSystem CURRENT = detect();
+
+    private static OperatingSystem detect() {
+        String os = System.getProperty("os.name").toLowerCase();
+        if (os.contains("win")) return WINDOWS;
+        if (os.contains("linux")) return LINUX;
+        if (os.contains("mac")) return MAC;
+        return OTHER;
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.taskmanager;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+// What changed between two snapshots: rows that appeared, pids that went away and rows whose values
+// differ. Both snapshots are sorted by pid, so the delta is computed in one merge pass.
+public final class ProcessDelta {
+
+    private final int[] added;
+    private final long[] removed;
+    private final int[] changed;
+
+    private ProcessDelta(int[] added, long[] removed, int[] changed) {
+        this.added = added;
+        this.removed = removed;
+        this.changed = changed;
+    }
+
+    // A delta whose changes are already known, so no snapshots need to be compared. The arrays are
+    // kept; indices and pids must be ascending, like between() produces them.
+    static ProcessDelta of(int[] added, long[] removed, int[] changed) {
+        return new ProcessDelta(added, removed, changed);
+    }
+
+    public static ProcessDelta between(ProcessSnapshot previous, ProcessSnapshot current) {
+        int[] added = new int[current.size()];
+        long[] removed = new long[previous.size()];
+        int[] changed = new int[current.size()];
+        int addedCount = 0;
+        int removedCount = 0;
+        int changedCount = 0;
+
+        int p = 0;
+        int c = 0;
+        while (p < previous.size() || c < current.size()) {
+            long prevPid = p < previous.size() ? previous.pid(p) : Long.MAX_VALUE;
+            long curPid = c < current.size() ? current.pid(c) : Long.MAX_VALUE;
+            if (prevPid < curPid) {
+                removed[removedCount++] = prevPid;
+                p++;
+            } else if (curPid < prevPid) {
+                added[addedCount++] = c;
+                c++;
+            } else {
+                if (previous.startMillis(p) != current.startMillis(c)) {
+                    // pid was reused by a different process
+                    removed[removedCount++] = prevPid;
+                    added[addedCount++] = c;
+                } else if (differs(previous, p, current, c)) {
+                    changed[changedCount++] = c;
+                }
+                p++;
+                c++;
+            }
+        }
+        return new ProcessDelta(Arrays.copyOf(added, addedCount), Arrays.copyOf(removed, removedCount),
+                Arrays.copyOf(changed, changedCount));
+    }
+
+    // Row indices into the current snapshot
+    public int[] getAdded() {
+        return added;
+    }
+
+    public long[] getRemoved() {
+        return removed;
+    }
+
+    // Row indices into the current snapshot
+    public int[] getChanged() {
+        return changed;
+    }
+
+    public boolean isEmpty() {
+        return added.length == 0 && removed.length == 0 && changed.length == 0;
+    }
+
+    private static boolean differs(ProcessSnapshot a, int i, ProcessSnapshot b, int j) {
+        return a.cpuPercent(i) != b.cpuPercent(j)
+                || a.rssBytes(i) != b.rssBytes(j)
+                || a.threads(i) != b.threads(j)
+                || a.ppid(i) != b.ppid(j)
+                || a.readBytesPerSec(i) != b.readBytesPerSec(j)
+                || a.writeBytesPerSec(i) != b.writeBytesPerSec(j)
+                || a.voluntarySwitchesPerSec(i) != b.voluntarySwitchesPerSec(j)
+                || a.involuntarySwitchesPerSec(i) != b.involuntarySwitchesPerSec(j)
+                || !Objects.equals(a.name(i), b.name(j))
+                || !Objects.equals(a.command(i), b.command(j))
+                || !Objects.equals(a.arguments(i), b.arguments(j))
+                || !Objects.equals(a.user(i), b.user(j));
+    }
+}
@@ -3,26 +3,26 @@ package org.example.taskmanager;
 import javafx.application.Platform;
 import javafx.geometry.*;
 import javafx.scene.Scene;
-import javafx.scene.chart.*;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
+import javafx.scene.paint.Color;
 import javafx.stage.Stage;
 
 import java.time.Duration;
 import java.time.Instant;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.concurrent.*;
 
 public class ProcessDetailWindow {
 
     private Stage stage;
     private ProcessHandle process;
-    private Set<Long> favoritePids;
+    private final Favorites favorites;
+    private final SamplingHub samplingHub;
+    private Favorites.Entry favorite; // kept after the process exits, so it can still be removed
 
-    public ProcessDetailWindow(ProcessHandle process, Set<Long> favoritePids) {
+    public ProcessDetailWindow(ProcessHandle process, Favorites favorites, SamplingHub samplingHub) {
         this.process = process;
-        this.favoritePids = favoritePids;
+        this.favorites = favorites;
+        this.samplingHub = samplingHub;
         this.stage = new Stage();
         stage.setTitle("Process Details");
 
@@ -67,7 +67,8 @@ public class ProcessDetailWindow {
                         .map(start -> Duration.between(start, Instant.now()).getSeconds() + " seconds")
                         .orElse("N/A"));
 
-        Button favoriteButton = new Button(favoritePids.contains(process.pid()) ? "Remove from Favorites" : "Add to Favorites");
+        favorite = favorites.entryOf(process.pid());
+        Button favoriteButton = new Button(favorite != null ? "Remove from Favorites" : "Add to Favorites");
         favoriteButton.setOnAction(e -> toggleFavorite(favoriteButton));
 
         infoBox.getChildren().addAll(pidLabel, commandLabel, uptimeLabel, favoriteButton);
@@ -78,36 +79,26 @@ public class ProcessDetailWindow {
         VBox statsBox = new VBox(10);
         statsBox.setPadding(new Insets(10));
 
-        // CPU & Memory Live Graph
-        NumberAxis xAxis = new NumberAxis();
-        NumberAxis yAxis = new NumberAxis();
-        LineChart<Number, Number> cpuChart = new LineChart<>(xAxis, yAxis);
-        cpuChart.setAnimated(false);
-        cpuChart.setTitle("CPU & Memory Usage");
-
-        XYChart.Series<Number, Number> cpuSeries = new XYChart.Series<>();
-        cpuSeries.setName("CPU Usage");
-
-        XYChart.Series<Number, Number> memSeries = new XYChart.Series<>();
-        memSeries.setName("Memory Usage");
-
-        cpuChart.getData().addAll(cpuSeries, memSeries);
-
-        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
-        scheduler.scheduleAtFixedRate(() -> {
-            double cpuUsage = SystemMonitor.getCpuLoad() * 100;
-            long memUsage = SystemMonitor.getUsedMemory() / (1024 * 1024); // MB
+        // CPU & Memory Live Graph for this process; sampling stops when the window closes. Favorites
+        // share the pinned fast sampling job, so their graph has the fine-grained trace. Each sample is
+        // appended to the charts as it comes, rather than redrawn from a copy of the whole history.
+        TimeSeriesChart cpuChart = new TimeSeriesChart("CPU Usage", "%", 0, Double.NaN);
+        int cpuSeries = cpuChart.addSeries("CPU", Color.web("#3b82f6"));
+        TimeSeriesChart memChart = new TimeSeriesChart("Resident Memory (MB)", "", 0, Double.NaN);
+        int memSeries = memChart.addSeries("RSS", Color.web("#f59e0b"));
+
+        long period = favorites.contains(process.pid()) ? Favorites.PIN_PERIOD_MILLIS : 2000;
+        samplingHub.subscribe(stage, process.pid(), period, sample -> {
+            if (!sample.alive()) return;
             Platform.runLater(() -> {
-                if (cpuSeries.getData().size() > 30) {
-                    cpuSeries.getData().remove(0);
-                    memSeries.getData().remove(0);
-                }
-                cpuSeries.getData().add(new XYChart.Data<>(System.currentTimeMillis() / 1000 % 30, cpuUsage));
-                memSeries.getData().add(new XYChart.Data<>(System.currentTimeMillis() / 1000 % 30, memUsage));
+                cpuChart.append(cpuSeries, sample.timeMillis(), sample.cpuPercent());
+                memChart.append(memSeries, sample.timeMillis(), sample.rssBytes() / (1024.0 * 1024));
             });
-        }, 0, 2, TimeUnit.SECONDS);
+        });
 
-        statsBox.getChildren().add(cpuChart);
+        VBox.setVgrow(cpuChart, Priority.ALWAYS);
+        VBox.setVgrow(memChart, Priority.ALWAYS);
+        statsBox.getChildren().addAll(cpuChart, memChart);
         return statsBox;
     }
 
@@ -119,25 +110,32 @@ public class ProcessDetailWindow {
         logsArea.setEditable(false);
         logsArea.setPrefHeight(150);
 
-        // Simulating some logs output
-        ScheduledExecutorService logScheduler = Executors.newSingleThreadScheduledExecutor();
-        logScheduler.scheduleAtFixedRate(() -> {
-            Platform.runLater(() -> {
-                logsArea.appendText("Log entry for PID " + process.pid() + " at " + Instant.now() + "\n");
-            });
-        }, 0, 5, TimeUnit.SECONDS);
+        // A line every few seconds with the process's own usage, until it exits or the window closes
+        boolean[] exitLogged = {false};
+        samplingHub.subscribe(stage, process.pid(), 5000, sample -> {
+            if (exitLogged[0]) return;
+            exitLogged[0] = !sample.alive();
+            String line = sample.alive()
+                    ? String.format("%s  CPU %.1f%%  RSS %s%n", Instant.ofEpochMilli(sample.timeMillis()),
+                            sample.cpuPercent(), ProcessRow.formatBytes(sample.rssBytes()))
+                    : Instant.ofEpochMilli(sample.timeMillis()) + "  Process " + process.pid() + " exited\n";
+            Platform.runLater(() -> logsArea.appendText(line));
+        });
 
         logsBox.getChildren().add(logsArea);
         return logsBox;
     }
 
     private void toggleFavorite(Button favoriteButton) {
-        if (favoritePids.contains(process.pid())) {
-            favoritePids.remove(process.pid());
+        if (favorite != null) {
+            favorites.remove(favorite);
+            favorite = null;
             favoriteButton.setText("Add to Favorites");
-        } else {
-            favoritePids.add(process.pid());
+        } else if ((favorite = favorites.add(process.pid())) != null) {
             favoriteButton.setText("Remove from Favorites");
+        } else {
+            // Favorites are matched against scanned rows; a process younger than the last scan has none yet
+            favoriteButton.setText("Add to Favorites (try again after the next scan)");
         }
     }
 }
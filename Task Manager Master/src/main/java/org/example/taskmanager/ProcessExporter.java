@@ -0,0 +1,237 @@
+package org.example.taskmanager;
+
+import javafx.concurrent.Task;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+
+// Export jobs for the Processes tab. Each one is a Task meant to run off the FX thread: it streams
+// rows straight from an immutable ProcessSnapshot or from the MetricsStore into a buffered file,
+// reports progress every few thousand rows, and deletes the partial file when cancelled or failed.
+public final class ProcessExporter {
+
+    public enum Format {
+        CSV("CSV Files", "*.csv"),
+        COLUMNAR("Columnar Binary Files", "*.tmc");
+
+        private final String description;
+        private final String pattern;
+
+        Format(String description, String pattern) {
+            this.description = description;
+            this.pattern = pattern;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public String getPattern() {
+            return pattern;
+        }
+    }
+
+    private static final int PROGRESS_EVERY = 4096;
+    private static final int WRITE_BUFFER = 1 << 16;
+
+    private static final String[] PROCESS_COLUMNS = {"PID", "PPID", "User", "Name", "Command", "Arguments",
+            "Start", "Uptime (s)", "User CPU (ms)", "System CPU (ms)", "CPU %", "RSS (bytes)", "Threads",
+            "Read (bytes/s)", "Write (bytes/s)", "Voluntary Switches/s", "Involuntary Switches/s"};
+    private static final ColumnarFile.Type[] PROCESS_TYPES = {ColumnarFile.Type.LONG, ColumnarFile.Type.LONG,
+            ColumnarFile.Type.STRING, ColumnarFile.Type.STRING, ColumnarFile.Type.STRING, ColumnarFile.Type.STRING,
+            ColumnarFile.Type.LONG, ColumnarFile.Type.LONG, ColumnarFile.Type.LONG, ColumnarFile.Type.LONG,
+            ColumnarFile.Type.DECIMAL, ColumnarFile.Type.LONG, ColumnarFile.Type.LONG, ColumnarFile.Type.DECIMAL,
+            ColumnarFile.Type.DECIMAL, ColumnarFile.Type.DECIMAL, ColumnarFile.Type.DECIMAL};
+
+    // History rows of the system as a whole carry MetricsStore.SYSTEM_PID (-1)
+    private static final String[] HISTORY_COLUMNS = {"Time", "PID", "CPU %", "RSS (bytes)"};
+    private static final ColumnarFile.Type[] HISTORY_TYPES = {ColumnarFile.Type.LONG, ColumnarFile.Type.LONG,
+            ColumnarFile.Type.DECIMAL, ColumnarFile.Type.LONG};
+
+    private ProcessExporter() {
+    }
+
+    // The rows of snapshot whose pid is in pids (ascending), or every row if pids is null
+    public static Task<Long> processes(ProcessSnapshot snapshot, long[] pids, Path file, Format format) {
+        return new ExportTask(file) {
+            @Override
+            protected long write() throws IOException {
+                long now = snapshot.getCapturedAtMillis();
+                int total = pids == null ? snapshot.size() : pids.length;
+                long written = 0;
+                if (format == Format.CSV) {
+                    try (Writer out = csvWriter(file)) {
+                        return writeProcessesCsv(snapshot, pids, out, this::isCancelled, done -> progress(done, total));
+                    }
+                } else {
+                    try (ColumnarFile.Writer out = new ColumnarFile.Writer(file, PROCESS_COLUMNS, PROCESS_TYPES)) {
+                        for (int i = 0; i < snapshot.size() && !isCancelled(); i++) {
+                            if (pids != null && Arrays.binarySearch(pids, snapshot.pid(i)) < 0) continue;
+                            long start = snapshot.startMillis(i);
+                            out.longValue(snapshot.pid(i)).longValue(snapshot.ppid(i))
+                                    .stringValue(snapshot.user(i)).stringValue(snapshot.name(i))
+                                    .stringValue(snapshot.command(i)).stringValue(snapshot.arguments(i))
+                                    .longValue(start).longValue(uptimeSeconds(now, start))
+                                    .longValue(snapshot.userCpuMillis(i)).longValue(snapshot.systemCpuMillis(i))
+                                    .decimalValue(snapshot.cpuPercent(i)).longValue(snapshot.rssBytes(i))
+                                    .longValue(snapshot.threads(i))
+                                    .decimalValue(snapshot.readBytesPerSec(i)).decimalValue(snapshot.writeBytesPerSec(i))
+                                    .decimalValue(snapshot.voluntarySwitchesPerSec(i))
+                                    .decimalValue(snapshot.involuntarySwitchesPerSec(i))
+                                    .endRow();
+                            progress(++written, total);
+                        }
+                    }
+                }
+                return written;
+            }
+        };
+    }
+
+    // Every recorded sample between fromMillis and toMillis. Compacted hours come grouped by pid, so
+    // rows are only time-ordered within a pid.
+    public static Task<Long> history(MetricsStore store, long fromMillis, long toMillis, Path file, Format format) {
+        return new ExportTask(file) {
+            @Override
+            protected long write() throws IOException {
+                long total = store.countRecords(fromMillis, toMillis);
+                long[] written = new long[1];
+                if (format == Format.CSV) {
+                    try (Writer out = csvWriter(file)) {
+                        writeCsvRow(out, HISTORY_COLUMNS);
+                        IOException[] failure = new IOException[1];
+                        store.queryAll(fromMillis, toMillis, (time, pid, cpu, rss) -> {
+                            if (failure[0] != null || isCancelled()) return;
+                            try {
+                                out.write(Instant.ofEpochMilli(time).toString());
+                                out.write(',');
+                                out.write(Long.toString(pid));
+                                out.write(',');
+                                out.write(Double.toString(Math.round(cpu * 100) / 100.0));
+                                out.write(',');
+                                out.write(Long.toString(rss));
+                                out.write("\r\n");
+                            } catch (IOException e) {
+                                failure[0] = e;
+                            }
+                            progress(++written[0], total);
+                        });
+                        if (failure[0] != null) throw failure[0];
+                    }
+                } else {
+                    try (ColumnarFile.Writer out = new ColumnarFile.Writer(file, HISTORY_COLUMNS, HISTORY_TYPES)) {
+                        IOException[] failure = new IOException[1];
+                        store.queryAll(fromMillis, toMillis, (time, pid, cpu, rss) -> {
+                            if (failure[0] != null || isCancelled()) return;
+                            try {
+                                out.longValue(time).longValue(pid).decimalValue(cpu).longValue(rss).endRow();
+                            } catch (IOException e) {
+                                failure[0] = e;
+                            }
+                            progress(++written[0], total);
+                        });
+                        if (failure[0] != null) throw failure[0];
+                    }
+                }
+                return written[0];
+            }
+        };
+    }
+
+    // The CSV body of processes(), outside the Task so benchmarks can drive it without the FX toolkit
+    static long writeProcessesCsv(ProcessSnapshot snapshot, long[] pids, Writer out, BooleanSupplier cancelled,
+                                  LongConsumer progress) throws IOException {
+        long now = snapshot.getCapturedAtMillis();
+        long written = 0;
+        writeCsvRow(out, PROCESS_COLUMNS);
+        for (int i = 0; i < snapshot.size() && !cancelled.getAsBoolean(); i++) {
+            if (pids != null && Arrays.binarySearch(pids, snapshot.pid(i)) < 0) continue;
+            long start = snapshot.startMillis(i);
+            writeCsvRow(out, Long.toString(snapshot.pid(i)), Long.toString(snapshot.ppid(i)),
+                    snapshot.user(i), snapshot.name(i), snapshot.command(i), snapshot.arguments(i),
+                    start > 0 ? Instant.ofEpochMilli(start).toString() : "",
+                    Long.toString(uptimeSeconds(now, start)),
+                    Long.toString(snapshot.userCpuMillis(i)), Long.toString(snapshot.systemCpuMillis(i)),
+                    String.format("%.2f", snapshot.cpuPercent(i)),
+                    Long.toString(snapshot.rssBytes(i)), Integer.toString(snapshot.threads(i)),
+                    String.format("%.0f", snapshot.readBytesPerSec(i)),
+                    String.format("%.0f", snapshot.writeBytesPerSec(i)),
+                    String.format("%.1f", snapshot.voluntarySwitchesPerSec(i)),
+                    String.format("%.1f", snapshot.involuntarySwitchesPerSec(i)));
+            progress.accept(++written);
+        }
+        return written;
+    }
+
+    private static long uptimeSeconds(long nowMillis, long startMillis) {
+        return startMillis > 0 ? Math.max(0, (nowMillis - startMillis) / 1000) : 0;
+    }
+
+    private static Writer csvWriter(Path file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8), WRITE_BUFFER);
+    }
+
+    // RFC 4180: fields containing a comma, quote or line break are quoted, quotes doubled
+    static void writeCsvRow(Writer out, String... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) out.write(',');
+            String field = fields[i] == null ? "" : fields[i];
+            boolean quote = false;
+            for (int c = 0; c < field.length() && !quote; c++) {
+                char ch = field.charAt(c);
+                quote = ch == ',' || ch == '"' || ch == '\n' || ch == '\r';
+            }
+            if (!quote) {
+                out.write(field);
+                continue;
+            }
+            out.write('"');
+            out.write(field.replace("\"", "\"\""));
+            out.write('"');
+        }
+        out.write("\r\n");
+    }
+
+    private abstract static class ExportTask extends Task<Long> {
+        private final Path file;
+
+        ExportTask(Path file) {
+            this.file = file;
+        }
+
+        protected abstract long write() throws IOException;
+
+        void progress(long done, long total) {
+            if (done % PROGRESS_EVERY != 0) return;
+            updateProgress(Math.min(done, total), Math.max(total, 1));
+            updateMessage(String.format("%,d rows", done));
+        }
+
+        @Override
+        protected Long call() throws IOException {
+            updateMessage("Exporting…");
+            try {
+                long rows = write();
+                if (isCancelled()) {
+                    Files.deleteIfExists(file);
+                    return rows;
+                }
+                updateProgress(1, 1);
+                updateMessage(String.format("Exported %,d rows to %s", rows, file.getFileName()));
+                return rows;
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(file);
+                throw e;
+            }
+        }
+    }
+}
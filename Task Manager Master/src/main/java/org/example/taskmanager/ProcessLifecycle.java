@@ -0,0 +1,401 @@
+package org.example.taskmanager;
+
+import com.sun.jna.Library;
+import com.sun.jna.Native;
+import com.sun.jna.NativeLong;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Process starts and exits as they happen, between the snapshot engine's scans (Linux only).
+//
+// The preferred source is the kernel's proc connector: a netlink socket subscribed to fork, exec and
+// exit events of every process. It needs CAP_NET_ADMIN; without it (or without JNA) the source falls
+// back to listing the pid directories of /proc every FALLBACK_PERIOD_MILLIS and diffing the sorted
+// lists, which only costs a readdir and sees every process that lives longer than one period.
+// procfs does not support inotify, so there is no cheaper way to watch it.
+//
+// Threads are ignored; only whole processes (thread group leaders) are reported. Listeners are called
+// on the lifecycle thread. Processes running before start() have no known lifetime. When events were
+// lost (the kernel dropped some, or the source changed) listeners get a LOST event instead, after which
+// anything may have started or exited.
+public class ProcessLifecycle implements Closeable {
+
+    public enum Type { START, EXEC, EXIT, LOST }
+
+    // name is the command name at the time of the event (null if the process was already gone);
+    // lifetimeMillis and exitCode are only set for EXIT, -1 where unknown; LOST has pid -1
+    public record Event(Type type, long pid, long parentPid, String name, long lifetimeMillis, int exitCode) {
+    }
+
+    public interface Listener {
+        void onEvent(Event event);
+    }
+
+    // started, exited and short-lived processes since start(); source is "netlink" or "/proc"
+    public record Counts(long started, long exited, long shortLived, String source) {
+    }
+
+    public static final long SHORT_LIVED_MILLIS = 1000;
+    private static final long FALLBACK_PERIOD_MILLIS = 100;
+    private static final long PRUNE_MILLIS = 60_000;
+    private static final int RECENT_SHORT_LIVED = 20;
+
+    private static final class Tracked {
+        final long startNanos;
+        String name;
+
+        Tracked(long startNanos, String name) {
+            this.startNanos = startNanos;
+            this.name = name;
+        }
+    }
+
+    private final Path procRoot;
+    private final ProcfsReader procfs;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    // Only touched on the lifecycle thread
+    private final Map<Long, Tracked> tracked = new HashMap<>();
+    private long prunedAtNanos = System.nanoTime();
+    private volatile long started;
+    private volatile long exited;
+    private volatile long shortLived;
+    private final ArrayDeque<Event> recentShortLived = new ArrayDeque<>();
+    private volatile String source = "off";
+    private volatile boolean running;
+    private Thread thread;
+    // Pid lists of the /proc fallback; null until its first poll
+    private PidList polled;
+    private PidList polling;
+
+    public ProcessLifecycle() {
+        this(Path.of("/proc"));
+    }
+
+    public ProcessLifecycle(Path procRoot) {
+        this.procRoot = procRoot;
+        this.procfs = new ProcfsReader(procRoot);
+    }
+
+    public static boolean isSupported() {
+        return OperatingSystem.CURRENT == OperatingSystem.LINUX && Files.isDirectory(Path.of("/proc"));
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public synchronized void start() {
+        if (running || OperatingSystem.CURRENT != OperatingSystem.LINUX || !Files.isDirectory(procRoot)) return;
+        running = true;
+        thread = new Thread(this::run, "process-lifecycle");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public synchronized void close() {
+        running = false;
+        if (thread != null) thread.interrupt();
+    }
+
+    public Counts counts() {
+        return new Counts(started, exited, shortLived, source);
+    }
+
+    // The most recent processes that lived less than SHORT_LIVED_MILLIS, newest first
+    public List<Event> recentShortLived() {
+        synchronized (recentShortLived) {
+            return new ArrayList<>(recentShortLived);
+        }
+    }
+
+    private void run() {
+        // The connector reports this machine's processes, so it only stands in for the real /proc
+        int socket = procRoot.equals(Path.of("/proc")) ? Netlink.open() : -1;
+        if (socket >= 0) {
+            source = "netlink";
+            try {
+                readNetlink(socket);
+            } finally {
+                Netlink.close(socket);
+            }
+            if (!running) return;
+            // The first poll only takes a baseline; nothing before it gets reported
+            fire(new Event(Type.LOST, -1, -1, null, -1, -1));
+        }
+        if (!running) return;
+        source = "/proc";
+        while (running) {
+            pollProc();
+            try {
+                Thread.sleep(FALLBACK_PERIOD_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void readNetlink(int socket) {
+        byte[] bytes = new byte[8192];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.nativeOrder());
+        while (running) {
+            int length = Netlink.receive(socket, bytes);
+            if (length == Netlink.TIMEOUT) {
+                prune();
+                continue;
+            }
+            if (length == Netlink.OVERRUN) {
+                // The kernel dropped events; exits we missed would stay tracked until pruned
+                prune();
+                fire(new Event(Type.LOST, -1, -1, null, -1, -1));
+                continue;
+            }
+            if (length < 0) {
+                System.err.println("Proc connector failed, falling back to polling /proc");
+                return;
+            }
+            // One or more netlink messages, each padded to 4 bytes
+            for (int offset = 0; offset + Netlink.HEADER < length; ) {
+                int messageLength = buffer.getInt(offset);
+                if (messageLength < Netlink.HEADER || offset + messageLength > length) break;
+                onNetlinkEvent(buffer, offset + Netlink.EVENT_OFFSET);
+                offset += (messageLength + 3) & ~3;
+            }
+        }
+    }
+
+    // struct proc_event: what, cpu, timestamp_ns, then the event data
+    private void onNetlinkEvent(ByteBuffer buffer, int offset) {
+        int what = buffer.getInt(offset);
+        int data = offset + 16;
+        switch (what) {
+            case Netlink.PROC_EVENT_FORK -> {
+                long childPid = buffer.getInt(data + 8);
+                long childTgid = buffer.getInt(data + 12);
+                if (childPid == childTgid) started(childPid, buffer.getInt(data + 4), null);
+            }
+            case Netlink.PROC_EVENT_EXEC -> {
+                long pid = buffer.getInt(data);
+                if (pid == buffer.getInt(data + 4)) exec(pid);
+            }
+            case Netlink.PROC_EVENT_EXIT -> {
+                long pid = buffer.getInt(data);
+                if (pid == buffer.getInt(data + 4)) exited(pid, buffer.getInt(data + 8));
+            }
+            default -> { }
+        }
+    }
+
+    // One poll of the fallback: lists the pid directories and reports what changed since the previous
+    // poll. The first poll only takes the baseline.
+    void pollProc() {
+        if (polled == null) {
+            polled = new PidList();
+            polling = new PidList();
+            polled.load(procRoot);
+            return;
+        }
+        PidList previous = polled;
+        PidList current = polling;
+        current.load(procRoot);
+        int i = 0;
+        int j = 0;
+        while (i < previous.count || j < current.count) {
+            long before = i < previous.count ? previous.pids[i] : Long.MAX_VALUE;
+            long now = j < current.count ? current.pids[j] : Long.MAX_VALUE;
+            if (before == now) {
+                i++;
+                j++;
+            } else if (before < now) {
+                exited(before, -1);
+                i++;
+            } else {
+                // The parent and name come from stat, read while the process is still there
+                boolean alive = procfs.readStat(now);
+                started(now, alive ? procfs.ppid() : -1, alive ? procfs.name() : null);
+                j++;
+            }
+        }
+        polled = current;
+        polling = previous;
+        prune();
+    }
+
+    // Sorted pids of /proc; the array is reused from poll to poll
+    private static final class PidList {
+        long[] pids = new long[256];
+        int count;
+
+        void load(Path procRoot) {
+            count = 0;
+            try (DirectoryStream<Path> dir = Files.newDirectoryStream(procRoot)) {
+                for (Path entry : dir) {
+                    String name = entry.getFileName().toString();
+                    if (name.isEmpty() || name.charAt(0) < '1' || name.charAt(0) > '9') continue;
+                    try {
+                        long pid = Long.parseLong(name);
+                        if (count == pids.length) pids = Arrays.copyOf(pids, count * 2);
+                        pids[count++] = pid;
+                    } catch (NumberFormatException ignored) {
+                        // not a pid directory
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to list " + procRoot + ": " + e.getMessage());
+            }
+            Arrays.sort(pids, 0, count);
+        }
+    }
+
+    private void started(long pid, long parentPid, String name) {
+        if (name == null) {
+            Tracked parent = tracked.get(parentPid);
+            if (parent != null) name = parent.name; // a fork runs the parent's program until it execs
+        }
+        tracked.put(pid, new Tracked(System.nanoTime(), name));
+        started++;
+        fire(new Event(Type.START, pid, parentPid, name, -1, -1));
+    }
+
+    private void exec(long pid) {
+        String name = procfs.readStat(pid) ? procfs.name() : null;
+        Tracked process = tracked.get(pid);
+        if (process != null && name != null) process.name = name;
+        fire(new Event(Type.EXEC, pid, -1, name, -1, -1));
+    }
+
+    private void exited(long pid, int status) {
+        Tracked process = tracked.remove(pid);
+        long lifetimeMillis = process == null ? -1 : (System.nanoTime() - process.startNanos) / 1_000_000;
+        // Wait status: exit code in bits 8-15, or the terminating signal in the low 7 bits
+        int exitCode = status < 0 ? -1 : (status & 0x7f) == 0 ? (status >> 8) & 0xff : 128 + (status & 0x7f);
+        Event event = new Event(Type.EXIT, pid, -1, process == null ? null : process.name, lifetimeMillis, exitCode);
+        exited++;
+        if (lifetimeMillis >= 0 && lifetimeMillis < SHORT_LIVED_MILLIS) {
+            shortLived++;
+            synchronized (recentShortLived) {
+                recentShortLived.addFirst(event);
+                if (recentShortLived.size() > RECENT_SHORT_LIVED) recentShortLived.removeLast();
+            }
+        }
+        fire(event);
+    }
+
+    private void fire(Event event) {
+        for (Listener listener : listeners) {
+            try {
+                listener.onEvent(event);
+            } catch (RuntimeException e) {
+                System.err.println("Lifecycle listener failed: " + e.getMessage());
+            }
+        }
+    }
+
+    // Forgets processes whose exit we did not see (dropped netlink events, pid reuse within a poll)
+    private void prune() {
+        long now = System.nanoTime();
+        if (now - prunedAtNanos < PRUNE_MILLIS * 1_000_000) return;
+        prunedAtNanos = now;
+        for (Iterator<Long> it = tracked.keySet().iterator(); it.hasNext(); ) {
+            if (!Files.exists(procRoot.resolve(Long.toString(it.next())))) it.remove();
+        }
+    }
+
+    // The proc connector over a NETLINK_CONNECTOR socket, through libc
+    private static final class Netlink {
+        static final int HEADER = 16;                 // struct nlmsghdr
+        static final int EVENT_OFFSET = HEADER + 20;  // + struct cn_msg
+        static final int PROC_EVENT_FORK = 0x1;
+        static final int PROC_EVENT_EXEC = 0x2;
+        static final int PROC_EVENT_EXIT = 0x80000000;
+        static final int TIMEOUT = -2;
+        static final int OVERRUN = -3;
+
+        private static final int AF_NETLINK = 16;
+        private static final int SOCK_DGRAM = 2;
+        private static final int NETLINK_CONNECTOR = 11;
+        private static final int CN_IDX_PROC = 1;
+        private static final int CN_VAL_PROC = 1;
+        private static final int NLMSG_DONE = 3;
+        private static final int PROC_CN_MCAST_LISTEN = 1;
+        private static final int SOL_SOCKET = 1;
+        private static final int SO_RCVTIMEO = 20;
+        private static final int EAGAIN = 11;
+        private static final int EINTR = 4;
+        private static final int ENOBUFS = 105;
+
+        private interface LibC extends Library {
+            int socket(int domain, int type, int protocol);
+
+            int bind(int socket, byte[] address, int length);
+
+            int setsockopt(int socket, int level, int option, byte[] value, int length);
+
+            NativeLong send(int socket, byte[] buffer, NativeLong length, int flags);
+
+            NativeLong recv(int socket, byte[] buffer, NativeLong length, int flags);
+
+            int close(int socket);
+        }
+
+        private static LibC libc;
+
+        // A subscribed socket, or -1 where the connector is unavailable or not permitted
+        static int open() {
+            try {
+                libc = Native.load("c", LibC.class);
+            } catch (UnsatisfiedLinkError | NoClassDefFoundError e) {
+                return -1;
+            }
+            int socket = libc.socket(AF_NETLINK, SOCK_DGRAM, NETLINK_CONNECTOR);
+            if (socket < 0) return -1;
+            ByteOrder order = ByteOrder.nativeOrder();
+            // struct sockaddr_nl; pid 0 lets the kernel pick the port id
+            byte[] address = ByteBuffer.allocate(12).order(order)
+                    .putShort((short) AF_NETLINK).putShort((short) 0).putInt(0).putInt(CN_IDX_PROC).array();
+            // struct timeval of 500 ms, so the reader notices close() and prunes while idle
+            byte[] timeout = ByteBuffer.allocate(Native.LONG_SIZE * 2).order(order).array();
+            if (Native.LONG_SIZE == 8) ByteBuffer.wrap(timeout).order(order).putLong(8, 500_000);
+            else ByteBuffer.wrap(timeout).order(order).putInt(4, 500_000);
+            // nlmsghdr + cn_msg + PROC_CN_MCAST_LISTEN
+            byte[] listen = ByteBuffer.allocate(EVENT_OFFSET + 4).order(order)
+                    .putInt(EVENT_OFFSET + 4).putShort((short) NLMSG_DONE).putShort((short) 0).putInt(0).putInt(0)
+                    .putInt(CN_IDX_PROC).putInt(CN_VAL_PROC).putInt(0).putInt(0).putShort((short) 4).putShort((short) 0)
+                    .putInt(PROC_CN_MCAST_LISTEN).array();
+            if (libc.bind(socket, address, address.length) < 0
+                    || libc.setsockopt(socket, SOL_SOCKET, SO_RCVTIMEO, timeout, timeout.length) < 0
+                    || libc.send(socket, listen, new NativeLong(listen.length), 0).longValue() < 0) {
+                libc.close(socket);
+                return -1;
+            }
+            return socket;
+        }
+
+        // Bytes received, TIMEOUT, OVERRUN, or -1 on any other error
+        static int receive(int socket, byte[] buffer) {
+            long length = libc.recv(socket, buffer, new NativeLong(buffer.length), 0).longValue();
+            if (length >= 0) return (int) length;
+            int errno = Native.getLastError();
+            if (errno == EAGAIN || errno == EINTR) return TIMEOUT;
+            return errno == ENOBUFS ? OVERRUN : -1;
+        }
+
+        static void close(int socket) {
+            libc.close(socket);
+        }
+    }
+}
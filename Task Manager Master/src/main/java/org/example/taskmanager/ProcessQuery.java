@@ -0,0 +1,149 @@
+package org.example.taskmanager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+// A parsed search box query. Whitespace-separated terms are ANDed together:
+//   java                 name, command line or pid contains "java"
+//   user:postgres        user name contains "postgres"
+//   pid:123              pid contains "123"
+//   name:/cmd: ...       like a bare term (name and command line)
+//   cpu>20 rss>=512m threads<10   numeric comparisons (>, >=, <, <=, =); rss/mem accept k/m/g suffixes
+public final class ProcessQuery {
+
+    private enum Field { TEXT, USER, PID, CPU, RSS, THREADS }
+
+    private record Term(Field field, String text, String op, double value) { }
+
+    private final List<Term> terms;
+
+    private ProcessQuery(List<Term> terms) {
+        this.terms = terms;
+    }
+
+    public static ProcessQuery parse(String query) {
+        List<Term> terms = new ArrayList<>();
+        if (query == null) return new ProcessQuery(terms);
+        for (String token : query.trim().toLowerCase(Locale.ROOT).split("\\s+")) {
+            if (token.isEmpty()) continue;
+            Term term = numericTerm(token);
+            if (term == null) term = textTerm(token);
+            terms.add(term);
+        }
+        return new ProcessQuery(terms);
+    }
+
+    public boolean isEmpty() {
+        return terms.isEmpty();
+    }
+
+    // True if the result depends on values that change from scan to scan
+    public boolean isLive() {
+        for (Term term : terms) {
+            if (term.field == Field.CPU || term.field == Field.RSS || term.field == Field.THREADS) return true;
+        }
+        return false;
+    }
+
+    // Matching pids, ascending.
+    public long[] evaluate(ProcessSearchIndex index) {
+        ProcessSnapshot snapshot = index.getSnapshot();
+
+        // Narrow down with the trigram index using the most selective text term
+        int[] candidates = null;
+        for (Term term : terms) {
+            if (term.field != Field.TEXT) continue;
+            int[] rows = index.candidates(term.text);
+            if (rows != null && (candidates == null || rows.length < candidates.length)) candidates = rows;
+        }
+
+        int count = candidates == null ? index.size() : candidates.length;
+        long[] pids = new long[count];
+        int matches = 0;
+        for (int k = 0; k < count; k++) {
+            int row = candidates == null ? k : candidates[k];
+            if (matches(index, snapshot, row)) pids[matches++] = snapshot.pid(row);
+        }
+        return Arrays.copyOf(pids, matches);
+    }
+
+    private boolean matches(ProcessSearchIndex index, ProcessSnapshot snapshot, int row) {
+        for (Term term : terms) {
+            boolean ok = switch (term.field) {
+                case TEXT -> index.text(row).contains(term.text);
+                case USER -> index.user(row).contains(term.text);
+                case PID -> index.pidText(row).contains(term.text);
+                case CPU -> compare(snapshot.cpuPercent(row), term);
+                case RSS -> compare(snapshot.rssBytes(row), term);
+                case THREADS -> compare(snapshot.threads(row), term);
+            };
+            if (!ok) return false;
+        }
+        return true;
+    }
+
+    private static boolean compare(double actual, Term term) {
+        return switch (term.op) {
+            case ">" -> actual > term.value;
+            case ">=" -> actual >= term.value;
+            case "<" -> actual < term.value;
+            case "<=" -> actual <= term.value;
+            default -> actual == term.value;
+        };
+    }
+
+    private static Term textTerm(String token) {
+        int colon = token.indexOf(':');
+        if (colon > 0 && colon < token.length() - 1) {
+            String value = token.substring(colon + 1);
+            switch (token.substring(0, colon)) {
+                case "user" -> { return new Term(Field.USER, value, null, 0); }
+                case "pid" -> { return new Term(Field.PID, value, null, 0); }
+                case "name", "cmd", "command" -> { return new Term(Field.TEXT, value, null, 0); }
+                default -> { }
+            }
+        }
+        return new Term(Field.TEXT, token, null, 0);
+    }
+
+    private static Term numericTerm(String token) {
+        int opStart = -1;
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c == '>' || c == '<' || c == '=') {
+                opStart = i;
+                break;
+            }
+        }
+        if (opStart <= 0) return null;
+        int opEnd = opStart + 1;
+        if (opEnd < token.length() && token.charAt(opEnd) == '=') opEnd++;
+
+        Field field = switch (token.substring(0, opStart)) {
+            case "cpu" -> Field.CPU;
+            case "rss", "mem" -> Field.RSS;
+            case "threads" -> Field.THREADS;
+            default -> null;
+        };
+        if (field == null) return null;
+
+        String number = token.substring(opEnd);
+        double multiplier = 1;
+        if (field == Field.RSS && !number.isEmpty()) {
+            multiplier = switch (number.charAt(number.length() - 1)) {
+                case 'k' -> 1L << 10;
+                case 'm' -> 1L << 20;
+                case 'g' -> 1L << 30;
+                default -> 1;
+            };
+            if (multiplier > 1) number = number.substring(0, number.length() - 1);
+        }
+        try {
+            return new Term(field, null, token.substring(opStart, opEnd), Double.parseDouble(number) * multiplier);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package org.example.taskmanager;
+
+import javafx.beans.property.*;
+
+// One process as shown in the UI. Rows stay the same objects for as long as the process lives;
+// each scan only updates the properties of rows that changed. host is LOCAL_HOST for this machine,
+// otherwise the address of the remote collector the row came from.
+public class ProcessRow {
+
+    public static final String LOCAL_HOST = "";
+
+    private final String host;
+    private final long pid;
+    private final long startMillis;
+    private final LongProperty ppid = new SimpleLongProperty();
+    private final StringProperty name = new SimpleStringProperty();
+    private final StringProperty command = new SimpleStringProperty();
+    private final StringProperty arguments = new SimpleStringProperty();
+    private final StringProperty user = new SimpleStringProperty();
+    private final DoubleProperty cpuPercent = new SimpleDoubleProperty();
+    private final LongProperty rssBytes = new SimpleLongProperty();
+    private final IntegerProperty threads = new SimpleIntegerProperty();
+    private final DoubleProperty readBytesPerSec = new SimpleDoubleProperty();
+    private final DoubleProperty writeBytesPerSec = new SimpleDoubleProperty();
+    private final DoubleProperty voluntarySwitchesPerSec = new SimpleDoubleProperty();
+    private final DoubleProperty involuntarySwitchesPerSec = new SimpleDoubleProperty();
+    // Totals over this process and all its descendants, maintained by ProcessTreeModel
+    private final DoubleProperty subtreeCpuPercent = new SimpleDoubleProperty();
+    private final LongProperty subtreeRssBytes = new SimpleLongProperty();
+    private final IntegerProperty subtreeThreads = new SimpleIntegerProperty();
+
+    // Position in ProcessTableModel's row list, kept current by the list itself; -1 when not in it
+    int index = -1;
+
+    public ProcessRow(long pid, long startMillis) {
+        this(LOCAL_HOST, pid, startMillis);
+    }
+
+    public ProcessRow(String host, long pid, long startMillis) {
+        this.host = host;
+        this.pid = pid;
+        this.startMillis = startMillis;
+    }
+
+    void update(ProcessSnapshot snapshot, int index) {
+        ppid.set(snapshot.ppid(index));
+        name.set(snapshot.name(index));
+        command.set(snapshot.command(index));
+        arguments.set(snapshot.arguments(index));
+        user.set(snapshot.user(index));
+        cpuPercent.set(snapshot.cpuPercent(index));
+        rssBytes.set(snapshot.rssBytes(index));
+        threads.set(snapshot.threads(index));
+        readBytesPerSec.set(snapshot.readBytesPerSec(index));
+        writeBytesPerSec.set(snapshot.writeBytesPerSec(index));
+        voluntarySwitchesPerSec.set(snapshot.voluntarySwitchesPerSec(index));
+        involuntarySwitchesPerSec.set(snapshot.involuntarySwitchesPerSec(index));
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public boolean isLocal() {
+        return host.equals(LOCAL_HOST);
+    }
+
+    public long getPid() {
+        return pid;
+    }
+
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    public long getPpid() {
+        return ppid.get();
+    }
+
+    public LongProperty ppidProperty() {
+        return ppid;
+    }
+
+    public String getName() {
+        return name.get();
+    }
+
+    public StringProperty nameProperty() {
+        return name;
+    }
+
+    public String getCommand() {
+        return command.get();
+    }
+
+    public StringProperty commandProperty() {
+        return command;
+    }
+
+    public String getArguments() {
+        return arguments.get();
+    }
+
+    public StringProperty argumentsProperty() {
+        return arguments;
+    }
+
+    public String getUser() {
+        return user.get();
+    }
+
+    public StringProperty userProperty() {
+        return user;
+    }
+
+    public double getCpuPercent() {
+        return cpuPercent.get();
+    }
+
+    public DoubleProperty cpuPercentProperty() {
+        return cpuPercent;
+    }
+
+    public long getRssBytes() {
+        return rssBytes.get();
+    }
+
+    public LongProperty rssBytesProperty() {
+        return rssBytes;
+    }
+
+    public int getThreads() {
+        return threads.get();
+    }
+
+    public IntegerProperty threadsProperty() {
+        return threads;
+    }
+
+    public double getReadBytesPerSec() {
+        return readBytesPerSec.get();
+    }
+
+    public DoubleProperty readBytesPerSecProperty() {
+        return readBytesPerSec;
+    }
+
+    public double getWriteBytesPerSec() {
+        return writeBytesPerSec.get();
+    }
+
+    public DoubleProperty writeBytesPerSecProperty() {
+        return writeBytesPerSec;
+    }
+
+    public double getVoluntarySwitchesPerSec() {
+        return voluntarySwitchesPerSec.get();
+    }
+
+    public DoubleProperty voluntarySwitchesPerSecProperty() {
+        return voluntarySwitchesPerSec;
+    }
+
+    public double getInvoluntarySwitchesPerSec() {
+        return involuntarySwitchesPerSec.get();
+    }
+
+    public DoubleProperty involuntarySwitchesPerSecProperty() {
+        return involuntarySwitchesPerSec;
+    }
+
+    public double getSubtreeCpuPercent() {
+        return subtreeCpuPercent.get();
+    }
+
+    public DoubleProperty subtreeCpuPercentProperty() {
+        return subtreeCpuPercent;
+    }
+
+    public long getSubtreeRssBytes() {
+        return subtreeRssBytes.get();
+    }
+
+    public LongProperty subtreeRssBytesProperty() {
+        return subtreeRssBytes;
+    }
+
+    public int getSubtreeThreads() {
+        return subtreeThreads.get();
+    }
+
+    public IntegerProperty subtreeThreadsProperty() {
+        return subtreeThreads;
+    }
+
+    // Shared by the views and the alert messages; kept off the controls, which need the FX toolkit to load
+    static String formatBytes(long bytes) {
+        if (bytes >= 1L << 30) return String.format("%.2f GB", bytes / (double) (1L << 30));
+        if (bytes >= 1L << 20) return String.format("%.1f MB", bytes / (double) (1L << 20));
+        return String.format("%d KB", bytes >> 10);
+    }
+
+    static String formatDuration(long seconds) {
+        if (seconds < 60) return seconds + "s";
+        if (seconds < 3600) return String.format("%dm %02ds", seconds / 60, seconds % 60);
+        if (seconds < 86400) return String.format("%dh %02dm", seconds / 3600, seconds % 3600 / 60);
+        return String.format("%dd %02dh", seconds / 86400, seconds % 86400 / 3600);
+    }
+}
@@ -0,0 +1,121 @@
+package org.example.taskmanager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Runs search box queries off the FX thread. Keystrokes are debounced, the index of each host is
+// rebuilt lazily for its newest snapshot while a query is active, and only the resulting pid sets
+// (host -> ascending pids) are handed back. Hosts whose snapshot did not change keep their previous
+// result. The result consumer receives null when the query is empty (show everything).
+public class ProcessSearch implements ProcessSnapshotEngine.Listener, RemoteCollector.Listener {
+
+    private static final long DEBOUNCE_MILLIS = 150;
+
+    private final Consumer<Map<String, long[]>> onResult;
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "process-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Only touched on the worker thread
+    private final Map<String, HostState> hosts = new HashMap<>();
+    private ProcessQuery query = ProcessQuery.parse("");
+    private ScheduledFuture<?> pendingQuery;
+
+    private static final class HostState {
+        ProcessSearchIndex index = ProcessSearchIndex.EMPTY;
+        ProcessSnapshot pendingSnapshot = ProcessSnapshot.EMPTY;
+        long[] result = new long[0];
+        boolean stale = true;
+    }
+
+    public ProcessSearch(Consumer<Map<String, long[]>> onResult) {
+        this.onResult = onResult;
+    }
+
+    public void setQuery(String text) {
+        worker.execute(() -> {
+            if (pendingQuery != null) pendingQuery.cancel(false);
+            pendingQuery = worker.schedule(() -> {
+                query = ProcessQuery.parse(text);
+                for (HostState state : hosts.values()) state.stale = true;
+                publish();
+            }, DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    @Override
+    public void onSnapshot(ProcessSnapshot snapshot, ProcessDelta delta) {
+        update(ProcessRow.LOCAL_HOST, snapshot, delta);
+    }
+
+    @Override
+    public void onHostSnapshot(RemoteCollector collector, ProcessSnapshot snapshot, ProcessDelta delta) {
+        update(collector.getHost(), snapshot, delta);
+    }
+
+    public void removeHost(String host) {
+        worker.execute(() -> {
+            if (hosts.remove(host) != null && !query.isEmpty()) publish();
+        });
+    }
+
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    private void update(String host, ProcessSnapshot snapshot, ProcessDelta delta) {
+        worker.execute(() -> {
+            HostState state = hosts.computeIfAbsent(host, h -> new HostState());
+            ProcessSnapshot previous = state.pendingSnapshot;
+            state.pendingSnapshot = snapshot;
+            // New or exited processes change text matches, and so does a process that renamed itself or
+            // changed user; other changed values only matter to cpu>/rss> terms
+            boolean membershipChanged = delta.getAdded().length > 0 || delta.getRemoved().length > 0;
+            if (!state.stale && (membershipChanged || query.isLive()
+                    || textChanged(previous, snapshot, delta.getChanged()))) {
+                state.stale = true;
+            }
+            if (!query.isEmpty() && state.stale) publish();
+        });
+    }
+
+    private static boolean textChanged(ProcessSnapshot previous, ProcessSnapshot snapshot, int[] changed) {
+        for (int row : changed) {
+            int prev = previous.indexOf(snapshot.pid(row));
+            if (prev < 0 || !previous.name(prev).equals(snapshot.name(row))
+                    || !previous.command(prev).equals(snapshot.command(row))
+                    || !previous.arguments(prev).equals(snapshot.arguments(row))
+                    || !previous.user(prev).equals(snapshot.user(row))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void publish() {
+        if (query.isEmpty()) {
+            onResult.accept(null);
+            return;
+        }
+        Map<String, long[]> results = new HashMap<>();
+        for (Map.Entry<String, HostState> entry : hosts.entrySet()) {
+            HostState state = entry.getValue();
+            if (state.stale) {
+                if (state.index.getSnapshot() != state.pendingSnapshot) {
+                    state.index = ProcessSearchIndex.build(state.pendingSnapshot, state.index);
+                }
+                state.result = query.evaluate(state.index);
+                state.stale = false;
+            }
+            results.put(entry.getKey(), state.result);
+        }
+        onResult.accept(results);
+    }
+}
@@ -0,0 +1,147 @@
+package org.example.taskmanager;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+// Search structures for one snapshot: the lowercased text (name, command line, pid) of every row plus
+// a trigram index over it. Postings are stored as one sorted array of (trigram, row) pairs, so a lookup
+// is a binary search and the result is an ascending run of row indices. Text for processes that are
+// still running is reused from the previous index instead of being lowercased again.
+public final class ProcessSearchIndex {
+
+    public static final ProcessSearchIndex EMPTY = build(ProcessSnapshot.EMPTY, null);
+
+    private final ProcessSnapshot snapshot;
+    private final String[] text;
+    private final String[] users;
+    private final String[] pidText;
+    private final int[] trigrams;
+    private final int[] offsets;
+    private final int[] postings;
+
+    private ProcessSearchIndex(ProcessSnapshot snapshot, String[] text, String[] users, String[] pidText,
+                               int[] trigrams, int[] offsets, int[] postings) {
+        this.snapshot = snapshot;
+        this.text = text;
+        this.users = users;
+        this.pidText = pidText;
+        this.trigrams = trigrams;
+        this.offsets = offsets;
+        this.postings = postings;
+    }
+
+    public static ProcessSearchIndex build(ProcessSnapshot snapshot, ProcessSearchIndex previous) {
+        int size = snapshot.size();
+        String[] text = new String[size];
+        String[] users = new String[size];
+        String[] pidText = new String[size];
+        for (int i = 0; i < size; i++) {
+            int prev = previous == null ? -1 : previous.snapshot.indexOf(snapshot.pid(i));
+            if (prev >= 0 && previous.snapshot.startMillis(prev) == snapshot.startMillis(i)
+                    && previous.snapshot.name(prev).equals(snapshot.name(i))
+                    && previous.snapshot.command(prev).equals(snapshot.command(i))
+                    && previous.snapshot.arguments(prev).equals(snapshot.arguments(i))
+                    && previous.snapshot.user(prev).equals(snapshot.user(i))) {
+                text[i] = previous.text[prev];
+                users[i] = previous.users[prev];
+                pidText[i] = previous.pidText[prev];
+            } else {
+                pidText[i] = Long.toString(snapshot.pid(i));
+                // Locale.ROOT like ProcessQuery, or "I" would not match "i" under a Turkish locale
+                text[i] = (snapshot.name(i) + " " + snapshot.commandLine(i) + " " + pidText[i]).toLowerCase(Locale.ROOT);
+                users[i] = snapshot.user(i).toLowerCase(Locale.ROOT);
+            }
+        }
+
+        // Collect distinct (trigram, row) pairs and sort them; equal trigrams end up adjacent
+        long[] pairs = new long[1024];
+        int pairCount = 0;
+        int[] rowTrigrams = new int[256];
+        for (int row = 0; row < size; row++) {
+            String s = text[row];
+            int count = Math.max(s.length() - 2, 0);
+            if (rowTrigrams.length < count) rowTrigrams = new int[count * 2];
+            for (int k = 0; k < count; k++) rowTrigrams[k] = trigram(s, k);
+            Arrays.sort(rowTrigrams, 0, count);
+            for (int k = 0; k < count; k++) {
+                if (k > 0 && rowTrigrams[k] == rowTrigrams[k - 1]) continue;
+                if (pairCount == pairs.length) pairs = Arrays.copyOf(pairs, pairCount * 2);
+                pairs[pairCount++] = ((long) rowTrigrams[k] << 32) | row;
+            }
+        }
+        Arrays.sort(pairs, 0, pairCount);
+
+        int[] trigrams = new int[pairCount];
+        int[] offsets = new int[pairCount + 1];
+        int[] postings = new int[pairCount];
+        int keys = 0;
+        for (int i = 0; i < pairCount; i++) {
+            int key = (int) (pairs[i] >>> 32);
+            if (keys == 0 || trigrams[keys - 1] != key) {
+                trigrams[keys] = key;
+                offsets[keys] = i;
+                keys++;
+            }
+            postings[i] = (int) pairs[i];
+        }
+        offsets[keys] = pairCount;
+        return new ProcessSearchIndex(snapshot, text, users, pidText,
+                Arrays.copyOf(trigrams, keys), Arrays.copyOf(offsets, keys + 1), postings);
+    }
+
+    public ProcessSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public int size() {
+        return snapshot.size();
+    }
+
+    public String text(int row) {
+        return text[row];
+    }
+
+    public String user(int row) {
+        return users[row];
+    }
+
+    public String pidText(int row) {
+        return pidText[row];
+    }
+
+    // Rows whose text may contain the (lowercase) term, ascending; null when the term is too short
+    // for the trigram index and every row has to be checked. Hash collisions can only add rows.
+    public int[] candidates(String term) {
+        if (term.length() < 3) return null;
+        int[] result = null;
+        for (int k = 0; k + 3 <= term.length(); k++) {
+            int key = Arrays.binarySearch(trigrams, trigram(term, k));
+            if (key < 0) return new int[0];
+            int[] rows = Arrays.copyOfRange(postings, offsets[key], offsets[key + 1]);
+            result = result == null ? rows : intersect(result, rows);
+            if (result.length == 0) break;
+        }
+        return result;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    // Non-negative hash of the three chars at offset k; kept below 2^31 so pairs sort by trigram first
+    private static int trigram(String s, int k) {
+        int h = (s.charAt(k) * 31 + s.charAt(k + 1)) * 31 + s.charAt(k + 2);
+        return (h * 0x9E3779B1) >>> 1;
+    }
+}
@@ -0,0 +1,348 @@
+package org.example.taskmanager;
+
+import java.util.Arrays;
+
+// Immutable, column-oriented view of every process at one point in time. Rows are sorted by pid,
+// so lookups are a binary search and two snapshots can be merged in a single pass.
+public final class ProcessSnapshot {
+
+    public static final ProcessSnapshot EMPTY = new ProcessSnapshot(0, 0, 0,
+            new long[0], new long[0], new long[0], new long[0], new long[0], new long[0],
+            new int[0], new double[0], new String[0], new String[0], new String[0], new String[0],
+            new long[0], new long[0], new long[0], new long[0], new double[0], new double[0], new double[0], new double[0]);
+
+    private final long capturedAtNanos;
+    private final long capturedAtMillis;
+    private final int size;
+    private final long[] pids;
+    private final long[] ppids;
+    private final long[] userCpuMillis;
+    private final long[] systemCpuMillis;
+    private final long[] rssBytes;
+    private final long[] startMillis;
+    private final int[] threads;
+    private final double[] cpuPercent;
+    private final String[] names;
+    private final String[] commands;
+    private final String[] arguments;
+    private final String[] users;
+    // Cumulative I/O and context switch counters (-1 where the platform or permissions hide them)
+    // and their per-second rates since the previous scan
+    private final long[] readBytes;
+    private final long[] writeBytes;
+    private final long[] voluntarySwitches;
+    private final long[] involuntarySwitches;
+    private final double[] readBytesPerSec;
+    private final double[] writeBytesPerSec;
+    private final double[] voluntarySwitchesPerSec;
+    private final double[] involuntarySwitchesPerSec;
+
+    // Arrays are owned by the snapshot from here on; only the first size entries are used.
+    ProcessSnapshot(long capturedAtNanos, long capturedAtMillis, int size,
+                    long[] pids, long[] ppids, long[] userCpuMillis, long[] systemCpuMillis,
+                    long[] rssBytes, long[] startMillis, int[] threads, double[] cpuPercent,
+                    String[] names, String[] commands, String[] arguments, String[] users,
+                    long[] readBytes, long[] writeBytes, long[] voluntarySwitches, long[] involuntarySwitches,
+                    double[] readBytesPerSec, double[] writeBytesPerSec, double[] voluntarySwitchesPerSec,
+                    double[] involuntarySwitchesPerSec) {
+        this.capturedAtNanos = capturedAtNanos;
+        this.capturedAtMillis = capturedAtMillis;
+        this.size = size;
+        this.pids = pids;
+        this.ppids = ppids;
+        this.userCpuMillis = userCpuMillis;
+        this.systemCpuMillis = systemCpuMillis;
+        this.rssBytes = rssBytes;
+        this.startMillis = startMillis;
+        this.threads = threads;
+        this.cpuPercent = cpuPercent;
+        this.names = names;
+        this.commands = commands;
+        this.arguments = arguments;
+        this.users = users;
+        this.readBytes = readBytes;
+        this.writeBytes = writeBytes;
+        this.voluntarySwitches = voluntarySwitches;
+        this.involuntarySwitches = involuntarySwitches;
+        this.readBytesPerSec = readBytesPerSec;
+        this.writeBytesPerSec = writeBytesPerSec;
+        this.voluntarySwitchesPerSec = voluntarySwitchesPerSec;
+        this.involuntarySwitchesPerSec = involuntarySwitchesPerSec;
+    }
+
+    public long getCapturedAtNanos() {
+        return capturedAtNanos;
+    }
+
+    public long getCapturedAtMillis() {
+        return capturedAtMillis;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Row index of the pid, or a negative value if it was not running at capture time.
+    public int indexOf(long pid) {
+        return Arrays.binarySearch(pids, 0, size, pid);
+    }
+
+    public long pid(int index) {
+        return pids[index];
+    }
+
+    public long ppid(int index) {
+        return ppids[index];
+    }
+
+    public long userCpuMillis(int index) {
+        return userCpuMillis[index];
+    }
+
+    public long systemCpuMillis(int index) {
+        return systemCpuMillis[index];
+    }
+
+    public long totalCpuMillis(int index) {
+        return userCpuMillis[index] + systemCpuMillis[index];
+    }
+
+    public long rssBytes(int index) {
+        return rssBytes[index];
+    }
+
+    public long startMillis(int index) {
+        return startMillis[index];
+    }
+
+    public int threads(int index) {
+        return threads[index];
+    }
+
+    public double cpuPercent(int index) {
+        return cpuPercent[index];
+    }
+
+    public String name(int index) {
+        return names[index];
+    }
+
+    public String command(int index) {
+        return commands[index];
+    }
+
+    public String arguments(int index) {
+        return arguments[index];
+    }
+
+    public String user(int index) {
+        return users[index];
+    }
+
+    public long readBytes(int index) {
+        return readBytes[index];
+    }
+
+    public long writeBytes(int index) {
+        return writeBytes[index];
+    }
+
+    public long voluntarySwitches(int index) {
+        return voluntarySwitches[index];
+    }
+
+    public long involuntarySwitches(int index) {
+        return involuntarySwitches[index];
+    }
+
+    public double readBytesPerSec(int index) {
+        return readBytesPerSec[index];
+    }
+
+    public double writeBytesPerSec(int index) {
+        return writeBytesPerSec[index];
+    }
+
+    public double voluntarySwitchesPerSec(int index) {
+        return voluntarySwitchesPerSec[index];
+    }
+
+    public double involuntarySwitchesPerSec(int index) {
+        return involuntarySwitchesPerSec[index];
+    }
+
+    public String commandLine(int index) {
+        return arguments[index].isEmpty() ? commands[index] : commands[index] + " " + arguments[index];
+    }
+
+    // Accumulates rows (in ascending pid order) for a new snapshot.
+    public static final class Builder {
+        private int size;
+        private long[] pids;
+        private long[] ppids;
+        private long[] userCpuMillis;
+        private long[] systemCpuMillis;
+        private long[] rssBytes;
+        private long[] startMillis;
+        private int[] threads;
+        private double[] cpuPercent;
+        private String[] names;
+        private String[] commands;
+        private String[] arguments;
+        private String[] users;
+        private long[] readBytes;
+        private long[] writeBytes;
+        private long[] voluntarySwitches;
+        private long[] involuntarySwitches;
+        private double[] readBytesPerSec;
+        private double[] writeBytesPerSec;
+        private double[] voluntarySwitchesPerSec;
+        private double[] involuntarySwitchesPerSec;
+
+        public Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 16);
+            pids = new long[capacity];
+            ppids = new long[capacity];
+            userCpuMillis = new long[capacity];
+            systemCpuMillis = new long[capacity];
+            rssBytes = new long[capacity];
+            startMillis = new long[capacity];
+            threads = new int[capacity];
+            cpuPercent = new double[capacity];
+            names = new String[capacity];
+            commands = new String[capacity];
+            arguments = new String[capacity];
+            users = new String[capacity];
+            readBytes = new long[capacity];
+            writeBytes = new long[capacity];
+            voluntarySwitches = new long[capacity];
+            involuntarySwitches = new long[capacity];
+            readBytesPerSec = new double[capacity];
+            writeBytesPerSec = new double[capacity];
+            voluntarySwitchesPerSec = new double[capacity];
+            involuntarySwitchesPerSec = new double[capacity];
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int add(long pid, long ppid, long userCpu, long systemCpu, long rss, long start, int threadCount,
+                       String name, String command, String args, String user) {
+            if (size == pids.length) grow();
+            pids[size] = pid;
+            ppids[size] = ppid;
+            userCpuMillis[size] = userCpu;
+            systemCpuMillis[size] = systemCpu;
+            rssBytes[size] = rss;
+            startMillis[size] = start;
+            threads[size] = threadCount;
+            names[size] = name;
+            commands[size] = command;
+            arguments[size] = args;
+            users[size] = user;
+            readBytes[size] = -1;
+            writeBytes[size] = -1;
+            voluntarySwitches[size] = -1;
+            involuntarySwitches[size] = -1;
+            readBytesPerSec[size] = 0;
+            writeBytesPerSec[size] = 0;
+            voluntarySwitchesPerSec[size] = 0;
+            involuntarySwitchesPerSec[size] = 0;
+            return size++;
+        }
+
+        // Copies row index of another snapshot, CPU%, counters and rates included
+        public int addFrom(ProcessSnapshot snapshot, int index) {
+            int row = add(snapshot.pid(index), snapshot.ppid(index), snapshot.userCpuMillis(index),
+                    snapshot.systemCpuMillis(index), snapshot.rssBytes(index), snapshot.startMillis(index),
+                    snapshot.threads(index), snapshot.name(index), snapshot.command(index),
+                    snapshot.arguments(index), snapshot.user(index));
+            cpuPercent[row] = snapshot.cpuPercent(index);
+            setCounters(row, snapshot.readBytes(index), snapshot.writeBytes(index),
+                    snapshot.voluntarySwitches(index), snapshot.involuntarySwitches(index));
+            setRates(row, snapshot.readBytesPerSec(index), snapshot.writeBytesPerSec(index),
+                    snapshot.voluntarySwitchesPerSec(index), snapshot.involuntarySwitchesPerSec(index));
+            return row;
+        }
+
+        // Cumulative counters of a row; -1 for any that could not be read
+        public void setCounters(int index, long read, long write, long voluntary, long involuntary) {
+            readBytes[index] = read;
+            writeBytes[index] = write;
+            voluntarySwitches[index] = voluntary;
+            involuntarySwitches[index] = involuntary;
+        }
+
+        public void setRates(int index, double read, double write, double voluntary, double involuntary) {
+            readBytesPerSec[index] = read;
+            writeBytesPerSec[index] = write;
+            voluntarySwitchesPerSec[index] = voluntary;
+            involuntarySwitchesPerSec[index] = involuntary;
+        }
+
+        public long startMillis(int index) {
+            return startMillis[index];
+        }
+
+        public long readBytes(int index) {
+            return readBytes[index];
+        }
+
+        public long writeBytes(int index) {
+            return writeBytes[index];
+        }
+
+        public long voluntarySwitches(int index) {
+            return voluntarySwitches[index];
+        }
+
+        public long involuntarySwitches(int index) {
+            return involuntarySwitches[index];
+        }
+
+        public long pid(int index) {
+            return pids[index];
+        }
+
+        public long totalCpuMillis(int index) {
+            return userCpuMillis[index] + systemCpuMillis[index];
+        }
+
+        public void setCpuPercent(int index, double percent) {
+            cpuPercent[index] = percent;
+        }
+
+        public ProcessSnapshot build(long capturedAtNanos, long capturedAtMillis) {
+            return new ProcessSnapshot(capturedAtNanos, capturedAtMillis, size,
+                    pids, ppids, userCpuMillis, systemCpuMillis, rssBytes, startMillis,
+                    threads, cpuPercent, names, commands, arguments, users,
+                    readBytes, writeBytes, voluntarySwitches, involuntarySwitches,
+                    readBytesPerSec, writeBytesPerSec, voluntarySwitchesPerSec, involuntarySwitchesPerSec);
+        }
+
+        private void grow() {
+            int capacity = pids.length * 2;
+            pids = Arrays.copyOf(pids, capacity);
+            ppids = Arrays.copyOf(ppids, capacity);
+            userCpuMillis = Arrays.copyOf(userCpuMillis, capacity);
+            systemCpuMillis = Arrays.copyOf(systemCpuMillis, capacity);
+            rssBytes = Arrays.copyOf(rssBytes, capacity);
+            startMillis = Arrays.copyOf(startMillis, capacity);
+            threads = Arrays.copyOf(threads, capacity);
+            cpuPercent = Arrays.copyOf(cpuPercent, capacity);
+            names = Arrays.copyOf(names, capacity);
+            commands = Arrays.copyOf(commands, capacity);
+            arguments = Arrays.copyOf(arguments, capacity);
+            users = Arrays.copyOf(users, capacity);
+            readBytes = Arrays.copyOf(readBytes, capacity);
+            writeBytes = Arrays.copyOf(writeBytes, capacity);
+            voluntarySwitches = Arrays.copyOf(voluntarySwitches, capacity);
+            involuntarySwitches = Arrays.copyOf(involuntarySwitches, capacity);
+            readBytesPerSec = Arrays.copyOf(readBytesPerSec, capacity);
+            writeBytesPerSec = Arrays.copyOf(writeBytesPerSec, capacity);
+            voluntarySwitchesPerSec = Arrays.copyOf(voluntarySwitchesPerSec, capacity);
+            involuntarySwitchesPerSec = Arrays.copyOf(involuntarySwitchesPerSec, capacity);
+        }
+    }
+}
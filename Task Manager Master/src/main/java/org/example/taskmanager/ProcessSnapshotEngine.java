@@ -0,0 +1,671 @@
+package org.example.taskmanager;
+
+import com.sun.management.UnixOperatingSystemMXBean;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Scans all processes once per interval on a background thread and publishes the result as an
+// immutable ProcessSnapshot. UI code only ever reads getLatest(); it never touches /proc itself.
+//
+// The pid list is read on the scan thread; per-pid details are gathered in chunks of consecutive pids
+// on virtual threads, with at most one chunk per core running at a time. Every scan has a deadline:
+// rows not collected by then are carried over from the previous snapshot, or left out until the next
+// scan if the pid is new.
+//
+// The /proc files of each process stay open from one scan to the next (ProcfsReader.PidFiles), so a
+// process that is still running is re-read without resolving paths or opening files. Only the first
+// keptPidLimit pids keep theirs, a quarter of the descriptor limit; the rest open and close per scan.
+// The status files of their threads are kept within a budget of ProcfsReader's own.
+//
+// Context switches are counted per thread, so a multi-threaded process costs a file per thread: its
+// counters are read every SWITCH_READ_STRIDE scans (staggered by pid, so each scan reads a share) and
+// carried over with their rates in between. Its rates span the scans since the previous read.
+//
+// Between scans, processes reported by ProcessLifecycle are applied to the latest snapshot on their own
+// (see onLifecycle), in batches of LIFECYCLE_BATCH_MILLIS: exits drop their rows, starts and execs are
+// read from /proc one pid at a time. Only lifecycle listeners see these updates.
+public class ProcessSnapshotEngine {
+
+    public interface Listener {
+        void onSnapshot(ProcessSnapshot snapshot, ProcessDelta delta);
+    }
+
+    private static final int MIN_CHUNK = 64;
+    private static final long DEADLINE_GRACE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long NUDGE_MIN_MILLIS = 1000;
+    private static final long LIFECYCLE_BATCH_MILLIS = 200;
+    private static final int SWITCH_READ_STRIDE = 5;
+
+    private record Registration(Listener listener, boolean lifecycle) { }
+
+    private final ProcfsReader procfs;
+    private final ConcurrentLinkedQueue<ProcfsReader> readers = new ConcurrentLinkedQueue<>();
+    private final int parallelism = Runtime.getRuntime().availableProcessors();
+    private final Semaphore permits = new Semaphore(parallelism);
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private final CpuUsageTracker cpuUsageTracker = new CpuUsageTracker();
+    private final AtomicReference<ProcessSnapshot> latest = new AtomicReference<>(ProcessSnapshot.EMPTY);
+    private final List<Registration> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "process-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Time chunks have spent collecting, for the scheduler's cost estimate. Per-thread CPU time is not
+    // available for virtual threads, so this is wall time while holding a permit, which procfs reads
+    // (system time, no blocking I/O) spend almost entirely on a CPU.
+    private final AtomicLong chunkNanos = new AtomicLong();
+    private final AdaptiveScheduler refreshScheduler = new AdaptiveScheduler(scheduler, this::refresh, chunkNanos::get);
+    private long bootTimeMillis = -1;
+    private long[] pidBuffer = new long[1024];
+    private final int keptPidLimit = keptPidLimit();
+    // Open files of the previous scan, parallel to its sorted pids; only touched on the scan thread
+    private long[] keptPids = new long[0];
+    private ProcfsReader.PidFiles[] keptFiles = new ProcfsReader.PidFiles[0];
+    // Capture time of the scan that last read each kept pid's context switches, 0 if none
+    private long[] keptSwitchesNanos = new long[0];
+    private long scanCount;
+    private volatile long scanDeadlineMillis = 2000;
+    private volatile int staleRows;
+    private volatile long lastScanNanos;
+    // The last scan's snapshot; latest also has the lifecycle batches since applied. Scan thread only.
+    private ProcessSnapshot scanned = ProcessSnapshot.EMPTY;
+    // Pids reported since the last lifecycle batch, true where the latest event was an exit
+    private final Map<Long, Boolean> lifecyclePids = new TreeMap<>();
+    private boolean lifecycleScheduled;
+
+    public ProcessSnapshotEngine() {
+        this(Path.of("/proc"));
+    }
+
+    public ProcessSnapshotEngine(Path procRoot) {
+        this.procfs = new ProcfsReader(procRoot);
+    }
+
+    // (Re)starts periodic scanning with intervalMillis as the base interval; see AdaptiveScheduler
+    // for how the actual interval follows scan cost and visibility.
+    public synchronized void start(long intervalMillis) {
+        MemoryUsageFetcher.setCacheMillis(intervalMillis / 2);
+        scanDeadlineMillis = Math.max(250, intervalMillis / 2);
+        refreshScheduler.start(intervalMillis);
+    }
+
+    public AdaptiveScheduler getRefreshScheduler() {
+        return refreshScheduler;
+    }
+
+    public void refreshNow() {
+        scheduler.execute(this::refresh);
+    }
+
+    // Asks for a scan soon, but no sooner than NUDGE_MIN_MILLIS after the previous one. The nudged
+    // scan takes the place of the next scheduled one instead of adding to them, and nudges are ignored
+    // while scans are backgrounded.
+    public void nudge() {
+        if (refreshScheduler.isBackground()) return;
+        long sinceScanMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastScanNanos);
+        refreshScheduler.runWithin(Math.max(0, NUDGE_MIN_MILLIS - sinceScanMillis));
+    }
+
+    // Takes a ProcessLifecycle event. Events are batched and applied without a scan; only lost events
+    // (LOST) call for one. Ignored while scans are backgrounded, as nobody is looking: the next scan
+    // catches up.
+    public void onLifecycle(ProcessLifecycle.Event event) {
+        if (refreshScheduler.isBackground()) return;
+        if (event.type() == ProcessLifecycle.Type.LOST) {
+            nudge();
+            return;
+        }
+        synchronized (lifecyclePids) {
+            lifecyclePids.put(event.pid(), event.type() == ProcessLifecycle.Type.EXIT);
+            if (lifecycleScheduled) return;
+            lifecycleScheduled = true;
+        }
+        try {
+            scheduler.schedule(this::applyLifecycle, LIFECYCLE_BATCH_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // shut down
+        }
+    }
+
+    public void shutdown() {
+        refreshScheduler.stop();
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+        try {
+            if (scheduler.awaitTermination(1, TimeUnit.SECONDS)) closeKeptFiles();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Rows the last scan carried over from the previous snapshot because they missed the deadline
+    public int getStaleRowCount() {
+        return staleRows;
+    }
+
+    public ProcessSnapshot getLatest() {
+        return latest.get();
+    }
+
+    // Called with every scan; the delta is against the previous scan.
+    public void addListener(Listener listener) {
+        listeners.add(new Registration(listener, false));
+    }
+
+    // Called with every scan and every lifecycle update between scans; the delta is against the
+    // snapshot of the previous call.
+    public void addLifecycleListener(Listener listener) {
+        listeners.add(new Registration(listener, true));
+    }
+
+    private void refresh() {
+        try {
+            ProcessSnapshot previous = latest.get();
+            lastScanNanos = System.nanoTime();
+            long started = SelfMetrics.start();
+            ProcessSnapshot snapshot = scan(previous);
+            SelfMetrics.record(SelfMetrics.Stage.SCAN, started);
+            started = SelfMetrics.start();
+            ProcessDelta delta = ProcessDelta.between(previous, snapshot);
+            ProcessDelta sinceScan = previous == scanned ? delta : ProcessDelta.between(scanned, snapshot);
+            SelfMetrics.record(SelfMetrics.Stage.DIFF, started);
+            latest.set(snapshot);
+            scanned = snapshot;
+            started = SelfMetrics.start();
+            for (Registration registration : listeners) {
+                registration.listener.onSnapshot(snapshot, registration.lifecycle ? delta : sinceScan);
+            }
+            SelfMetrics.record(SelfMetrics.Stage.LISTENERS, started);
+        } catch (Exception e) {
+            System.err.println("Process scan failed: " + e.getMessage());
+        }
+    }
+
+    // Applies the pids of one lifecycle batch to the latest snapshot: exited ones lose their row,
+    // the others are read like in a scan, with CPU% and rates starting at the next scan. An exec keeps
+    // its row's CPU% and rates. A batch with as many pids as half the snapshot is left to a scan.
+    private void applyLifecycle() {
+        long[] pids;
+        boolean[] exited;
+        synchronized (lifecyclePids) {
+            pids = new long[lifecyclePids.size()];
+            exited = new boolean[pids.length];
+            int n = 0;
+            for (Map.Entry<Long, Boolean> entry : lifecyclePids.entrySet()) {
+                pids[n] = entry.getKey();
+                exited[n++] = entry.getValue();
+            }
+            lifecyclePids.clear();
+            lifecycleScheduled = false;
+        }
+        ProcessSnapshot previous = latest.get();
+        if (bootTimeMillis < 0 || pids.length == 0) return; // the first scan sees everything anyway
+        if (pids.length > previous.size() / 2) {
+            nudge();
+            return;
+        }
+        try {
+            long started = SelfMetrics.start();
+            Rows rows = new Rows(pids);
+            for (int k = 0; k < pids.length; k++) {
+                if (exited[k]) continue;
+                try (ProcfsReader.PidFiles files = procfs.openFiles(pids[k])) {
+                    rows.present[k] = collectProcfs(rows, k, procfs, files, ProcessSnapshot.EMPTY, bootTimeMillis);
+                }
+            }
+
+            ProcessSnapshot.Builder builder = new ProcessSnapshot.Builder(previous.size() + pids.length);
+            int[] added = new int[pids.length];
+            long[] removed = new long[pids.length];
+            int[] changed = new int[pids.length];
+            int addedCount = 0;
+            int removedCount = 0;
+            int changedCount = 0;
+            int p = 0;
+            for (int k = 0; k < pids.length; k++) {
+                while (p < previous.size() && previous.pid(p) < pids[k]) builder.addFrom(previous, p++);
+                int prev = p < previous.size() && previous.pid(p) == pids[k] ? p++ : -1;
+                boolean sameProcess = prev >= 0 && rows.present[k] && previous.startMillis(prev) == rows.start[k];
+                if (sameProcess && sameProgram(previous, prev, rows, k)) {
+                    builder.addFrom(previous, prev);
+                    continue;
+                }
+                if (prev >= 0 && !sameProcess) removed[removedCount++] = pids[k];
+                if (!rows.present[k]) continue;
+                int index = builder.add(pids[k], rows.ppids[k], rows.userCpu[k], rows.systemCpu[k], rows.rss[k],
+                        rows.start[k], rows.threads[k], rows.names[k], rows.commands[k], rows.arguments[k],
+                        rows.users[k]);
+                builder.setCounters(index, rows.readBytes[k], rows.writeBytes[k], rows.voluntarySwitches[k],
+                        rows.involuntarySwitches[k]);
+                if (sameProcess) {
+                    builder.setCpuPercent(index, previous.cpuPercent(prev));
+                    builder.setRates(index, previous.readBytesPerSec(prev), previous.writeBytesPerSec(prev),
+                            previous.voluntarySwitchesPerSec(prev), previous.involuntarySwitchesPerSec(prev));
+                    changed[changedCount++] = index;
+                } else {
+                    added[addedCount++] = index;
+                }
+            }
+            while (p < previous.size()) builder.addFrom(previous, p++);
+            if (addedCount + removedCount + changedCount == 0) return;
+
+            // The capture time stays that of the scan, which the next scan's rates are measured from
+            ProcessSnapshot snapshot = builder.build(previous.getCapturedAtNanos(), previous.getCapturedAtMillis());
+            ProcessDelta delta = ProcessDelta.of(Arrays.copyOf(added, addedCount),
+                    Arrays.copyOf(removed, removedCount), Arrays.copyOf(changed, changedCount));
+            latest.set(snapshot);
+            SelfMetrics.record(SelfMetrics.Stage.LIFECYCLE, started);
+            for (Registration registration : listeners) {
+                if (registration.lifecycle) registration.listener.onSnapshot(snapshot, delta);
+            }
+        } catch (Exception e) {
+            System.err.println("Process lifecycle update failed: " + e.getMessage());
+        }
+    }
+
+    private static boolean sameProgram(ProcessSnapshot snapshot, int index, Rows rows, int i) {
+        return snapshot.name(index).equals(rows.names[i]) && snapshot.command(index).equals(rows.commands[i])
+                && snapshot.arguments(index).equals(rows.arguments[i]) && snapshot.user(index).equals(rows.users[i]);
+    }
+
+    ProcessSnapshot scan(ProcessSnapshot previous) throws IOException {
+        if (OperatingSystem.CURRENT == OperatingSystem.LINUX && Files.isDirectory(procfs.getProcRoot())) {
+            return scanProcfs(previous);
+        }
+        return scanProcessHandles(previous);
+    }
+
+    private ProcessSnapshot scanProcfs(ProcessSnapshot previous) throws IOException {
+        if (bootTimeMillis < 0) bootTimeMillis = procfs.readBootTimeMillis();
+        long bootTime = bootTimeMillis;
+
+        int count = listPids();
+        Rows rows = new Rows(Arrays.copyOf(pidBuffer, count));
+        adoptKeptFiles(rows);
+        scanCount++;
+        List<Chunk> chunks = collect(rows, true, (i, reader) -> {
+            ProcfsReader.PidFiles files = rows.files[i];
+            if (files == null) files = rows.files[i] = reader.openFiles(rows.pids[i]);
+            boolean present = collectProcfs(rows, i, reader, files, previous, bootTime);
+            // Gone, or past the descriptor budget: nothing stays open until the next scan
+            if (!present || i >= keptPidLimit) files.close();
+            return present;
+        });
+        keptPids = rows.pids;
+        keptFiles = rows.files;
+        ProcessSnapshot snapshot = assemble(rows, chunks, previous);
+        keptSwitchesNanos = rows.switchesNanos;
+        return snapshot;
+    }
+
+    private boolean collectProcfs(Rows rows, int i, ProcfsReader reader, ProcfsReader.PidFiles files,
+                                  ProcessSnapshot previous, long bootTime) {
+        long pid = rows.pids[i];
+        if (!reader.readStat(files)) {
+            // Exited since the directory listing, or the kept file went stale (the process it was
+            // opened for has exited, or an interrupt closed it): reopen once
+            files.close();
+            if (!reader.readStat(files)) return false;
+        }
+
+        long residentPages = reader.residentPages();
+        if (residentPages < 0) residentPages = reader.readResidentPages(pid);
+        long start = bootTime + ProcfsReader.ticksToMillis(reader.startTicks());
+
+        // Same pid, start time and name means the same program image: reuse its strings
+        // instead of re-reading cmdline every tick.
+        int prev = previous.indexOf(pid);
+        if (prev >= 0 && previous.startMillis(prev) == start && reader.nameEquals(previous.name(prev))) {
+            rows.names[i] = previous.name(prev);
+            rows.commands[i] = previous.command(prev);
+            rows.arguments[i] = previous.arguments(prev);
+            rows.users[i] = previous.user(prev);
+        } else {
+            String name = reader.name();
+            String[] argv = reader.readCmdline(pid);
+            rows.names[i] = name;
+            rows.commands[i] = argv.length == 0 ? "[" + name + "]" : argv[0];
+            rows.arguments[i] = argv.length <= 1 ? "" : String.join(" ", Arrays.copyOfRange(argv, 1, argv.length));
+            rows.users[i] = UnixUsers.nameOf(reader.readUid(files));
+        }
+        rows.ppids[i] = reader.ppid();
+        rows.userCpu[i] = ProcfsReader.ticksToMillis(reader.userTicks());
+        rows.systemCpu[i] = ProcfsReader.ticksToMillis(reader.systemTicks());
+        rows.rss[i] = Math.max(residentPages, 0) * ProcfsReader.PAGE_SIZE;
+        rows.start[i] = start;
+        rows.threads[i] = (int) reader.threads();
+        reader.readIo(files);
+        rows.readBytes[i] = reader.readBytes();
+        rows.writeBytes[i] = reader.writeBytes();
+        // Not skipped when CPU time stands still: a thread that wakes up and goes back to sleep within
+        // a tick is switched without its CPU time moving. A multi-threaded process skips the scans
+        // between its turns instead, once it has counters to carry.
+        boolean sameProcess = prev >= 0 && previous.startMillis(prev) == start;
+        if (rows.threads[i] > 1 && sameProcess && rows.switchesNanos[i] != 0
+                && Math.floorMod(pid + scanCount, SWITCH_READ_STRIDE) != 0) {
+            rows.voluntarySwitches[i] = previous.voluntarySwitches(prev);
+            rows.involuntarySwitches[i] = previous.involuntarySwitches(prev);
+            rows.switchesCarried[i] = true;
+            return true;
+        }
+        reader.readContextSwitches(files, reader.threads());
+        rows.voluntarySwitches[i] = reader.voluntarySwitches();
+        rows.involuntarySwitches[i] = reader.involuntarySwitches();
+        return true;
+    }
+
+    // Hands the files kept from the previous scan to the rows of the same pids, closing those of pids
+    // that are gone; both pid lists are sorted.
+    private void adoptKeptFiles(Rows rows) {
+        int k = 0;
+        for (int i = 0; i < rows.pids.length; i++) {
+            while (k < keptPids.length && keptPids[k] < rows.pids[i]) close(keptFiles[k++]);
+            if (k < keptPids.length && keptPids[k] == rows.pids[i]) {
+                rows.switchesNanos[i] = keptSwitchesNanos[k];
+                rows.files[i] = keptFiles[k++];
+            }
+        }
+        while (k < keptPids.length) close(keptFiles[k++]);
+    }
+
+    private void closeKeptFiles() {
+        for (ProcfsReader.PidFiles files : keptFiles) close(files);
+        keptPids = new long[0];
+        keptFiles = new ProcfsReader.PidFiles[0];
+        keptSwitchesNanos = new long[0];
+    }
+
+    private static void close(ProcfsReader.PidFiles files) {
+        if (files != null) files.close();
+    }
+
+    private static int keptPidLimit() {
+        // stat, status and io per pid
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof UnixOperatingSystemMXBean unix) {
+            return (int) Math.min(Integer.MAX_VALUE, unix.getMaxFileDescriptorCount() / 4 / 3);
+        }
+        return 0;
+    }
+
+    private ProcessSnapshot scanProcessHandles(ProcessSnapshot previous) {
+        List<ProcessHandle> handles = ProcessFetcher.getProcesses();
+        handles.sort(Comparator.comparingLong(ProcessHandle::pid));
+
+        Map<Long, Long> memory = MemoryUsageFetcher.getAllMemoryUsage();
+        long[] pids = new long[handles.size()];
+        for (int i = 0; i < pids.length; i++) pids[i] = handles.get(i).pid();
+        Rows rows = new Rows(pids);
+        List<Chunk> chunks = collect(rows, false, (i, reader) -> {
+            ProcessHandle handle = handles.get(i);
+            ProcessHandle.Info info = handle.info();
+            String command = info.command().orElse("Unknown");
+            rows.ppids[i] = handle.parent().map(ProcessHandle::pid).orElse(0L);
+            rows.userCpu[i] = info.totalCpuDuration().map(Duration::toMillis).orElse(0L);
+            rows.rss[i] = memory.getOrDefault(handle.pid(), 0L);
+            rows.start[i] = info.startInstant().map(Instant::toEpochMilli).orElse(0L);
+            rows.names[i] = command.substring(Math.max(command.lastIndexOf('/'), command.lastIndexOf('\\')) + 1);
+            rows.commands[i] = command;
+            rows.arguments[i] = info.arguments().map(a -> String.join(" ", a)).orElse("");
+            rows.users[i] = info.user().orElse("");
+            return true;
+        });
+        return assemble(rows, chunks, previous);
+    }
+
+    // Fans the rows out to chunks and waits for them until the scan deadline (plus a little grace
+    // for chunks to notice it). Chunks that are still stuck after that are interrupted.
+    private List<Chunk> collect(Rows rows, boolean usesProcfs, RowCollector collector) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(scanDeadlineMillis);
+        int count = rows.pids.length;
+        int chunkSize = Math.max(MIN_CHUNK, (count + parallelism * 4 - 1) / (parallelism * 4));
+        List<Chunk> chunks = new ArrayList<>();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int from = 0; from < count; from += chunkSize) {
+            Chunk chunk = new Chunk(rows, from, Math.min(count, from + chunkSize), deadline, usesProcfs, collector);
+            chunks.add(chunk);
+            futures.add(workers.submit(chunk));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get(Math.max(0, deadline + DEADLINE_GRACE_NANOS - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+            } catch (ExecutionException e) {
+                System.err.println("Process detail collection failed: " + e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return chunks;
+    }
+
+    // Builds the snapshot in pid order: collected rows as they are, rows that missed the deadline
+    // from the previous snapshot with their previous CPU%. Rows that read their context switches
+    // record this snapshot's capture time for the next scan.
+    private ProcessSnapshot assemble(Rows rows, List<Chunk> chunks, ProcessSnapshot previous) {
+        ProcessSnapshot.Builder builder = new ProcessSnapshot.Builder(rows.pids.length);
+        double[] carriedCpu = new double[rows.pids.length];
+        long[] switchesSince = new long[rows.pids.length];
+        boolean[] switchesRead = new boolean[rows.pids.length];
+        int stale = 0;
+        for (Chunk chunk : chunks) {
+            int done = chunk.done;
+            for (int i = chunk.from; i < chunk.to; i++) {
+                int index;
+                if (i < done) {
+                    if (!rows.present[i]) continue;
+                    index = builder.add(rows.pids[i], rows.ppids[i], rows.userCpu[i], rows.systemCpu[i], rows.rss[i],
+                            rows.start[i], rows.threads[i], rows.names[i], rows.commands[i], rows.arguments[i],
+                            rows.users[i]);
+                    builder.setCounters(index, rows.readBytes[i], rows.writeBytes[i], rows.voluntarySwitches[i],
+                            rows.involuntarySwitches[i]);
+                    carriedCpu[index] = Double.NaN;
+                    switchesSince[index] = rows.switchesCarried[i] ? -1 : rows.switchesNanos[i];
+                    switchesRead[i] = !rows.switchesCarried[i];
+                } else {
+                    int prev = previous.indexOf(rows.pids[i]);
+                    if (prev < 0) continue;
+                    index = builder.addFrom(previous, prev);
+                    carriedCpu[index] = previous.cpuPercent(prev);
+                    stale++;
+                }
+            }
+        }
+        staleRows = stale;
+        ProcessSnapshot snapshot = finish(builder, carriedCpu, switchesSince, previous);
+        for (int i = 0; i < switchesRead.length; i++) {
+            if (switchesRead[i]) rows.switchesNanos[i] = snapshot.getCapturedAtNanos();
+        }
+        return snapshot;
+    }
+
+    // CPU% comes from the tracker; pids missing from this scan are swept out of it afterwards.
+    // Carried-over rows keep their previous CPU% and rates, and their last real sample in the tracker.
+    // I/O and context switch rates are the counter deltas against the previous snapshot, found by
+    // walking both pid-sorted row lists side by side. switchesSince is per row: -1 keeps the previous
+    // context switch rates, otherwise the capture time of the scan that last read the counters, or 0
+    // for the previous snapshot's.
+    private ProcessSnapshot finish(ProcessSnapshot.Builder builder, double[] carriedCpu, long[] switchesSince,
+                                  ProcessSnapshot previous) {
+        long nowNanos = System.nanoTime();
+        double seconds = (nowNanos - previous.getCapturedAtNanos()) / 1e9;
+        cpuUsageTracker.beginScan();
+        int p = 0;
+        for (int i = 0; i < builder.size(); i++) {
+            if (!Double.isNaN(carriedCpu[i])) {
+                cpuUsageTracker.keep(builder.pid(i));
+                builder.setCpuPercent(i, carriedCpu[i]);
+                continue;
+            }
+            builder.setCpuPercent(i, cpuUsageTracker.update(builder.pid(i), builder.totalCpuMillis(i), nowNanos));
+            while (p < previous.size() && previous.pid(p) < builder.pid(i)) p++;
+            if (p < previous.size() && previous.pid(p) == builder.pid(i)
+                    && previous.startMillis(p) == builder.startMillis(i) && seconds > 0) {
+                double voluntary = previous.voluntarySwitchesPerSec(p);
+                double involuntary = previous.involuntarySwitchesPerSec(p);
+                if (switchesSince[i] >= 0) {
+                    double switchSeconds = switchesSince[i] > 0 ? (nowNanos - switchesSince[i]) / 1e9 : seconds;
+                    voluntary = rate(previous.voluntarySwitches(p), builder.voluntarySwitches(i), switchSeconds);
+                    involuntary = rate(previous.involuntarySwitches(p), builder.involuntarySwitches(i), switchSeconds);
+                }
+                builder.setRates(i, rate(previous.readBytes(p), builder.readBytes(i), seconds),
+                        rate(previous.writeBytes(p), builder.writeBytes(i), seconds), voluntary, involuntary);
+            }
+        }
+        cpuUsageTracker.sweep();
+        return builder.build(nowNanos, System.currentTimeMillis());
+    }
+
+    // Per-second increase of a counter; 0 when either side is unknown (-1) or the counter went back
+    private static double rate(long before, long after, double seconds) {
+        return before < 0 || after < before ? 0 : (after - before) / seconds;
+    }
+
+    private int listPids() throws IOException {
+        int count = 0;
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(procfs.getProcRoot())) {
+            for (Path entry : dir) {
+                long pid = parsePid(entry.getFileName().toString());
+                if (pid < 0) continue;
+                if (count == pidBuffer.length) pidBuffer = Arrays.copyOf(pidBuffer, count * 2);
+                pidBuffer[count++] = pid;
+            }
+        }
+        Arrays.sort(pidBuffer, 0, count);
+        return count;
+    }
+
+    private static long parsePid(String name) {
+        if (name.isEmpty()) return -1;
+        long pid = 0;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            pid = pid * 10 + (c - '0');
+        }
+        return pid;
+    }
+
+    private interface RowCollector {
+        // Fills row i of the scan; false if the process is gone.
+        boolean collect(int i, ProcfsReader reader);
+    }
+
+    // Columns of one scan, indexed like the sorted pid list. Each chunk writes only its own range.
+    private static final class Rows {
+        final long[] pids;
+        final boolean[] present;
+        final long[] ppids;
+        final long[] userCpu;
+        final long[] systemCpu;
+        final long[] rss;
+        final long[] start;
+        final int[] threads;
+        final long[] readBytes;
+        final long[] writeBytes;
+        final long[] voluntarySwitches;
+        final long[] involuntarySwitches;
+        // Capture time of the scan whose context switch counters the pid carries (0 if none), and
+        // whether this scan skipped reading them
+        final long[] switchesNanos;
+        final boolean[] switchesCarried;
+        final String[] names;
+        final String[] commands;
+        final String[] arguments;
+        final String[] users;
+        final ProcfsReader.PidFiles[] files;
+
+        Rows(long[] pids) {
+            int n = pids.length;
+            this.pids = pids;
+            present = new boolean[n];
+            ppids = new long[n];
+            userCpu = new long[n];
+            systemCpu = new long[n];
+            rss = new long[n];
+            start = new long[n];
+            threads = new int[n];
+            readBytes = new long[n];
+            writeBytes = new long[n];
+            voluntarySwitches = new long[n];
+            involuntarySwitches = new long[n];
+            Arrays.fill(readBytes, -1);
+            Arrays.fill(writeBytes, -1);
+            Arrays.fill(voluntarySwitches, -1);
+            Arrays.fill(involuntarySwitches, -1);
+            switchesNanos = new long[n];
+            switchesCarried = new boolean[n];
+            names = new String[n];
+            commands = new String[n];
+            arguments = new String[n];
+            users = new String[n];
+            files = new ProcfsReader.PidFiles[n];
+        }
+    }
+
+    // Collects rows [from, to). The volatile done counter publishes finished rows: the scan thread
+    // reads rows below done and treats the rest as having missed the deadline. Readers come from a
+    // pool rather than a ThreadLocal, since every chunk runs on a fresh virtual thread.
+    private final class Chunk implements Runnable {
+        final Rows rows;
+        final int from;
+        final int to;
+        final long deadlineNanos;
+        final boolean usesProcfs;
+        final RowCollector collector;
+        volatile int done;
+
+        Chunk(Rows rows, int from, int to, long deadlineNanos, boolean usesProcfs, RowCollector collector) {
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+            this.deadlineNanos = deadlineNanos;
+            this.usesProcfs = usesProcfs;
+            this.collector = collector;
+            this.done = from;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (!permits.tryAcquire(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS)) return;
+            } catch (InterruptedException e) {
+                return;
+            }
+            long started = System.nanoTime();
+            ProcfsReader reader = null;
+            if (usesProcfs) {
+                reader = readers.poll();
+                if (reader == null) reader = new ProcfsReader(procfs.getProcRoot());
+            }
+            try {
+                for (int i = from; i < to; i++) {
+                    if (System.nanoTime() - deadlineNanos > 0 || Thread.currentThread().isInterrupted()) return;
+                    rows.present[i] = collector.collect(i, reader);
+                    done = i + 1;
+                }
+            } finally {
+                if (reader != null) readers.offer(reader);
+                permits.release();
+                chunkNanos.addAndGet(System.nanoTime() - started);
+            }
+        }
+    }
+}
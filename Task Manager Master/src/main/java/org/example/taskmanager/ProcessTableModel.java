@@ -0,0 +1,163 @@
+package org.example.taskmanager;
+
+import javafx.beans.property.LongProperty;
+import javafx.beans.property.SimpleLongProperty;
+import javafx.collections.ModifiableObservableListBase;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Process rows backing the Processes tab, keyed by host and pid. apply() must run on the FX thread
+// and only touches rows named in the delta, so its cost follows the number of changes, not the
+// process count; with many remote hosts each host's deltas are applied separately.
+//
+// Each row knows its position in the list, so updates are announced for exactly the changed rows and
+// removals go by index instead of searching the list for each row.
+public class ProcessTableModel {
+
+    private final RowList rows = new RowList();
+    private final Map<String, Map<Long, ProcessRow>> rowsByHost = new HashMap<>();
+    private final LongProperty capturedAtMillis = new SimpleLongProperty();
+    // Row indices of one apply(), reused
+    private int[] indices = new int[64];
+
+    public ObservableList<ProcessRow> getRows() {
+        return rows;
+    }
+
+    // Wall-clock time of the snapshot last applied; cells showing elapsed time refresh from it.
+    public LongProperty capturedAtMillisProperty() {
+        return capturedAtMillis;
+    }
+
+    public ProcessRow getRow(long pid) {
+        return getRow(ProcessRow.LOCAL_HOST, pid);
+    }
+
+    public ProcessRow getRow(String host, long pid) {
+        Map<Long, ProcessRow> rowsByPid = rowsByHost.get(host);
+        return rowsByPid == null ? null : rowsByPid.get(pid);
+    }
+
+    public void apply(ProcessSnapshot snapshot, ProcessDelta delta) {
+        apply(ProcessRow.LOCAL_HOST, snapshot, delta);
+    }
+
+    public void apply(String host, ProcessSnapshot snapshot, ProcessDelta delta) {
+        Map<Long, ProcessRow> rowsByPid = rowsByHost.computeIfAbsent(host, h -> new HashMap<>());
+        if (delta.getRemoved().length > 0) {
+            int count = 0;
+            for (long pid : delta.getRemoved()) {
+                ProcessRow row = rowsByPid.remove(pid);
+                if (row != null) count = collect(count, row.index);
+            }
+            rows.removeAt(indices, count);
+        }
+
+        if (delta.getChanged().length > 0) {
+            int count = 0;
+            for (int index : delta.getChanged()) {
+                ProcessRow row = rowsByPid.get(snapshot.pid(index));
+                if (row != null) {
+                    row.update(snapshot, index);
+                    count = collect(count, row.index);
+                }
+            }
+            // One update event for all changed rows, so sorted and filtered views re-place them in one go
+            rows.fireUpdates(indices, count);
+        }
+
+        if (delta.getAdded().length > 0) {
+            List<ProcessRow> fresh = new ArrayList<>(delta.getAdded().length);
+            for (int index : delta.getAdded()) {
+                ProcessRow row = new ProcessRow(host, snapshot.pid(index), snapshot.startMillis(index));
+                row.update(snapshot, index);
+                rowsByPid.put(row.getPid(), row);
+                fresh.add(row);
+            }
+            rows.addAll(fresh);
+        }
+        if (host.equals(ProcessRow.LOCAL_HOST)) capturedAtMillis.set(snapshot.getCapturedAtMillis());
+    }
+
+    // Drops every row of a detached host
+    public void removeHost(String host) {
+        Map<Long, ProcessRow> rowsByPid = rowsByHost.remove(host);
+        if (rowsByPid == null) return;
+        int count = 0;
+        for (ProcessRow row : rowsByPid.values()) count = collect(count, row.index);
+        rows.removeAt(indices, count);
+    }
+
+    private int collect(int count, int index) {
+        if (count == indices.length) indices = Arrays.copyOf(indices, count * 2);
+        indices[count] = index;
+        return count + 1;
+    }
+
+    private static class RowList extends ModifiableObservableListBase<ProcessRow> {
+        private final List<ProcessRow> delegate = new ArrayList<>();
+
+        void fireUpdates(int[] indices, int count) {
+            Arrays.sort(indices, 0, count);
+            beginChange();
+            for (int i = 0; i < count; i++) nextUpdate(indices[i]);
+            endChange();
+        }
+
+        // Removes the rows at the given indices as one change, highest index first so the indices still
+        // to go stay valid; the rows behind the lowest one are renumbered once at the end.
+        void removeAt(int[] indices, int count) {
+            if (count == 0) return;
+            Arrays.sort(indices, 0, count);
+            beginChange();
+            for (int i = count - 1; i >= 0; i--) {
+                ProcessRow old = delegate.remove(indices[i]);
+                old.index = -1;
+                nextRemove(indices[i], old);
+            }
+            renumber(indices[0]);
+            endChange();
+        }
+
+        @Override
+        public ProcessRow get(int index) {
+            return delegate.get(index);
+        }
+
+        @Override
+        public int size() {
+            return delegate.size();
+        }
+
+        @Override
+        protected void doAdd(int index, ProcessRow element) {
+            delegate.add(index, element);
+            renumber(index);
+        }
+
+        @Override
+        protected ProcessRow doSet(int index, ProcessRow element) {
+            ProcessRow old = delegate.set(index, element);
+            old.index = -1;
+            element.index = index;
+            return old;
+        }
+
+        @Override
+        protected ProcessRow doRemove(int index) {
+            ProcessRow old = delegate.remove(index);
+            old.index = -1;
+            renumber(index);
+            return old;
+        }
+
+        private void renumber(int from) {
+            for (int i = from; i < delegate.size(); i++) delegate.get(i).index = i;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package org.example.taskmanager;
+
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.beans.value.WeakChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.SortedList;
+import javafx.scene.control.*;
+import javafx.scene.layout.HBox;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Sortable, virtualized process table. Every column reads a precomputed ProcessRow property and
+// every cell keeps its nodes for its whole life; updateItem only changes text and values.
+public class ProcessTableView extends TableView<ProcessRow> {
+
+    private final TableColumn<ProcessRow, String> hostCol = new TableColumn<>("Host");
+
+    public ProcessTableView(ProcessTableModel model, ObservableList<ProcessRow> rows,
+                            Consumer<ProcessRow> onOpen) {
+        SortedList<ProcessRow> sorted = new SortedList<>(rows);
+        sorted.comparatorProperty().bind(comparatorProperty());
+        setItems(sorted);
+        setColumnResizePolicy(CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+        setPlaceholder(new Label("Waiting for the first scan..."));
+
+        // Only shown once remote hosts are attached
+        hostCol.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(
+                c.getValue().isLocal() ? "local" : c.getValue().getHost()));
+        hostCol.setPrefWidth(120);
+        hostCol.setVisible(false);
+
+        TableColumn<ProcessRow, Number> pidCol = new TableColumn<>("PID");
+        pidCol.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().getPid()));
+        pidCol.setPrefWidth(70);
+
+        TableColumn<ProcessRow, String> nameCol = new TableColumn<>("Name");
+        nameCol.setCellValueFactory(c -> c.getValue().nameProperty());
+        nameCol.setPrefWidth(150);
+
+        TableColumn<ProcessRow, String> userCol = new TableColumn<>("User");
+        userCol.setCellValueFactory(c -> c.getValue().userProperty());
+        userCol.setPrefWidth(90);
+
+        TableColumn<ProcessRow, Number> cpuCol = new TableColumn<>("CPU %");
+        cpuCol.setCellValueFactory(c -> c.getValue().cpuPercentProperty());
+        cpuCol.setCellFactory(col -> new CpuCell());
+        cpuCol.setPrefWidth(130);
+        cpuCol.setSortType(TableColumn.SortType.DESCENDING);
+
+        TableColumn<ProcessRow, Number> rssCol = new TableColumn<>("RSS");
+        rssCol.setCellValueFactory(c -> c.getValue().rssBytesProperty());
+        rssCol.setCellFactory(col -> new FormattedCell(value -> ProcessRow.formatBytes(value.longValue())));
+        rssCol.setPrefWidth(90);
+        rssCol.setSortType(TableColumn.SortType.DESCENDING);
+
+        TableColumn<ProcessRow, Number> threadsCol = new TableColumn<>("Threads");
+        threadsCol.setCellValueFactory(c -> c.getValue().threadsProperty());
+        threadsCol.setPrefWidth(70);
+        threadsCol.setSortType(TableColumn.SortType.DESCENDING);
+
+        // Rates since the previous scan; Linux only, and only for processes /proc lets us inspect
+        TableColumn<ProcessRow, Number> readCol = rateColumn("Read/s", ProcessRow::readBytesPerSecProperty,
+                value -> ProcessRow.formatBytes(value.longValue()) + "/s");
+        TableColumn<ProcessRow, Number> writeCol = rateColumn("Write/s", ProcessRow::writeBytesPerSecProperty,
+                value -> ProcessRow.formatBytes(value.longValue()) + "/s");
+        TableColumn<ProcessRow, Number> voluntaryCol = rateColumn("Vol. Switches/s",
+                ProcessRow::voluntarySwitchesPerSecProperty, value -> String.format("%.0f", value.doubleValue()));
+        TableColumn<ProcessRow, Number> involuntaryCol = rateColumn("Invol. Switches/s",
+                ProcessRow::involuntarySwitchesPerSecProperty, value -> String.format("%.0f", value.doubleValue()));
+
+        // Sorted by start time, newest first, which is the same as shortest uptime first
+        TableColumn<ProcessRow, Number> uptimeCol = new TableColumn<>("Uptime");
+        uptimeCol.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().getStartMillis()));
+        uptimeCol.setCellFactory(col -> new UptimeCell(model));
+        uptimeCol.setComparator(Comparator.comparingLong(Number::longValue).reversed());
+        uptimeCol.setPrefWidth(90);
+
+        TableColumn<ProcessRow, String> commandCol = new TableColumn<>("Command");
+        commandCol.setCellValueFactory(c -> c.getValue().commandProperty());
+        commandCol.setPrefWidth(300);
+
+        getColumns().addAll(List.of(hostCol, pidCol, nameCol, userCol, cpuCol, rssCol, threadsCol, readCol, writeCol,
+                voluntaryCol, involuntaryCol, uptimeCol, commandCol));
+
+        setRowFactory(table -> {
+            TableRow<ProcessRow> row = new TableRow<>();
+            row.setOnMouseClicked(event -> {
+                if (event.getClickCount() == 2 && !row.isEmpty()) onOpen.accept(row.getItem());
+            });
+            return row;
+        });
+    }
+
+    private static TableColumn<ProcessRow, Number> rateColumn(String title,
+                                                              Function<ProcessRow, ObservableValue<Number>> property,
+                                                              Function<Number, String> format) {
+        TableColumn<ProcessRow, Number> column = new TableColumn<>(title);
+        column.setCellValueFactory(c -> property.apply(c.getValue()));
+        column.setCellFactory(col -> new FormattedCell(format));
+        column.setPrefWidth(90);
+        column.setSortType(TableColumn.SortType.DESCENDING);
+        return column;
+    }
+
+    public void setHostColumnVisible(boolean visible) {
+        hostCol.setVisible(visible);
+    }
+
+    private static class FormattedCell extends TableCell<ProcessRow, Number> {
+        private final Function<Number, String> format;
+
+        FormattedCell(Function<Number, String> format) {
+            this.format = format;
+        }
+
+        @Override
+        protected void updateItem(Number value, boolean empty) {
+            super.updateItem(value, empty);
+            setText(empty || value == null ? null : format.apply(value));
+        }
+    }
+
+    private static class CpuCell extends TableCell<ProcessRow, Number> {
+        private final ProgressBar bar = new ProgressBar(0);
+        private final Label label = new Label();
+        private final HBox box = new HBox(6, bar, label);
+
+        CpuCell() {
+            bar.setPrefWidth(60);
+            setContentDisplay(ContentDisplay.GRAPHIC_ONLY);
+        }
+
+        @Override
+        protected void updateItem(Number value, boolean empty) {
+            super.updateItem(value, empty);
+            if (empty || value == null) {
+                setGraphic(null);
+            } else {
+                double usage = value.doubleValue();
+                bar.setProgress(Math.min(usage / 100.0, 1.0));
+                label.setText(String.format("%.1f", usage));
+                setGraphic(box);
+            }
+        }
+    }
+
+    // Uptime changes every second for every row, so it is derived from the start time whenever a
+    // snapshot lands instead of being stored per row.
+    private static class UptimeCell extends TableCell<ProcessRow, Number> {
+        private final ProcessTableModel model;
+        private final ChangeListener<Number> clockListener = (obs, oldVal, newVal) -> refreshText();
+
+        UptimeCell(ProcessTableModel model) {
+            this.model = model;
+            model.capturedAtMillisProperty().addListener(new WeakChangeListener<>(clockListener));
+        }
+
+        @Override
+        protected void updateItem(Number value, boolean empty) {
+            super.updateItem(value, empty);
+            refreshText();
+        }
+
+        private void refreshText() {
+            Number start = getItem();
+            if (isEmpty() || start == null || start.longValue() <= 0) {
+                setText(null);
+            } else {
+                long seconds = Math.max(0, (model.capturedAtMillisProperty().get() - start.longValue()) / 1000);
+                setText(ProcessRow.formatDuration(seconds));
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package org.example.taskmanager;
+
+import javafx.scene.control.TreeItem;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Parent/child view of the local processes, built from the ppid of each row. The rows are the same
+// ProcessRow objects as in ProcessTableModel, so apply() must run on the FX thread right after the
+// table model has applied the same delta.
+//
+// Each process keeps subtree totals (CPU %, RSS, threads over itself and all descendants). A delta
+// only marks the touched processes and their ancestors dirty; the totals are then recomputed top-down
+// through dirty nodes only, so an unchanged branch is never visited. A process whose parent is not
+// (or no longer) known sits at the top level until that parent shows up. Pids are reused, so a process
+// only becomes the parent of those that started no earlier than itself: an orphan of a process that
+// exited is not handed to a later one that got the same pid.
+public class ProcessTreeModel {
+
+    private final TreeItem<ProcessRow> root = new TreeItem<>();
+    private final Map<Long, Node> nodes = new HashMap<>();
+    // Top-level processes by the parent pid they are waiting for
+    private final Map<Long, List<Node>> orphans = new HashMap<>();
+
+    private static final class Node extends TreeItem<ProcessRow> {
+        boolean dirty = true;
+        long parentPid;
+
+        Node(ProcessRow row) {
+            super(row);
+            parentPid = row.getPpid();
+        }
+    }
+
+    public ProcessTreeModel() {
+        root.setExpanded(true);
+    }
+
+    public TreeItem<ProcessRow> getRoot() {
+        return root;
+    }
+
+    public void apply(ProcessTableModel model, ProcessSnapshot snapshot, ProcessDelta delta) {
+        for (long pid : delta.getRemoved()) {
+            Node node = nodes.remove(pid);
+            if (node == null) continue;
+            unlink(node);
+            // Children outlive their parent (the OS re-parents them); the next scan names the new parent
+            if (!node.getChildren().isEmpty()) {
+                List<TreeItem<ProcessRow>> children = new ArrayList<>(node.getChildren());
+                node.getChildren().clear();
+                for (TreeItem<ProcessRow> child : children) addOrphan((Node) child);
+                root.getChildren().addAll(children);
+            }
+        }
+
+        if (delta.getAdded().length > 0) {
+            List<Node> fresh = new ArrayList<>(delta.getAdded().length);
+            for (int index : delta.getAdded()) {
+                ProcessRow row = model.getRow(snapshot.pid(index));
+                if (row == null) continue;
+                Node node = new Node(row);
+                nodes.put(row.getPid(), node);
+                fresh.add(node);
+            }
+            // Link all new processes in one batch per parent, so the first scan is not one list change per row
+            Map<TreeItem<ProcessRow>, List<Node>> byParent = new LinkedHashMap<>();
+            for (Node node : fresh) {
+                adopt(node);
+                byParent.computeIfAbsent(parentOf(node), p -> new ArrayList<>()).add(node);
+            }
+            for (Map.Entry<TreeItem<ProcessRow>, List<Node>> entry : byParent.entrySet()) {
+                entry.getKey().getChildren().addAll(entry.getValue());
+                if (entry.getKey() != root) {
+                    markDirty((Node) entry.getKey());
+                    continue;
+                }
+                for (Node node : entry.getValue()) {
+                    node.setExpanded(true);
+                    addOrphan(node);
+                }
+            }
+        }
+
+        for (int index : delta.getChanged()) {
+            Node node = nodes.get(snapshot.pid(index));
+            if (node == null) continue;
+            if (node.parentPid != node.getValue().getPpid()) {
+                unlink(node);
+                node.parentPid = node.getValue().getPpid();
+                link(node);
+            }
+            markDirty(node);
+        }
+
+        for (TreeItem<ProcessRow> top : root.getChildren()) {
+            Node node = (Node) top;
+            if (node.dirty) recompute(node);
+        }
+    }
+
+    // The process and all its descendants, children before their parents
+    public List<ProcessRow> subtree(long pid) {
+        List<ProcessRow> rows = new ArrayList<>();
+        Node node = nodes.get(pid);
+        if (node != null) collect(node, rows);
+        return rows;
+    }
+
+    private static void collect(TreeItem<ProcessRow> item, List<ProcessRow> into) {
+        for (TreeItem<ProcessRow> child : item.getChildren()) collect(child, into);
+        into.add(item.getValue());
+    }
+
+    // Moves orphans waiting for this pid under the new node
+    private void adopt(Node node) {
+        List<Node> waiting = orphans.remove(node.getValue().getPid());
+        if (waiting == null) return;
+        List<Node> adopted = new ArrayList<>(waiting.size());
+        for (Node orphan : waiting) {
+            if (orphan.getParent() == root && orphan.parentPid == node.getValue().getPid() && canParent(node, orphan)) {
+                adopted.add(orphan);
+            }
+        }
+        root.getChildren().removeAll(adopted);
+        node.getChildren().addAll(adopted);
+    }
+
+    private TreeItem<ProcessRow> parentOf(Node node) {
+        Node parent = nodes.get(node.parentPid);
+        return parent == null || !canParent(parent, node) ? root : parent;
+    }
+
+    private static boolean canParent(Node parent, Node child) {
+        return parent.getValue().getStartMillis() <= child.getValue().getStartMillis() && !isAncestor(child, parent);
+    }
+
+    private void link(Node node) {
+        TreeItem<ProcessRow> parent = parentOf(node);
+        parent.getChildren().add(node);
+        if (parent == root) addOrphan(node);
+        else markDirty((Node) parent);
+    }
+
+    private void unlink(Node node) {
+        TreeItem<ProcessRow> parent = node.getParent();
+        if (parent == null) return;
+        parent.getChildren().remove(node);
+        if (parent == root) {
+            List<Node> waiting = orphans.get(node.parentPid);
+            if (waiting != null) {
+                waiting.remove(node);
+                if (waiting.isEmpty()) orphans.remove(node.parentPid);
+            }
+        } else {
+            markDirty((Node) parent);
+        }
+    }
+
+    private void addOrphan(Node node) {
+        orphans.computeIfAbsent(node.parentPid, p -> new ArrayList<>()).add(node);
+    }
+
+    // Guards against cycles from reused pids: is candidate somewhere above node?
+    private static boolean isAncestor(Node candidate, TreeItem<ProcessRow> node) {
+        for (TreeItem<ProcessRow> item = node; item != null; item = item.getParent()) {
+            if (item == candidate) return true;
+        }
+        return false;
+    }
+
+    private static void markDirty(Node node) {
+        for (TreeItem<ProcessRow> item = node; item instanceof Node n && !n.dirty; item = item.getParent()) {
+            n.dirty = true;
+        }
+    }
+
+    private static void recompute(Node node) {
+        ProcessRow row = node.getValue();
+        double cpu = row.getCpuPercent();
+        long rss = row.getRssBytes();
+        int threads = row.getThreads();
+        for (TreeItem<ProcessRow> item : node.getChildren()) {
+            Node child = (Node) item;
+            if (child.dirty) recompute(child);
+            cpu += child.getValue().getSubtreeCpuPercent();
+            rss += child.getValue().getSubtreeRssBytes();
+            threads += child.getValue().getSubtreeThreads();
+        }
+        row.subtreeCpuPercentProperty().set(cpu);
+        row.subtreeRssBytesProperty().set(rss);
+        row.subtreeThreadsProperty().set(threads);
+        node.dirty = false;
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.taskmanager;
+
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.control.*;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Tree mode of the Processes tab: local processes under their parents, with each process's own
+// usage next to the totals of its whole subtree. Sorting applies among siblings and is re-applied
+// after every scan, since subtree totals move with every delta.
+public class ProcessTreeView extends TreeTableView<ProcessRow> {
+
+    public ProcessTreeView(ProcessTreeModel model, Consumer<ProcessRow> onOpen) {
+        super(model.getRoot());
+        setShowRoot(false);
+        setColumnResizePolicy(CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+        setPlaceholder(new Label("Waiting for the first scan..."));
+
+        TreeTableColumn<ProcessRow, String> nameCol = new TreeTableColumn<>("Name");
+        nameCol.setCellValueFactory(c -> c.getValue().getValue().nameProperty());
+        nameCol.setPrefWidth(220);
+
+        TreeTableColumn<ProcessRow, Number> pidCol = new TreeTableColumn<>("PID");
+        pidCol.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().getValue().getPid()));
+        pidCol.setPrefWidth(70);
+
+        TreeTableColumn<ProcessRow, String> userCol = new TreeTableColumn<>("User");
+        userCol.setCellValueFactory(c -> c.getValue().getValue().userProperty());
+        userCol.setPrefWidth(90);
+
+        TreeTableColumn<ProcessRow, Number> cpuCol = numberColumn("CPU %", 70,
+                ProcessRow::cpuPercentProperty, value -> String.format("%.1f", value.doubleValue()));
+        TreeTableColumn<ProcessRow, Number> treeCpuCol = numberColumn("Tree CPU %", 90,
+                ProcessRow::subtreeCpuPercentProperty, value -> String.format("%.1f", value.doubleValue()));
+        TreeTableColumn<ProcessRow, Number> rssCol = numberColumn("RSS", 90,
+                ProcessRow::rssBytesProperty, value -> ProcessRow.formatBytes(value.longValue()));
+        TreeTableColumn<ProcessRow, Number> treeRssCol = numberColumn("Tree RSS", 90,
+                ProcessRow::subtreeRssBytesProperty, value -> ProcessRow.formatBytes(value.longValue()));
+        TreeTableColumn<ProcessRow, Number> threadsCol = numberColumn("Threads", 70,
+                ProcessRow::threadsProperty, Number::toString);
+        TreeTableColumn<ProcessRow, Number> treeThreadsCol = numberColumn("Tree Threads", 90,
+                ProcessRow::subtreeThreadsProperty, Number::toString);
+
+        TreeTableColumn<ProcessRow, String> commandCol = new TreeTableColumn<>("Command");
+        commandCol.setCellValueFactory(c -> c.getValue().getValue().commandProperty());
+        commandCol.setPrefWidth(300);
+
+        getColumns().addAll(List.of(nameCol, pidCol, userCol, cpuCol, treeCpuCol, rssCol, treeRssCol, threadsCol,
+                treeThreadsCol, commandCol));
+        treeCpuCol.setSortType(TreeTableColumn.SortType.DESCENDING);
+        getSortOrder().add(treeCpuCol);
+
+        setRowFactory(table -> {
+            TreeTableRow<ProcessRow> row = new TreeTableRow<>();
+            row.setOnMouseClicked(event -> {
+                if (event.getClickCount() == 2 && !row.isEmpty()) onOpen.accept(row.getItem());
+            });
+            return row;
+        });
+    }
+
+    // Call after the model applied a scan
+    public void refreshSort() {
+        if (!getSortOrder().isEmpty()) sort();
+    }
+
+    public ProcessRow getSelectedRow() {
+        TreeItem<ProcessRow> item = getSelectionModel().getSelectedItem();
+        return item == null ? null : item.getValue();
+    }
+
+    private static TreeTableColumn<ProcessRow, Number> numberColumn(
+            String title, double width, Function<ProcessRow, ObservableValue<Number>> property,
+            Function<Number, String> format) {
+        TreeTableColumn<ProcessRow, Number> column = new TreeTableColumn<>(title);
+        column.setCellValueFactory(c -> property.apply(c.getValue().getValue()));
+        column.setCellFactory(col -> new TreeTableCell<>() {
+            @Override
+            protected void updateItem(Number value, boolean empty) {
+                super.updateItem(value, empty);
+                setText(empty || value == null ? null : format.apply(value));
+            }
+        });
+        column.setPrefWidth(width);
+        column.setSortType(TreeTableColumn.SortType.DESCENDING);
+        return column;
+    }
+}
@@ -0,0 +1,532 @@
+package org.example.taskmanager;
+
+import com.sun.management.UnixOperatingSystemMXBean;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Reads per-process fields from a procfs tree. Files are read through FileChannel into a reusable
+// direct buffer and numbers are parsed straight from the bytes, so the hot stat/statm path creates
+// no Strings. One instance belongs to one thread: readStat() leaves the parsed fields in the reader
+// until the next call. forCurrentThread() hands out a per-thread instance over /proc.
+//
+// Callers that read the same processes over and over keep their files open in a PidFiles (see
+// openFiles()): the read methods taking one neither resolve paths nor open channels, so a process
+// that is still there is re-read without allocating. A kept channel never shows a reused pid's new
+// process; reading it just fails once the original has exited.
+//
+// The buffer starts at one page and doubles whenever a file fills it, so a long status file (many
+// groups, many CPUs) is read whole; the reader keeps the larger buffer.
+public class ProcfsReader {
+
+    public static final long CLOCK_TICKS = sysconf("CLK_TCK", 100);
+    public static final long PAGE_SIZE = sysconf("PAGESIZE", 4096);
+
+    // Per process; a process with more threads lists and opens their status files on every read
+    static final int MAX_KEPT_TASKS = 64;
+
+    private static final Path PROC = Path.of("/proc");
+    private static final ThreadLocal<ProcfsReader> PER_THREAD = ThreadLocal.withInitial(() -> new ProcfsReader(PROC));
+    private static final int MAX_BUFFER_BYTES = 1 << 20;
+    private static final FileChannel[] NO_CHANNELS = new FileChannel[0];
+    // Kept task status files of all PidFiles together: a quarter of the descriptor limit, next to the
+    // quarter ProcessSnapshotEngine keeps for stat, status and io
+    private static final AtomicLong TASK_FILE_BUDGET = new AtomicLong(taskFileBudget());
+
+    private final Path procRoot;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(4096);
+
+    private final byte[] name = new byte[64];
+    private int nameLength;
+    private long ppid;
+    private long userTicks;
+    private long systemTicks;
+    private long threads;
+    private long startTicks;
+    private long residentPages;
+    private long readBytes;
+    private long writeBytes;
+    private long voluntarySwitches;
+    private long involuntarySwitches;
+
+    public ProcfsReader(Path procRoot) {
+        this.procRoot = procRoot;
+    }
+
+    public static ProcfsReader forCurrentThread() {
+        return PER_THREAD.get();
+    }
+
+    public Path getProcRoot() {
+        return procRoot;
+    }
+
+    // Channels of one process, opened on first use and kept until close(); after close() they are
+    // reopened on next use. Not thread safe, but may move between readers (and threads) from one scan
+    // to the next.
+    public static final class PidFiles implements Closeable {
+        private final Path dir;
+        private FileChannel stat;
+        private FileChannel status;
+        private FileChannel io;
+        private boolean ioDenied;
+        // status of each thread, for a multi-threaded process; listed again when the thread count
+        // changes or one of them can no longer be read
+        private FileChannel[] tasks = NO_CHANNELS;
+
+        private PidFiles(Path dir) {
+            this.dir = dir;
+        }
+
+        private FileChannel stat() throws IOException {
+            if (stat == null) stat = FileChannel.open(dir.resolve("stat"), StandardOpenOption.READ);
+            return stat;
+        }
+
+        private FileChannel status() throws IOException {
+            if (status == null) status = FileChannel.open(dir.resolve("status"), StandardOpenOption.READ);
+            return status;
+        }
+
+        // null once opening failed: /proc/<pid>/io of other users' processes stays unreadable
+        private FileChannel io() {
+            if (io == null && !ioDenied) {
+                try {
+                    io = FileChannel.open(dir.resolve("io"), StandardOpenOption.READ);
+                } catch (IOException e) {
+                    ioDenied = true;
+                }
+            }
+            return io;
+        }
+
+        // Opens the status file of every current thread; false (and nothing kept) if there are too
+        // many threads or the descriptor budget is spent
+        private boolean keepTasks(long threadCount) {
+            closeTasks();
+            if (threadCount > MAX_KEPT_TASKS || TASK_FILE_BUDGET.get() < threadCount) return false;
+            List<FileChannel> opened = new ArrayList<>((int) threadCount);
+            try (DirectoryStream<Path> listing = Files.newDirectoryStream(dir.resolve("task"))) {
+                for (Path task : listing) {
+                    try {
+                        opened.add(FileChannel.open(task.resolve("status"), StandardOpenOption.READ));
+                    } catch (IOException e) {
+                        // a thread that exited meanwhile
+                    }
+                }
+            } catch (IOException e) {
+                // the process exited; keep what was opened, the reads will fail
+            }
+            if (opened.isEmpty() || TASK_FILE_BUDGET.addAndGet(-opened.size()) < 0) {
+                if (!opened.isEmpty()) TASK_FILE_BUDGET.addAndGet(opened.size());
+                for (FileChannel channel : opened) closeQuietly(channel);
+                return false;
+            }
+            tasks = opened.toArray(NO_CHANNELS);
+            return true;
+        }
+
+        private void closeTasks() {
+            if (tasks.length == 0) return;
+            for (FileChannel channel : tasks) closeQuietly(channel);
+            TASK_FILE_BUDGET.addAndGet(tasks.length);
+            tasks = NO_CHANNELS;
+        }
+
+        @Override
+        public void close() {
+            closeQuietly(stat);
+            closeQuietly(status);
+            closeQuietly(io);
+            closeTasks();
+            stat = null;
+            status = null;
+            io = null;
+            ioDenied = false;
+        }
+
+        private static void closeQuietly(FileChannel channel) {
+            if (channel == null) return;
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // nothing left to release
+            }
+        }
+    }
+
+    public PidFiles openFiles(long pid) {
+        return new PidFiles(procRoot.resolve(Long.toString(pid)));
+    }
+
+    public FileChannel openStat(long pid) throws IOException {
+        return FileChannel.open(procRoot.resolve(pid + "/stat"), StandardOpenOption.READ);
+    }
+
+    // Parses /proc/<pid>/stat. Returns false if the process is gone or the file is malformed.
+    public boolean readStat(long pid) {
+        try (FileChannel channel = openStat(pid)) {
+            return readStat(channel);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public boolean readStat(PidFiles files) {
+        try {
+            return readStat(files.stat());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Re-reads a stat file that is kept open; procfs regenerates the contents on every read from offset 0.
+    public boolean readStat(FileChannel channel) {
+        int length = fill(channel);
+        if (length <= 0) return false;
+
+        // The command name may itself contain spaces and parentheses, so anchor on the last ')'
+        int open = indexOf('(', 0, length);
+        int close = length - 1;
+        while (close > open && buffer.get(close) != ')') close--;
+        if (open < 0 || close <= open) return false;
+
+        nameLength = Math.min(close - open - 1, name.length);
+        for (int i = 0; i < nameLength; i++) name[i] = buffer.get(open + 1 + i);
+
+        // Fields are numbered as in proc(5); field 3 (state) follows ") "
+        int field = 3;
+        int pos = close + 2;
+        residentPages = -1;
+        while (pos < length && field <= 24) {
+            int end = indexOf(' ', pos, length);
+            if (end < 0) end = length;
+            switch (field) {
+                case 4 -> ppid = parseLong(pos, end);
+                case 14 -> userTicks = parseLong(pos, end);
+                case 15 -> systemTicks = parseLong(pos, end);
+                case 20 -> threads = parseLong(pos, end);
+                case 22 -> startTicks = parseLong(pos, end);
+                case 24 -> residentPages = parseLong(pos, end);
+                default -> { }
+            }
+            field++;
+            pos = end + 1;
+        }
+        return field > 22;
+    }
+
+    // Resident set size in pages from /proc/<pid>/statm, or -1 if unavailable.
+    public long readResidentPages(long pid) {
+        try (FileChannel channel = FileChannel.open(procRoot.resolve(pid + "/statm"), StandardOpenOption.READ)) {
+            int length = fill(channel);
+            int start = indexOf(' ', 0, length) + 1;
+            if (start <= 0) return -1;
+            int end = indexOf(' ', start, length);
+            return parseLong(start, end < 0 ? length : end);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    // Real uid from the "Uid:" line of /proc/<pid>/status, or -1 if unavailable.
+    public int readUid(long pid) {
+        try (FileChannel channel = FileChannel.open(procRoot.resolve(pid + "/status"), StandardOpenOption.READ)) {
+            return readUid(channel);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    public int readUid(PidFiles files) {
+        try {
+            return readUid(files.status());
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private int readUid(FileChannel channel) {
+        int length = fill(channel);
+        int pos = indexOf("\nUid:", 0, length);
+        if (pos < 0) return -1;
+        pos += 5;
+        while (pos < length && (buffer.get(pos) == '\t' || buffer.get(pos) == ' ')) pos++;
+        int end = pos;
+        while (end < length && buffer.get(end) >= '0' && buffer.get(end) <= '9') end++;
+        return end > pos ? (int) parseLong(pos, end) : -1;
+    }
+
+    // Storage I/O counters from /proc/<pid>/io. The file is only readable for our own processes unless
+    // running as root; returns false (and leaves both counters at -1) when it cannot be read.
+    public boolean readIo(long pid) {
+        readBytes = -1;
+        writeBytes = -1;
+        try (FileChannel channel = FileChannel.open(procRoot.resolve(pid + "/io"), StandardOpenOption.READ)) {
+            return readIo(channel);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public boolean readIo(PidFiles files) {
+        readBytes = -1;
+        writeBytes = -1;
+        FileChannel channel = files.io();
+        return channel != null && readIo(channel);
+    }
+
+    private boolean readIo(FileChannel channel) {
+        int length = fill(channel);
+        readBytes = numberAfter("\nread_bytes:", length);
+        writeBytes = numberAfter("\nwrite_bytes:", length);
+        return readBytes >= 0 && writeBytes >= 0;
+    }
+
+    // Context switch counters of the whole process; false (counters at -1) if unavailable. The status
+    // file only counts its own thread, so a multi-threaded process is summed over /proc/<pid>/task.
+    public boolean readContextSwitches(long pid, long threadCount) {
+        voluntarySwitches = -1;
+        involuntarySwitches = -1;
+        if (threadCount <= 1) return addContextSwitches(procRoot.resolve(pid + "/status"));
+        return addTaskContextSwitches(procRoot.resolve(pid + "/task"));
+    }
+
+    // Single-threaded processes re-read the kept status file, multi-threaded ones the kept status
+    // files of their threads. Those are listed again only when the thread count differs from the
+    // last listing or a thread's file fails to read (it exited, maybe replaced by another).
+    public boolean readContextSwitches(PidFiles files, long threadCount) {
+        voluntarySwitches = -1;
+        involuntarySwitches = -1;
+        if (threadCount <= 1) {
+            files.closeTasks();
+            try {
+                return addContextSwitches(files.status());
+            } catch (IOException e) {
+                return false;
+            }
+        }
+        if (files.tasks.length == threadCount && addKeptTaskContextSwitches(files)) return true;
+        voluntarySwitches = -1;
+        involuntarySwitches = -1;
+        if (files.keepTasks(threadCount) && addKeptTaskContextSwitches(files)) return true;
+        voluntarySwitches = -1;
+        involuntarySwitches = -1;
+        return addTaskContextSwitches(files.dir.resolve("task"));
+    }
+
+    private boolean addKeptTaskContextSwitches(PidFiles files) {
+        for (FileChannel task : files.tasks) {
+            if (!addContextSwitches(task)) return false;
+        }
+        return true;
+    }
+
+    private boolean addTaskContextSwitches(Path taskDir) {
+        try (DirectoryStream<Path> tasks = Files.newDirectoryStream(taskDir)) {
+            boolean any = false;
+            for (Path task : tasks) any |= addContextSwitches(task.resolve("status"));
+            return any;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private boolean addContextSwitches(Path status) {
+        try (FileChannel channel = FileChannel.open(status, StandardOpenOption.READ)) {
+            return addContextSwitches(channel);
+        } catch (IOException e) {
+            return false; // a thread that exited meanwhile
+        }
+    }
+
+    private boolean addContextSwitches(FileChannel status) {
+        int length = fill(status);
+        long voluntary = numberAfter("\nvoluntary_ctxt_switches:", length);
+        long involuntary = numberAfter("\nnonvoluntary_ctxt_switches:", length);
+        if (voluntary < 0 || involuntary < 0) return false;
+        voluntarySwitches = Math.max(voluntarySwitches, 0) + voluntary;
+        involuntarySwitches = Math.max(involuntarySwitches, 0) + involuntary;
+        return true;
+    }
+
+    // argv of the process; empty for kernel threads and zombies. Only needed for newly seen processes.
+    public String[] readCmdline(long pid) {
+        try {
+            byte[] bytes = Files.readAllBytes(procRoot.resolve(pid + "/cmdline"));
+            int length = bytes.length;
+            while (length > 0 && bytes[length - 1] == 0) length--;
+            if (length == 0) return new String[0];
+            return new String(bytes, 0, length, StandardCharsets.UTF_8).split("\0");
+        } catch (IOException e) {
+            return new String[0];
+        }
+    }
+
+    // Boot time in epoch millis, from the btime line of /proc/stat.
+    public long readBootTimeMillis() {
+        try (BufferedReader reader = Files.newBufferedReader(procRoot.resolve("stat"))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("btime ")) {
+                    return Long.parseLong(line.substring(6).trim()) * 1000;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Failed to read boot time: " + e.getMessage());
+        }
+        return 0;
+    }
+
+    public boolean nameEquals(String other) {
+        if (other == null || other.length() != nameLength) return false;
+        for (int i = 0; i < nameLength; i++) {
+            if (other.charAt(i) != (char) (name[i] & 0xff)) return false;
+        }
+        return true;
+    }
+
+    public String name() {
+        return new String(name, 0, nameLength, StandardCharsets.ISO_8859_1);
+    }
+
+    public long ppid() {
+        return ppid;
+    }
+
+    public long userTicks() {
+        return userTicks;
+    }
+
+    public long systemTicks() {
+        return systemTicks;
+    }
+
+    public long threads() {
+        return threads;
+    }
+
+    public long startTicks() {
+        return startTicks;
+    }
+
+    // Resident pages from field 24 of the last stat read, or -1 if the line was cut short
+    public long residentPages() {
+        return residentPages;
+    }
+
+    // From the last readIo(); -1 if unavailable
+    public long readBytes() {
+        return readBytes;
+    }
+
+    public long writeBytes() {
+        return writeBytes;
+    }
+
+    // From the last readContextSwitches(); -1 if unavailable
+    public long voluntarySwitches() {
+        return voluntarySwitches;
+    }
+
+    public long involuntarySwitches() {
+        return involuntarySwitches;
+    }
+
+    public static long ticksToMillis(long ticks) {
+        return ticks * 1000 / CLOCK_TICKS;
+    }
+
+    // Reads the whole file (from offset 0) into the buffer and returns its length, or -1 on failure.
+    // A file that fills the buffer may be longer, so it is read again into one twice the size.
+    private int fill(FileChannel channel) {
+        while (true) {
+            buffer.clear();
+            try {
+                long position = 0;
+                int read;
+                while (buffer.hasRemaining() && (read = channel.read(buffer, position)) > 0) {
+                    position += read;
+                }
+            } catch (IOException e) {
+                return -1;
+            }
+            if (buffer.hasRemaining() || buffer.capacity() >= MAX_BUFFER_BYTES) return buffer.position();
+            buffer = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+        }
+    }
+
+    private int indexOf(char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == c) return i;
+        }
+        return -1;
+    }
+
+    private int indexOf(String key, int from, int to) {
+        outer:
+        for (int i = from; i <= to - key.length(); i++) {
+            for (int k = 0; k < key.length(); k++) {
+                if (buffer.get(i + k) != key.charAt(k)) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    // The number following "key" (and any blanks) in the buffer, or -1 if the key is missing
+    private long numberAfter(String key, int length) {
+        int pos = indexOf(key, 0, length);
+        if (pos < 0) return -1;
+        pos += key.length();
+        while (pos < length && (buffer.get(pos) == '\t' || buffer.get(pos) == ' ')) pos++;
+        int end = pos;
+        while (end < length && buffer.get(end) >= '0' && buffer.get(end) <= '9') end++;
+        return end > pos ? parseLong(pos, end) : -1;
+    }
+
+    private long parseLong(int from, int to) {
+        boolean negative = from < to && buffer.get(from) == '-';
+        long value = 0;
+        for (int i = negative ? from + 1 : from; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b < '0' || b > '9') break;
+            value = value * 10 + (b - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    private static long taskFileBudget() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof UnixOperatingSystemMXBean unix) {
+            return unix.getMaxFileDescriptorCount() / 4;
+        }
+        return 0;
+    }
+
+    private static long sysconf(String name, long fallback) {
+        if (OperatingSystem.CURRENT != OperatingSystem.LINUX) return fallback;
+        try {
+            Process proc = new ProcessBuilder("getconf", name).start();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(proc.getInputStream()))) {
+                String line = reader.readLine();
+                if (line != null) return Long.parseLong(line.trim());
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Failed to read " + name + ", assuming " + fallback + ": " + e.getMessage());
+        }
+        return fallback;
+    }
+}
@@ -0,0 +1,262 @@
+package org.example.taskmanager;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Follows the /stream of one AgentServer and keeps that host's latest ProcessSnapshot. Snapshot frames
+// replace it; delta frames are merged into the previous snapshot in one pass over it, so a frame
+// costs the number of changed rows on the wire plus one array copy, and the listener's ProcessDelta
+// is built from the frame's rows during that pass. Reconnects after failures. The listener is called
+// on the collector's own (virtual) thread.
+public class RemoteCollector {
+
+    public interface Listener {
+        void onHostSnapshot(RemoteCollector collector, ProcessSnapshot snapshot, ProcessDelta delta);
+    }
+
+    private static final long RETRY_MILLIS = 5_000;
+    private static final int CONNECT_TIMEOUT_MILLIS = 5_000;
+    private static final int READ_TIMEOUT_MILLIS = 120_000;
+
+    private record Row(long pid, long ppid, long userCpu, long systemCpu, long rss, long start, int threads,
+                       double cpu, String name, String command, String args, String user,
+                       long readBytes, long writeBytes, long voluntarySwitches, long involuntarySwitches,
+                       double readRate, double writeRate, double voluntaryRate, double involuntaryRate) { }
+
+    record Update(ProcessSnapshot snapshot, ProcessDelta delta) { }
+
+    private final String host;
+    private final long intervalMillis;
+    private final Listener listener;
+    private final long retryMillis;
+    private Thread thread;
+
+    private volatile boolean stopped;
+    private volatile boolean connected;
+    private volatile String lastError = "";
+    private volatile ProcessSnapshot latest = ProcessSnapshot.EMPTY;
+    private volatile double systemCpu;
+    private volatile long memUsed;
+    private volatile long memTotal;
+    private volatile HttpURLConnection connection;
+
+    // host is "name:port" of a running AgentMain
+    public RemoteCollector(String host, long intervalMillis, Listener listener) {
+        this(host, intervalMillis, listener, RETRY_MILLIS);
+    }
+
+    RemoteCollector(String host, long intervalMillis, Listener listener, long retryMillis) {
+        this.host = host;
+        this.intervalMillis = intervalMillis;
+        this.listener = listener;
+        this.retryMillis = retryMillis;
+    }
+
+    public synchronized void start() {
+        if (thread != null) return;
+        thread = Thread.ofVirtual().name("remote-" + host).start(this::run);
+    }
+
+    public synchronized void stop() {
+        stopped = true;
+        // Interrupting the virtual thread aborts its blocked read; disconnect() alone waits for the read
+        // to time out, since the read holds the connection's lock
+        if (thread != null) thread.interrupt();
+        HttpURLConnection current = connection;
+        if (current != null) current.disconnect();
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public ProcessSnapshot getLatest() {
+        return latest;
+    }
+
+    public double getSystemCpu() {
+        return systemCpu;
+    }
+
+    public long getMemUsed() {
+        return memUsed;
+    }
+
+    public long getMemTotal() {
+        return memTotal;
+    }
+
+    private void run() {
+        while (!stopped) {
+            try {
+                stream();
+                lastError = "stream closed";
+            } catch (IOException | RuntimeException e) {
+                lastError = e.getMessage() == null ? e.toString() : e.getMessage();
+            }
+            connected = false;
+            if (stopped) break;
+            try {
+                TimeUnit.MILLISECONDS.sleep(retryMillis);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+    }
+
+    private void stream() throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) URI.create(
+                "http://" + host + "/stream?interval=" + intervalMillis).toURL().openConnection();
+        conn.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+        conn.setReadTimeout(READ_TIMEOUT_MILLIS);
+        connection = conn;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8))) {
+            connected = true;
+            lastError = "";
+            SnapshotNdjson.Fields fields = new SnapshotNdjson.Fields();
+            String line;
+            while (!stopped && (line = reader.readLine()) != null) {
+                // A frame arrives in one write, so its parse time is decoding, not waiting on the network
+                long started = SelfMetrics.start();
+                if (!SnapshotNdjson.parse(line, fields)) throw new IOException("Malformed line from " + host);
+                String type = fields.text("type");
+                long time = fields.number("time");
+                int rows = (int) fields.number("rows");
+                systemCpu = fields.decimal("cpu");
+                memUsed = fields.number("memUsed");
+                memTotal = fields.number("memTotal");
+
+                ProcessSnapshot previous = latest;
+                Update update = switch (type) {
+                    // A full frame (on connect) can change anything, so only a comparison tells what did
+                    case "snapshot" -> {
+                        ProcessSnapshot next = readSnapshot(reader, fields, rows, time);
+                        yield new Update(next, ProcessDelta.between(previous, next));
+                    }
+                    case "delta" -> readDelta(reader, fields, rows, time, previous);
+                    default -> throw new IOException("Unknown frame type " + type + " from " + host);
+                };
+                latest = update.snapshot;
+                SelfMetrics.record(SelfMetrics.Stage.PARSE, started);
+                listener.onHostSnapshot(this, update.snapshot, update.delta);
+            }
+        } finally {
+            connection = null;
+            conn.disconnect();
+        }
+    }
+
+    static ProcessSnapshot readSnapshot(BufferedReader reader, SnapshotNdjson.Fields fields, int rows,
+                                        long time) throws IOException {
+        List<Row> parsed = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) parsed.add(readRow(reader, fields));
+        parsed.sort(Comparator.comparingLong(Row::pid));
+        ProcessSnapshot.Builder builder = new ProcessSnapshot.Builder(rows);
+        for (Row row : parsed) add(builder, row);
+        return builder.build(System.nanoTime(), time);
+    }
+
+    // Merges removals and upserts (both sorted by pid) into the previous snapshot. The delta lists the
+    // upserts as added or changed, the latter if they replace a row of the same process, and the
+    // removals that matched a row.
+    static Update readDelta(BufferedReader reader, SnapshotNdjson.Fields fields, int rows,
+                            long time, ProcessSnapshot previous) throws IOException {
+        long[] removed = new long[rows];
+        int removedCount = 0;
+        List<Row> upserts = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            String line = reader.readLine();
+            if (line == null || !SnapshotNdjson.parse(line, fields)) throw new IOException("Truncated delta frame");
+            if (fields.text("op").equals("remove")) removed[removedCount++] = fields.number("pid");
+            else upserts.add(toRow(fields));
+        }
+        Arrays.sort(removed, 0, removedCount);
+        upserts.sort(Comparator.comparingLong(Row::pid));
+
+        ProcessSnapshot.Builder builder = new ProcessSnapshot.Builder(previous.size() + upserts.size());
+        int[] added = new int[upserts.size()];
+        int[] changed = new int[upserts.size()];
+        long[] gone = new long[removedCount + upserts.size()];
+        int addedCount = 0;
+        int changedCount = 0;
+        int goneCount = 0;
+        int p = 0;
+        int u = 0;
+        while (p < previous.size() || u < upserts.size()) {
+            long prevPid = p < previous.size() ? previous.pid(p) : Long.MAX_VALUE;
+            long upsertPid = u < upserts.size() ? upserts.get(u).pid : Long.MAX_VALUE;
+            if (upsertPid <= prevPid) {
+                // An upserted row replaces the old one, including a reused pid that was also removed
+                Row row = upserts.get(u++);
+                int index = add(builder, row);
+                if (upsertPid == prevPid) {
+                    boolean reused = Arrays.binarySearch(removed, 0, removedCount, prevPid) >= 0
+                            || previous.startMillis(p) != row.start;
+                    if (reused) {
+                        gone[goneCount++] = prevPid;
+                        added[addedCount++] = index;
+                    } else {
+                        changed[changedCount++] = index;
+                    }
+                    p++;
+                } else {
+                    added[addedCount++] = index;
+                }
+            } else {
+                if (Arrays.binarySearch(removed, 0, removedCount, prevPid) < 0) builder.addFrom(previous, p);
+                else gone[goneCount++] = prevPid;
+                p++;
+            }
+        }
+        return new Update(builder.build(System.nanoTime(), time), ProcessDelta.of(Arrays.copyOf(added, addedCount),
+                Arrays.copyOf(gone, goneCount), Arrays.copyOf(changed, changedCount)));
+    }
+
+    private static Row readRow(BufferedReader reader, SnapshotNdjson.Fields fields) throws IOException {
+        String line = reader.readLine();
+        if (line == null || !SnapshotNdjson.parse(line, fields)) throw new IOException("Truncated snapshot frame");
+        return toRow(fields);
+    }
+
+    private static Row toRow(SnapshotNdjson.Fields fields) {
+        return new Row(fields.number("pid"), fields.number("ppid"), fields.number("userCpu"),
+                fields.number("systemCpu"), fields.number("rss"), fields.number("start"),
+                (int) fields.number("threads"), fields.decimal("cpu"), fields.text("name"),
+                fields.text("command"), fields.text("args"), fields.text("user"),
+                counter(fields, "readBytes"), counter(fields, "writeBytes"), counter(fields, "voluntarySwitches"),
+                counter(fields, "involuntarySwitches"), fields.decimal("readRate"), fields.decimal("writeRate"),
+                fields.decimal("voluntaryRate"), fields.decimal("involuntaryRate"));
+    }
+
+    // Agents that predate the counters do not send them at all
+    private static long counter(SnapshotNdjson.Fields fields, String key) {
+        return fields.text(key).isEmpty() ? -1 : fields.number(key);
+    }
+
+    private static int add(ProcessSnapshot.Builder builder, Row row) {
+        int index = builder.add(row.pid, row.ppid, row.userCpu, row.systemCpu, row.rss, row.start, row.threads,
+                row.name, row.command, row.args, row.user);
+        builder.setCpuPercent(index, row.cpu);
+        builder.setCounters(index, row.readBytes, row.writeBytes, row.voluntarySwitches, row.involuntarySwitches);
+        builder.setRates(index, row.readRate, row.writeRate, row.voluntaryRate, row.involuntaryRate);
+        return index;
+    }
+}
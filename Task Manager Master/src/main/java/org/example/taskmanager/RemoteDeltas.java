@@ -0,0 +1,78 @@
+package org.example.taskmanager;
+
+import javafx.application.Platform;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+// Hands remote hosts' snapshots to the FX thread in one pulse, however many hosts there are and
+// however their frames interleave. Frames arrive on the collectors' threads; while a pulse is pending,
+// a host's newer frame is folded into its pending update (one delta against the snapshot the FX thread
+// last got), so each pulse applies at most one delta per host.
+public class RemoteDeltas implements RemoteCollector.Listener {
+
+    public interface Sink {
+        // FX thread
+        void apply(String host, ProcessSnapshot snapshot, ProcessDelta delta);
+    }
+
+    private record Pending(ProcessSnapshot base, ProcessSnapshot snapshot, ProcessDelta delta) { }
+
+    private final Sink sink;
+    private final Executor fxThread;
+    private Map<String, Pending> pending = new HashMap<>();
+    // The snapshot each host's rows on the FX thread reflect
+    private final Map<String, ProcessSnapshot> delivered = new HashMap<>();
+    private boolean scheduled;
+
+    public RemoteDeltas(Sink sink) {
+        this(sink, Platform::runLater);
+    }
+
+    // fxThread runs the pulses; Platform.runLater outside of tests
+    RemoteDeltas(Sink sink, Executor fxThread) {
+        this.sink = sink;
+        this.fxThread = fxThread;
+    }
+
+    @Override
+    public void onHostSnapshot(RemoteCollector collector, ProcessSnapshot snapshot, ProcessDelta delta) {
+        String host = collector.getHost();
+        synchronized (this) {
+            Pending earlier = pending.get(host);
+            if (earlier == null) {
+                if (delta.isEmpty()) return;
+                pending.put(host, new Pending(delivered.getOrDefault(host, ProcessSnapshot.EMPTY), snapshot, delta));
+            } else {
+                pending.put(host, new Pending(earlier.base, snapshot, ProcessDelta.between(earlier.base, snapshot)));
+            }
+            if (scheduled) return;
+            scheduled = true;
+        }
+        fxThread.execute(this::drain);
+    }
+
+    // Drops a detached host's pending update; the next frame of a host attached again starts afresh
+    public synchronized void removeHost(String host) {
+        pending.remove(host);
+        delivered.remove(host);
+    }
+
+    private void drain() {
+        Map<String, Pending> batch;
+        synchronized (this) {
+            batch = pending;
+            pending = new HashMap<>();
+            scheduled = false;
+            for (Map.Entry<String, Pending> entry : batch.entrySet()) {
+                delivered.put(entry.getKey(), entry.getValue().snapshot);
+            }
+        }
+        long started = SelfMetrics.start();
+        for (Map.Entry<String, Pending> entry : batch.entrySet()) {
+            sink.apply(entry.getKey(), entry.getValue().snapshot, entry.getValue().delta);
+        }
+        SelfMetrics.record(SelfMetrics.Stage.FX_APPLY, started);
+    }
+}
@@ -0,0 +1,151 @@
+package org.example.taskmanager;
+
+import javafx.stage.Window;
+import javafx.stage.WindowEvent;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Samples CPU and RSS of individual processes for any number of subscribers on one shared daemon
+// thread. Subscribers asking for the same pid at the same period share one sampling job; the job
+// stops when its last subscriber cancels. Consumers are called on the sampling thread.
+public class SamplingHub {
+
+    public record Sample(long pid, long timeMillis, double cpuPercent, long rssBytes, boolean alive) { }
+
+    public interface Subscription {
+        void cancel();
+    }
+
+    private record Key(long pid, long periodMillis) { }
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "sampling-hub");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<Key, Job> jobs = new HashMap<>();
+    private final int cores = Runtime.getRuntime().availableProcessors();
+
+    public synchronized Subscription subscribe(long pid, long periodMillis, Consumer<Sample> consumer) {
+        Key key = new Key(pid, periodMillis);
+        Job job = jobs.get(key);
+        if (job == null) {
+            Job created = new Job(pid);
+            created.future = scheduler.scheduleAtFixedRate(created::run, 0, periodMillis, TimeUnit.MILLISECONDS);
+            jobs.put(key, created);
+            job = created;
+        }
+        Job subscribed = job;
+        subscribed.consumers.add(consumer);
+        return () -> unsubscribe(key, subscribed, consumer);
+    }
+
+    // Like subscribe, but cancelled automatically once the window is hidden.
+    public Subscription subscribe(Window owner, long pid, long periodMillis, Consumer<Sample> consumer) {
+        Subscription subscription = subscribe(pid, periodMillis, consumer);
+        owner.addEventHandler(WindowEvent.WINDOW_HIDDEN, e -> subscription.cancel());
+        return subscription;
+    }
+
+    public synchronized int jobCount() {
+        return jobs.size();
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private synchronized void unsubscribe(Key key, Job job, Consumer<Sample> consumer) {
+        if (!job.consumers.remove(consumer) || !job.consumers.isEmpty()) return;
+        job.future.cancel(false);
+        jobs.remove(key, job);
+        scheduler.execute(job::close);
+    }
+
+    // One sampled pid. Only the scheduler thread touches the sampling state.
+    private final class Job {
+        private final long pid;
+        private final CopyOnWriteArrayList<Consumer<Sample>> consumers = new CopyOnWriteArrayList<>();
+        private ScheduledFuture<?> future;
+
+        private FileChannel stat;
+        private long startTicks = -1;
+        private long lastCpuMillis = -1;
+        private long lastNanos;
+        private boolean exited;
+
+        Job(long pid) {
+            this.pid = pid;
+        }
+
+        void run() {
+            long nowNanos = System.nanoTime();
+            long cpuMillis = -1;
+            long rss = 0;
+            if (!exited) {
+                if (OperatingSystem.CURRENT == OperatingSystem.LINUX) {
+                    cpuMillis = readProcfs();
+                    if (cpuMillis >= 0) rss = ProcfsReader.forCurrentThread().residentPages() * ProcfsReader.PAGE_SIZE;
+                } else {
+                    ProcessHandle process = ProcessHandle.of(pid).filter(ProcessHandle::isAlive).orElse(null);
+                    if (process != null) {
+                        cpuMillis = process.info().totalCpuDuration().map(Duration::toMillis).orElse(0L);
+                        rss = MemoryUsageFetcher.getMemoryUsage(pid).orElse(0L);
+                    }
+                }
+                exited = cpuMillis < 0;
+            }
+
+            double cpuPercent = 0;
+            if (!exited && lastCpuMillis >= 0 && nowNanos > lastNanos) {
+                cpuPercent = Math.max(0, (cpuMillis - lastCpuMillis) * 1e6 / (nowNanos - lastNanos) * 100 / cores);
+            }
+            lastCpuMillis = cpuMillis;
+            lastNanos = nowNanos;
+
+            Sample sample = new Sample(pid, System.currentTimeMillis(), cpuPercent, rss, !exited);
+            for (Consumer<Sample> consumer : consumers) {
+                try {
+                    consumer.accept(sample);
+                } catch (RuntimeException e) {
+                    System.err.println("Sampling consumer failed for PID " + pid + ": " + e.getMessage());
+                }
+            }
+        }
+
+        // Re-reads the held-open stat file. A changed start time means the pid was reused, which
+        // counts as the original process having exited.
+        private long readProcfs() {
+            ProcfsReader reader = ProcfsReader.forCurrentThread();
+            try {
+                if (stat == null) stat = reader.openStat(pid);
+                if (!reader.readStat(stat)) return -1;
+            } catch (IOException e) {
+                return -1;
+            }
+            if (startTicks < 0) startTicks = reader.startTicks();
+            else if (startTicks != reader.startTicks()) return -1;
+            return ProcfsReader.ticksToMillis(reader.userTicks() + reader.systemTicks());
+        }
+
+        void close() {
+            if (stat == null) return;
+            try {
+                stat.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close stat for PID " + pid + ": " + e.getMessage());
+            }
+            stat = null;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package org.example.taskmanager;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Percentage;
+import jdk.jfr.Period;
+import jdk.jfr.Timespan;
+
+import javax.management.NotificationEmitter;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+// The monitor's own overhead. Each pipeline stage records its latency into a LatencyHistogram:
+//
+//   long started = SelfMetrics.start();
+//   ... stage ...
+//   SelfMetrics.record(SelfMetrics.Stage.SCAN, started);
+//
+// GC pauses are recorded from the collectors' notifications. CPU time and the allocation rate are
+// sampled from the JVM's management beans. Everything is exposed three ways: the debug panel
+// (Ctrl+Shift+D), the MXBean org.example.taskmanager:type=SelfMetrics, and JFR. JFR gets one event
+// per stage execution (org.example.taskmanager.Stage) while a recording has it enabled, plus a
+// periodic overhead event (org.example.taskmanager.Overhead, every second by default).
+public final class SelfMetrics {
+
+    public enum Stage {
+        SCAN("Process scan"),
+        LIFECYCLE("Lifecycle update"),
+        PARSE("Remote frame parse"),
+        DIFF("Snapshot diff"),
+        LISTENERS("Snapshot listeners"),
+        FX_APPLY("FX table apply"),
+        RENDER("Chart render"),
+        OVERVIEW("Overview update"),
+        FX_PULSE("FX pulse (CSS + layout)"),
+        GC_PAUSE("GC pause");
+
+        private final String label;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        Stage(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public LatencyHistogram getHistogram() {
+            return histogram;
+        }
+    }
+
+    // cpuPercent is the share of all cores, like the process table; the rates are since the previous
+    // call to overhead(), which is rate limited to one new sample per second
+    public record Overhead(double cpuPercent, double allocationBytesPerSec, long heapUsedBytes, int threads,
+                           long gcCount, long gcMillis) {
+    }
+
+    private static final long MIN_SAMPLE_NANOS = 1_000_000_000L;
+    private static final com.sun.management.OperatingSystemMXBean OS =
+            (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final int CORES = Runtime.getRuntime().availableProcessors();
+
+    private static long sampledAtNanos;
+    private static long lastCpuNanos;
+    private static long lastAllocatedBytes;
+    private static Overhead lastOverhead = new Overhead(0, 0, 0, 0, 0, 0);
+    private static boolean installed;
+
+    private SelfMetrics() {
+    }
+
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    public static void record(Stage stage, long startedNanos) {
+        long elapsed = System.nanoTime() - startedNanos;
+        stage.histogram.record(elapsed);
+        StageEvent event = new StageEvent();
+        if (event.shouldCommit()) {
+            event.stage = stage.label;
+            event.elapsed = elapsed;
+            event.commit();
+        }
+    }
+
+    public static void reset() {
+        for (Stage stage : Stage.values()) stage.histogram.reset();
+    }
+
+    // Registers the MXBean, the GC listener and the periodic JFR event; later calls do nothing
+    public static synchronized void install() {
+        if (installed) return;
+        installed = true;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(),
+                    new ObjectName("org.example.taskmanager:type=SelfMetrics"));
+        } catch (Exception e) {
+            System.err.println("Failed to register the SelfMetrics MXBean: " + e.getMessage());
+        }
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            // Beans for concurrent cycles (ZGC/Shenandoah "Cycles") report cycle time, not pauses
+            if (!(collector instanceof NotificationEmitter emitter) || collector.getName().contains("Cycles")) continue;
+            emitter.addNotificationListener((notification, handback) -> {
+                if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                    return;
+                }
+                GarbageCollectionNotificationInfo info =
+                        GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                Stage.GC_PAUSE.histogram.record(info.getGcInfo().getDuration() * 1_000_000L);
+            }, null, null);
+        }
+        FlightRecorder.addPeriodicEvent(OverheadEvent.class, () -> {
+            OverheadEvent event = new OverheadEvent();
+            if (!event.shouldCommit()) return;
+            Overhead overhead = overhead();
+            event.cpu = overhead.cpuPercent() / 100;
+            event.allocationRate = (long) overhead.allocationBytesPerSec();
+            event.heapUsed = overhead.heapUsedBytes();
+            event.commit();
+        });
+    }
+
+    public static synchronized Overhead overhead() {
+        long now = System.nanoTime();
+        if (sampledAtNanos != 0 && now - sampledAtNanos < MIN_SAMPLE_NANOS) return lastOverhead;
+        long cpuNanos = OS.getProcessCpuTime();
+        // Live platform threads only: what exited threads allocated since the last sample is missed
+        long allocated = THREADS.isThreadAllocatedMemorySupported() && THREADS.isThreadAllocatedMemoryEnabled()
+                ? THREADS.getTotalThreadAllocatedBytes() : -1;
+        long gcCount = 0;
+        long gcMillis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcCount += Math.max(collector.getCollectionCount(), 0);
+            gcMillis += Math.max(collector.getCollectionTime(), 0);
+        }
+        double cpuPercent = 0;
+        double allocationRate = 0;
+        if (sampledAtNanos != 0) {
+            double seconds = (now - sampledAtNanos) / 1e9;
+            cpuPercent = Math.max(0, cpuNanos - lastCpuNanos) / 1e9 / seconds * 100 / CORES;
+            if (allocated >= 0) allocationRate = Math.max(0, allocated - lastAllocatedBytes) / seconds;
+        }
+        sampledAtNanos = now;
+        lastCpuNanos = cpuNanos;
+        lastAllocatedBytes = allocated;
+        Runtime runtime = Runtime.getRuntime();
+        lastOverhead = new Overhead(cpuPercent, allocationRate, runtime.totalMemory() - runtime.freeMemory(),
+                THREADS.getThreadCount(), gcCount, gcMillis);
+        return lastOverhead;
+    }
+
+    // One line per stage, for the debug panel and the MXBean
+    public static String[] stageLines() {
+        Stage[] stages = Stage.values();
+        String[] lines = new String[stages.length];
+        for (int i = 0; i < stages.length; i++) {
+            LatencyHistogram.Summary s = stages[i].histogram.summary();
+            lines[i] = String.format(Locale.ROOT, "%-26s %9d  mean %8s  p50 %8s  p90 %8s  p99 %8s  p99.9 %8s  max %8s",
+                    stages[i].label, s.count(), formatNanos((long) s.meanNanos()), formatNanos(s.p50Nanos()),
+                    formatNanos(s.p90Nanos()), formatNanos(s.p99Nanos()), formatNanos(s.p999Nanos()),
+                    formatNanos(s.maxNanos()));
+        }
+        return lines;
+    }
+
+    static String formatNanos(long nanos) {
+        if (nanos < 1_000) return nanos + " ns";
+        if (nanos < 1_000_000) return String.format(Locale.ROOT, "%.1f µs", nanos / 1e3);
+        if (nanos < 1_000_000_000) return String.format(Locale.ROOT, "%.2f ms", nanos / 1e6);
+        return String.format(Locale.ROOT, "%.2f s", nanos / 1e9);
+    }
+
+    public interface SelfMetricsMXBean {
+        double getCpuPercent();
+
+        double getAllocationBytesPerSecond();
+
+        long getHeapUsedBytes();
+
+        String[] getStages();
+
+        long getCount(String stage);
+
+        double getPercentileMillis(String stage, double percentile);
+
+        void reset();
+    }
+
+    private static final class Bean implements SelfMetricsMXBean {
+        @Override
+        public double getCpuPercent() {
+            return overhead().cpuPercent();
+        }
+
+        @Override
+        public double getAllocationBytesPerSecond() {
+            return overhead().allocationBytesPerSec();
+        }
+
+        @Override
+        public long getHeapUsedBytes() {
+            return overhead().heapUsedBytes();
+        }
+
+        @Override
+        public String[] getStages() {
+            return stageLines();
+        }
+
+        @Override
+        public long getCount(String stage) {
+            return Stage.valueOf(stage).histogram.count();
+        }
+
+        // percentile is one of 50, 90, 99, 99.9; anything else gives the maximum
+        @Override
+        public double getPercentileMillis(String stage, double percentile) {
+            LatencyHistogram.Summary s = Stage.valueOf(stage).histogram.summary();
+            long nanos = percentile == 50 ? s.p50Nanos() : percentile == 90 ? s.p90Nanos()
+                    : percentile == 99 ? s.p99Nanos() : percentile == 99.9 ? s.p999Nanos() : s.maxNanos();
+            return nanos / 1e6;
+        }
+
+        @Override
+        public void reset() {
+            SelfMetrics.reset();
+        }
+    }
+
+    @Name("org.example.taskmanager.Stage")
+    @Label("Task Manager Stage")
+    @Category("Task Manager")
+    @Description("One execution of a monitor pipeline stage")
+    static final class StageEvent extends Event {
+        @Label("Stage")
+        String stage;
+
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+    }
+
+    @Name("org.example.taskmanager.Overhead")
+    @Label("Task Manager Overhead")
+    @Category("Task Manager")
+    @Period("1 s")
+    static final class OverheadEvent extends Event {
+        @Label("CPU")
+        @Percentage
+        double cpu;
+
+        @Label("Allocation Rate")
+        @DataAmount(DataAmount.BYTES)
+        long allocationRate;
+
+        @Label("Heap Used")
+        @DataAmount(DataAmount.BYTES)
+        long heapUsed;
+    }
+}
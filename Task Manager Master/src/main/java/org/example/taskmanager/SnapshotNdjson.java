@@ -0,0 +1,184 @@
+package org.example.taskmanager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// The agent's wire format: newline-delimited JSON, one object per line. A frame is a header line
+// followed by exactly as many row lines as the header announces.
+//
+//   {"type":"snapshot","time":..,"cpu":..,"memUsed":..,"memTotal":..,"rows":N}   then N process lines
+//   {"type":"delta","time":..,"cpu":..,"memUsed":..,"memTotal":..,"rows":N}      then N lines, each a
+//       process line with "op":"add" or "op":"change", or {"op":"remove","pid":..}
+//
+// A process line carries every column of a ProcessSnapshot row, I/O and context switch counters
+// and rates included (counters are -1 where the agent could not read them).
+public final class SnapshotNdjson {
+
+    private SnapshotNdjson() {
+    }
+
+    public static void appendHeader(StringBuilder out, String type, long timeMillis, double systemCpu,
+                                    long memUsed, long memTotal, int rows) {
+        out.append("{\"type\":\"").append(type)
+                .append("\",\"time\":").append(timeMillis)
+                .append(",\"cpu\":").append(round(systemCpu))
+                .append(",\"memUsed\":").append(memUsed)
+                .append(",\"memTotal\":").append(memTotal)
+                .append(",\"rows\":").append(rows)
+                .append("}\n");
+    }
+
+    // op is null inside a snapshot frame
+    public static void appendRow(StringBuilder out, String op, ProcessSnapshot snapshot, int i) {
+        out.append('{');
+        if (op != null) out.append("\"op\":\"").append(op).append("\",");
+        out.append("\"pid\":").append(snapshot.pid(i))
+                .append(",\"ppid\":").append(snapshot.ppid(i))
+                .append(",\"userCpu\":").append(snapshot.userCpuMillis(i))
+                .append(",\"systemCpu\":").append(snapshot.systemCpuMillis(i))
+                .append(",\"rss\":").append(snapshot.rssBytes(i))
+                .append(",\"start\":").append(snapshot.startMillis(i))
+                .append(",\"threads\":").append(snapshot.threads(i))
+                .append(",\"cpu\":").append(round(snapshot.cpuPercent(i)))
+                .append(",\"readBytes\":").append(snapshot.readBytes(i))
+                .append(",\"writeBytes\":").append(snapshot.writeBytes(i))
+                .append(",\"voluntarySwitches\":").append(snapshot.voluntarySwitches(i))
+                .append(",\"involuntarySwitches\":").append(snapshot.involuntarySwitches(i))
+                .append(",\"readRate\":").append(round(snapshot.readBytesPerSec(i)))
+                .append(",\"writeRate\":").append(round(snapshot.writeBytesPerSec(i)))
+                .append(",\"voluntaryRate\":").append(round(snapshot.voluntarySwitchesPerSec(i)))
+                .append(",\"involuntaryRate\":").append(round(snapshot.involuntarySwitchesPerSec(i)))
+                .append(",\"name\":");
+        appendString(out, snapshot.name(i));
+        out.append(",\"command\":");
+        appendString(out, snapshot.command(i));
+        out.append(",\"args\":");
+        appendString(out, snapshot.arguments(i));
+        out.append(",\"user\":");
+        appendString(out, snapshot.user(i));
+        out.append("}\n");
+    }
+
+    public static void appendRemove(StringBuilder out, long pid) {
+        out.append("{\"op\":\"remove\",\"pid\":").append(pid).append("}\n");
+    }
+
+    // The fields of one line. Values are kept as raw text and converted on access; an instance is
+    // reused for every line of a stream.
+    public static final class Fields {
+        private final Map<String, String> values = new HashMap<>();
+
+        public String text(String key) {
+            String value = values.get(key);
+            return value == null ? "" : value;
+        }
+
+        public long number(String key) {
+            String value = values.get(key);
+            if (value == null) return 0;
+            try {
+                return Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                return (long) Double.parseDouble(value);
+            }
+        }
+
+        public double decimal(String key) {
+            String value = values.get(key);
+            return value == null ? 0 : Double.parseDouble(value);
+        }
+    }
+
+    // Parses a flat object of string and number values, as written above. Returns false for anything else.
+    public static boolean parse(String line, Fields into) {
+        into.values.clear();
+        int pos = skipSpaces(line, 0);
+        if (pos >= line.length() || line.charAt(pos) != '{') return false;
+        pos = skipSpaces(line, pos + 1);
+        if (pos < line.length() && line.charAt(pos) == '}') return true;
+        StringBuilder text = new StringBuilder();
+        while (pos < line.length()) {
+            if (line.charAt(pos) != '"') return false;
+            pos = readString(line, pos, text);
+            if (pos < 0) return false;
+            String key = text.toString();
+            pos = skipSpaces(line, pos);
+            if (pos >= line.length() || line.charAt(pos) != ':') return false;
+            pos = skipSpaces(line, pos + 1);
+            if (pos >= line.length()) return false;
+            if (line.charAt(pos) == '"') {
+                pos = readString(line, pos, text);
+                if (pos < 0) return false;
+                into.values.put(key, text.toString());
+            } else {
+                int end = pos;
+                while (end < line.length() && ",} ".indexOf(line.charAt(end)) < 0) end++;
+                into.values.put(key, line.substring(pos, end));
+                pos = end;
+            }
+            pos = skipSpaces(line, pos);
+            if (pos >= line.length()) return false;
+            char c = line.charAt(pos);
+            if (c == '}') return true;
+            if (c != ',') return false;
+            pos = skipSpaces(line, pos + 1);
+        }
+        return false;
+    }
+
+    // Reads the string starting at the quote at pos into text; returns the position after the closing quote
+    private static int readString(String line, int pos, StringBuilder text) {
+        text.setLength(0);
+        for (int i = pos + 1; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') return i + 1;
+            if (c != '\\') {
+                text.append(c);
+                continue;
+            }
+            if (++i >= line.length()) return -1;
+            switch (line.charAt(i)) {
+                case 'n' -> text.append('\n');
+                case 'r' -> text.append('\r');
+                case 't' -> text.append('\t');
+                case 'b' -> text.append('\b');
+                case 'f' -> text.append('\f');
+                case 'u' -> {
+                    if (i + 4 >= line.length()) return -1;
+                    text.append((char) Integer.parseInt(line.substring(i + 1, i + 5), 16));
+                    i += 4;
+                }
+                default -> text.append(line.charAt(i));
+            }
+        }
+        return -1;
+    }
+
+    private static int skipSpaces(String line, int pos) {
+        while (pos < line.length() && line.charAt(pos) == ' ') pos++;
+        return pos;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static void appendString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) out.append(String.format("\\u%04x", (int) c));
+                    else out.append(c);
+                }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,259 @@
+package org.example.taskmanager;
+
+import oshi.SystemInfo;
+import oshi.hardware.HWDiskStore;
+import oshi.hardware.HardwareAbstractionLayer;
+import oshi.hardware.NetworkIF;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// System-wide disk and network throughput for the overview cards. Each sample() reads the
+// cumulative byte counters and returns the rates since the previous call (zeros the first time).
+//
+// On Linux the counters come from /proc/diskstats (whole physical disks only, so partitions and
+// device-mapper volumes are not counted twice) and /proc/net/dev (physical interfaces only, so
+// traffic through loopback, bridges, veth pairs and tunnels is not counted on top of the NIC that
+// carries it). Both files stay open and are re-read into one byte buffer and parsed in place; device
+// names are matched as bytes, so a sample allocates nothing once every device has been seen.
+// Elsewhere OSHI supplies the same counters.
+public class SystemIoSampler {
+
+    public record Rates(double diskReadBytesPerSec, double diskWriteBytesPerSec,
+                        double netReceiveBytesPerSec, double netSendBytesPerSec) {
+        static final Rates ZERO = new Rates(0, 0, 0, 0);
+    }
+
+    private static final int SECTOR_BYTES = 512; // diskstats always counts 512-byte sectors
+    private static final Path PROC = Path.of("/proc");
+    private static final Path SYS_BLOCK = Path.of("/sys/block");
+    private static final Path SYS_CLASS_NET = Path.of("/sys/class/net");
+    private static final int MAX_DEVICES = 256; // forgotten past this, as containers come and go
+
+    // A device name seen in diskstats or net/dev, and whether its counters are added up
+    private record Device(byte[] name, boolean counted) { }
+
+    private final boolean procfs = OperatingSystem.CURRENT == OperatingSystem.LINUX
+            && Files.isReadable(PROC.resolve("diskstats"));
+    private final List<Device> disks = new ArrayList<>();
+    private final List<Device> interfaces = new ArrayList<>();
+    private FileChannel diskstats;
+    private FileChannel netDev;
+    private byte[] bytes = new byte[16 * 1024];
+    private ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    private final long[] counters = new long[4];
+    private final long[] previous = new long[4];
+    private long previousNanos;
+
+    public synchronized Rates sample() {
+        long now = System.nanoTime();
+        boolean ok = procfs ? readProcfs() : readOshi();
+        if (!ok) return Rates.ZERO;
+        Rates rates = Rates.ZERO;
+        if (previousNanos != 0) {
+            double seconds = (now - previousNanos) / 1e9;
+            rates = new Rates(rate(0, seconds), rate(1, seconds), rate(2, seconds), rate(3, seconds));
+        }
+        System.arraycopy(counters, 0, previous, 0, counters.length);
+        previousNanos = now;
+        return rates;
+    }
+
+    private double rate(int counter, double seconds) {
+        long delta = counters[counter] - previous[counter];
+        // Counters restart when a device or interface goes away
+        return seconds <= 0 || delta < 0 ? 0 : delta / seconds;
+    }
+
+    private boolean readProcfs() {
+        long diskRead = 0;
+        long diskWrite = 0;
+        try {
+            if (diskstats == null) diskstats = FileChannel.open(PROC.resolve("diskstats"), StandardOpenOption.READ);
+            int length = fill(diskstats);
+            for (int line = 0, end; line < length; line = end + 1) {
+                end = lineEnd(line, length);
+                // major minor name reads merged sectors_read ms writes merged sectors_written ...
+                int name = field(line, end, 2);
+                int sectorsRead = field(line, end, 5);
+                int sectorsWritten = field(line, end, 9);
+                if (sectorsWritten < 0 || !counted(disks, name, wordEnd(name, end), SYS_BLOCK)) continue;
+                diskRead += number(sectorsRead, end) * SECTOR_BYTES;
+                diskWrite += number(sectorsWritten, end) * SECTOR_BYTES;
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to read /proc/diskstats: " + e.getMessage());
+            diskstats = close(diskstats);
+            return false;
+        }
+
+        long received = 0;
+        long sent = 0;
+        try {
+            if (netDev == null) netDev = FileChannel.open(PROC.resolve("net/dev"), StandardOpenOption.READ);
+            int length = fill(netDev);
+            for (int line = 0, end; line < length; line = end + 1) {
+                end = lineEnd(line, length);
+                // "  eth0: rx_bytes packets errs drop fifo frame compressed multicast tx_bytes ..."
+                int colon = indexOf(':', line, end);
+                if (colon < 0) continue; // the two header lines
+                int name = field(line, colon, 0);
+                int txBytes = field(colon + 1, end, 8);
+                if (name < 0 || txBytes < 0 || !counted(interfaces, name, wordEnd(name, colon), SYS_CLASS_NET)) continue;
+                received += number(field(colon + 1, end, 0), end);
+                sent += number(txBytes, end);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to read /proc/net/dev: " + e.getMessage());
+            netDev = close(netDev);
+            return false;
+        }
+        counters[0] = diskRead;
+        counters[1] = diskWrite;
+        counters[2] = received;
+        counters[3] = sent;
+        return true;
+    }
+
+    // Whole disks are the /sys/block entries backed by a device; loop, ram, zram, dm-* and md*
+    // have no device link and partitions are not in /sys/block at all. Likewise physical network
+    // interfaces are the /sys/class/net entries with a device link; lo, bridges, veth, tun and wg have
+    // none. Checked once per name.
+    private boolean counted(List<Device> devices, int from, int to, Path sysDir) {
+        for (int i = 0; i < devices.size(); i++) {
+            Device device = devices.get(i);
+            if (Arrays.equals(device.name, 0, device.name.length, bytes, from, to)) return device.counted;
+        }
+        if (devices.size() >= MAX_DEVICES) devices.clear();
+        String name = new String(bytes, from, to - from, StandardCharsets.ISO_8859_1);
+        boolean counted = Files.exists(sysDir.resolve(name).resolve("device"));
+        devices.add(new Device(Arrays.copyOfRange(bytes, from, to), counted));
+        return counted;
+    }
+
+    // Reads the whole file from offset 0 into bytes, growing it when the file fills it; returns the length
+    private int fill(FileChannel channel) throws IOException {
+        while (true) {
+            buffer.clear();
+            long position = 0;
+            int read;
+            while (buffer.hasRemaining() && (read = channel.read(buffer, position)) > 0) {
+                position += read;
+            }
+            if (buffer.hasRemaining()) return buffer.position();
+            bytes = new byte[bytes.length * 2];
+            buffer = ByteBuffer.wrap(bytes);
+        }
+    }
+
+    private int lineEnd(int from, int to) {
+        int end = indexOf('\n', from, to);
+        return end < 0 ? to : end;
+    }
+
+    private int indexOf(char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == c) return i;
+        }
+        return -1;
+    }
+
+    // Start of the index-th blank-separated field in [from, to), or -1 if there are fewer fields
+    private int field(int from, int to, int index) {
+        int pos = from;
+        for (int k = 0; ; k++) {
+            while (pos < to && (bytes[pos] == ' ' || bytes[pos] == '\t')) pos++;
+            if (pos >= to) return -1;
+            if (k == index) return pos;
+            pos = wordEnd(pos, to);
+        }
+    }
+
+    private int wordEnd(int from, int to) {
+        int pos = from;
+        while (pos < to && bytes[pos] != ' ' && bytes[pos] != '\t') pos++;
+        return pos;
+    }
+
+    // The unsigned decimal at from; 0 if there is none
+    private long number(int from, int to) {
+        long value = 0;
+        for (int i = from; i < to && bytes[i] >= '0' && bytes[i] <= '9'; i++) {
+            value = value * 10 + (bytes[i] - '0');
+        }
+        return value;
+    }
+
+    private static FileChannel close(FileChannel channel) {
+        if (channel == null) return null;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // reopened on the next sample
+        }
+        return null;
+    }
+
+    private boolean readOshi() {
+        try {
+            long diskRead = 0;
+            long diskWrite = 0;
+            for (HWDiskStore disk : Oshi.disks()) {
+                disk.updateAttributes();
+                diskRead += disk.getReadBytes();
+                diskWrite += disk.getWriteBytes();
+            }
+            long received = 0;
+            long sent = 0;
+            for (NetworkIF network : Oshi.networks()) {
+                network.updateAttributes();
+                received += network.getBytesRecv();
+                sent += network.getBytesSent();
+            }
+            counters[0] = diskRead;
+            counters[1] = diskWrite;
+            counters[2] = received;
+            counters[3] = sent;
+            return true;
+        } catch (RuntimeException | LinkageError e) {
+            System.err.println("Failed to read disk and network counters: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Loaded on first use only, so Linux never initializes OSHI. Device lists are enumerated once a
+    // minute; in between only their counters are refreshed.
+    private static final class Oshi {
+        private static final long RESCAN_NANOS = 60_000_000_000L;
+        private static final HardwareAbstractionLayer HARDWARE = new SystemInfo().getHardware();
+        private static List<HWDiskStore> disks = List.of();
+        private static List<NetworkIF> networks = List.of();
+        private static long scannedAtNanos;
+
+        static List<HWDiskStore> disks() {
+            rescan();
+            return disks;
+        }
+
+        static List<NetworkIF> networks() {
+            rescan();
+            return networks;
+        }
+
+        private static void rescan() {
+            long now = System.nanoTime();
+            if (scannedAtNanos != 0 && now - scannedAtNanos < RESCAN_NANOS) return;
+            scannedAtNanos = now;
+            disks = HARDWARE.getDiskStores();
+            networks = HARDWARE.getNetworkIFs(); // excludes loopback and other local-only interfaces
+        }
+    }
+}
@@ -3,24 +3,55 @@ package org.example.taskmanager;
 import com.sun.management.OperatingSystemMXBean;
 import java.lang.management.ManagementFactory;
 
+// System totals for the Overview tab. Inside a container (or any cgroup v2 with limits) the limits
+// are what this machine has: memory is memory.max and memory.current of the cgroup that sets the
+// tightest limit, and CPU load is that cgroup's usage against its cpu.max quota. Without limits these
+// are the host totals.
 public class SystemMonitor {
     private static final OperatingSystemMXBean osBean =
             (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
 
+    private static long lastUsageMicros = -1;
+    private static long lastUsageNanos;
+    private static double lastCgroupLoad;
+
     public static double getCpuLoad() {
+        Cgroups.Limits limits = Cgroups.ownLimits();
+        if (limits.cpuCgroup() != null) return cgroupCpuLoad(limits);
         // Returns between 0.0 and 1.0 (multiply by 100 for percentage)
         return osBean.getSystemCpuLoad();
     }
 
     public static long getTotalMemory() {
-        return osBean.getTotalPhysicalMemorySize();
+        long host = osBean.getTotalPhysicalMemorySize();
+        Cgroups.Limits limits = Cgroups.ownLimits();
+        return limits.memoryCgroup() == null ? host : Math.min(host, limits.memoryMaxBytes());
     }
 
     public static long getFreeMemory() {
+        Cgroups.Limits limits = Cgroups.ownLimits();
+        if (limits.memoryCgroup() != null) {
+            long current = Cgroups.readLong(limits.memoryCgroup().resolve("memory.current"));
+            if (current >= 0) return Math.max(0, getTotalMemory() - current);
+        }
         return osBean.getFreePhysicalMemorySize();
     }
 
     public static long getUsedMemory() {
         return getTotalMemory() - getFreeMemory();
     }
+
+    // Share of the quota used since the previous call, 0..1
+    private static synchronized double cgroupCpuLoad(Cgroups.Limits limits) {
+        long usage = Cgroups.readCpuStat(limits.cpuCgroup())[0];
+        if (usage < 0) return osBean.getSystemCpuLoad();
+        long now = System.nanoTime();
+        if (lastUsageMicros >= 0 && now > lastUsageNanos) {
+            double elapsedMicros = (now - lastUsageNanos) / 1e3;
+            lastCgroupLoad = Math.min(1, Math.max(0, usage - lastUsageMicros) / elapsedMicros / limits.cpuCores());
+        }
+        lastUsageMicros = usage;
+        lastUsageNanos = now;
+        return lastCgroupLoad;
+    }
 }
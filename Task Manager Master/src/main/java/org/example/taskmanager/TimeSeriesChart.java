@@ -0,0 +1,515 @@
+package org.example.taskmanager;
+
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.TextAlignment;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Time-series line chart drawn on a Canvas straight from primitive arrays. A series is decimated to
+// the plot width before drawing: either the min and max of every pixel column (keeps spikes) or
+// Largest-Triangle-Three-Buckets (one point per column, a cleaner line). Per-block min/max values are
+// kept with the data, so a column's range costs a few block lookups instead of a scan over its points
+// and a redraw stays cheap however many points are visible. setData computes them for the arrays it is
+// handed; append only computes the block a new point completes, so a live series costs O(1) per point.
+//
+// Scroll to zoom around the cursor, drag to pan, double-click to go back to following the newest data.
+// All methods must be called on the FX thread.
+public class TimeSeriesChart extends Region {
+
+    public enum Decimation { MIN_MAX, LTTB }
+
+    private static final int BLOCK = 64;
+    // Per appended series; a whole number of blocks
+    static final int MAX_POINTS = 1 << 18;
+    private static final double LEFT = 48;
+    private static final double RIGHT = 10;
+    private static final double TOP = 24;
+    private static final double BOTTOM = 22;
+    private static final long MIN_SPAN_MILLIS = 10_000;
+    private static final long MAX_SPAN_MILLIS = 30L * 24 * 3600 * 1000;
+    private static final long[] TICK_STEPS = {
+            1_000, 5_000, 10_000, 30_000, 60_000, 300_000, 600_000, 1_800_000,
+            3_600_000, 3 * 3_600_000, 6 * 3_600_000, 12 * 3_600_000, 24 * 3_600_000
+    };
+    private static final DateTimeFormatter SECONDS = DateTimeFormatter.ofPattern("HH:mm:ss").withZone(ZoneId.systemDefault());
+    private static final DateTimeFormatter MINUTES = DateTimeFormatter.ofPattern("HH:mm").withZone(ZoneId.systemDefault());
+    private static final DateTimeFormatter DAYS = DateTimeFormatter.ofPattern("MMM d").withZone(ZoneId.systemDefault());
+
+    private final Canvas canvas = new Canvas();
+    private final String title;
+    private final String unit;
+    private final List<Line> lines = new ArrayList<>();
+    private final double fixedMin;
+    private final double fixedMax;
+
+    private Decimation decimation = Decimation.MIN_MAX;
+    private long spanMillis = 300_000;
+    private long endMillis;
+    private boolean following = true;
+    private double dragStartX;
+    private long dragStartEnd;
+
+    // Reused polyline buffers
+    private double[] xs = new double[0];
+    private double[] ys = new double[0];
+    private int[] picked = new int[0];
+    private int[] columnIndex = new int[0];
+    private double[] columnMin = new double[0];
+    private double[] columnMax = new double[0];
+
+    // A NaN bound is computed from the visible data
+    public TimeSeriesChart(String title, String unit, double yMin, double yMax) {
+        this.title = title;
+        this.unit = unit;
+        this.fixedMin = yMin;
+        this.fixedMax = yMax;
+        getChildren().add(canvas);
+        getStyleClass().add("time-series-chart");
+        setMinSize(200, 120);
+        setPrefSize(600, 250);
+
+        setOnScroll(e -> {
+            if (e.getDeltaY() == 0) return;
+            zoom(e.getDeltaY() > 0 ? 0.8 : 1.25, e.getX());
+        });
+        setOnMousePressed(e -> {
+            dragStartX = e.getX();
+            dragStartEnd = endMillis;
+        });
+        setOnMouseDragged(e -> {
+            double width = plotWidth();
+            if (width <= 0) return;
+            following = false;
+            endMillis = dragStartEnd - (long) ((e.getX() - dragStartX) / width * spanMillis);
+            draw();
+        });
+        setOnMouseClicked(e -> {
+            if (e.getClickCount() == 2) {
+                following = true;
+                endMillis = latestMillis();
+                draw();
+            }
+        });
+    }
+
+    // Returns the index to pass to setData.
+    public int addSeries(String name, Color color) {
+        lines.add(new Line(name, color));
+        return lines.size() - 1;
+    }
+
+    // times must be ascending. The arrays are kept, not copied; hand over fresh arrays for new data.
+    public void setData(int series, long[] times, double[] values, int size) {
+        lines.get(series).set(times, values, size);
+        if (following) endMillis = latestMillis();
+        draw();
+    }
+
+    // Adds a point at the end of a series; time must not go back. Beyond MAX_POINTS the oldest points
+    // are dropped. Arrays handed to setData are copied on the first append, not written to.
+    public void append(int series, long time, double value) {
+        lines.get(series).append(time, value);
+        if (following) endMillis = latestMillis();
+        draw();
+    }
+
+    public void clear() {
+        for (Line line : lines) line.set(new long[0], new double[0], 0);
+        draw();
+    }
+
+    public void setDecimation(Decimation decimation) {
+        this.decimation = decimation;
+        draw();
+    }
+
+    public void setSpanMillis(long spanMillis) {
+        this.spanMillis = Math.max(MIN_SPAN_MILLIS, Math.min(MAX_SPAN_MILLIS, spanMillis));
+        draw();
+    }
+
+    @Override
+    protected void layoutChildren() {
+        double width = getWidth();
+        double height = getHeight();
+        if (canvas.getWidth() != width || canvas.getHeight() != height) {
+            canvas.setWidth(width);
+            canvas.setHeight(height);
+            draw();
+        }
+    }
+
+    private double plotWidth() {
+        return canvas.getWidth() - LEFT - RIGHT;
+    }
+
+    private long latestMillis() {
+        long latest = Long.MIN_VALUE;
+        for (Line line : lines) {
+            if (line.size > 0) latest = Math.max(latest, line.times[line.size - 1]);
+        }
+        return latest == Long.MIN_VALUE ? System.currentTimeMillis() : latest;
+    }
+
+    private void zoom(double factor, double mouseX) {
+        double width = plotWidth();
+        if (width <= 0) return;
+        long from = endMillis - spanMillis;
+        double anchor = from + Math.max(0, Math.min(1, (mouseX - LEFT) / width)) * spanMillis;
+        long span = Math.max(MIN_SPAN_MILLIS, Math.min(MAX_SPAN_MILLIS, (long) (spanMillis * factor)));
+        if (!following) endMillis = (long) (anchor + (endMillis - anchor) * ((double) span / spanMillis));
+        spanMillis = span;
+        draw();
+    }
+
+    private void draw() {
+        long started = SelfMetrics.start();
+        paint();
+        SelfMetrics.record(SelfMetrics.Stage.RENDER, started);
+    }
+
+    private void paint() {
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        gc.clearRect(0, 0, width, height);
+        double plotWidth = width - LEFT - RIGHT;
+        double plotHeight = height - TOP - BOTTOM;
+        if (plotWidth < 10 || plotHeight < 10) return;
+
+        long to = endMillis;
+        long from = to - spanMillis;
+
+        // Y range, from the block min/max of the visible points when not fixed
+        double yMin = fixedMin;
+        double yMax = fixedMax;
+        if (Double.isNaN(yMin) || Double.isNaN(yMax)) {
+            double lo = Double.POSITIVE_INFINITY;
+            double hi = Double.NEGATIVE_INFINITY;
+            for (Line line : lines) {
+                int a = line.lowerBound(from);
+                int b = line.lowerBound(to + 1);
+                if (a < b) {
+                    lo = Math.min(lo, line.min(a, b));
+                    hi = Math.max(hi, line.max(a, b));
+                }
+            }
+            if (lo > hi) {
+                lo = 0;
+                hi = 1;
+            }
+            if (Double.isNaN(yMin)) yMin = Math.min(0, lo);
+            if (Double.isNaN(yMax)) yMax = hi <= yMin ? yMin + 1 : hi * 1.1;
+        }
+
+        drawAxes(gc, from, to, yMin, yMax, plotWidth, plotHeight);
+
+        gc.save();
+        gc.beginPath();
+        gc.rect(LEFT, TOP, plotWidth, plotHeight);
+        gc.clip();
+        gc.setLineWidth(1.5);
+        int columns = (int) plotWidth;
+        for (Line line : lines) {
+            // One point on either side of the window keeps the line running to the edges
+            int a = Math.max(0, line.lowerBound(from) - 1);
+            int b = Math.min(line.size, line.lowerBound(to + 1) + 1);
+            if (b - a < 1) continue;
+            int count;
+            if (b - a <= columns * 2) {
+                count = raw(line, a, b, from, to, yMin, yMax, plotWidth, plotHeight);
+            } else if (decimation == Decimation.LTTB) {
+                count = lttb(line, a, b, columns, from, to, yMin, yMax, plotWidth, plotHeight);
+            } else {
+                count = minMax(line, a, b, columns, from, to, yMin, yMax, plotWidth, plotHeight);
+            }
+            gc.setStroke(line.color);
+            gc.strokePolyline(xs, ys, count);
+        }
+        gc.restore();
+    }
+
+    private void ensureCapacity(int points) {
+        if (xs.length < points) {
+            xs = new double[points];
+            ys = new double[points];
+        }
+    }
+
+    private static double x(long time, long from, long to, double plotWidth) {
+        return LEFT + (time - from) * plotWidth / (to - from);
+    }
+
+    private static double y(double value, double yMin, double yMax, double plotHeight) {
+        return TOP + plotHeight - (value - yMin) * plotHeight / (yMax - yMin);
+    }
+
+    private int raw(Line line, int a, int b, long from, long to, double yMin, double yMax,
+                    double plotWidth, double plotHeight) {
+        ensureCapacity(b - a);
+        for (int i = a; i < b; i++) {
+            xs[i - a] = x(line.times[i], from, to, plotWidth);
+            ys[i - a] = y(line.values[i], yMin, yMax, plotHeight);
+        }
+        return b - a;
+    }
+
+    // A vertical stroke from min to max per pixel column; columns without points are skipped
+    private int minMax(Line line, int a, int b, int columns, long from, long to, double yMin, double yMax,
+                       double plotWidth, double plotHeight) {
+        ensureCapacity(columns * 2 + 2);
+        if (columnIndex.length < columns + 1) {
+            columnIndex = new int[columns + 1];
+            columnMin = new double[columns + 1];
+            columnMax = new double[columns + 1];
+        }
+        int count = minMax(line, a, b, columns, from, to, plotWidth, columnIndex, columnMin, columnMax);
+        for (int i = 0; i < count; i++) {
+            double x = LEFT + columnIndex[i];
+            xs[2 * i] = x;
+            ys[2 * i] = y(columnMin[i], yMin, yMax, plotHeight);
+            xs[2 * i + 1] = x;
+            ys[2 * i + 1] = y(columnMax[i], yMin, yMax, plotHeight);
+        }
+        return count * 2;
+    }
+
+    // The min and max of the points in [a, b) for each pixel column of [from, to) that has any, with the
+    // column in column; points before from fall in the first column and points after to in the last.
+    // Needs room for columns + 1 entries.
+    static int minMax(Line line, int a, int b, int columns, long from, long to, double plotWidth,
+                      int[] column, double[] min, double[] max) {
+        int count = 0;
+        int start = a;
+        for (int c = 0; c <= columns && start < b; c++) {
+            long columnEnd = from + (long) ((c + 1) * (double) (to - from) / plotWidth);
+            int end = c == columns ? b : Math.min(b, line.lowerBound(columnEnd));
+            if (end <= start) continue;
+            column[count] = c;
+            min[count] = line.min(start, end);
+            max[count++] = line.max(start, end);
+            start = end;
+        }
+        return count;
+    }
+
+    // Largest-Triangle-Three-Buckets over the points in [a, b)
+    private int lttb(Line line, int a, int b, int threshold, long from, long to, double yMin, double yMax,
+                     double plotWidth, double plotHeight) {
+        ensureCapacity(threshold);
+        if (picked.length < threshold) picked = new int[threshold];
+        int count = lttb(line.times, line.values, a, b, threshold, picked);
+        for (int i = 0; i < count; i++) {
+            xs[i] = x(line.times[picked[i]], from, to, plotWidth);
+            ys[i] = y(line.values[picked[i]], yMin, yMax, plotHeight);
+        }
+        return count;
+    }
+
+    // Picks threshold indices of [a, b) into chosen, ascending: the first and last point, and from each
+    // bucket in between the point spanning the largest triangle with the point picked before it and the
+    // average of the next bucket. Needs b - a > threshold > 2.
+    static int lttb(long[] t, double[] v, int a, int b, int threshold, int[] chosen) {
+        int n = b - a;
+        double every = (double) (n - 2) / (threshold - 2);
+        int count = 0;
+        int previous = a;
+        chosen[count++] = previous;
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int nextStart = a + (int) ((bucket + 1) * every) + 1;
+            int nextEnd = Math.min(b, a + (int) ((bucket + 2) * every) + 1);
+            double avgT = 0;
+            double avgV = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgT += t[i] - t[a];
+                avgV += v[i];
+            }
+            int nextCount = Math.max(1, nextEnd - nextStart);
+            avgT /= nextCount;
+            avgV /= nextCount;
+
+            int rangeStart = a + (int) (bucket * every) + 1;
+            int rangeEnd = nextStart;
+            double pointT = t[previous] - t[a];
+            double pointV = v[previous];
+            double bestArea = -1;
+            int best = rangeStart;
+            for (int i = rangeStart; i < rangeEnd; i++) {
+                double area = Math.abs((pointT - avgT) * (v[i] - pointV) - (pointT - (t[i] - t[a])) * (avgV - pointV));
+                if (area > bestArea) {
+                    bestArea = area;
+                    best = i;
+                }
+            }
+            previous = best;
+            chosen[count++] = previous;
+        }
+        chosen[count++] = b - 1;
+        return count;
+    }
+
+    private void drawAxes(GraphicsContext gc, long from, long to, double yMin, double yMax,
+                          double plotWidth, double plotHeight) {
+        Color grid = Color.gray(0.5, 0.3);
+        Color text = Color.gray(0.55);
+        gc.setLineWidth(1);
+        gc.setFont(javafx.scene.text.Font.font(11));
+
+        gc.setFill(text);
+        gc.setTextAlign(TextAlignment.LEFT);
+        gc.setTextBaseline(VPos.TOP);
+        gc.fillText(title, LEFT, 4);
+
+        // Legend, right-aligned on the title row
+        double legendX = LEFT + plotWidth;
+        gc.setTextAlign(TextAlignment.RIGHT);
+        for (int i = lines.size() - 1; i >= 0; i--) {
+            Line line = lines.get(i);
+            gc.setFill(text);
+            gc.fillText(line.name, legendX, 4);
+            legendX -= line.name.length() * 6.5 + 4;
+            gc.setFill(line.color);
+            gc.fillRect(legendX - 10, 8, 10, 4);
+            legendX -= 20;
+        }
+
+        // Y grid: five divisions
+        gc.setTextBaseline(VPos.CENTER);
+        for (int i = 0; i <= 5; i++) {
+            double value = yMin + (yMax - yMin) * i / 5;
+            double y = y(value, yMin, yMax, plotHeight);
+            gc.setStroke(grid);
+            gc.strokeLine(LEFT, y, LEFT + plotWidth, y);
+            gc.setFill(text);
+            gc.fillText(formatValue(value), LEFT - 4, y);
+        }
+
+        // X grid: the smallest step that keeps labels about 90px apart
+        long step = TICK_STEPS[TICK_STEPS.length - 1];
+        for (long candidate : TICK_STEPS) {
+            if (candidate * plotWidth / (to - from) >= 90) {
+                step = candidate;
+                break;
+            }
+        }
+        DateTimeFormatter format = step >= 24 * 3_600_000 ? DAYS : step >= 60_000 ? MINUTES : SECONDS;
+        long offset = ZoneId.systemDefault().getRules().getOffset(Instant.ofEpochMilli(to)).getTotalSeconds() * 1000L;
+        long first = from - Math.floorMod(from + offset, step) + step;
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.TOP);
+        for (long tick = first; tick <= to; tick += step) {
+            double x = x(tick, from, to, plotWidth);
+            gc.setStroke(grid);
+            gc.strokeLine(x, TOP, x, TOP + plotHeight);
+            gc.setFill(text);
+            gc.fillText(format.format(Instant.ofEpochMilli(tick)), x, TOP + plotHeight + 4);
+        }
+    }
+
+    private String formatValue(double value) {
+        String number = Math.abs(value) >= 100 || value == Math.rint(value)
+                ? String.format("%.0f", value) : String.format("%.1f", value);
+        return unit.isEmpty() ? number : number + unit;
+    }
+
+    // One series plus the min/max of every BLOCK consecutive points
+    static final class Line {
+        private final String name;
+        private final Color color;
+        private long[] times = new long[0];
+        private double[] values = new double[0];
+        private int size;
+        private boolean owned; // false while the arrays are the ones handed to set
+        private double[] blockMin = new double[0];
+        private double[] blockMax = new double[0];
+
+        Line(String name, Color color) {
+            this.name = name;
+            this.color = color;
+        }
+
+        void set(long[] times, double[] values, int size) {
+            this.times = times;
+            this.values = values;
+            this.size = size;
+            owned = false;
+            computeBlocks(0, size / BLOCK);
+        }
+
+        void append(long time, double value) {
+            if (!owned || size == times.length) {
+                int capacity = size < MAX_POINTS ? Math.min(MAX_POINTS, Math.max(BLOCK, size * 2)) : size;
+                if (!owned || capacity != times.length) {
+                    times = Arrays.copyOf(times, capacity);
+                    values = Arrays.copyOf(values, capacity);
+                    owned = true;
+                }
+                if (size == times.length) dropOldest(size / 4 / BLOCK * BLOCK);
+            }
+            times[size] = time;
+            values[size++] = value;
+            if (size % BLOCK == 0) computeBlocks(size / BLOCK - 1, size / BLOCK);
+        }
+
+        // A whole number of blocks, so the block values move along with their points
+        private void dropOldest(int count) {
+            size -= count;
+            System.arraycopy(times, count, times, 0, size);
+            System.arraycopy(values, count, values, 0, size);
+            System.arraycopy(blockMin, count / BLOCK, blockMin, 0, size / BLOCK);
+            System.arraycopy(blockMax, count / BLOCK, blockMax, 0, size / BLOCK);
+        }
+
+        private void computeBlocks(int from, int to) {
+            if (blockMin.length < to) {
+                blockMin = Arrays.copyOf(blockMin, Math.max(to, blockMin.length * 2));
+                blockMax = Arrays.copyOf(blockMax, blockMin.length);
+            }
+            for (int block = from; block < to; block++) {
+                double lo = Double.POSITIVE_INFINITY;
+                double hi = Double.NEGATIVE_INFINITY;
+                for (int i = block * BLOCK, end = i + BLOCK; i < end; i++) {
+                    lo = Math.min(lo, values[i]);
+                    hi = Math.max(hi, values[i]);
+                }
+                blockMin[block] = lo;
+                blockMax[block] = hi;
+            }
+        }
+
+        // First index with time >= t
+        int lowerBound(long t) {
+            int index = Arrays.binarySearch(times, 0, size, t);
+            if (index < 0) return -index - 1;
+            while (index > 0 && times[index - 1] == t) index--;
+            return index;
+        }
+
+        double min(int a, int b) {
+            double result = Double.POSITIVE_INFINITY;
+            int i = a;
+            for (; i < b && i % BLOCK != 0; i++) result = Math.min(result, values[i]);
+            for (; i + BLOCK <= b; i += BLOCK) result = Math.min(result, blockMin[i / BLOCK]);
+            for (; i < b; i++) result = Math.min(result, values[i]);
+            return result;
+        }
+
+        double max(int a, int b) {
+            double result = Double.NEGATIVE_INFINITY;
+            int i = a;
+            for (; i < b && i % BLOCK != 0; i++) result = Math.max(result, values[i]);
+            for (; i + BLOCK <= b; i += BLOCK) result = Math.max(result, blockMax[i / BLOCK]);
+            for (; i < b; i++) result = Math.max(result, values[i]);
+            return result;
+        }
+    }
+}
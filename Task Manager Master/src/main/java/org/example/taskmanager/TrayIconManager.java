@@ -8,6 +8,7 @@ import java.io.IOException;
 public class TrayIconManager {
 
     private TrayIcon trayIcon;
+    private Runnable onRestore;
 
     public void setupTray() {
         if (!SystemTray.isSupported()) return;
@@ -16,6 +17,10 @@ public class TrayIconManager {
             BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
             trayIcon = new TrayIcon(image);
             trayIcon.setToolTip("System Monitor");
+            // Fired on double-click (or single click, depending on the platform); runs on the AWT thread
+            trayIcon.addActionListener(e -> {
+                if (onRestore != null) onRestore.run();
+            });
 
             final SystemTray tray = SystemTray.getSystemTray();
             tray.add(trayIcon);
@@ -24,6 +29,16 @@ public class TrayIconManager {
         }
     }
 
+    public void setOnRestore(Runnable onRestore) {
+        this.onRestore = onRestore;
+    }
+
+    // Desktop notification from the tray icon; without a tray there is nowhere to show it
+    public void notify(String title, String message) {
+        if (trayIcon == null) return;
+        trayIcon.displayMessage(title, message, TrayIcon.MessageType.WARNING);
+    }
+
     public void updateTray(double cpu, double memRatio) {
         if (trayIcon == null) return;
 
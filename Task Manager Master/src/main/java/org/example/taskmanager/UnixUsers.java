@@ -0,0 +1,40 @@
+package org.example.taskmanager;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// uid -> user name from /etc/passwd, loaded once. Unknown uids map to their number.
+public class UnixUsers {
+
+    private static final Map<Integer, String> NAMES = load();
+
+    public static String nameOf(int uid) {
+        if (uid < 0) return "";
+        return NAMES.computeIfAbsent(uid, String::valueOf);
+    }
+
+    private static Map<Integer, String> load() {
+        Map<Integer, String> names = new ConcurrentHashMap<>();
+        Path passwd = Path.of("/etc/passwd");
+        if (!Files.isReadable(passwd)) return names;
+        try (BufferedReader reader = Files.newBufferedReader(passwd)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(":");
+                if (parts.length < 3) continue;
+                try {
+                    names.putIfAbsent(Integer.parseInt(parts[2]), parts[0]);
+                } catch (NumberFormatException ignored) {
+                    // malformed entry
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to read /etc/passwd: " + e.getMessage());
+        }
+        return names;
+    }
+}
@@ -1,29 +1,92 @@
 package org.example.taskmanager;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import com.sun.jna.Native;
+import com.sun.jna.Structure;
+import com.sun.jna.platform.win32.BaseTSD;
+import com.sun.jna.platform.win32.Kernel32;
+import com.sun.jna.platform.win32.Psapi;
+import com.sun.jna.platform.win32.WinDef;
+import com.sun.jna.platform.win32.WinNT;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.win32.StdCallLibrary;
+import com.sun.jna.win32.W32APIOptions;
+
+import java.util.HashMap;
+import java.util.Map;
 
 public class WindowsMemoryReader {
 
+    // jna-platform's Psapi mapping does not include GetProcessMemoryInfo
+    interface ProcessMemoryApi extends StdCallLibrary {
+        ProcessMemoryApi INSTANCE = Native.load("psapi", ProcessMemoryApi.class, W32APIOptions.DEFAULT_OPTIONS);
+
+        boolean GetProcessMemoryInfo(WinNT.HANDLE process, ProcessMemoryCounters counters, int cb);
+    }
+
+    @Structure.FieldOrder({"cb", "PageFaultCount", "PeakWorkingSetSize", "WorkingSetSize",
+            "QuotaPeakPagedPoolUsage", "QuotaPagedPoolUsage", "QuotaPeakNonPagedPoolUsage",
+            "QuotaNonPagedPoolUsage", "PagefileUsage", "PeakPagefileUsage"})
+    public static class ProcessMemoryCounters extends Structure {
+        public WinDef.DWORD cb;
+        public WinDef.DWORD PageFaultCount;
+        public BaseTSD.SIZE_T PeakWorkingSetSize;
+        public BaseTSD.SIZE_T WorkingSetSize;
+        public BaseTSD.SIZE_T QuotaPeakPagedPoolUsage;
+        public BaseTSD.SIZE_T QuotaPagedPoolUsage;
+        public BaseTSD.SIZE_T QuotaPeakNonPagedPoolUsage;
+        public BaseTSD.SIZE_T QuotaNonPagedPoolUsage;
+        public BaseTSD.SIZE_T PagefileUsage;
+        public BaseTSD.SIZE_T PeakPagefileUsage;
+    }
+
     public static long getMemory(long pid) {
         try {
-            // Run `tasklist` and filter the output by PID
-            Process process = new ProcessBuilder("tasklist", "/FI", "PID eq " + pid).start();
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.contains(String.valueOf(pid))) {
-                    // Example output: chrome.exe       1234 Console    1    200,000 K
-                    String[] parts = line.trim().split("\\s+");
-                    String memStr = parts[parts.length - 2].replace(",", "").replace("K", "");
-                    return Long.parseLong(memStr) * 1024; // Convert from KB to Bytes
+            return workingSet((int) pid, new ProcessMemoryCounters());
+        } catch (Throwable e) {
+            System.err.println("Failed to get memory for PID " + pid + ": " + e.getMessage());
+        }
+        return 0;
+    }
+
+    // Working set of every process from one EnumProcesses sweep, without spawning tasklist.
+    public static Map<Long, Long> getAllMemory() {
+        Map<Long, Long> usage = new HashMap<>();
+        try {
+            int[] pids = new int[1024];
+            IntByReference bytesReturned = new IntByReference();
+            while (true) {
+                if (!Psapi.INSTANCE.EnumProcesses(pids, pids.length * Integer.BYTES, bytesReturned)) {
+                    return usage;
                 }
+                // A full buffer means the list may have been truncated
+                if (bytesReturned.getValue() < pids.length * Integer.BYTES) break;
+                pids = new int[pids.length * 2];
             }
 
-        } catch (Exception e) {
-            System.err.println("Failed to get memory for PID " + pid + ": " + e.getMessage());
+            int count = bytesReturned.getValue() / Integer.BYTES;
+            ProcessMemoryCounters counters = new ProcessMemoryCounters();
+            for (int i = 0; i < count; i++) {
+                long workingSet = workingSet(pids[i], counters);
+                if (workingSet > 0) usage.put((long) pids[i], workingSet);
+            }
+        } catch (Throwable e) {
+            System.err.println("Failed to list process memory: " + e.getMessage());
+        }
+        return usage;
+    }
+
+    private static long workingSet(int pid, ProcessMemoryCounters counters) {
+        // Limited query access is enough for GetProcessMemoryInfo and, unlike PROCESS_VM_READ, is granted
+        // for elevated and protected processes too
+        WinNT.HANDLE handle = Kernel32.INSTANCE.OpenProcess(WinNT.PROCESS_QUERY_LIMITED_INFORMATION, false, pid);
+        if (handle == null) return 0; // access denied or already exited
+        try {
+            int size = counters.size();
+            counters.cb = new WinDef.DWORD(size);
+            if (!ProcessMemoryApi.INSTANCE.GetProcessMemoryInfo(handle, counters, size)) return 0;
+            return counters.WorkingSetSize.longValue();
+        } finally {
+            Kernel32.INSTANCE.CloseHandle(handle);
         }
-        return 0;
     }
 }
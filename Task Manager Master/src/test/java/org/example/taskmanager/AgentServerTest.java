@@ -0,0 +1,70 @@
+package org.example.taskmanager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AgentServerTest {
+
+    private final ProcessSnapshotEngine engine = new ProcessSnapshotEngine();
+    private AgentServer agent;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        agent = new AgentServer(engine, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 100);
+        agent.start();
+        ProcessSnapshot snapshot = RemoteCollectorTest.snapshot(1_000, new long[]{1, 10, 100},
+                new long[]{2, 10, 200}, new long[]{3, 10, 300});
+        agent.onSnapshot(snapshot, ProcessDelta.between(ProcessSnapshot.EMPTY, snapshot));
+    }
+
+    @AfterEach
+    void tearDown() {
+        agent.stop();
+        engine.shutdown();
+    }
+
+    private HttpURLConnection get(String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) URI.create(
+                "http://127.0.0.1:" + agent.getAddress().getPort() + path).toURL().openConnection();
+        connection.setReadTimeout(10_000);
+        return connection;
+    }
+
+    @Test
+    void unparsableParametersAreBadRequests() throws IOException {
+        for (String path : List.of("/snapshot?pids=99999999999999999999", "/snapshot?pids=1,x",
+                "/stream?pids=1,99999999999999999999", "/stream?pids=-1", "/stream?interval=99999999999999999999",
+                "/stream?interval=soon")) {
+            HttpURLConnection connection = get(path);
+            assertEquals(400, connection.getResponseCode(), path);
+            connection.disconnect();
+        }
+    }
+
+    @Test
+    void pidFilterSelectsRows() throws IOException {
+        HttpURLConnection connection = get("/snapshot?pids=3,%201,,7");
+        assertEquals(200, connection.getResponseCode());
+        List<String> lines;
+        try (InputStream body = connection.getInputStream()) {
+            lines = new String(body.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+        }
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).contains("\"rows\":2"), lines.get(0));
+        assertTrue(lines.get(1).startsWith("{\"pid\":1,"), lines.get(1));
+        assertTrue(lines.get(2).startsWith("{\"pid\":3,"), lines.get(2));
+    }
+}
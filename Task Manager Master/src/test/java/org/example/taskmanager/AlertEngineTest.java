@@ -0,0 +1,167 @@
+package org.example.taskmanager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AlertEngineTest {
+
+    private static final long MB = 1 << 20;
+
+    private record Row(long pid, String name, long rss, double cpuPercent) { }
+
+    @TempDir
+    Path dir;
+
+    private final SamplingHub hub = new SamplingHub();
+    private Favorites favorites;
+    private final List<AlertEngine.Event> events = new ArrayList<>();
+    private ProcessSnapshot previous = ProcessSnapshot.EMPTY;
+
+    @BeforeEach
+    void setUp() {
+        favorites = new Favorites(dir.resolve("favorites.tsv"), hub, sample -> { }, () -> { });
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.shutdown();
+    }
+
+    private AlertEngine open(String rules) throws IOException {
+        AlertEngine engine = new AlertEngine(dir, favorites, events::add);
+        List<String> errors = new ArrayList<>();
+        engine.setRules(rules, errors);
+        assertEquals(List.of(), errors);
+        return engine;
+    }
+
+    // Feeds the next scan to the favorites first and then to the engine, as the snapshot engine does
+    private void scan(AlertEngine engine, long timeMillis, Row... rows) {
+        ProcessSnapshot.Builder builder = new ProcessSnapshot.Builder(rows.length);
+        for (Row row : rows) {
+            int index = builder.add(row.pid, 1, 0, 0, row.rss, 1_000, 1, row.name, "/usr/bin/" + row.name, "", "root");
+            builder.setCpuPercent(index, row.cpuPercent);
+        }
+        ProcessSnapshot snapshot = builder.build(0, timeMillis);
+        ProcessDelta delta = ProcessDelta.between(previous, snapshot);
+        favorites.onSnapshot(snapshot, delta);
+        engine.onSnapshot(snapshot, delta);
+        previous = snapshot;
+    }
+
+    // The events since the last call, as "fired|cleared rule @time"
+    private List<String> drain() {
+        List<String> drained = new ArrayList<>();
+        for (AlertEngine.Event event : events) {
+            drained.add((event.cleared() ? "cleared " : "fired ") + event.rule() + " @" + event.timeMillis());
+        }
+        events.clear();
+        return drained;
+    }
+
+    @Test
+    void parseErrorsNameTheLineAndTheRestIsInstalled() throws IOException {
+        AlertEngine engine = new AlertEngine(dir, favorites, events::add);
+        List<String> errors = new ArrayList<>();
+        engine.setRules("""
+                # a comment, then a rule that parses
+                process rss>1m
+                process rss = 1m
+                system cpu > 90 for 2x
+                system name:x cpu > 90
+                bogus cpu > 1
+                favorite exits now
+                process cpu > lots
+                process color > 1
+                """, errors);
+        assertEquals(List.of("line 3: use >, >=, < or <=", "line 4: duration needs s, m or h: '2x'",
+                "line 5: system rules take no filters", "line 6: expected process, favorite or system, got 'bogus'",
+                "line 7: nothing may follow 'exits'", "line 8: 'lots' is not a number",
+                "line 9: unknown process metric 'color'"), errors);
+
+        scan(engine, 1_000, new Row(10, "app", 2 * MB, 0));
+        assertEquals(List.of("fired process rss>1m @1000"), drain());
+
+        // Saved rules are read back on the next start, errors and all
+        engine.saveRules();
+        engine.close();
+        AlertEngine reopened = new AlertEngine(dir, favorites, events::add);
+        assertTrue(reopened.getRulesText().contains("process rss>1m"));
+        previous = ProcessSnapshot.EMPTY;
+        scan(reopened, 2_000, new Row(10, "app", 2 * MB, 0));
+        assertEquals(List.of("fired process rss>1m @2000"), drain());
+        reopened.close();
+    }
+
+    @Test
+    void breachesFireAfterTheirDurationAndClearOnRecovery() throws IOException {
+        AlertEngine engine = open("process rss > 1m for 30s\nprocess rss >= 4m");
+        scan(engine, 0, new Row(10, "app", 2 * MB, 0));
+        // Recovering before the duration is up drops the breach without an event
+        scan(engine, 10_000, new Row(10, "app", MB / 2, 0));
+        scan(engine, 20_000, new Row(10, "app", 2 * MB, 0));
+        scan(engine, 40_000, new Row(10, "app", 3 * MB, 0));
+        assertEquals(List.of(), drain());
+
+        // Due 30 s after the breach began again, on a scan where the row itself did not change
+        scan(engine, 50_000, new Row(10, "app", 3 * MB, 0));
+        assertEquals(List.of("fired process rss > 1m for 30s @50000"), drain());
+        scan(engine, 55_000, new Row(10, "app", 4 * MB, 0));
+        assertEquals(List.of("fired process rss >= 4m @55000"), drain(), "no duration: fires on the scan it breaches");
+
+        scan(engine, 60_000, new Row(10, "app", MB / 2, 0));
+        assertEquals(List.of("cleared process rss > 1m for 30s @60000", "cleared process rss >= 4m @60000"), drain());
+        // Crossing back only starts the clock again
+        scan(engine, 70_000, new Row(10, "app", 2 * MB, 0));
+        scan(engine, 99_999, new Row(10, "app", 2 * MB, 0));
+        assertEquals(List.of(), drain());
+        scan(engine, 100_000, new Row(10, "app", 2 * MB, 0));
+        assertEquals(List.of("fired process rss > 1m for 30s @100000"), drain());
+        engine.close();
+
+        List<String> log = Files.readAllLines(dir.resolve("alerts.log"));
+        assertEquals(5, log.size());
+        assertTrue(log.get(3).contains("\tcleared\tprocess rss >= 4m\tapp (PID 10): rss back to "), log.get(3));
+    }
+
+    @Test
+    void scopesAndFiltersPickTheProcesses() throws IOException {
+        AlertEngine engine = open("process name:java cpu > 50\nfavorite rss > 1m\nfavorite exits");
+        Row java = new Row(10, "java", 2 * MB, 80);
+        Row python = new Row(20, "python", 2 * MB, 80);
+        scan(engine, 1_000, java, python);
+        assertEquals(List.of("fired process name:java cpu > 50 @1000"), drain());
+
+        // Already past the threshold when it becomes a favorite: fires on the next scan, without a crossing
+        Favorites.Entry entry = favorites.add(20);
+        assertNotNull(entry);
+        scan(engine, 2_000, java, python);
+        assertEquals(List.of("fired favorite rss > 1m @2000"), drain());
+
+        // No longer a favorite: neither recovering nor breaching again is reported
+        favorites.remove(entry);
+        scan(engine, 3_000, java, new Row(20, "python", MB / 2, 80));
+        scan(engine, 4_000, java, python);
+        assertEquals(List.of(), drain());
+
+        favorites.add(20);
+        scan(engine, 5_000, java, python);
+        assertEquals(List.of("fired favorite rss > 1m @5000"), drain());
+        // Gone rather than recovered: only the exit rule reports it
+        scan(engine, 6_000, java);
+        assertEquals(List.of("fired favorite exits @6000"), drain());
+        engine.close();
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.taskmanager;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CgroupsTest {
+
+    @TempDir
+    Path tmp;
+
+    private Path procRoot;
+    private Path cgroupRoot;
+
+    private void fixture(String ownPath) throws IOException {
+        procRoot = Files.createDirectories(tmp.resolve("proc"));
+        cgroupRoot = Files.createDirectories(tmp.resolve("cgroup"));
+        Path pid = Files.createDirectories(procRoot.resolve("7"));
+        Files.writeString(pid.resolve("cgroup"), "0::" + ownPath + "\n");
+    }
+
+    private Path cgroup(String path, String memoryMax, String cpuMax) throws IOException {
+        Path dir = Files.createDirectories(cgroupRoot.resolve(path));
+        if (memoryMax != null) Files.writeString(dir.resolve("memory.max"), memoryMax + "\n");
+        if (cpuMax != null) Files.writeString(dir.resolve("cpu.max"), cpuMax + "\n");
+        return dir;
+    }
+
+    @Test
+    void privateNamespaceTakesLimitsFromTheRoot() throws IOException {
+        fixture("/");
+        cgroup("", "536870912", "150000 100000");
+
+        Cgroups.Limits limits = Cgroups.limits(procRoot, cgroupRoot, 7);
+        assertEquals(cgroupRoot, limits.memoryCgroup());
+        assertEquals(536870912L, limits.memoryMaxBytes());
+        assertEquals(cgroupRoot, limits.cpuCgroup());
+        assertEquals(1.5, limits.cpuCores(), 1e-9);
+    }
+
+    @Test
+    void tightestLimitOnTheWayUpWins() throws IOException {
+        fixture("/kubepods.slice/pod1.slice/cri-containerd-abc.scope");
+        // The real root has neither file
+        cgroup("kubepods.slice", "max", "max 100000");
+        cgroup("kubepods.slice/pod1.slice", "1073741824", null);
+        Path leaf = cgroup("kubepods.slice/pod1.slice/cri-containerd-abc.scope", "2147483648", "50000 100000");
+
+        Cgroups.Limits limits = Cgroups.limits(procRoot, cgroupRoot, 7);
+        assertEquals(cgroupRoot.resolve("kubepods.slice/pod1.slice"), limits.memoryCgroup());
+        assertEquals(1073741824L, limits.memoryMaxBytes());
+        assertEquals(leaf, limits.cpuCgroup());
+        assertEquals(0.5, limits.cpuCores(), 1e-9);
+    }
+
+    @Test
+    void missingFilesMeanNoLimit() throws IOException {
+        fixture("/user.slice/session-1.scope");
+        cgroup("user.slice/session-1.scope", null, null);
+
+        Cgroups.Limits limits = Cgroups.limits(procRoot, cgroupRoot, 7);
+        assertNull(limits.memoryCgroup());
+        assertEquals(Cgroups.UNLIMITED, limits.memoryMaxBytes());
+        assertNull(limits.cpuCgroup());
+        assertEquals(Double.POSITIVE_INFINITY, limits.cpuCores());
+    }
+
+    @Test
+    void unknownProcessHasNoLimits() throws IOException {
+        fixture("/");
+        assertEquals(Cgroups.Limits.NONE, Cgroups.limits(procRoot, cgroupRoot, 8));
+    }
+
+    @Test
+    void pathsOutsideTheNamespaceStayAtTheRoot() throws IOException {
+        fixture("/../../system.slice/other.service");
+        cgroup("", "268435456", null);
+
+        Cgroups.Limits limits = Cgroups.limits(procRoot, cgroupRoot, 7);
+        assertEquals(cgroupRoot, limits.memoryCgroup());
+        assertEquals(268435456L, limits.memoryMaxBytes());
+    }
+
+    @Test
+    void describesContainersAndUnits() {
+        assertEquals("containerd 0123456789ab", Cgroups.describe(
+                "/kubepods.slice/kubepods-burstable-pod1.slice/cri-containerd-0123456789abcdef.scope"));
+        assertEquals("docker " + "f".repeat(12), Cgroups.describe("/docker/" + "f".repeat(64)));
+        assertEquals("nginx.service", Cgroups.describe("/system.slice/nginx.service"));
+        assertEquals("/", Cgroups.describe("/"));
+    }
+}
@@ -0,0 +1,118 @@
+package org.example.taskmanager;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ColumnarFileTest {
+
+    private static final String[] NAMES = {"time", "pid", "cpu", "name"};
+    private static final ColumnarFile.Type[] TYPES = {
+            ColumnarFile.Type.LONG, ColumnarFile.Type.LONG, ColumnarFile.Type.DECIMAL, ColumnarFile.Type.STRING
+    };
+    private static final String[] WORDS = {"java", "postgres", "", "zsh", "naïve — 進程", "kworker/0:1"};
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsRowsAcrossBlocks() throws IOException {
+        Path file = dir.resolve("export.tmcf");
+        int rows = ColumnarFile.BLOCK_ROWS * 2 + 1_234;
+        long[] times = new long[rows];
+        long[] pids = new long[rows];
+        double[] cpus = new double[rows];
+        String[] names = new String[rows];
+        Random random = new Random(11);
+        long time = 1_700_000_000_000L;
+        for (int r = 0; r < rows; r++) {
+            time += random.nextInt(2_000);
+            times[r] = time;
+            pids[r] = random.nextInt(5) == 0 ? random.nextLong() : random.nextInt(100_000);
+            cpus[r] = Math.round(random.nextDouble() * 80_000) / 100.0 - 200;
+            names[r] = WORDS[random.nextInt(WORDS.length)] + (random.nextInt(10) == 0 ? r : "");
+        }
+
+        try (ColumnarFile.Writer writer = new ColumnarFile.Writer(file, NAMES, TYPES)) {
+            for (int r = 0; r < rows; r++) {
+                writer.longValue(times[r]).longValue(pids[r]).decimalValue(cpus[r]).stringValue(names[r]).endRow();
+            }
+        }
+
+        try (ColumnarFile.Reader reader = new ColumnarFile.Reader(file)) {
+            assertEquals(List.of(NAMES), reader.getNames());
+            assertEquals(List.of(TYPES), reader.getTypes());
+            int row = 0;
+            int blocks = 0;
+            for (int count; (count = reader.nextBlock()) > 0; blocks++) {
+                for (int r = 0; r < count; r++, row++) {
+                    assertEquals(times[row], reader.longValue(0, r));
+                    assertEquals(pids[row], reader.longValue(1, r));
+                    assertEquals(cpus[row], reader.decimalValue(2, r), 1e-9);
+                    assertEquals(names[row], reader.stringValue(3, r));
+                }
+            }
+            assertEquals(rows, row);
+            assertEquals(3, blocks);
+            assertEquals(0, reader.nextBlock());
+        }
+    }
+
+    @Test
+    void extremeLongsAndNullStrings() throws IOException {
+        Path file = dir.resolve("extremes.tmcf");
+        long[] values = {Long.MIN_VALUE, Long.MAX_VALUE, 0, -1, Long.MIN_VALUE, 1, Long.MAX_VALUE};
+        try (ColumnarFile.Writer writer = new ColumnarFile.Writer(file,
+                new String[]{"value", "label"}, new ColumnarFile.Type[]{ColumnarFile.Type.LONG, ColumnarFile.Type.STRING})) {
+            for (long value : values) writer.longValue(value).stringValue(null).endRow();
+        }
+
+        try (ColumnarFile.Reader reader = new ColumnarFile.Reader(file)) {
+            assertEquals(values.length, reader.nextBlock());
+            for (int r = 0; r < values.length; r++) {
+                assertEquals(values[r], reader.longValue(0, r));
+                assertEquals("", reader.stringValue(1, r));
+            }
+            assertEquals(0, reader.nextBlock());
+        }
+    }
+
+    @Test
+    void emptyFileHasHeaderOnly() throws IOException {
+        Path file = dir.resolve("empty.tmcf");
+        new ColumnarFile.Writer(file, NAMES, TYPES).close();
+
+        try (ColumnarFile.Reader reader = new ColumnarFile.Reader(file)) {
+            assertEquals(List.of(NAMES), reader.getNames());
+            assertEquals(0, reader.nextBlock());
+        }
+    }
+
+    @Test
+    void valuesMustFollowTheDeclaredColumns() throws IOException {
+        try (ColumnarFile.Writer writer = new ColumnarFile.Writer(dir.resolve("misuse.tmcf"), NAMES, TYPES)) {
+            assertThrows(IllegalStateException.class, () -> writer.stringValue("java"));
+            writer.longValue(1).longValue(2);
+            assertThrows(IllegalStateException.class, writer::endRow);
+            writer.decimalValue(1.5).stringValue("java").endRow();
+            assertThrows(IllegalStateException.class, () -> writer.decimalValue(1));
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> new ColumnarFile.Writer(dir.resolve("bad.tmcf"), new String[]{"a"}, TYPES));
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path file = dir.resolve("other.csv");
+        Files.writeString(file, "time,pid,cpu,name\n");
+        assertThrows(IOException.class, () -> new ColumnarFile.Reader(file));
+    }
+}
@@ -0,0 +1,80 @@
+package org.example.taskmanager;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CpuUsageTrackerTest {
+
+    private static final int CORES = Runtime.getRuntime().availableProcessors();
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void reportsUsageSinceThePreviousSample() {
+        CpuUsageTracker tracker = new CpuUsageTracker();
+        tracker.beginScan();
+        assertEquals(0.0, tracker.update(42, 1_000, 0));
+        tracker.sweep();
+
+        tracker.beginScan();
+        // 500 ms of CPU over one second is half a core
+        assertEquals(50.0 / CORES, tracker.update(42, 1_500, SECOND), 1e-9);
+        tracker.sweep();
+
+        tracker.beginScan();
+        // Less CPU time than before: the pid was reused
+        assertEquals(0.0, tracker.update(42, 10, 2 * SECOND));
+        tracker.sweep();
+    }
+
+    @Test
+    void keptPidMeasuresFromItsLastRealSample() {
+        CpuUsageTracker tracker = new CpuUsageTracker();
+        tracker.beginScan();
+        tracker.update(7, 0, 0);
+        tracker.sweep();
+        tracker.beginScan();
+        tracker.keep(7);
+        assertEquals(0, tracker.sweep());
+        tracker.beginScan();
+        assertEquals(100.0 / CORES, tracker.update(7, 2_000, 2 * SECOND), 1e-9);
+    }
+
+    // Many pids come and go each scan, so sweep() deletes from long probe runs, including runs that
+    // wrap around the end of the table. Every survivor must still be found with its own last sample.
+    @Test
+    void backwardShiftDeleteKeepsEverySurvivor() {
+        CpuUsageTracker tracker = new CpuUsageTracker();
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int scan = 1; scan <= 200; scan++) {
+            long now = scan * SECOND;
+            tracker.beginScan();
+            for (Iterator<Map.Entry<Long, Long>> it = expected.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<Long, Long> entry = it.next();
+                if (random.nextInt(4) == 0) {
+                    it.remove(); // exited: not updated, so swept
+                    continue;
+                }
+                long cpu = entry.getValue() + 10;
+                // Same 10 ms every second for every survivor, or its old entry was lost or mixed up
+                assertEquals(1.0 / CORES, tracker.update(entry.getKey(), cpu, now), 1e-9, "pid " + entry.getKey());
+                entry.setValue(cpu);
+            }
+            int arrivals = scan < 100 ? 40 : 5;
+            for (int k = 0; k < arrivals; k++) {
+                long pid = random.nextInt(5_000);
+                if (expected.containsKey(pid)) continue;
+                assertEquals(0.0, tracker.update(pid, 0, now));
+                expected.put(pid, 0L);
+            }
+            tracker.sweep();
+            assertEquals(expected.size(), tracker.size());
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package org.example.taskmanager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FavoritesTest {
+
+    private record Row(long pid, long start, String command, String arguments) { }
+
+    @TempDir
+    Path dir;
+
+    private final SamplingHub hub = new SamplingHub();
+    private final BlockingQueue<SamplingHub.Sample> samples = new LinkedBlockingQueue<>();
+    private final AtomicInteger exits = new AtomicInteger();
+    private ProcessSnapshot previous = ProcessSnapshot.EMPTY;
+
+    @AfterEach
+    void tearDown() {
+        hub.shutdown();
+    }
+
+    private Favorites open() {
+        previous = ProcessSnapshot.EMPTY;
+        return new Favorites(dir.resolve("favorites.tsv"), hub, samples::add, exits::incrementAndGet);
+    }
+
+    // Feeds the next scan, with its delta against the one before
+    private void scan(Favorites favorites, Row... rows) {
+        ProcessSnapshot.Builder builder = new ProcessSnapshot.Builder(rows.length);
+        for (Row row : rows) {
+            builder.add(row.pid, 1, 0, 0, 1 << 20, row.start, 1, "p" + row.pid, row.command, row.arguments, "root");
+        }
+        ProcessSnapshot snapshot = builder.build(0, 0);
+        favorites.onSnapshot(snapshot, ProcessDelta.between(previous, snapshot));
+        previous = snapshot;
+    }
+
+    private List<String> saved() throws IOException {
+        return Files.readAllLines(dir.resolve("favorites.tsv"));
+    }
+
+    @Test
+    void persistsAndRebindsTheSameInstance() throws IOException {
+        Favorites favorites = open();
+        scan(favorites, new Row(100, 5_000, "/usr/bin/app", "--port 80"),
+                new Row(101, 6_000, "/usr/bin/tool", "a\tb\\c"));
+        assertNull(favorites.add(999), "no scan has seen it");
+        Favorites.Entry app = favorites.add(100);
+        assertNotNull(app);
+        assertSame(app, favorites.add(100));
+        assertSame(app, favorites.entryOf(100));
+        assertNotNull(favorites.add(101));
+        assertTrue(favorites.contains(100) && favorites.contains(101));
+        assertEquals(List.of("5000\t/usr/bin/app\t--port 80", "6000\t/usr/bin/tool\ta\\tb\\\\c"), saved());
+
+        // After a restart the instance with the saved start time is the favorite, not a newer sibling
+        Favorites reopened = open();
+        assertFalse(reopened.contains(100));
+        scan(reopened, new Row(100, 5_000, "/usr/bin/app", "--port 80"),
+                new Row(120, 9_000, "/usr/bin/app", "--port 80"), new Row(101, 6_000, "/usr/bin/tool", "a\tb\\c"));
+        assertTrue(reopened.contains(100));
+        assertFalse(reopened.contains(120));
+        assertTrue(reopened.contains(101), "escaped arguments read back");
+        assertEquals(List.of("5000\t/usr/bin/app\t--port 80", "6000\t/usr/bin/tool\ta\\tb\\\\c"), saved());
+    }
+
+    @Test
+    void exitUnbindsAndTheNextInstanceTakesOver() throws IOException {
+        Favorites favorites = open();
+        scan(favorites, new Row(100, 5_000, "/usr/bin/app", "--port 80"));
+        favorites.add(100);
+
+        scan(favorites);
+        assertFalse(favorites.contains(100));
+        assertTrue(favorites.hasExited(100));
+        assertNull(favorites.entryOf(100));
+
+        // A restarted service with a new pid and start time is still the favorite
+        scan(favorites, new Row(150, 7_000, "/usr/bin/app", "--port 80"), new Row(151, 7_000, "/usr/bin/app", "--port 81"));
+        assertTrue(favorites.contains(150));
+        assertFalse(favorites.contains(151));
+        assertFalse(favorites.hasExited(100), "only for the scan that saw it go");
+        assertEquals(List.of("7000\t/usr/bin/app\t--port 80"), saved());
+    }
+
+    @Test
+    void wildcardArgumentsMatchAnyVersion() throws IOException {
+        Files.writeString(dir.resolve("favorites.tsv"), "# pinned by hand\n0\t/usr/bin/java\t-jar /opt/app/*.jar\n");
+        Favorites favorites = open();
+        scan(favorites, new Row(400, 1_000, "/usr/bin/java", "-jar /srv/other.jar"),
+                new Row(401, 1_000, "/usr/bin/java", "-jar /opt/app/app-1.2.jar"));
+        assertFalse(favorites.contains(400));
+        assertTrue(favorites.contains(401));
+        assertEquals(List.of("1000\t/usr/bin/java\t-jar /opt/app/*.jar"), saved());
+    }
+
+    @Test
+    void removesAFavoriteWhoseProcessIsGone() throws IOException {
+        Favorites favorites = open();
+        scan(favorites, new Row(100, 5_000, "/usr/bin/app", "--port 80"));
+        Favorites.Entry app = favorites.add(100);
+        scan(favorites);
+        assertNull(favorites.entryOf(100));
+
+        favorites.remove(app);
+        assertEquals(List.of(), saved());
+        scan(favorites, new Row(150, 7_000, "/usr/bin/app", "--port 80"));
+        assertFalse(favorites.contains(150));
+    }
+
+    @Test
+    void pinnedSamplesReportAnExitWithoutAScan() throws Exception {
+        long live = ProcessHandle.current().pid();
+        long dead = 999_999_999; // above any pid_max
+        Favorites favorites = open();
+        scan(favorites, new Row(live, 1_000, "/usr/bin/java", "test"), new Row(dead, 2_000, "/usr/bin/gone", ""));
+        favorites.add(live);
+        favorites.add(dead);
+
+        boolean sawLive = false;
+        boolean sawDead = false;
+        while (!sawLive || !sawDead) {
+            SamplingHub.Sample sample = samples.poll(5, TimeUnit.SECONDS);
+            assertNotNull(sample, "samples stopped");
+            sawLive |= sample.pid() == live && sample.alive();
+            sawDead |= sample.pid() == dead && !sample.alive();
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (exits.get() == 0) {
+            assertTrue(System.nanoTime() < deadline, "no exit reported");
+            Thread.sleep(10);
+        }
+        assertEquals(1, exits.get());
+        assertEquals(1, hub.jobCount(), "the dead pin stopped");
+        assertTrue(favorites.contains(dead), "still a favorite until a scan sees it go");
+
+        // A lifecycle event stops the pin too, once
+        favorites.onLifecycle(new ProcessLifecycle.Event(ProcessLifecycle.Type.EXIT, live, -1, "java", 10, 0));
+        favorites.onLifecycle(new ProcessLifecycle.Event(ProcessLifecycle.Type.EXIT, live, -1, "java", 10, 0));
+        favorites.onLifecycle(new ProcessLifecycle.Event(ProcessLifecycle.Type.EXIT, 12345, -1, "other", 10, 0));
+        assertEquals(2, exits.get());
+        assertEquals(0, hub.jobCount());
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.taskmanager;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    // 32 exact buckets, then 32 per power of two from 2^5 to 2^62
+    private static final int LAST = (64 - 5) * 32 - 1;
+
+    @Test
+    void bucketEdgesMapBackToTheirBucket() {
+        assertEquals(LAST, LatencyHistogram.index(Long.MAX_VALUE));
+        assertEquals(63L << 57, LatencyHistogram.lowerBound(LAST));
+        for (int i = 0; i <= LAST; i++) {
+            long low = LatencyHistogram.lowerBound(i);
+            assertEquals(i, LatencyHistogram.index(low), "lower bound of " + i);
+            if (i == 0) continue;
+            assertEquals(i - 1, LatencyHistogram.index(low - 1), "just below " + i);
+            long width = low - LatencyHistogram.lowerBound(i - 1);
+            // Exact below 32, then never wider than 1/32 of the values it holds
+            assertTrue(low < 32 ? width == 1 : width * 32 <= low, "width of " + (i - 1));
+        }
+    }
+
+    @Test
+    void percentilesAreLowerBoundsOfTheRankedBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100; value++) histogram.record(value);
+        LatencyHistogram.Summary summary = histogram.summary();
+        assertEquals(100, summary.count());
+        assertEquals(50.5, summary.meanNanos());
+        assertEquals(50, summary.p50Nanos(), "buckets are 1 wide up to 64");
+        assertEquals(90, summary.p90Nanos(), "90 starts a bucket, [90, 92)");
+        assertEquals(98, summary.p99Nanos(), "99 is in [98, 100)");
+        assertEquals(100, summary.p999Nanos());
+        assertEquals(100, summary.maxNanos());
+
+        // A rare slow value only shows from the percentile whose rank reaches it
+        histogram.reset();
+        for (int i = 0; i < 1_997; i++) histogram.record(31);
+        for (int i = 0; i < 3; i++) histogram.record(1_000_000);
+        summary = histogram.summary();
+        assertEquals(31, summary.p99Nanos(), "the last exact bucket");
+        assertEquals(999_424, summary.p999Nanos(), "1,000,000 is in [999,424, 1,015,808)");
+        assertEquals(1_000_000, summary.maxNanos());
+    }
+
+    @Test
+    void recordsTheExtremes() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(new LatencyHistogram.Summary(0, 0, 0, 0, 0, 0, 0), histogram.summary());
+
+        histogram.record(-5); // a clock that stepped back counts as 0
+        histogram.record(0);
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(Long.MAX_VALUE);
+        LatencyHistogram.Summary summary = histogram.summary();
+        assertEquals(4, summary.count());
+        assertEquals(0, summary.p50Nanos());
+        assertEquals(63L << 57, summary.p90Nanos());
+        assertEquals(63L << 57, summary.p999Nanos());
+        assertEquals(Long.MAX_VALUE, summary.maxNanos());
+        assertEquals(Long.MAX_VALUE / 2.0, summary.meanNanos(), Long.MAX_VALUE * 1e-12, "no overflow in the sum");
+    }
+
+    @Test
+    void concurrentRecordsAreAllCounted() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            long base = t * 1_000L;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 100_000; i++) histogram.record(base + i % 1_000);
+            }));
+        }
+        for (Thread thread : threads) thread.join();
+        LatencyHistogram.Summary summary = histogram.summary();
+        assertEquals(400_000, histogram.count());
+        assertEquals(400_000, summary.count());
+        assertEquals(3_999, summary.maxNanos());
+        assertEquals(1_999.5, summary.meanNanos(), 1e-6);
+    }
+}
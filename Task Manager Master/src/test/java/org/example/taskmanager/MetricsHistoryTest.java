@@ -0,0 +1,95 @@
+package org.example.taskmanager;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsHistoryTest {
+
+    @Test
+    void bucketsKeepMinMaxAndAverage() {
+        MetricsHistory history = new MetricsHistory("cpu");
+        history.record(10_000, 10);
+        history.record(10_300, 30);
+        history.record(10_900, 20);
+        history.record(11_000, 5); // starts the next bucket, which publishes the first
+
+        MetricsHistory.Series series = history.read(MetricsHistory.SECOND_TIER, 0);
+        assertEquals(1, series.size);
+        assertEquals(10_000, series.times[0]);
+        assertEquals(10, series.min[0]);
+        assertEquals(30, series.max[0]);
+        assertEquals(20, series.avg[0], 1e-9);
+    }
+
+    @Test
+    void ringKeepsTheNewestBucketsInOrder() {
+        MetricsHistory history = new MetricsHistory("cpu");
+        // 1s tier holds 600 buckets; write 1000 and the oldest 400 are gone
+        for (int s = 0; s <= 1000; s++) history.record(s * 1_000L, s);
+
+        MetricsHistory.Series all = history.read(MetricsHistory.SECOND_TIER, 0);
+        assertTrue(all.size >= 599 && all.size <= 600, "size " + all.size);
+        for (int i = 0; i < all.size; i++) {
+            long expected = (1000 - all.size + i) * 1_000L;
+            assertEquals(expected, all.times[i]);
+            assertEquals(expected / 1_000.0, all.avg[i], 1e-9);
+        }
+
+        MetricsHistory.Series recent = history.read(MetricsHistory.SECOND_TIER, 990_000);
+        assertEquals(10, recent.size);
+        assertEquals(990_000, recent.times[0]);
+    }
+
+    @Test
+    void readAllSwitchesToFinerTiersInTimeOrder() {
+        MetricsHistory history = new MetricsHistory("cpu");
+        // Two hours of samples: the 1s tier only has the last ten minutes
+        for (long t = 0; t <= 7_200_000; t += 1_000) history.record(t, 1);
+
+        MetricsHistory.Series series = history.readAll(0);
+        for (int i = 1; i < series.size; i++) {
+            assertTrue(series.times[i] > series.times[i - 1], "not ascending at " + i);
+        }
+        assertEquals(0, series.times[0]);
+        long firstSecond = history.read(MetricsHistory.SECOND_TIER, 0).times[0];
+        // 10s buckets up to (and including the one holding) the start of the 1s tier, 1s buckets from there
+        int switchAt = 0;
+        while (series.times[switchAt] < firstSecond) switchAt++;
+        assertEquals(firstSecond, series.times[switchAt]);
+        assertEquals(firstSecond - firstSecond % 10_000, series.times[switchAt - 1]);
+        assertEquals(series.times[switchAt - 2] + 10_000, series.times[switchAt - 1]);
+        assertEquals(series.size - switchAt, history.read(MetricsHistory.SECOND_TIER, 0).size);
+    }
+
+    // Readers racing the writer must only ever see whole buckets in order, never a slot being reused
+    @Test
+    void readersNeverSeeTornOrReusedSlots() throws InterruptedException {
+        MetricsHistory history = new MetricsHistory("cpu");
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            while (!done.get() && failure.get() == null) {
+                MetricsHistory.Series series = history.read(MetricsHistory.SECOND_TIER, 0);
+                for (int i = 0; i < series.size; i++) {
+                    // Every bucket holds the single value of its second, so all three must match its time
+                    double value = series.times[i] / 1_000.0;
+                    if (series.min[i] != value || series.max[i] != value || series.avg[i] != value
+                            || (i > 0 && series.times[i] != series.times[i - 1] + 1_000)) {
+                        failure.set("bucket " + i + " at " + series.times[i]);
+                    }
+                }
+            }
+        });
+        reader.start();
+        for (long s = 0; s < 2_000_000; s++) history.record(s * 1_000, s);
+        done.set(true);
+        reader.join();
+        assertNull(failure.get());
+    }
+}
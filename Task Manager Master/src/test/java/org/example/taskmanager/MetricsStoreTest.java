@@ -0,0 +1,183 @@
+package org.example.taskmanager;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsStoreTest {
+
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    @TempDir
+    Path dir;
+
+    // Records as {time, pid, rss, cpu * 100}
+    private static List<List<Long>> query(MetricsStore store, long pid, long from, long to) {
+        List<List<Long>> records = new ArrayList<>();
+        store.query(pid, from, to, (time, p, cpu, rss) -> records.add(List.of(time, p, rss, Math.round(cpu * 100))));
+        return records;
+    }
+
+    private List<String> files(String glob) throws IOException {
+        List<String> names = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, glob)) {
+            for (Path file : files) names.add(file.getFileName().toString());
+        }
+        names.sort(null);
+        return names;
+    }
+
+    // Compaction runs in the background while the store is open
+    private void awaitFiles(String glob, int count) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (files(glob).size() != count) {
+            assertTrue(System.nanoTime() < deadline, "waiting for " + count + " " + glob + ", have " + files("*"));
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    void queriesByPidAndTime() throws IOException {
+        long base = System.currentTimeMillis() - HOUR / 2;
+        try (MetricsStore store = new MetricsStore(dir)) {
+            for (int i = 0; i < 100; i++) {
+                store.append(base + i * 1000L, 10, i, 1000 + i);
+                store.append(base + i * 1000L, 20, 2 * i, 2000 + i);
+                if (i % 10 == 0) store.append(base + i * 1000L, MetricsStore.SYSTEM_PID, 50, 1 << 30);
+            }
+
+            List<List<Long>> records = query(store, 20, base + 10_000, base + 14_000);
+            assertEquals(5, records.size());
+            for (int k = 0; k < 5; k++) {
+                assertEquals(List.of(base + (10 + k) * 1000L, 20L, 2010L + k, (20L + 2 * k) * 100), records.get(k));
+            }
+            assertEquals(10, query(store, MetricsStore.SYSTEM_PID, base, base + HOUR).size());
+            assertEquals(0, query(store, 30, base, base + HOUR).size());
+            assertEquals(0, query(store, 10, base - HOUR, base - 1).size());
+
+            int[] all = new int[1];
+            assertEquals(21, store.queryAll(base + 90_000, base + 99_000, (time, pid, cpu, rss) -> all[0]++));
+            assertEquals(21, all[0]);
+            assertEquals(210, store.countRecords(base, base + HOUR));
+        }
+    }
+
+    @Test
+    void timesThatGoBackAreClamped() throws IOException {
+        long base = System.currentTimeMillis() - HOUR / 2;
+        try (MetricsStore store = new MetricsStore(dir)) {
+            // Samples taken on different threads arrive out of order, and the clock can step back
+            store.append(base + 5_000, 1, 1, 1);
+            store.append(base + 4_000, 2, 2, 2);
+            store.append(base + 6_000, 1, 3, 3);
+            store.append(base + 1_000, 1, 4, 4);
+            store.append(base + 7_000, 1, 5, 5);
+
+            List<List<Long>> records = query(store, 1, base + 5_500, base + HOUR);
+            assertEquals(List.of(List.of(base + 6_000, 1L, 3L, 300L), List.of(base + 6_000, 1L, 4L, 400L),
+                    List.of(base + 7_000, 1L, 5L, 500L)), records);
+            assertEquals(List.of(List.of(base + 5_000, 2L, 2L, 200L)), query(store, 2, base, base + 5_000));
+            int[] visited = new int[1];
+            store.queryAll(base, base + 5_999, (time, pid, cpu, rss) -> visited[0]++);
+            assertEquals(2, visited[0]);
+        }
+    }
+
+    @Test
+    void rollsCompactsAndReopens() throws Exception {
+        long base = System.currentTimeMillis() - 4 * HOUR;
+        List<List<Long>> before;
+        try (MetricsStore store = new MetricsStore(dir)) {
+            // Three hours of records, one segment per hour, plus the active one
+            for (long t = 0; t <= 3 * HOUR; t += 60_000) {
+                store.append(base + t, t / 60_000 % 2 == 0 ? 1 : 2, t / 60_000.0, t);
+                store.append(base + t, 3, 1, 1);
+            }
+            awaitFiles("*.sorted.seg", 3);
+            awaitFiles("*.seg", 4); // and the sealed originals deleted
+
+            before = query(store, 1, base, base + 3 * HOUR);
+            assertEquals(91, before.size());
+            for (int k = 1; k < before.size(); k++) assertTrue(before.get(k).get(0) > before.get(k - 1).get(0));
+            assertEquals(before.size(), query(store, 1, base - HOUR, base + 4 * HOUR).size());
+            // A range inside one compacted segment
+            List<List<Long>> inside = query(store, 3, base + HOUR + 10 * 60_000, base + HOUR + 20 * 60_000);
+            assertEquals(11, inside.size());
+            assertEquals(base + HOUR + 10 * 60_000, inside.get(0).get(0));
+        }
+
+        try (MetricsStore store = new MetricsStore(dir)) {
+            assertEquals(before, query(store, 1, base, base + 3 * HOUR));
+            assertEquals(181, query(store, 3, base, base + 3 * HOUR).size());
+            assertEquals(362, store.countRecords(base, base + 3 * HOUR));
+            // The segment that was active is compacted now too, and there is one file per segment
+            awaitFiles("*.sorted.seg", 4);
+            awaitFiles("*.seg", 4);
+        }
+        assertEquals(List.of(), files("*.tmp"));
+    }
+
+    @Test
+    void reopenKeepsTheMostCompactedFile() throws Exception {
+        long base = System.currentTimeMillis() - 2 * HOUR;
+        try (MetricsStore store = new MetricsStore(dir)) {
+            for (int i = 0; i < 10; i++) store.append(base + i, 5, i, i);
+            store.append(base + HOUR, 5, 0, 0);
+            awaitFiles("*.sorted.seg", 1);
+            awaitFiles("*.seg", 2);
+        }
+        // As if a crash came between writing the compacted copy and deleting the original
+        String sorted = files("*.sorted.seg").get(0);
+        String original = sorted.replace(".sorted.seg", ".seg");
+        Files.copy(dir.resolve(sorted), dir.resolve(original));
+        Files.writeString(dir.resolve(sorted.replace(".sorted.seg", ".downsampled.seg.tmp")), "partial");
+
+        try (MetricsStore store = new MetricsStore(dir)) {
+            assertEquals(11, query(store, 5, base, base + HOUR).size());
+            assertTrue(Files.notExists(dir.resolve(original)));
+            awaitFiles("*.sorted.seg", 2);
+            awaitFiles("*.seg", 2);
+        }
+        // The leftover is gone, and compacting the reopened segment left none of its own
+        assertEquals(List.of(), files("*.tmp"));
+    }
+
+    @Test
+    void downsamplesOldSegmentsAndDropsExpiredOnes() throws Exception {
+        long now = System.currentTimeMillis();
+        long old = now - TimeUnit.DAYS.toMillis(2);
+        old -= Math.floorMod(old, 60_000L);
+        long expired = now - TimeUnit.DAYS.toMillis(8);
+        try (MetricsStore store = new MetricsStore(dir)) {
+            store.append(expired, 9, 1, 1);
+            // Two minutes of 10 s samples
+            for (int i = 0; i < 12; i++) store.append(old + i * 10_000L, 7, i, 100 * i);
+            store.append(old + HOUR, 7, 0, 0);
+        }
+        // Closing waits for the queued passes: the expired segment is deleted and the day-old one sorted,
+        // and downsampled too if a later pass saw it sorted
+        assertEquals(1, files("*.sorted.seg").size() + files("*.downsampled.seg").size());
+        assertEquals(2, files("*.seg").size());
+
+        try (MetricsStore store = new MetricsStore(dir)) {
+            awaitFiles("*.downsampled.seg", 1);
+            awaitFiles("*.sorted.seg", 1);
+            awaitFiles("*.seg", 2);
+            assertEquals(0, query(store, 9, expired - 1, expired + 1).size());
+            List<List<Long>> records = query(store, 7, old, old + 119_999);
+            assertEquals(2, records.size());
+            assertEquals(List.of(old, 7L, 250L, 250L), records.get(0));
+            assertEquals(List.of(old + 60_000, 7L, 850L, 850L), records.get(1));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.taskmanager;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProcessDeltaTest {
+
+    // Rows as {pid, start, rss}; name, command and user derive from the pid
+    private static ProcessSnapshot snapshot(long[]... rows) {
+        ProcessSnapshot.Builder builder = new ProcessSnapshot.Builder(rows.length);
+        for (long[] row : rows) {
+            builder.add(row[0], 1, 0, 0, row[2], row[1], 1, "p" + row[0], "/bin/p" + row[0], "", "root");
+        }
+        return builder.build(0, 0);
+    }
+
+    @Test
+    void identicalSnapshotsGiveAnEmptyDelta() {
+        ProcessSnapshot a = snapshot(new long[]{1, 10, 100}, new long[]{2, 10, 200});
+        ProcessSnapshot b = snapshot(new long[]{1, 10, 100}, new long[]{2, 10, 200});
+        assertTrue(ProcessDelta.between(a, b).isEmpty());
+        assertTrue(ProcessDelta.between(ProcessSnapshot.EMPTY, ProcessSnapshot.EMPTY).isEmpty());
+    }
+
+    @Test
+    void mergesAddedRemovedAndChangedInOnePass() {
+        ProcessSnapshot previous = snapshot(new long[]{1, 10, 100}, new long[]{3, 10, 300}, new long[]{5, 10, 500},
+                new long[]{9, 10, 900});
+        ProcessSnapshot current = snapshot(new long[]{1, 10, 100}, new long[]{2, 10, 200}, new long[]{5, 10, 501},
+                new long[]{7, 10, 700}, new long[]{9, 10, 900}, new long[]{11, 10, 1100});
+
+        ProcessDelta delta = ProcessDelta.between(previous, current);
+        assertArrayEquals(new int[]{1, 3, 5}, delta.getAdded());
+        assertArrayEquals(new long[]{3}, delta.getRemoved());
+        assertArrayEquals(new int[]{2}, delta.getChanged());
+    }
+
+    @Test
+    void everythingIsAddedOrRemovedAgainstEmpty() {
+        ProcessSnapshot snapshot = snapshot(new long[]{4, 10, 1}, new long[]{8, 10, 1});
+        assertArrayEquals(new int[]{0, 1}, ProcessDelta.between(ProcessSnapshot.EMPTY, snapshot).getAdded());
+        assertArrayEquals(new long[]{4, 8}, ProcessDelta.between(snapshot, ProcessSnapshot.EMPTY).getRemoved());
+    }
+
+    @Test
+    void reusedPidIsRemovedAndAdded() {
+        ProcessSnapshot previous = snapshot(new long[]{6, 10, 100});
+        ProcessSnapshot current = snapshot(new long[]{6, 20, 100});
+
+        ProcessDelta delta = ProcessDelta.between(previous, current);
+        assertArrayEquals(new long[]{6}, delta.getRemoved());
+        assertArrayEquals(new int[]{0}, delta.getAdded());
+        assertArrayEquals(new int[0], delta.getChanged());
+    }
+
+    @Test
+    void renamedProcessIsChanged() {
+        ProcessSnapshot.Builder before = new ProcessSnapshot.Builder(1);
+        before.add(3, 1, 0, 0, 100, 10, 1, "worker", "/usr/bin/app", "", "root");
+        ProcessSnapshot.Builder after = new ProcessSnapshot.Builder(1);
+        after.add(3, 1, 0, 0, 100, 10, 1, "app: idle", "/usr/bin/app", "", "nobody");
+
+        assertArrayEquals(new int[]{0}, ProcessDelta.between(before.build(0, 0), after.build(0, 0)).getChanged());
+    }
+}
@@ -0,0 +1,152 @@
+package org.example.taskmanager;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProcessLifecycleTest {
+
+    @TempDir
+    Path procRoot;
+
+    private void writeProcess(long pid, long ppid, String name, long startTicks) throws IOException {
+        Path dir = Files.createDirectories(procRoot.resolve(Long.toString(pid)));
+        Files.writeString(dir.resolve("stat"), pid + " (" + name + ") S " + ppid + " " + pid + " " + pid
+                + " 0 -1 4194560 1200 0 3 0 250 50 0 0 20 0 1 0 " + startTicks
+                + " 409600 100 18446744073709551615 0 0 0 0 0 0 0 0 0 0 0 0 17 3 0 0 0 0 0\n");
+        Files.writeString(dir.resolve("status"), "Name:\t" + name + "\nUid:\t0\t0\t0\t0\nThreads:\t1\n"
+                + "voluntary_ctxt_switches:\t12\nnonvoluntary_ctxt_switches:\t3\n");
+        Files.writeString(dir.resolve("io"), "read_bytes: 4096\nwrite_bytes: 8192\n");
+        Files.writeString(dir.resolve("cmdline"), "/usr/bin/" + name + "\0--flag\0");
+    }
+
+    private void removeProcess(long pid) throws IOException {
+        Path dir = procRoot.resolve(Long.toString(pid));
+        try (var files = Files.list(dir)) {
+            for (Path file : files.toList()) Files.delete(file);
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    void procDiffReportsStartsAndExits() throws IOException {
+        writeProcess(1, 0, "init", 10);
+        writeProcess(42, 1, "shell", 20);
+        Files.createDirectories(procRoot.resolve("self"));
+        Files.createDirectories(procRoot.resolve("sys"));
+        ProcessLifecycle lifecycle = new ProcessLifecycle(procRoot);
+        List<ProcessLifecycle.Event> events = new ArrayList<>();
+        lifecycle.addListener(events::add);
+
+        lifecycle.pollProc();
+        assertTrue(events.isEmpty(), "the first poll only takes the baseline");
+
+        writeProcess(100, 42, "worker", 30);
+        removeProcess(42);
+        lifecycle.pollProc();
+        assertEquals(2, events.size());
+        ProcessLifecycle.Event exit = events.get(0);
+        assertEquals(ProcessLifecycle.Type.EXIT, exit.type());
+        assertEquals(42, exit.pid());
+        assertNull(exit.name(), "started before the first poll, so unknown");
+        assertEquals(-1, exit.lifetimeMillis());
+        ProcessLifecycle.Event start = events.get(1);
+        assertEquals(ProcessLifecycle.Type.START, start.type());
+        assertEquals(100, start.pid());
+        assertEquals(42, start.parentPid());
+        assertEquals("worker", start.name());
+
+        removeProcess(100);
+        lifecycle.pollProc();
+        ProcessLifecycle.Event workerExit = events.get(2);
+        assertEquals(100, workerExit.pid());
+        assertEquals("worker", workerExit.name());
+        assertTrue(workerExit.lifetimeMillis() >= 0 && workerExit.lifetimeMillis() < ProcessLifecycle.SHORT_LIVED_MILLIS);
+        assertEquals(-1, workerExit.exitCode());
+
+        ProcessLifecycle.Counts counts = lifecycle.counts();
+        assertEquals(1, counts.started());
+        assertEquals(2, counts.exited());
+        assertEquals(1, counts.shortLived());
+        assertEquals(List.of(workerExit), lifecycle.recentShortLived());
+
+        lifecycle.pollProc();
+        assertEquals(3, events.size(), "nothing changed");
+    }
+
+    @Test
+    void engineAppliesEventsWithoutAScan() throws Exception {
+        Files.writeString(procRoot.resolve("stat"), "cpu  1 2 3 4\nbtime 1700000000\n");
+        for (long pid = 1; pid <= 10; pid++) writeProcess(pid, pid == 1 ? 0 : 1, "p" + pid, 100 + pid);
+        ProcessSnapshotEngine engine = new ProcessSnapshotEngine(procRoot);
+        BlockingQueue<ProcessDelta> scans = new LinkedBlockingQueue<>();
+        BlockingQueue<ProcessDelta> updates = new LinkedBlockingQueue<>();
+        engine.addListener((snapshot, delta) -> scans.add(delta));
+        engine.addLifecycleListener((snapshot, delta) -> updates.add(delta));
+        try {
+            engine.refreshNow();
+            assertEquals(10, scans.poll(5, TimeUnit.SECONDS).getAdded().length);
+            assertNotNull(updates.poll(5, TimeUnit.SECONDS));
+
+            // A start, an exit, and a process that came and went within the batch
+            writeProcess(20, 3, "worker", 500);
+            removeProcess(4);
+            engine.onLifecycle(new ProcessLifecycle.Event(ProcessLifecycle.Type.START, 20, 3, "worker", -1, -1));
+            engine.onLifecycle(new ProcessLifecycle.Event(ProcessLifecycle.Type.EXIT, 4, -1, "p4", 10, 0));
+            engine.onLifecycle(new ProcessLifecycle.Event(ProcessLifecycle.Type.START, 30, 3, null, -1, -1));
+            engine.onLifecycle(new ProcessLifecycle.Event(ProcessLifecycle.Type.EXIT, 30, -1, null, 1, 0));
+
+            ProcessDelta delta = updates.poll(5, TimeUnit.SECONDS);
+            assertNotNull(delta);
+            ProcessSnapshot snapshot = engine.getLatest();
+            assertArrayEquals(new long[]{4}, delta.getRemoved());
+            assertEquals(1, delta.getAdded().length);
+            assertEquals(0, delta.getChanged().length);
+            int row = delta.getAdded()[0];
+            assertEquals(20, snapshot.pid(row));
+            assertEquals(3, snapshot.ppid(row));
+            assertEquals("worker", snapshot.name(row));
+            assertEquals("/usr/bin/worker", snapshot.command(row));
+            assertEquals("--flag", snapshot.arguments(row));
+            assertEquals(10, snapshot.size());
+            assertTrue(snapshot.indexOf(4) < 0);
+            assertTrue(scans.isEmpty(), "no scan ran");
+
+            // An exec re-reads the program of a running process
+            writeProcess(5, 1, "exec'd", 105);
+            engine.onLifecycle(new ProcessLifecycle.Event(ProcessLifecycle.Type.EXEC, 5, -1, "exec'd", -1, -1));
+            delta = updates.poll(5, TimeUnit.SECONDS);
+            assertNotNull(delta);
+            snapshot = engine.getLatest();
+            assertEquals(1, delta.getChanged().length);
+            assertEquals("exec'd", snapshot.name(delta.getChanged()[0]));
+
+            // The next scan's delta covers only what the lifecycle listeners have not seen, while plain
+            // listeners get everything since the previous scan
+            engine.refreshNow();
+            delta = scans.poll(5, TimeUnit.SECONDS);
+            assertNotNull(delta);
+            snapshot = engine.getLatest();
+            assertArrayEquals(new int[]{snapshot.indexOf(20)}, delta.getAdded());
+            assertArrayEquals(new long[]{4}, delta.getRemoved());
+            assertArrayEquals(new int[]{snapshot.indexOf(5)}, delta.getChanged());
+            assertTrue(updates.poll(5, TimeUnit.SECONDS).isEmpty());
+        } finally {
+            engine.shutdown();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.example.taskmanager;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProcessQueryTest {
+
+    // pid, name, command, user, cpu %, rss, threads
+    private static final ProcessSearchIndex INDEX;
+
+    static {
+        ProcessSnapshot.Builder builder = new ProcessSnapshot.Builder(5);
+        add(builder, 1, "systemd", "/usr/lib/systemd/systemd", "root", 0.1, 12L << 20, 1);
+        add(builder, 120, "java", "/usr/bin/java -jar Server.jar", "alice", 45.0, 2L << 30, 60);
+        add(builder, 1234, "postgres", "/usr/bin/postgres -D /var/lib/pg", "postgres", 3.5, 300L << 20, 8);
+        add(builder, 2048, "bash", "/bin/bash", "alice", 0.0, 4L << 20, 1);
+        add(builder, 4120, "Indexer", "/opt/indexer/bin/Indexer --all", "bob", 20.0, 512L << 20, 12);
+        INDEX = ProcessSearchIndex.build(builder.build(0, 0), null);
+    }
+
+    private static void add(ProcessSnapshot.Builder builder, long pid, String name, String command, String user,
+                            double cpu, long rss, int threads) {
+        int row = builder.add(pid, 1, 0, 0, rss, 0, threads, name, command, "", user);
+        builder.setCpuPercent(row, cpu);
+    }
+
+    private static long[] run(String query) {
+        return ProcessQuery.parse(query).evaluate(INDEX);
+    }
+
+    @Test
+    void blankQueriesAreEmpty() {
+        assertTrue(ProcessQuery.parse(null).isEmpty());
+        assertTrue(ProcessQuery.parse("").isEmpty());
+        assertTrue(ProcessQuery.parse("  \t ").isEmpty());
+        assertArrayEquals(new long[]{1, 120, 1234, 2048, 4120}, run(" "));
+    }
+
+    @Test
+    void bareTermsMatchNameCommandLineAndPid() {
+        assertArrayEquals(new long[]{120}, run("java"));
+        assertArrayEquals(new long[]{120}, run("server.jar"));
+        assertArrayEquals(new long[]{1234}, run("/var/lib"));
+        // "12" is in pids 120, 1234 and 4120, and in no name or command
+        assertArrayEquals(new long[]{120, 1234, 4120}, run("12"));
+        assertArrayEquals(new long[0], run("nothing-like-this"));
+    }
+
+    @Test
+    void matchingIgnoresCase() {
+        assertArrayEquals(new long[]{4120}, run("INDEXER"));
+        assertArrayEquals(new long[]{4120}, run("name:indexer"));
+        assertArrayEquals(new long[]{120}, run("SERVER"));
+    }
+
+    @Test
+    void fieldTermsMatchTheirField() {
+        assertArrayEquals(new long[]{120, 2048}, run("user:alice"));
+        assertArrayEquals(new long[]{1234}, run("user:post"));
+        assertArrayEquals(new long[]{1234}, run("pid:123"));
+        assertArrayEquals(new long[]{2048}, run("cmd:/bin/bash"));
+        // An unknown field, or a field without a value, is searched as plain text
+        assertArrayEquals(new long[0], run("owner:alice"));
+        assertArrayEquals(new long[0], run("user:"));
+    }
+
+    @Test
+    void numericComparisons() {
+        assertArrayEquals(new long[]{120, 4120}, run("cpu>=20"));
+        assertArrayEquals(new long[]{120}, run("cpu>20"));
+        assertArrayEquals(new long[]{1, 2048}, run("cpu<1"));
+        assertArrayEquals(new long[]{1, 2048}, run("threads=1"));
+        assertArrayEquals(new long[]{1, 1234, 2048, 4120}, run("threads<=12"));
+    }
+
+    @Test
+    void memorySizesTakeSuffixes() {
+        assertArrayEquals(new long[]{120}, run("rss>1g"));
+        assertArrayEquals(new long[]{120, 4120}, run("mem>=512m"));
+        assertArrayEquals(new long[]{1, 2048}, run("rss<20480k"));
+        assertArrayEquals(new long[]{120, 1234, 4120}, run("rss>" + (100L << 20)));
+    }
+
+    @Test
+    void termsAreAnded() {
+        assertArrayEquals(new long[]{120}, run("user:alice cpu>10"));
+        assertArrayEquals(new long[]{2048}, run("user:alice   bash"));
+        assertArrayEquals(new long[0], run("java postgres"));
+    }
+
+    @Test
+    void malformedComparisonsAreSearchedAsText() {
+        ProcessQuery query = ProcessQuery.parse("cpu>lots");
+        assertFalse(query.isLive());
+        assertArrayEquals(new long[0], query.evaluate(INDEX));
+        assertFalse(ProcessQuery.parse("size>10").isLive());
+    }
+
+    @Test
+    void onlyNumericTermsAreLive() {
+        assertFalse(ProcessQuery.parse("java user:alice pid:12").isLive());
+        assertTrue(ProcessQuery.parse("java cpu>5").isLive());
+        assertTrue(ProcessQuery.parse("rss>1m").isLive());
+        assertTrue(ProcessQuery.parse("threads>4").isLive());
+    }
+}
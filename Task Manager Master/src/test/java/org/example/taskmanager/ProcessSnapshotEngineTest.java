@@ -0,0 +1,84 @@
+package org.example.taskmanager;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class ProcessSnapshotEngineTest {
+
+    @TempDir
+    Path procRoot;
+
+    private void writeProcess(long pid, int threads) throws IOException {
+        Path dir = Files.createDirectories(procRoot.resolve(Long.toString(pid)));
+        Files.writeString(dir.resolve("stat"), pid + " (p" + pid + ") S 1 " + pid + " " + pid
+                + " 0 -1 4194560 1200 0 3 0 250 50 0 0 20 0 " + threads + " 0 100"
+                + " 409600 100 18446744073709551615 0 0 0 0 0 0 0 0 0 0 0 0 17 3 0 0 0 0 0\n");
+        Files.writeString(dir.resolve("cmdline"), "/bin/p" + pid + "\0");
+    }
+
+    private void writeSwitches(Path status, long voluntary) throws IOException {
+        Files.createDirectories(status.getParent());
+        Files.writeString(status, "Name:\tp\nUid:\t0\t0\t0\t0\nvoluntary_ctxt_switches:\t" + voluntary
+                + "\nnonvoluntary_ctxt_switches:\t0\n");
+    }
+
+    @Test
+    void multiThreadedSwitchesAreReadInTurn() throws Exception {
+        Files.writeString(procRoot.resolve("stat"), "cpu  1 2 3 4\nbtime 1700000000\n");
+        writeProcess(1, 1);
+        writeSwitches(procRoot.resolve("1/status"), 10);
+        writeProcess(7, 2);
+        writeSwitches(procRoot.resolve("7/status"), 10);
+        writeSwitches(procRoot.resolve("7/task/7/status"), 10);
+        writeSwitches(procRoot.resolve("7/task/8/status"), 20);
+
+        ProcessSnapshotEngine engine = new ProcessSnapshotEngine(procRoot);
+        BlockingQueue<ProcessSnapshot> scans = new LinkedBlockingQueue<>();
+        engine.addListener((snapshot, delta) -> scans.add(snapshot));
+        try {
+            engine.refreshNow();
+            ProcessSnapshot first = scans.poll(5, TimeUnit.SECONDS);
+            assertNotNull(first);
+            assertEquals(30, first.voluntarySwitches(first.indexOf(7)), "summed over the threads");
+
+            // Both processes switch 100 more times; the single-threaded one shows it at once, the
+            // multi-threaded one in the one scan out of five that reads it
+            writeSwitches(procRoot.resolve("1/status"), 110);
+            writeSwitches(procRoot.resolve("7/task/8/status"), 120);
+            int reads = 0;
+            long shown = 30;
+            double shownRate = 0;
+            for (int scan = 0; scan < 5; scan++) {
+                engine.refreshNow();
+                ProcessSnapshot snapshot = scans.poll(5, TimeUnit.SECONDS);
+                assertNotNull(snapshot);
+                assertEquals(110, snapshot.voluntarySwitches(snapshot.indexOf(1)));
+                int row = snapshot.indexOf(7);
+                if (snapshot.voluntarySwitches(row) == shown) {
+                    assertEquals(shownRate, snapshot.voluntarySwitchesPerSec(row), "carried with the counters");
+                    continue;
+                }
+                reads++;
+                assertEquals(130, snapshot.voluntarySwitches(row));
+                // Measured since the first scan, the last one to read the counters
+                double seconds = (snapshot.getCapturedAtNanos() - first.getCapturedAtNanos()) / 1e9;
+                assertEquals(100 / seconds, snapshot.voluntarySwitchesPerSec(row), 1e-6);
+                shown = 130;
+                shownRate = snapshot.voluntarySwitchesPerSec(row);
+            }
+            assertEquals(1, reads);
+        } finally {
+            engine.shutdown();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package org.example.taskmanager;
+
+import javafx.scene.control.TreeItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ProcessTreeModelTest {
+
+    private record Proc(long ppid, long start, long rss, int threads) { }
+
+    private final ProcessTableModel table = new ProcessTableModel();
+    private final ProcessTreeModel tree = new ProcessTreeModel();
+    private ProcessSnapshot previous = ProcessSnapshot.EMPTY;
+
+    // Applies the next scan to the table and then the tree, as the UI does
+    private void scan(Map<Long, Proc> procs) {
+        ProcessSnapshot.Builder builder = new ProcessSnapshot.Builder(procs.size());
+        for (Map.Entry<Long, Proc> entry : new TreeMap<>(procs).entrySet()) {
+            Proc proc = entry.getValue();
+            int i = builder.add(entry.getKey(), proc.ppid, 0, 0, proc.rss, proc.start, proc.threads,
+                    "p" + entry.getKey(), "/bin/p", "", "root");
+            builder.setCpuPercent(i, proc.rss / 10.0);
+        }
+        ProcessSnapshot snapshot = builder.build(0, 0);
+        ProcessDelta delta = ProcessDelta.between(previous, snapshot);
+        table.apply(snapshot, delta);
+        tree.apply(table, snapshot, delta);
+        previous = snapshot;
+    }
+
+    private TreeItem<ProcessRow> item(long pid) {
+        List<TreeItem<ProcessRow>> pending = new ArrayList<>(tree.getRoot().getChildren());
+        while (!pending.isEmpty()) {
+            TreeItem<ProcessRow> item = pending.removeLast();
+            if (item.getValue().getPid() == pid) return item;
+            pending.addAll(item.getChildren());
+        }
+        throw new AssertionError("pid " + pid + " is not in the tree");
+    }
+
+    private long parentPid(long pid) {
+        TreeItem<ProcessRow> parent = item(pid).getParent();
+        return parent == tree.getRoot() ? 0 : parent.getValue().getPid();
+    }
+
+    @Test
+    void subtreeTotalsMatchARecountAfterEveryDelta() {
+        // Pids only grow and parents are always older, so the tree a recount expects is unambiguous
+        Random random = new Random(3);
+        Map<Long, Proc> procs = new TreeMap<>();
+        long nextPid = 1;
+        for (int scan = 0; scan < 200; scan++) {
+            int changes = scan == 0 ? 50 : 1 + random.nextInt(8);
+            for (int k = 0; k < changes; k++) {
+                List<Long> live = new ArrayList<>(procs.keySet());
+                int op = live.isEmpty() ? 0 : random.nextInt(4);
+                if (op == 0) {
+                    // The parent may have exited already, leaving an orphan
+                    long ppid = nextPid == 1 ? 0 : 1 + random.nextLong(nextPid - 1);
+                    procs.put(nextPid, new Proc(ppid, scan, 1 + random.nextInt(1_000), 1 + random.nextInt(4)));
+                    nextPid++;
+                } else {
+                    long pid = live.get(random.nextInt(live.size()));
+                    Proc proc = procs.get(pid);
+                    if (op == 1) {
+                        procs.remove(pid);
+                    } else if (op == 2) {
+                        procs.put(pid, new Proc(proc.ppid, proc.start, 1 + random.nextInt(1_000), proc.threads));
+                    } else {
+                        long ppid = pid == 1 ? 0 : 1 + random.nextLong(pid - 1);
+                        if (!procs.containsKey(ppid) || procs.get(ppid).start <= proc.start) {
+                            procs.put(pid, new Proc(ppid, proc.start, proc.rss, proc.threads));
+                        }
+                    }
+                }
+            }
+            scan(procs);
+
+            for (long pid : procs.keySet()) {
+                Proc proc = procs.get(pid);
+                assertEquals(procs.containsKey(proc.ppid) ? proc.ppid : 0, parentPid(pid), "parent of " + pid);
+                long rss = 0;
+                int threads = 0;
+                for (Map.Entry<Long, Proc> other : procs.entrySet()) {
+                    // Descendants by walking up from every process
+                    long at = other.getKey();
+                    while (at != pid && procs.containsKey(at)) at = procs.get(at).ppid;
+                    if (at != pid) continue;
+                    rss += other.getValue().rss;
+                    threads += other.getValue().threads;
+                }
+                ProcessRow row = item(pid).getValue();
+                assertEquals(rss, row.getSubtreeRssBytes(), "scan " + scan + ", pid " + pid);
+                assertEquals(threads, row.getSubtreeThreads(), "scan " + scan + ", pid " + pid);
+                assertEquals(rss / 10.0, row.getSubtreeCpuPercent(), 1e-6, "scan " + scan + ", pid " + pid);
+            }
+            assertEquals(procs.size(), table.getRows().size());
+        }
+    }
+
+    @Test
+    void aReusedPidDoesNotAdoptTheOrphansOfItsPredecessor() {
+        Map<Long, Proc> procs = new TreeMap<>();
+        procs.put(1L, new Proc(0, 0, 100, 1));
+        procs.put(10L, new Proc(1, 1_000, 100, 1));
+        procs.put(11L, new Proc(10, 2_000, 100, 1));
+        scan(procs);
+        assertEquals(10, parentPid(11));
+        assertEquals(300, item(1).getValue().getSubtreeRssBytes());
+
+        // 10 exits and its pid goes to a newer process in the same scan, before 11 shows its new parent
+        procs.put(10L, new Proc(1, 3_000, 500, 1));
+        scan(procs);
+        assertEquals(0, parentPid(11));
+        assertEquals(600, item(1).getValue().getSubtreeRssBytes());
+        assertEquals(500, item(10).getValue().getSubtreeRssBytes());
+
+        // Or in a later scan
+        procs.remove(10L);
+        scan(procs);
+        procs.put(10L, new Proc(1, 4_000, 500, 1));
+        scan(procs);
+        assertEquals(0, parentPid(11));
+
+        // Re-parented by the OS, it moves under its new parent
+        procs.put(11L, new Proc(1, 2_000, 100, 1));
+        scan(procs);
+        assertEquals(1, parentPid(11));
+        assertEquals(700, item(1).getValue().getSubtreeRssBytes());
+    }
+
+    @Test
+    void anOlderParentStillAdoptsItsWaitingChildren() {
+        Map<Long, Proc> procs = new TreeMap<>();
+        procs.put(21L, new Proc(20, 5_000, 100, 2));
+        scan(procs);
+        assertEquals(0, parentPid(21));
+
+        procs.put(20L, new Proc(0, 4_000, 50, 1));
+        scan(procs);
+        assertSame(item(20), item(21).getParent());
+        assertEquals(150, item(20).getValue().getSubtreeRssBytes());
+        assertEquals(3, item(20).getValue().getSubtreeThreads());
+    }
+}
@@ -0,0 +1,129 @@
+package org.example.taskmanager;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Re-reading a process through its kept PidFiles must not allocate, whatever the scan does around it.
+class ProcfsReaderAllocationTest {
+
+    private static final ThreadMXBean THREADS = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @TempDir
+    Path procRoot;
+
+    @Test
+    void keptReadsDoNotAllocate() throws IOException {
+        Path dir = Files.createDirectories(procRoot.resolve("42"));
+        Files.writeString(dir.resolve("stat"), "42 (my (odd) name) S 1 42 42 0 -1 4194560 1200 0 3 0 250 50 0 0 20 0"
+                + " 1 0 1234 409600 100 18446744073709551615 0 0 0 0 0 0 0 0 0 0 0 0 17 3 0 0 0 0 0\n");
+        Files.writeString(dir.resolve("status"), "Name:\tjava\nState:\tS (sleeping)\nUid:\t1000\t1000\t1000\t1000\n"
+                + "Threads:\t1\nvoluntary_ctxt_switches:\t12\nnonvoluntary_ctxt_switches:\t3\n");
+        Files.writeString(dir.resolve("io"), "rchar: 1\nwchar: 1\nread_bytes: 4096\nwrite_bytes: 8192\n");
+
+        ProcfsReader reader = new ProcfsReader(procRoot);
+        try (ProcfsReader.PidFiles files = reader.openFiles(42)) {
+            assertTrue(reader.readStat(files));
+            assertTrue(reader.nameEquals("my (odd) name"));
+            assertEquals(1, reader.ppid());
+            assertEquals(250, reader.userTicks());
+            assertEquals(50, reader.systemTicks());
+            assertEquals(1234, reader.startTicks());
+            assertEquals(100, reader.residentPages());
+            assertEquals(1000, reader.readUid(files));
+            assertTrue(reader.readIo(files));
+            assertEquals(4096, reader.readBytes());
+            assertTrue(reader.readContextSwitches(files, 1));
+            assertEquals(12, reader.voluntarySwitches());
+            assertEquals(3, reader.involuntarySwitches());
+
+            long sum = 0;
+            for (int i = 0; i < 20_000; i++) sum += readAll(reader, files); // warm up, opens nothing new
+            long before = THREADS.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < 1_000; i++) sum += readAll(reader, files);
+            long allocated = THREADS.getCurrentThreadAllocatedBytes() - before;
+            assertEquals(0, allocated, "bytes allocated by 1000 kept reads");
+            assertEquals(21_000L * (250 + 50 + 1000 + 4096 + 12), sum);
+        }
+    }
+
+    private static void writeTask(Path dir, long tid, long voluntary, long involuntary) throws IOException {
+        Path task = Files.createDirectories(dir.resolve("task").resolve(Long.toString(tid)));
+        Files.writeString(task.resolve("status"), "Name:\tworker\nThreads:\t3\nvoluntary_ctxt_switches:\t"
+                + voluntary + "\nnonvoluntary_ctxt_switches:\t" + involuntary + "\n");
+    }
+
+    @Test
+    void keptThreadReadsDoNotAllocate() throws IOException {
+        Path dir = Files.createDirectories(procRoot.resolve("43"));
+        Files.writeString(dir.resolve("stat"), "43 (pool) S 1 43 43 0 -1 4194560 1200 0 3 0 250 50 0 0 20 0"
+                + " 3 0 1234 409600 100 18446744073709551615 0 0 0 0 0 0 0 0 0 0 0 0 17 3 0 0 0 0 0\n");
+        Files.writeString(dir.resolve("status"), "Name:\tpool\nUid:\t0\t0\t0\t0\nThreads:\t3\n"
+                + "voluntary_ctxt_switches:\t10\nnonvoluntary_ctxt_switches:\t1\n");
+        writeTask(dir, 43, 10, 1);
+        writeTask(dir, 44, 20, 2);
+        writeTask(dir, 45, 30, 3);
+
+        ProcfsReader reader = new ProcfsReader(procRoot);
+        try (ProcfsReader.PidFiles files = reader.openFiles(43)) {
+            assertTrue(reader.readStat(files));
+            assertEquals(3, reader.threads());
+            assertTrue(reader.readContextSwitches(files, reader.threads()));
+            assertEquals(60, reader.voluntarySwitches());
+            assertEquals(6, reader.involuntarySwitches());
+
+            long sum = 0;
+            for (int i = 0; i < 20_000; i++) sum += readAll(reader, files);
+            long before = THREADS.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < 1_000; i++) sum += readAll(reader, files);
+            long allocated = THREADS.getCurrentThreadAllocatedBytes() - before;
+            assertEquals(0, allocated, "bytes allocated by 1000 kept reads of a multi-threaded process");
+            assertEquals(21_000L * (250 + 50 + 0 - 1 + 60), sum);
+
+            // Threads come and go; a changed count lists them again
+            Files.delete(dir.resolve("task/45/status"));
+            Files.delete(dir.resolve("task/45"));
+            writeTask(dir, 46, 5, 5);
+            writeTask(dir, 47, 100, 0);
+            assertTrue(reader.readContextSwitches(files, 4));
+            assertEquals(135, reader.voluntarySwitches());
+            assertEquals(8, reader.involuntarySwitches());
+        }
+    }
+
+    @Test
+    void readsStatusFilesLongerThanAPage() throws IOException {
+        Path dir = Files.createDirectories(procRoot.resolve("44"));
+        // Many supplementary groups push the counters past the first 4 KiB
+        StringBuilder groups = new StringBuilder("Groups:");
+        for (int gid = 1000; gid < 3000; gid++) groups.append(' ').append(gid);
+        Files.writeString(dir.resolve("status"), "Name:\tbig\nUid:\t1000\t1000\t1000\t1000\n" + groups
+                + "\nThreads:\t1\nvoluntary_ctxt_switches:\t77\nnonvoluntary_ctxt_switches:\t7\n");
+
+        ProcfsReader reader = new ProcfsReader(procRoot);
+        try (ProcfsReader.PidFiles files = reader.openFiles(44)) {
+            assertTrue(reader.readContextSwitches(files, 1));
+            assertEquals(77, reader.voluntarySwitches());
+            assertEquals(7, reader.involuntarySwitches());
+            assertEquals(1000, reader.readUid(files));
+        }
+        assertTrue(reader.readContextSwitches(44, 1));
+        assertEquals(7, reader.involuntarySwitches());
+    }
+
+    private static long readAll(ProcfsReader reader, ProcfsReader.PidFiles files) {
+        reader.readStat(files);
+        long sum = reader.userTicks() + reader.systemTicks() + reader.readUid(files);
+        reader.readIo(files);
+        reader.readContextSwitches(files, reader.threads());
+        return sum + reader.readBytes() + reader.voluntarySwitches();
+    }
+}
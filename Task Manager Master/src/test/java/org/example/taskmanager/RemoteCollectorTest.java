@@ -0,0 +1,166 @@
+package org.example.taskmanager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// An AgentServer and a RemoteCollector talking over a loopback port; the agent is fed snapshots directly
+class RemoteCollectorTest {
+
+    private record Received(ProcessSnapshot snapshot, ProcessDelta delta) { }
+
+    private final ProcessSnapshotEngine engine = new ProcessSnapshotEngine();
+    private final BlockingQueue<Received> received = new LinkedBlockingQueue<>();
+    private AgentServer agent;
+    private RemoteCollector collector;
+
+    @AfterEach
+    void tearDown() {
+        if (collector != null) collector.stop();
+        if (agent != null) agent.stop();
+        engine.shutdown();
+    }
+
+    // Rows as {pid, start, rss}
+    static ProcessSnapshot snapshot(long time, long[]... rows) {
+        ProcessSnapshot.Builder builder = new ProcessSnapshot.Builder(rows.length);
+        for (long[] row : rows) {
+            builder.add(row[0], 1, 0, 0, row[2], row[1], 1, "p" + row[0], "/bin/p" + row[0], "-x", "root");
+        }
+        return builder.build(time * 1_000_000, time);
+    }
+
+    private AgentServer startAgent(int port) throws IOException {
+        AgentServer server = new AgentServer(engine, new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 100);
+        server.start();
+        return server;
+    }
+
+    private void connect(long intervalMillis) {
+        collector = new RemoteCollector("127.0.0.1:" + agent.getAddress().getPort(), intervalMillis,
+                (c, snapshot, delta) -> received.add(new Received(snapshot, delta)), 50);
+        collector.start();
+    }
+
+    private Received next() throws InterruptedException {
+        Received frame = received.poll(10, TimeUnit.SECONDS);
+        assertNotNull(frame, "no frame arrived");
+        return frame;
+    }
+
+    private static long[] pids(ProcessSnapshot snapshot) {
+        long[] pids = new long[snapshot.size()];
+        for (int i = 0; i < pids.length; i++) pids[i] = snapshot.pid(i);
+        return pids;
+    }
+
+    private static void assertSameDelta(ProcessDelta expected, ProcessDelta actual) {
+        assertArrayEquals(expected.getAdded(), actual.getAdded(), "added");
+        assertArrayEquals(expected.getRemoved(), actual.getRemoved(), "removed");
+        assertArrayEquals(expected.getChanged(), actual.getChanged(), "changed");
+    }
+
+    @Test
+    void fullFrameThenDeltaFrames() throws Exception {
+        ProcessSnapshot first = snapshot(1_000, new long[]{1, 10, 100}, new long[]{2, 10, 200},
+                new long[]{3, 10, 300}, new long[]{5, 10, 500});
+        agent = startAgent(0);
+        agent.onSnapshot(first, ProcessDelta.between(ProcessSnapshot.EMPTY, first));
+        connect(100);
+
+        Received full = next();
+        assertArrayEquals(new long[]{1, 2, 3, 5}, pids(full.snapshot));
+        assertEquals(1_000, full.snapshot.getCapturedAtMillis());
+        assertArrayEquals(new int[]{0, 1, 2, 3}, full.delta.getAdded());
+
+        // 2 changes, 3 exits, 4 starts and 5 is a reused pid
+        ProcessSnapshot second = snapshot(2_000, new long[]{1, 10, 100}, new long[]{2, 10, 250},
+                new long[]{4, 20, 400}, new long[]{5, 20, 550});
+        agent.onSnapshot(second, ProcessDelta.between(first, second));
+
+        Received delta = next();
+        assertArrayEquals(new long[]{1, 2, 4, 5}, pids(delta.snapshot));
+        assertEquals(250, delta.snapshot.rssBytes(1));
+        assertEquals(20, delta.snapshot.startMillis(3));
+        assertEquals("-x", delta.snapshot.arguments(2));
+        assertEquals(2_000, delta.snapshot.getCapturedAtMillis());
+        assertArrayEquals(new int[]{2, 3}, delta.delta.getAdded());
+        assertArrayEquals(new long[]{3, 5}, delta.delta.getRemoved());
+        assertArrayEquals(new int[]{1}, delta.delta.getChanged());
+        assertSameDelta(ProcessDelta.between(full.snapshot, delta.snapshot), delta.delta);
+        assertEquals(delta.snapshot, collector.getLatest());
+    }
+
+    @Test
+    void reconnectsAndResyncsWithAFullFrame() throws Exception {
+        ProcessSnapshot first = snapshot(1_000, new long[]{1, 10, 100}, new long[]{2, 10, 200});
+        agent = startAgent(0);
+        int port = agent.getAddress().getPort();
+        agent.onSnapshot(first, ProcessDelta.between(ProcessSnapshot.EMPTY, first));
+        connect(100);
+        Received before = next();
+
+        agent.stop();
+        // The agent comes back with a process gone and one new
+        ProcessSnapshot after = snapshot(3_000, new long[]{2, 10, 200}, new long[]{7, 30, 700});
+        agent = startAgent(port);
+        agent.onSnapshot(after, ProcessDelta.between(ProcessSnapshot.EMPTY, after));
+
+        Received resync = next();
+        assertArrayEquals(new long[]{2, 7}, pids(resync.snapshot));
+        // Against what the collector had before the outage, not against nothing
+        assertArrayEquals(new long[]{1}, resync.delta.getRemoved());
+        assertArrayEquals(new int[]{1}, resync.delta.getAdded());
+        assertArrayEquals(new int[0], resync.delta.getChanged());
+        assertSameDelta(ProcessDelta.between(before.snapshot, resync.snapshot), resync.delta);
+    }
+
+    @Test
+    void stopDoesNotWaitForTheReadTimeout() throws Exception {
+        ProcessSnapshot first = snapshot(1_000, new long[]{1, 10, 100});
+        agent = startAgent(0);
+        agent.onSnapshot(first, ProcessDelta.between(ProcessSnapshot.EMPTY, first));
+        connect(100);
+        next();
+
+        // The collector is blocked reading a stream that has nothing to send
+        long started = System.nanoTime();
+        collector.stop();
+        assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(5));
+    }
+
+    @Test
+    void slowClientGetsOneDeltaForSeveralScans() throws Exception {
+        ProcessSnapshot first = snapshot(1_000, new long[]{1, 10, 100}, new long[]{2, 10, 200});
+        agent = startAgent(0);
+        agent.onSnapshot(first, ProcessDelta.between(ProcessSnapshot.EMPTY, first));
+        connect(1_000);
+        next();
+
+        // Both scans land within the client's interval; only the newest is sent
+        ProcessSnapshot second = snapshot(2_000, new long[]{1, 10, 150}, new long[]{2, 10, 200});
+        ProcessSnapshot third = snapshot(3_000, new long[]{1, 10, 150}, new long[]{3, 30, 300});
+        agent.onSnapshot(second, ProcessDelta.between(first, second));
+        agent.onSnapshot(third, ProcessDelta.between(second, third));
+
+        Received delta = next();
+        assertEquals(3_000, delta.snapshot.getCapturedAtMillis());
+        assertArrayEquals(new long[]{1, 3}, pids(delta.snapshot));
+        assertArrayEquals(new int[]{1}, delta.delta.getAdded());
+        assertArrayEquals(new long[]{2}, delta.delta.getRemoved());
+        assertArrayEquals(new int[]{0}, delta.delta.getChanged());
+        assertNull(received.poll(1_500, TimeUnit.MILLISECONDS), "nothing new to send");
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.taskmanager;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RemoteDeltasTest {
+
+    private record Applied(String host, ProcessSnapshot snapshot, ProcessDelta delta) { }
+
+    private final List<Runnable> pulses = new ArrayList<>();
+    private final List<Applied> applied = new ArrayList<>();
+    private final RemoteDeltas deltas = new RemoteDeltas(
+            (host, snapshot, delta) -> applied.add(new Applied(host, snapshot, delta)), pulses::add);
+    private final RemoteCollector a = new RemoteCollector("a:9000", 1000, null);
+    private final RemoteCollector b = new RemoteCollector("b:9000", 1000, null);
+
+    private void frame(RemoteCollector collector, ProcessSnapshot previous, ProcessSnapshot snapshot) {
+        deltas.onHostSnapshot(collector, snapshot, ProcessDelta.between(previous, snapshot));
+    }
+
+    private void pulse() {
+        List<Runnable> due = new ArrayList<>(pulses);
+        pulses.clear();
+        due.forEach(Runnable::run);
+    }
+
+    @Test
+    void oneDeltaPerHostPerPulse() {
+        ProcessSnapshot a1 = RemoteCollectorTest.snapshot(1, new long[]{1, 10, 100}, new long[]{2, 10, 200});
+        ProcessSnapshot a2 = RemoteCollectorTest.snapshot(2, new long[]{1, 10, 110}, new long[]{3, 10, 300});
+        ProcessSnapshot a3 = RemoteCollectorTest.snapshot(3, new long[]{1, 10, 120}, new long[]{3, 10, 300},
+                new long[]{4, 10, 400});
+        ProcessSnapshot b1 = RemoteCollectorTest.snapshot(1, new long[]{9, 10, 900});
+
+        frame(a, ProcessSnapshot.EMPTY, a1);
+        frame(b, ProcessSnapshot.EMPTY, b1);
+        frame(a, a1, a2);
+        assertEquals(1, pulses.size(), "one pulse for all frames");
+
+        pulse();
+        assertEquals(2, applied.size());
+        Applied first = applied.stream().filter(x -> x.host.equals("a:9000")).findFirst().orElseThrow();
+        assertSame(a2, first.snapshot);
+        // a1 never reached the table, so the delta is against nothing
+        assertArrayEquals(new int[]{0, 1}, first.delta.getAdded());
+        assertArrayEquals(new long[0], first.delta.getRemoved());
+
+        // The next pulse folds two frames into one delta against a2
+        applied.clear();
+        ProcessSnapshot a4 = RemoteCollectorTest.snapshot(4, new long[]{1, 10, 120}, new long[]{4, 10, 400});
+        frame(a, a2, a3);
+        frame(a, a3, a4);
+        assertEquals(1, pulses.size());
+        pulse();
+        assertEquals(1, applied.size());
+        Applied folded = applied.get(0);
+        assertSame(a4, folded.snapshot);
+        assertArrayEquals(new int[]{1}, folded.delta.getAdded());
+        assertArrayEquals(new long[]{3}, folded.delta.getRemoved());
+        assertArrayEquals(new int[]{0}, folded.delta.getChanged());
+    }
+
+    @Test
+    void emptyFramesScheduleNothing() {
+        ProcessSnapshot a1 = RemoteCollectorTest.snapshot(1, new long[]{1, 10, 100});
+        frame(a, ProcessSnapshot.EMPTY, a1);
+        pulse();
+        applied.clear();
+
+        ProcessSnapshot same = RemoteCollectorTest.snapshot(2, new long[]{1, 10, 100});
+        frame(a, a1, same);
+        assertTrue(pulses.isEmpty());
+        assertTrue(applied.isEmpty());
+    }
+
+    @Test
+    void removedHostsGetNothingMoreAndStartAfresh() {
+        ProcessSnapshot a1 = RemoteCollectorTest.snapshot(1, new long[]{1, 10, 100});
+        ProcessSnapshot a2 = RemoteCollectorTest.snapshot(2, new long[]{1, 10, 150});
+        frame(a, ProcessSnapshot.EMPTY, a1);
+        pulse();
+        applied.clear();
+
+        frame(a, a1, a2);
+        deltas.removeHost("a:9000");
+        pulse();
+        assertTrue(applied.isEmpty());
+
+        // Attached again, with a new collector
+        RemoteCollector again = new RemoteCollector("a:9000", 1000, null);
+        frame(again, ProcessSnapshot.EMPTY, a2);
+        pulse();
+        assertEquals(1, applied.size());
+        assertArrayEquals(new int[]{0}, applied.get(0).delta.getAdded());
+    }
+}
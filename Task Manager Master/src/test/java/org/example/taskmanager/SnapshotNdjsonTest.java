@@ -0,0 +1,133 @@
+package org.example.taskmanager;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Frames written as the agent writes them and read back by RemoteCollector's readers
+class SnapshotNdjsonTest {
+
+    private static final String AWKWARD = "quote \" backslash \\ tab \t newline \n cr \r bell \u0007 ünïcödé ✓";
+
+    private static void add(ProcessSnapshot.Builder builder, long pid, long start, long rss, String text) {
+        int i = builder.add(pid, 1, 1_234, 567, rss, start, 3, "p" + pid, "/bin/" + text, text, "user " + text);
+        builder.setCpuPercent(i, 12.5);
+        builder.setCounters(i, pid == 1 ? -1 : 1L << 33, 4_096, 77, -1);
+        builder.setRates(i, 1_024.25, 0, 3.5, 0.75);
+    }
+
+    private static ProcessSnapshot first() {
+        ProcessSnapshot.Builder builder = new ProcessSnapshot.Builder(3);
+        add(builder, 1, 1_700_000_000_123L, 1L << 40, "plain");
+        add(builder, 42, 1_700_000_001_000L, 8_192, AWKWARD);
+        add(builder, 100, 1_700_000_002_000L, 0, "");
+        return builder.build(0, 5_000);
+    }
+
+    // Reads the header as RemoteCollector does, leaving the rows to the frame reader
+    private static SnapshotNdjson.Fields header(BufferedReader reader, String type) throws IOException {
+        SnapshotNdjson.Fields fields = new SnapshotNdjson.Fields();
+        assertTrue(SnapshotNdjson.parse(reader.readLine(), fields));
+        assertEquals(type, fields.text("type"));
+        assertEquals(12.5, fields.decimal("cpu"));
+        assertEquals(3L << 30, fields.number("memUsed"));
+        assertEquals(4L << 30, fields.number("memTotal"));
+        return fields;
+    }
+
+    private static void assertSameRows(ProcessSnapshot expected, ProcessSnapshot actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            String row = "row " + i;
+            assertEquals(expected.pid(i), actual.pid(i), row);
+            assertEquals(expected.ppid(i), actual.ppid(i), row);
+            assertEquals(expected.userCpuMillis(i), actual.userCpuMillis(i), row);
+            assertEquals(expected.systemCpuMillis(i), actual.systemCpuMillis(i), row);
+            assertEquals(expected.rssBytes(i), actual.rssBytes(i), row);
+            assertEquals(expected.startMillis(i), actual.startMillis(i), row);
+            assertEquals(expected.threads(i), actual.threads(i), row);
+            assertEquals(expected.cpuPercent(i), actual.cpuPercent(i), row);
+            assertEquals(expected.name(i), actual.name(i), row);
+            assertEquals(expected.command(i), actual.command(i), row);
+            assertEquals(expected.arguments(i), actual.arguments(i), row);
+            assertEquals(expected.user(i), actual.user(i), row);
+            assertEquals(expected.readBytes(i), actual.readBytes(i), row);
+            assertEquals(expected.writeBytes(i), actual.writeBytes(i), row);
+            assertEquals(expected.voluntarySwitches(i), actual.voluntarySwitches(i), row);
+            assertEquals(expected.involuntarySwitches(i), actual.involuntarySwitches(i), row);
+            assertEquals(expected.readBytesPerSec(i), actual.readBytesPerSec(i), row);
+            assertEquals(expected.writeBytesPerSec(i), actual.writeBytesPerSec(i), row);
+            assertEquals(expected.voluntarySwitchesPerSec(i), actual.voluntarySwitchesPerSec(i), row);
+            assertEquals(expected.involuntarySwitchesPerSec(i), actual.involuntarySwitchesPerSec(i), row);
+        }
+    }
+
+    @Test
+    void snapshotFrameRoundTrips() throws IOException {
+        ProcessSnapshot snapshot = first();
+        StringBuilder out = new StringBuilder();
+        SnapshotNdjson.appendHeader(out, "snapshot", 5_000, 12.5, 3L << 30, 4L << 30, snapshot.size());
+        // Rows in any order; the reader sorts them by pid
+        for (int i = snapshot.size() - 1; i >= 0; i--) SnapshotNdjson.appendRow(out, null, snapshot, i);
+        assertEquals(4, out.toString().lines().count(), "escaped newlines keep a row on one line");
+
+        BufferedReader reader = new BufferedReader(new StringReader(out.toString()));
+        SnapshotNdjson.Fields fields = header(reader, "snapshot");
+        ProcessSnapshot read = RemoteCollector.readSnapshot(reader, fields, (int) fields.number("rows"),
+                fields.number("time"));
+        assertEquals(5_000, read.getCapturedAtMillis());
+        assertSameRows(snapshot, read);
+        assertEquals(null, reader.readLine());
+    }
+
+    @Test
+    void deltaFrameRoundTrips() throws IOException {
+        ProcessSnapshot previous = first();
+        // 1 exits, 7 starts, 42 changes and 100 is a reused pid
+        ProcessSnapshot.Builder builder = new ProcessSnapshot.Builder(3);
+        add(builder, 7, 1_700_000_003_000L, 4_096, "new");
+        add(builder, 42, 1_700_000_001_000L, 16_384, AWKWARD);
+        add(builder, 100, 1_700_000_004_000L, 0, "reused");
+        ProcessSnapshot next = builder.build(0, 6_000);
+
+        StringBuilder out = new StringBuilder();
+        SnapshotNdjson.appendHeader(out, "delta", 6_000, 12.5, 3L << 30, 4L << 30, 5);
+        SnapshotNdjson.appendRemove(out, 1);
+        SnapshotNdjson.appendRemove(out, 100);
+        SnapshotNdjson.appendRow(out, "add", next, 2);
+        SnapshotNdjson.appendRow(out, "add", next, 0);
+        SnapshotNdjson.appendRow(out, "change", next, 1);
+
+        BufferedReader reader = new BufferedReader(new StringReader(out.toString()));
+        SnapshotNdjson.Fields fields = header(reader, "delta");
+        RemoteCollector.Update update = RemoteCollector.readDelta(reader, fields, (int) fields.number("rows"),
+                fields.number("time"), previous);
+        assertEquals(6_000, update.snapshot().getCapturedAtMillis());
+        assertSameRows(next, update.snapshot());
+        ProcessDelta expected = ProcessDelta.between(previous, next);
+        assertArrayEquals(expected.getAdded(), update.delta().getAdded());
+        assertArrayEquals(expected.getRemoved(), update.delta().getRemoved());
+        assertArrayEquals(expected.getChanged(), update.delta().getChanged());
+        assertArrayEquals(new long[]{1, 100}, update.delta().getRemoved());
+    }
+
+    @Test
+    void rejectsWhatItDoesNotWrite() {
+        SnapshotNdjson.Fields fields = new SnapshotNdjson.Fields();
+        assertFalse(SnapshotNdjson.parse("", fields));
+        assertFalse(SnapshotNdjson.parse("[1,2]", fields));
+        assertFalse(SnapshotNdjson.parse("{\"pid\":1", fields));
+        assertFalse(SnapshotNdjson.parse("{\"name\":\"unterminated}", fields));
+        assertFalse(SnapshotNdjson.parse("{pid:1}", fields));
+        assertTrue(SnapshotNdjson.parse("{ }", fields));
+        assertEquals("", fields.text("pid"));
+        assertEquals(0, fields.number("pid"));
+    }
+}
@@ -0,0 +1,155 @@
+package org.example.taskmanager;
+
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimeSeriesChartTest {
+
+    private static long[] times(int n) {
+        long[] times = new long[n];
+        for (int i = 0; i < n; i++) times[i] = 1_000_000L + i * 1000L;
+        return times;
+    }
+
+    @Test
+    void keepsTheEndsAndOnePointPerBucket() {
+        int n = 10_000;
+        int threshold = 300;
+        double[] values = new double[n];
+        Random random = new Random(7);
+        for (int i = 0; i < n; i++) values[i] = random.nextDouble() * 100;
+        int[] chosen = new int[threshold];
+
+        int count = TimeSeriesChart.lttb(times(n), values, 0, n, threshold, chosen);
+
+        assertEquals(threshold, count);
+        assertEquals(0, chosen[0]);
+        assertEquals(n - 1, chosen[count - 1]);
+        // Bucket k covers [k * every + 1, (k + 1) * every + 1)
+        double every = (double) (n - 2) / (threshold - 2);
+        for (int k = 0; k < threshold - 2; k++) {
+            int index = chosen[k + 1];
+            assertTrue(index >= (int) (k * every) + 1 && index < (int) ((k + 1) * every) + 1, "bucket " + k);
+        }
+    }
+
+    @Test
+    void keepsAnIsolatedSpike() {
+        int n = 5_000;
+        double[] values = new double[n];
+        Arrays.fill(values, 10);
+        values[3_217] = 95;
+        values[4_001] = -40;
+        int[] chosen = new int[100];
+
+        int count = TimeSeriesChart.lttb(times(n), values, 0, n, 100, chosen);
+
+        int[] picked = Arrays.copyOf(chosen, count);
+        assertTrue(Arrays.binarySearch(picked, 3_217) >= 0);
+        assertTrue(Arrays.binarySearch(picked, 4_001) >= 0);
+    }
+
+    @Test
+    void picksOnlyFromTheGivenRange() {
+        int n = 2_000;
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) values[i] = Math.sin(i / 50.0);
+        values[100] = 1_000; // outside the range, must not be picked
+        int[] chosen = new int[50];
+
+        int count = TimeSeriesChart.lttb(times(n), values, 500, 1_500, 50, chosen);
+
+        assertEquals(50, count);
+        assertEquals(500, chosen[0]);
+        assertEquals(1_499, chosen[count - 1]);
+        for (int i = 1; i < count; i++) assertTrue(chosen[i] > chosen[i - 1]);
+    }
+
+    @Test
+    void minMaxMatchesAScanOfEachColumn() {
+        int n = 20_000;
+        long[] times = times(n);
+        double[] values = new double[n];
+        Random random = new Random(11);
+        for (int i = 0; i < n; i++) values[i] = random.nextGaussian() * 10;
+        values[12_345] = 500; // a spike inside a block
+        TimeSeriesChart.Line line = new TimeSeriesChart.Line("test", Color.RED);
+        for (int i = 0; i < n; i++) line.append(times[i], values[i]);
+
+        // A window from the middle of the data, one point either side as the chart draws it
+        long from = times[3_001] + 500;
+        long to = times[17_000];
+        int columns = 300;
+        double plotWidth = columns + 0.5;
+        int a = line.lowerBound(from) - 1;
+        int b = line.lowerBound(to + 1) + 1;
+        int[] column = new int[columns + 1];
+        double[] min = new double[columns + 1];
+        double[] max = new double[columns + 1];
+        int count = TimeSeriesChart.minMax(line, a, b, columns, from, to, plotWidth, column, min, max);
+
+        // Every point in exactly one column, and each column's range straight from its points
+        int point = a;
+        for (int k = 0; k < count; k++) {
+            int c = column[k];
+            assertTrue(k == 0 || c > column[k - 1]);
+            long end = c == columns ? Long.MAX_VALUE : from + (long) ((c + 1) * (double) (to - from) / plotWidth);
+            double lo = Double.POSITIVE_INFINITY;
+            double hi = Double.NEGATIVE_INFINITY;
+            for (; point < b && times[point] < end; point++) {
+                lo = Math.min(lo, values[point]);
+                hi = Math.max(hi, values[point]);
+            }
+            assertEquals(lo, min[k], "column " + c);
+            assertEquals(hi, max[k], "column " + c);
+        }
+        assertEquals(b, point);
+        assertEquals(500, Arrays.stream(max, 0, count).max().orElseThrow());
+    }
+
+    @Test
+    void appendingPastTheLimitDropsWholeBlocks() {
+        TimeSeriesChart.Line line = new TimeSeriesChart.Line("test", Color.RED);
+        int n = TimeSeriesChart.MAX_POINTS + 1_000;
+        // A sawtooth, so every block has its own range
+        for (int i = 0; i < n; i++) line.append(i, i % 1_000 + i / 1_000 * 0.001);
+
+        int size = line.lowerBound(Long.MAX_VALUE);
+        int dropped = line.lowerBound(n - size);
+        assertEquals(0, dropped, "the oldest points went, the newest stayed");
+        assertTrue(size <= TimeSeriesChart.MAX_POINTS && size > TimeSeriesChart.MAX_POINTS / 2, "size " + size);
+        assertEquals(0, (n - size) % 64);
+        for (int a = 0; a < size; a += 4_097) {
+            int b = Math.min(size, a + 10_000);
+            double lo = Double.POSITIVE_INFINITY;
+            double hi = Double.NEGATIVE_INFINITY;
+            for (int i = a; i < b; i++) {
+                double value = (i + n - size) % 1_000 + (i + n - size) / 1_000 * 0.001;
+                lo = Math.min(lo, value);
+                hi = Math.max(hi, value);
+            }
+            assertEquals(lo, line.min(a, b), "from " + a);
+            assertEquals(hi, line.max(a, b), "from " + a);
+        }
+    }
+
+    @Test
+    void appendDoesNotWriteIntoArraysFromSet() {
+        TimeSeriesChart.Line line = new TimeSeriesChart.Line("test", Color.RED);
+        long[] times = {1, 2, 3, 0};
+        double[] values = {5, 6, 7, 0};
+        line.set(times, values, 3);
+        line.append(4, 8);
+        assertEquals(0, times[3]);
+        assertEquals(0, values[3]);
+        assertEquals(4, line.lowerBound(Long.MAX_VALUE));
+        assertEquals(8, line.max(0, 4));
+        assertEquals(5, line.min(0, 4));
+    }
+}